@@ -0,0 +1,53 @@
+package com.trading.reconciliation.config;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Desk lane configuration, bound from reconciliation.desks
+ *
+ * Every configured lane isolates the trades of one or more desks from the rest of the
+ * service: their reconciliation tasks go to a queue of their own, consumed by a fixed
+ * number of listeners, their database work is limited to a share of the primary pool,
+ * and their submissions are admitted against the lane's own backlog. Trades without a
+ * desk, or of a desk without a lane, use the shared lane.
+ */
+@Data
+public class DeskLaneProperties {
+
+    /**
+     * How long a direct submission waits for a connection of its lane's pool share
+     */
+    private long poolShareAcquireTimeoutMs = 200;
+
+    /**
+     * Lanes by name; the name is used in queue names and as the lane tag of metrics
+     */
+    private Map<String, Lane> lanes = new LinkedHashMap<>();
+
+    @Data
+    public static class Lane {
+
+        /**
+         * Desks or books routed to this lane, matched ignoring case; defaults to the lane name
+         */
+        private List<String> desks = new ArrayList<>();
+
+        /**
+         * Listeners consuming the lane's tasks queue
+         */
+        private int concurrency = 2;
+
+        /**
+         * Primary pool connections the lane's ingestion and reconciliation may hold at once
+         */
+        private int poolShare = 4;
+
+        private long maxQueueDepth = 50000;
+        private long maxListenerLagMs = 60000;
+    }
+}
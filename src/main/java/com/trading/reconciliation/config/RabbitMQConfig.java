@@ -1,13 +1,36 @@
 package com.trading.reconciliation.config;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trading.reconciliation.messaging.BinaryJacksonMessageConverter;
+import com.trading.reconciliation.messaging.DeskLanes;
+import com.trading.reconciliation.messaging.ReconciliationTaskRetrier;
+import org.springframework.amqp.core.AnonymousQueue;
+import org.springframework.amqp.core.Binding;
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.Declarables;
+import org.springframework.amqp.core.FanoutExchange;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
 import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.QueueBuilder;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.ContentTypeDelegatingMessageConverter;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
 import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.amqp.SimpleRabbitListenerContainerFactoryConfigurer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.MimeType;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
 
 /**
  * RabbitMQ Configuration
@@ -15,6 +38,9 @@
 @Configuration
 public class RabbitMQConfig {
     
+    // Task messages carry their payload type; only the application's DTOs may be resolved
+    private static final String TRUSTED_PACKAGE = "com.trading.reconciliation.dto";
+    
     @Value("${reconciliation.queue.system-a}")
     private String systemAQueue;
     
@@ -24,6 +50,24 @@ public class RabbitMQConfig {
     @Value("${reconciliation.queue.reconciliation-tasks}")
     private String reconciliationTasksQueue;
     
+    @Value("${reconciliation.queue.reconciliation-priority-tasks}")
+    private String reconciliationPriorityTasksQueue;
+    
+    @Value("${reconciliation.priority.concurrency}")
+    private int priorityConcurrency;
+    
+    @Value("${reconciliation.queue.reconciliation-tasks-dlq}")
+    private String reconciliationTasksDeadLetterQueue;
+    
+    @Value("${reconciliation.queue.status-events-exchange}")
+    private String statusEventsExchange;
+    
+    @Value("${reconciliation.retry.max-attempts}")
+    private int maxRetryAttempts;
+    
+    @Value("${reconciliation.messaging.content-type}")
+    private String messageContentType;
+    
     @Bean
     public Queue systemAQueue() {
         return new Queue(systemAQueue, true);
@@ -40,14 +84,136 @@ public Queue reconciliationTasksQueue() {
     }
     
     @Bean
-    public MessageConverter jsonMessageConverter() {
-        return new Jackson2JsonMessageConverter();
+    public Queue reconciliationPriorityTasksQueue() {
+        return new Queue(reconciliationPriorityTasksQueue, true);
+    }
+    
+    /**
+     * Fanout exchange delivering status transitions to every instance's stream
+     */
+    @Bean
+    public FanoutExchange reconciliationStatusEventsExchange() {
+        return new FanoutExchange(statusEventsExchange, true, false);
+    }
+    
+    /**
+     * This instance's queue of status transitions, removed when the instance disconnects
+     */
+    @Bean
+    public Queue reconciliationStatusEventsQueue() {
+        return new AnonymousQueue();
+    }
+    
+    @Bean
+    public Binding reconciliationStatusEventsBinding() {
+        return BindingBuilder.bind(reconciliationStatusEventsQueue()).to(reconciliationStatusEventsExchange());
+    }
+    
+    /**
+     * Listener container factory for the priority lane
+     * 
+     * Uses the same settings as the default factory but with its own fixed set of
+     * consumers and a prefetch of one, so manual triggers never wait behind bulk tasks
+     * buffered in a consumer.
+     */
+    @Bean
+    public SimpleRabbitListenerContainerFactory priorityListenerContainerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer, ConnectionFactory connectionFactory) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        configurer.configure(factory, connectionFactory);
+        factory.setConcurrentConsumers(priorityConcurrency);
+        factory.setMaxConcurrentConsumers(priorityConcurrency);
+        factory.setPrefetchCount(1);
+        return factory;
+    }
+    
+    /**
+     * Desk lanes, each with its own tasks queue consumed by the DeskLaneTaskListener
+     */
+    @Bean
+    @ConfigurationProperties("reconciliation.desks")
+    public DeskLaneProperties deskLaneProperties() {
+        return new DeskLaneProperties();
+    }
+    
+    @Bean
+    public Declarables deskLaneTasksQueues(DeskLaneProperties deskLaneProperties) {
+        List<Queue> laneQueues = new ArrayList<>();
+        for (String lane : deskLaneProperties.getLanes().keySet()) {
+            laneQueues.add(new Queue(DeskLanes.queueName(reconciliationTasksQueue, lane), true));
+        }
+        return new Declarables(laneQueues);
+    }
+    
+    @Bean
+    public Queue reconciliationTasksDeadLetterQueue() {
+        return new Queue(reconciliationTasksDeadLetterQueue, true);
+    }
+    
+    /**
+     * Delay queues for failed reconciliation tasks, one per task queue and retry attempt
+     * 
+     * The queues have no consumers. Messages expire after their per-message delay and
+     * are dead-lettered through the default exchange back onto their task queue.
+     */
+    @Bean
+    public Declarables reconciliationTaskRetryQueues(DeskLaneProperties deskLaneProperties) {
+        List<String> tasksQueues = new ArrayList<>(List.of(reconciliationTasksQueue, reconciliationPriorityTasksQueue));
+        for (String lane : deskLaneProperties.getLanes().keySet()) {
+            tasksQueues.add(DeskLanes.queueName(reconciliationTasksQueue, lane));
+        }
+        
+        List<Queue> retryQueues = new ArrayList<>();
+        for (String tasksQueue : tasksQueues) {
+            for (int attempt = 1; attempt < maxRetryAttempts; attempt++) {
+                retryQueues.add(QueueBuilder.durable(ReconciliationTaskRetrier.retryQueueName(tasksQueue, attempt))
+                        .deadLetterExchange("")
+                        .deadLetterRoutingKey(tasksQueue)
+                        .build());
+            }
+        }
+        return new Declarables(retryQueues);
+    }
+    
+    /**
+     * Message converter choosing the encoding by content type
+     * 
+     * Incoming messages are decoded according to their content type header (JSON, Smile
+     * or CBOR), so publishers can switch format without coordinating with consumers.
+     * Outgoing messages are encoded with the configured reconciliation.messaging.content-type.
+     */
+    @Bean
+    public MessageConverter messageConverter(ObjectMapper objectMapper,
+                                             ObjectProvider<Jackson2ObjectMapperBuilder> builderProvider) {
+        Jackson2JsonMessageConverter jsonConverter = new Jackson2JsonMessageConverter(
+                objectMapper, TRUSTED_PACKAGE);
+        
+        ContentTypeDelegatingMessageConverter converter = new ContentTypeDelegatingMessageConverter(jsonConverter) {
+            @Override
+            public Message toMessage(Object object, MessageProperties messageProperties) {
+                messageProperties.setContentType(messageContentType);
+                return super.toMessage(object, messageProperties);
+            }
+        };
+        converter.addDelegate(MessageProperties.CONTENT_TYPE_JSON, jsonConverter);
+        converter.addDelegate(WireFormatConfig.SMILE_CONTENT_TYPE, new BinaryJacksonMessageConverter(
+                WireFormatConfig.smileObjectMapper(builderProvider.getObject()),
+                MimeType.valueOf(WireFormatConfig.SMILE_CONTENT_TYPE), TRUSTED_PACKAGE));
+        converter.addDelegate(WireFormatConfig.CBOR_CONTENT_TYPE, new BinaryJacksonMessageConverter(
+                WireFormatConfig.cborObjectMapper(builderProvider.getObject()),
+                MimeType.valueOf(WireFormatConfig.CBOR_CONTENT_TYPE), TRUSTED_PACKAGE));
+        return converter;
     }
     
     @Bean
-    public RabbitTemplate rabbitTemplate(ConnectionFactory connectionFactory) {
+    public RabbitTemplate rabbitTemplate(ConnectionFactory connectionFactory, MessageConverter messageConverter) {
         RabbitTemplate template = new RabbitTemplate(connectionFactory);
-        template.setMessageConverter(jsonMessageConverter());
+        template.setMessageConverter(messageConverter);
+        // Stamp every message with its publish time so consumers can measure queue wait
+        template.setBeforePublishPostProcessors(message -> {
+            message.getMessageProperties().setTimestamp(new Date());
+            return message;
+        });
         return template;
     }
 } 
\ No newline at end of file
@@ -0,0 +1,97 @@
+package com.trading.reconciliation.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * Read/write DataSource routing configuration
+ *
+ * When a read replica is enabled, the application DataSource becomes a
+ * LazyConnectionDataSourceProxy over the primary pool with a read-only target.
+ * Connections for read-only transactions (status lookups and listings) are then
+ * obtained from the replica pool, while all other work stays on the primary.
+ *
+ * The read-only target is guarded by the ReplicaHealthMonitor: if the replica
+ * lags behind the configured freshness threshold or cannot be reached, read-only
+ * transactions fall back to the primary pool until it recovers.
+ *
+ * Both pools are plain HikariDataSource beans with distinct pool names, so the
+ * standard hikaricp and jdbc.connections metrics are published per pool.
+ */
+@Configuration
+@ConditionalOnProperty(name = "reconciliation.datasource.replica.enabled", havingValue = "true")
+public class ReadReplicaDataSourceConfig {
+
+    @Value("${reconciliation.datasource.replica.url}")
+    private String replicaUrl;
+
+    @Value("${reconciliation.datasource.replica.username}")
+    private String replicaUsername;
+
+    @Value("${reconciliation.datasource.replica.password}")
+    private String replicaPassword;
+
+    @Value("${reconciliation.datasource.replica.maximum-pool-size}")
+    private int replicaMaximumPoolSize;
+
+    @Value("${reconciliation.datasource.replica.max-lag-seconds}")
+    private long replicaMaxLagSeconds;
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        dataSource.setPoolName("primary-pool");
+        return dataSource;
+    }
+
+    @Bean
+    public HikariDataSource replicaDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("replica-pool");
+        dataSource.setJdbcUrl(replicaUrl);
+        dataSource.setUsername(replicaUsername);
+        dataSource.setPassword(replicaPassword);
+        dataSource.setDriverClassName(properties.getDriverClassName());
+        dataSource.setMaximumPoolSize(replicaMaximumPoolSize);
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    public ReplicaHealthMonitor replicaHealthMonitor(@Qualifier("replicaDataSource") DataSource replicaDataSource,
+                                                     MeterRegistry meterRegistry) {
+        return new ReplicaHealthMonitor(replicaDataSource, replicaMaxLagSeconds, meterRegistry);
+    }
+
+    /**
+     * Application DataSource routing read-only transactions to the replica
+     *
+     * The lazy proxy defers fetching a physical connection until the first statement,
+     * by which point the transaction manager has marked the connection read-only.
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                 @Qualifier("replicaDataSource") DataSource replicaDataSource,
+                                 ReplicaHealthMonitor replicaHealthMonitor,
+                                 MeterRegistry meterRegistry) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primaryDataSource);
+        dataSource.setReadOnlyDataSource(new ReplicaFallbackDataSource(
+                replicaDataSource, primaryDataSource, replicaHealthMonitor, meterRegistry));
+        return dataSource;
+    }
+}
@@ -0,0 +1,64 @@
+package com.trading.reconciliation.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Read-only DataSource that prefers the replica and falls back to the primary
+ *
+ * Connections come from the replica pool while the ReplicaHealthMonitor reports it
+ * as fresh. If the replica is lagging or a connection cannot be obtained, the
+ * connection is taken from the primary pool instead. Connections with explicit
+ * credentials are always taken from the primary pool, since the replica pool has
+ * its own credentials.
+ */
+public class ReplicaFallbackDataSource extends AbstractDataSource {
+
+    private final DataSource replicaDataSource;
+    private final DataSource primaryDataSource;
+    private final ReplicaHealthMonitor healthMonitor;
+    private final Counter replicaReads;
+    private final Counter fallbackReads;
+
+    public ReplicaFallbackDataSource(DataSource replicaDataSource, DataSource primaryDataSource,
+                                     ReplicaHealthMonitor healthMonitor, MeterRegistry meterRegistry) {
+        this.replicaDataSource = replicaDataSource;
+        this.primaryDataSource = primaryDataSource;
+        this.healthMonitor = healthMonitor;
+        this.replicaReads = Counter.builder("reconciliation.datasource.reads")
+                .description("Read-only connections by the pool that served them")
+                .tag("pool", "replica")
+                .register(meterRegistry);
+        this.fallbackReads = Counter.builder("reconciliation.datasource.reads")
+                .description("Read-only connections by the pool that served them")
+                .tag("pool", "primary")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (healthMonitor.isAvailable()) {
+            try {
+                Connection connection = replicaDataSource.getConnection();
+                replicaReads.increment();
+                return connection;
+            } catch (SQLException e) {
+                healthMonitor.markUnavailable(e);
+            }
+        }
+
+        fallbackReads.increment();
+        return primaryDataSource.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        fallbackReads.increment();
+        return primaryDataSource.getConnection(username, password);
+    }
+}
@@ -0,0 +1,88 @@
+package com.trading.reconciliation.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+
+/**
+ * Freshness guard for the read replica
+ *
+ * Periodically measures the replication lag of the replica and marks it
+ * unavailable when the lag exceeds the configured threshold or the replica
+ * cannot be queried. Read-only traffic is only routed to the replica while
+ * it is marked available.
+ */
+@Slf4j
+public class ReplicaHealthMonitor {
+
+    /**
+     * Replay lag in seconds; zero on a primary or a replica that has replayed everything it received
+     */
+    private static final String REPLICATION_LAG_QUERY =
+            "SELECT CASE WHEN NOT pg_is_in_recovery() THEN 0 " +
+            "WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 " +
+            "ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0) END";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long maxLagSeconds;
+
+    private volatile boolean available = false;
+    private volatile double lagSeconds = -1;
+
+    public ReplicaHealthMonitor(DataSource replicaDataSource, long maxLagSeconds, MeterRegistry meterRegistry) {
+        this(new JdbcTemplate(replicaDataSource), maxLagSeconds, meterRegistry);
+    }
+
+    ReplicaHealthMonitor(JdbcTemplate jdbcTemplate, long maxLagSeconds, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.maxLagSeconds = maxLagSeconds;
+
+        Gauge.builder("reconciliation.datasource.replica.lag", this, monitor -> monitor.lagSeconds)
+                .description("Replication lag of the read replica in seconds (-1 when unknown)")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+        Gauge.builder("reconciliation.datasource.replica.available", this, monitor -> monitor.available ? 1 : 0)
+                .description("Whether read-only transactions are currently routed to the replica")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Check replica lag and update availability
+     */
+    @Scheduled(fixedDelayString = "${reconciliation.datasource.replica.health-check-interval-ms}")
+    public void checkReplica() {
+        try {
+            Double lag = jdbcTemplate.queryForObject(REPLICATION_LAG_QUERY, Double.class);
+            lagSeconds = lag != null ? lag : 0;
+            boolean fresh = lagSeconds <= maxLagSeconds;
+
+            if (fresh != available) {
+                log.info("Read replica is now {} (lag: {}s, threshold: {}s)",
+                        fresh ? "available" : "unavailable", lagSeconds, maxLagSeconds);
+            }
+            available = fresh;
+        } catch (Exception e) {
+            lagSeconds = -1;
+            markUnavailable(e);
+        }
+    }
+
+    /**
+     * Mark the replica as unavailable until the next successful health check
+     * @param cause The failure that made the replica unusable
+     */
+    public void markUnavailable(Exception cause) {
+        if (available) {
+            log.warn("Read replica marked unavailable, routing reads to primary: {}", cause.getMessage());
+        }
+        available = false;
+    }
+
+    public boolean isAvailable() {
+        return available;
+    }
+}
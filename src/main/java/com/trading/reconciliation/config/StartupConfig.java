@@ -0,0 +1,40 @@
+package com.trading.reconciliation.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.util.List;
+
+/**
+ * Startup configuration
+ * 
+ * Beans listed in reconciliation.startup.lazy-beans are created on first use instead
+ * of during context startup. The prod profile uses this for the interactive query
+ * endpoints, which are not needed to resume ingestion and reconciliation. Critical
+ * beans such as the listeners and scheduled jobs must not be listed, since a lazy
+ * bean is never created if nothing asks for it.
+ */
+@Configuration
+@Slf4j
+public class StartupConfig {
+    
+    @Bean
+    public static BeanFactoryPostProcessor lazyBeansPostProcessor(Environment environment) {
+        List<String> lazyBeans = Binder.get(environment)
+                .bind("reconciliation.startup.lazy-beans", Bindable.listOf(String.class))
+                .orElse(List.of());
+        
+        return beanFactory -> lazyBeans.forEach(beanName -> {
+            if (beanFactory.containsBeanDefinition(beanName)) {
+                beanFactory.getBeanDefinition(beanName).setLazyInit(true);
+            } else {
+                log.warn("Bean {} configured for lazy initialization does not exist", beanName);
+            }
+        });
+    }
+}
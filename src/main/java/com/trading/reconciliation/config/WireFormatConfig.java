@@ -0,0 +1,73 @@
+package com.trading.reconciliation.config;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Binary wire format configuration
+ *
+ * In addition to JSON, trade feeds may use the Smile or CBOR encodings, selected by the
+ * Content-Type of the request (application/x-jackson-smile or application/cbor). Both
+ * encode BigDecimal values natively instead of as decimal text.
+ *
+ * The binary mappers are built from the application's Jackson configuration, but encode
+ * LocalDateTime values as integer arrays ([2023, 6, 15, 10, 30]) so no date strings
+ * have to be parsed. Date strings in the usual format are still accepted on input.
+ *
+ * The HTTP converters replace the framework defaults in place, so JSON remains the
+ * preferred format for responses when the client does not ask for another one. The
+ * broker side is configured in RabbitMQConfig.
+ */
+@Configuration
+public class WireFormatConfig {
+
+    public static final String SMILE_CONTENT_TYPE = "application/x-jackson-smile";
+    public static final String CBOR_CONTENT_TYPE = "application/cbor";
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(
+            ObjectProvider<Jackson2ObjectMapperBuilder> builderProvider) {
+        return new MappingJackson2SmileHttpMessageConverter(smileObjectMapper(builderProvider.getObject()));
+    }
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(
+            ObjectProvider<Jackson2ObjectMapperBuilder> builderProvider) {
+        return new MappingJackson2CborHttpMessageConverter(cborObjectMapper(builderProvider.getObject()));
+    }
+
+    /**
+     * Create a Smile mapper from the application's Jackson configuration
+     * @param builder A fresh builder carrying the application's Jackson customizations
+     * @return ObjectMapper producing and consuming Smile
+     */
+    public static ObjectMapper smileObjectMapper(Jackson2ObjectMapperBuilder builder) {
+        return binaryObjectMapper(builder.factory(new SmileFactory()));
+    }
+
+    /**
+     * Create a CBOR mapper from the application's Jackson configuration
+     * @param builder A fresh builder carrying the application's Jackson customizations
+     * @return ObjectMapper producing and consuming CBOR
+     */
+    public static ObjectMapper cborObjectMapper(Jackson2ObjectMapperBuilder builder) {
+        return binaryObjectMapper(builder.factory(new CBORFactory()));
+    }
+
+    private static ObjectMapper binaryObjectMapper(Jackson2ObjectMapperBuilder builder) {
+        ObjectMapper objectMapper = builder.createXmlMapper(false).build();
+        objectMapper.configOverride(LocalDateTime.class)
+                .setFormat(JsonFormat.Value.forShape(JsonFormat.Shape.ARRAY));
+        return objectMapper;
+    }
+}
@@ -0,0 +1,87 @@
+package com.trading.reconciliation.controller;
+
+import com.trading.reconciliation.dto.BreakAnalyticsDto;
+import com.trading.reconciliation.model.AnalyticsDimension;
+import com.trading.reconciliation.service.BreakAnalyticsService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * REST controller for break analytics
+ * 
+ * Break counts, top mismatched fields and match lag percentiles are served from
+ * rollup tables that are maintained as reconciliations complete, so the response
+ * time depends on the number of counterparties, instruments and days in the range
+ * rather than on the number of trades.
+ */
+@RestController
+@RequestMapping("/analytics")
+@Slf4j
+@RequiredArgsConstructor
+public class AnalyticsController {
+    
+    private final BreakAnalyticsService breakAnalyticsService;
+    
+    /**
+     * Get break analytics over a range of business dates
+     * 
+     * Example URL: /analytics/breaks?from=2023-06-01&to=2023-06-30&groupBy=counterparty
+     * 
+     * Example response:
+     * [
+     *   {
+     *     "group": "BROKER_A",
+     *     "matched": 9500,
+     *     "mismatched": 480,
+     *     "error": 20,
+     *     "total": 10000,
+     *     "breakRate": 0.048,
+     *     "topMismatchedFields": [
+     *       { "field": "price", "mismatches": 310 },
+     *       { "field": "quantity", "mismatches": 190 }
+     *     ],
+     *     "matchLagP50Millis": 861,
+     *     "matchLagP90Millis": 45254,
+     *     "matchLagP99Millis": 430538
+     *   }
+     * ]
+     * 
+     * Match lag is measured from the first reconciliation attempt of a trade to its match,
+     * and percentiles are accurate to within 19%.
+     * 
+     * @param from First business date, inclusive
+     * @param to Last business date, inclusive
+     * @param groupBy Dimension to group by (counterparty, instrument or day; default: counterparty)
+     * @param counterparty Optional counterparty filter
+     * @param instrument Optional instrument filter
+     * @return Analytics per group, ordered by number of breaks descending, or HTTP 400 for an invalid range or dimension
+     */
+    @GetMapping("/breaks")
+    public ResponseEntity<List<BreakAnalyticsDto>> getBreakAnalytics(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "counterparty") String groupBy,
+            @RequestParam(required = false) String counterparty,
+            @RequestParam(required = false) String instrument) {
+        
+        log.info("Getting break analytics by {} from {} to {}", groupBy, from, to);
+        
+        Optional<AnalyticsDimension> dimension = AnalyticsDimension.fromName(groupBy);
+        if (dimension.isEmpty() || from.isAfter(to)) {
+            return ResponseEntity.badRequest().build();
+        }
+        
+        return ResponseEntity.ok(breakAnalyticsService.getBreakAnalytics(
+                dimension.get(), from, to, counterparty, instrument));
+    }
+}
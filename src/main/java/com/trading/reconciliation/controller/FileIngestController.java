@@ -0,0 +1,115 @@
+package com.trading.reconciliation.controller;
+
+import com.trading.reconciliation.dto.FileIngestJobDto;
+import com.trading.reconciliation.ingest.TradeFileFormat;
+import com.trading.reconciliation.service.FileIngestService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * REST controller for bulk ingestion of end-of-day trade files
+ * 
+ * Large confirmation files are uploaded once instead of being replayed trade by
+ * trade through the submission endpoints. The upload is stored on local disk and
+ * loaded in the background; the returned job reports progress, throughput and
+ * rejected rows. Files can also be dropped into the configured inbox directory.
+ */
+@RestController
+@ConditionalOnProperty(name = "reconciliation.storage.engine", havingValue = "jpa", matchIfMissing = true)
+@RequestMapping("/trades/files")
+@Slf4j
+@RequiredArgsConstructor
+public class FileIngestController {
+    
+    private static final Map<String, String> SOURCE_SYSTEMS = Map.of(
+            "systemA", "System A",
+            "systemB", "System B");
+    
+    private final FileIngestService fileIngestService;
+    
+    /**
+     * Upload a trade file for bulk ingestion
+     * 
+     * Example request:
+     * POST /trades/files?source=systemB&format=csv
+     * Content-Type: multipart/form-data, with the file in the "file" part
+     * 
+     * CSV files hold the columns tradeId, instrument, quantity, price, tradeDate and
+     * counterparty, with an optional header line. Fixed-width files hold the same
+     * columns with the configured widths.
+     * 
+     * @param file The trade file
+     * @param source The source system (systemA or systemB)
+     * @param format File layout (csv or fixed-width, default: csv)
+     * @return HTTP 202 Accepted with the ingestion job, or HTTP 400 for an unknown source or format
+     */
+    @PostMapping
+    public ResponseEntity<FileIngestJobDto> uploadTradeFile(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam String source,
+            @RequestParam(defaultValue = "csv") String format) {
+        
+        log.info("Received trade file {} from {} ({} bytes)", file.getOriginalFilename(), source, file.getSize());
+        
+        String sourceSystem = SOURCE_SYSTEMS.get(source);
+        Optional<TradeFileFormat> fileFormat = TradeFileFormat.fromName(format);
+        if (sourceSystem == null || fileFormat.isEmpty()) {
+            return ResponseEntity.badRequest().build();
+        }
+        
+        try {
+            FileIngestJobDto job = fileIngestService.submitUpload(file, sourceSystem, fileFormat.get());
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+        } catch (Exception e) {
+            log.error("Error storing trade file {}", file.getOriginalFilename(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+    
+    /**
+     * Get the progress of a trade file ingestion
+     * 
+     * Example response:
+     * {
+     *   "jobId": "0d7c9a4e-...",
+     *   "fileName": "1686840000000-eod-confirms.csv",
+     *   "sourceSystem": "System B",
+     *   "format": "CSV",
+     *   "state": "RUNNING",
+     *   "fileSizeBytes": 2147483648,
+     *   "bytesProcessed": 1073741824,
+     *   "percentComplete": 50.0,
+     *   "rowsLoaded": 7340032,
+     *   "rowsRejected": 12,
+     *   "rowsPerSecond": 183500.8,
+     *   "rejects": [{ "offset": 1048576, "reason": "Invalid quantity or price", "rawLine": "..." }]
+     * }
+     * 
+     * @param jobId The job identifier
+     * @return The job, or HTTP 404 if it is not known to this instance
+     */
+    @GetMapping("/{jobId}")
+    public ResponseEntity<FileIngestJobDto> getIngestJob(@PathVariable String jobId) {
+        return fileIngestService.getJob(jobId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+    
+    /**
+     * Get the most recent trade file ingestions of this instance
+     * @return Jobs, most recent first
+     */
+    @GetMapping
+    public ResponseEntity<List<FileIngestJobDto>> getIngestJobs() {
+        return ResponseEntity.ok(fileIngestService.getJobs());
+    }
+}
@@ -0,0 +1,106 @@
+package com.trading.reconciliation.controller;
+
+import com.trading.reconciliation.dto.PositionBreakDto;
+import com.trading.reconciliation.dto.PositionReconciliationRunDto;
+import com.trading.reconciliation.service.PositionReconciliationService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * REST controller for position reconciliation
+ * 
+ * Net positions per trade date, instrument and counterparty are aggregated from the
+ * trade legs of both systems and compared; positions that differ by more than the
+ * configured tolerances are stored as breaks.
+ */
+@RestController
+@ConditionalOnProperty(name = "reconciliation.storage.engine", havingValue = "jpa", matchIfMissing = true)
+@RequestMapping("/positions")
+@Slf4j
+@RequiredArgsConstructor
+public class PositionController {
+    
+    private final PositionReconciliationService positionReconciliationService;
+    
+    @Value("${reconciliation.positions.max-days}")
+    private int maxDays;
+    
+    @Value("${reconciliation.positions.max-breaks-returned}")
+    private int maxBreaksReturned;
+    
+    /**
+     * Reconcile positions over a range of trade dates
+     * 
+     * Example URL: /positions/reconciliations?from=2023-06-15&to=2023-06-15
+     * 
+     * Example response:
+     * {
+     *   "from": "2023-06-15",
+     *   "to": "2023-06-15",
+     *   "legsScanned": 2000000,
+     *   "positions": 5400,
+     *   "breaks": 12,
+     *   "durationMillis": 8400
+     * }
+     * 
+     * @param from First trade date, inclusive
+     * @param to Last trade date, inclusive
+     * @return Summary of the run, HTTP 400 for an invalid or too long range, or HTTP 409 if a run is in progress
+     */
+    @PostMapping("/reconciliations")
+    public ResponseEntity<PositionReconciliationRunDto> reconcilePositions(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        
+        log.info("Received request to reconcile positions from {} to {}", from, to);
+        
+        if (from.isAfter(to) || ChronoUnit.DAYS.between(from, to) >= maxDays) {
+            return ResponseEntity.badRequest().build();
+        }
+        
+        return ResponseEntity.ok(positionReconciliationService.reconcilePositions(from, to));
+    }
+    
+    /**
+     * Get position breaks over a range of business dates
+     * 
+     * Example URL: /positions/breaks?from=2023-06-01&to=2023-06-30&counterparty=BROKER_A
+     * 
+     * @param from First business date, inclusive
+     * @param to Last business date, inclusive
+     * @param counterparty Optional counterparty filter
+     * @param instrument Optional instrument filter
+     * @param limit Maximum number of breaks returned (default: 100)
+     * @return Breaks ordered by absolute notional difference descending, or HTTP 400 for an invalid range or limit
+     */
+    @GetMapping("/breaks")
+    public ResponseEntity<List<PositionBreakDto>> getPositionBreaks(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String counterparty,
+            @RequestParam(required = false) String instrument,
+            @RequestParam(defaultValue = "100") int limit) {
+        
+        log.info("Getting position breaks from {} to {}", from, to);
+        
+        if (from.isAfter(to) || limit < 1 || limit > maxBreaksReturned) {
+            return ResponseEntity.badRequest().build();
+        }
+        
+        return ResponseEntity.ok(positionReconciliationService.getPositionBreaks(
+                from, to, counterparty, instrument, limit));
+    }
+}
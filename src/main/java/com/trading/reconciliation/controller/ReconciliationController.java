@@ -1,15 +1,32 @@
 package com.trading.reconciliation.controller;
 
+import com.trading.reconciliation.dto.DeadLetterReplayResponseDto;
+import com.trading.reconciliation.dto.ReconciliationLookupRequestDto;
+import com.trading.reconciliation.dto.ReconciliationLookupResponseDto;
 import com.trading.reconciliation.dto.ReconciliationResponseDto;
+import com.trading.reconciliation.dto.ReconciliationStatusHistoryDto;
+import com.trading.reconciliation.model.ReconciliationStatus;
+import com.trading.reconciliation.service.DeadLetterService;
+import com.trading.reconciliation.service.ReconciliationHistoryService;
 import com.trading.reconciliation.service.ReconciliationService;
+import com.trading.reconciliation.service.ReconciliationStreamService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 
 /**
  * REST controller for reconciliation status operations
@@ -19,10 +36,19 @@
  * 
  * 1. Get the reconciliation status for a specific trade
  * 2. Get a paginated list of reconciliations with optional filtering
- * 3. Manually trigger a reconciliation process for a trade
+ * 3. Look up the reconciliation status of many trades at once
+ * 4. Manually trigger a reconciliation process for a trade
+ * 5. Replay reconciliation tasks that exhausted their retries
+ * 6. Stream status transitions as they happen
+ * 7. Get the history of status transitions of a trade
  * 
  * The controller uses Spring's ResponseEntity to provide appropriate HTTP status codes
  * and response bodies. It also supports standard pagination and sorting for list queries.
+ * 
+ * The status endpoints return strong ETags and answer If-None-Match with HTTP 304 (Not
+ * Modified) after a version-only lookup, so polling clients do not pay for loading and
+ * serializing unchanged responses. The version is read before the response, so a
+ * concurrent change can cause an extra full response but never a stale 304.
  */
 @RestController
 @RequestMapping("/reconciliations")
@@ -31,6 +57,12 @@
 public class ReconciliationController {
     
     private final ReconciliationService reconciliationService;
+    private final DeadLetterService deadLetterService;
+    private final ReconciliationStreamService streamService;
+    private final ReconciliationHistoryService historyService;
+    
+    @Value("${reconciliation.lookup.max-trade-ids}")
+    private int maxLookupTradeIds;
     
     /**
      * Get reconciliation status for a specific trade
@@ -50,43 +82,134 @@ public class ReconciliationController {
      *   "lastReconciliationAttempt": "2023-06-15T10:35:05"
      * }
      * 
+     * The response carries an ETag derived from the reconciliation's id and update time.
+     * 
      * @param tradeId The trade identifier
-     * @return Reconciliation status response
+     * @param webRequest The request, checked for If-None-Match
+     * @return Reconciliation status response, or HTTP 304 if it matches the client's ETag
      */
     @GetMapping("/{tradeId}")
-    public ResponseEntity<ReconciliationResponseDto> getReconciliationStatus(@PathVariable String tradeId) {
+    public ResponseEntity<ReconciliationResponseDto> getReconciliationStatus(@PathVariable String tradeId,
+                                                                             WebRequest webRequest) {
         log.info("Getting reconciliation status for tradeId: {}", tradeId);
         
+        Optional<String> version = reconciliationService.getReconciliationStatusVersion(tradeId);
+        if (version.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        if (webRequest.checkNotModified(version.get())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(version.get()).build();
+        }
+        
         return reconciliationService.getReconciliationStatus(tradeId)
-                .map(ResponseEntity::ok)
+                .map(reconciliation -> ResponseEntity.ok().eTag(version.get()).body(reconciliation))
                 .orElse(ResponseEntity.notFound().build());
     }
     
     /**
-     * Get paginated list of reconciliations with optional status filter
+     * Get paginated list of reconciliations with optional status and counterparty filters
+     * 
+     * This endpoint retrieves a paginated list of reconciliation statuses from the read
+     * model, which may lag reconciliation outcomes by a few hundred milliseconds.
+     * It supports filtering by status and counterparty, pagination, and sorting by updated time.
      * 
-     * This endpoint retrieves a paginated list of reconciliation statuses.
-     * It supports filtering by status, pagination, and sorting by updated time.
+     * Example URL: /reconciliations?status=MISMATCHED&counterparty=BROKER_A&page=0&size=20
      * 
-     * Example URL: /reconciliations?status=MISMATCHED&page=0&size=20
+     * The response carries an ETag derived from the number of matching reconciliations
+     * and their latest update time, which is read with a single aggregate query.
      * 
      * @param status Optional status filter (PENDING, MATCHED, MISMATCHED, RECONCILIATION_TIMEOUT, ERROR)
+     * @param counterparty Optional counterparty filter
      * @param page Page number (0-based, default: 0)
      * @param size Page size (default: 20)
-     * @return Page of reconciliation responses
+     * @param webRequest The request, checked for If-None-Match
+     * @return Page of reconciliation responses, HTTP 304 if it matches the client's ETag,
+     *         or HTTP 501 with the memory storage engine, which has no read model
      */
     @GetMapping
     public ResponseEntity<Page<ReconciliationResponseDto>> getReconciliations(
             @RequestParam(required = false) String status,
+            @RequestParam(required = false) String counterparty,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "20") int size) {
+            @RequestParam(defaultValue = "20") int size,
+            WebRequest webRequest) {
         
-        log.info("Getting reconciliations with status: {}, page: {}, size: {}", status, page, size);
+        log.info("Getting reconciliations with status: {}, counterparty: {}, page: {}, size: {}", 
+                status, counterparty, page, size);
+        
+        String version = reconciliationService.getReconciliationsVersion(status, counterparty);
+        if (webRequest.checkNotModified(version)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(version).build();
+        }
         
         PageRequest pageRequest = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "updatedAt"));
-        Page<ReconciliationResponseDto> reconciliations = reconciliationService.getReconciliations(status, pageRequest);
+        Page<ReconciliationResponseDto> reconciliations = reconciliationService.getReconciliations(
+                status, counterparty, pageRequest);
         
-        return ResponseEntity.ok(reconciliations);
+        return ResponseEntity.ok().eTag(version).body(reconciliations);
+    }
+    
+    /**
+     * Get the history of status transitions of a trade
+     * 
+     * Every status change of the trade's reconciliation is listed, oldest first, such as
+     * PENDING to MISMATCHED and MISMATCHED to MATCHED after an amendment. Unless the
+     * history is written transactionally, the latest transitions may take up to the
+     * history flush interval to appear.
+     * 
+     * Example response:
+     * [
+     *   { "tradeId": "T123456", "previousStatus": null, "status": "PENDING", ... },
+     *   { "tradeId": "T123456", "previousStatus": "PENDING", "status": "MISMATCHED",
+     *     "mismatchedFields": "price", "occurredAt": "2023-06-15T10:35:05.120" }
+     * ]
+     * 
+     * @param tradeId The trade identifier
+     * @return The status transitions, empty if none were recorded for the trade
+     */
+    @GetMapping("/{tradeId}/history")
+    public ResponseEntity<List<ReconciliationStatusHistoryDto>> getStatusHistory(@PathVariable String tradeId) {
+        return ResponseEntity.ok(historyService.getStatusHistory(tradeId));
+    }
+    
+    /**
+     * Look up reconciliation status for many trades at once
+     * 
+     * This endpoint replaces many calls to /reconciliations/{tradeId} with a single
+     * request: the tradeIds are resolved with a few chunked queries, falling back to
+     * the archive for trades already moved out by the retention job. Duplicate tradeIds
+     * are looked up once.
+     * 
+     * Example request:
+     * {
+     *   "tradeIds": ["T123456", "T123457", "T999999"]
+     * }
+     * 
+     * Example response:
+     * {
+     *   "results": {
+     *     "T123456": { "tradeId": "T123456", "status": "MATCHED", ... },
+     *     "T123457": { "tradeId": "T123457", "status": "PENDING", ... }
+     *   },
+     *   "notFound": ["T999999"]
+     * }
+     * 
+     * @param request The tradeIds to look up
+     * @return Reconciliation statuses by tradeId and the tradeIds not found, or HTTP 400
+     *         if no tradeIds or more than the configured maximum are given
+     */
+    @PostMapping("/lookup")
+    public ResponseEntity<ReconciliationLookupResponseDto> lookupReconciliations(
+            @RequestBody ReconciliationLookupRequestDto request) {
+        
+        if (request.getTradeIds() == null || request.getTradeIds().isEmpty()
+                || request.getTradeIds().size() > maxLookupTradeIds) {
+            log.warn("Rejecting bulk lookup of {} tradeIds, limit is {}", 
+                    request.getTradeIds() == null ? 0 : request.getTradeIds().size(), maxLookupTradeIds);
+            return ResponseEntity.badRequest().build();
+        }
+        
+        return ResponseEntity.ok(reconciliationService.lookupReconciliations(request.getTradeIds()));
     }
     
     /**
@@ -95,6 +218,9 @@ public ResponseEntity<Page<ReconciliationResponseDto>> getReconciliations(
      * This endpoint allows manual triggering of the reconciliation process for a specific trade.
      * It's useful for re-running reconciliation after data changes or for testing purposes.
      * 
+     * The task is published to the priority queue, which has its own reserved consumers,
+     * so it is processed within seconds even while ingestion tasks are backlogged.
+     * 
      * The reconciliation happens asynchronously, so the endpoint returns HTTP 202 (Accepted)
      * to indicate that the request has been accepted but processing may not be complete.
      * 
@@ -106,11 +232,104 @@ public ResponseEntity<Void> triggerReconciliation(@PathVariable String tradeId)
         log.info("Manually triggering reconciliation for tradeId: {}", tradeId);
         
         try {
-            reconciliationService.triggerReconciliation(tradeId);
+            reconciliationService.triggerPriorityReconciliation(tradeId);
             return ResponseEntity.status(HttpStatus.ACCEPTED).build();
         } catch (Exception e) {
             log.error("Error triggering reconciliation for tradeId: {}", tradeId, e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
-} 
\ No newline at end of file
+    
+    /**
+     * Replay dead-lettered reconciliation tasks
+     * 
+     * Tasks that failed on every retry attempt are moved to a dead-letter queue. Once the
+     * cause is fixed, this endpoint starts putting them back on the reconciliation tasks
+     * queue at a throttled rate in the background. Only one replay runs at a time; a
+     * concurrent request gets HTTP 409.
+     * 
+     * Example response:
+     * {
+     *   "jobId": "3f2c9a0e-...",
+     *   "state": "RUNNING",
+     *   "requested": 1000,
+     *   "replayed": 0,
+     *   "remaining": -1,
+     *   "startedAt": "2023-06-15T10:35:00Z"
+     * }
+     * 
+     * @param limit Maximum number of tasks to replay (default: 1000)
+     * @return HTTP 202 Accepted with the replay job
+     */
+    @PostMapping("/dead-letters/replay")
+    public ResponseEntity<DeadLetterReplayResponseDto> replayDeadLetters(
+            @RequestParam(defaultValue = "1000") int limit) {
+        log.info("Replaying up to {} dead-lettered reconciliation tasks", limit);
+        
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(deadLetterService.startReplay(limit));
+    }
+    
+    /**
+     * Get the progress of a dead-letter replay
+     * 
+     * Replays are tracked on the instance that runs them. Once finished, "remaining" holds
+     * the number of tasks still dead-lettered.
+     * 
+     * @param jobId The replay job identifier
+     * @return The replay job, or HTTP 404 if it is not known on this instance
+     */
+    @GetMapping("/dead-letters/replay/{jobId}")
+    public ResponseEntity<DeadLetterReplayResponseDto> getDeadLetterReplay(@PathVariable String jobId) {
+        return deadLetterService.getReplay(jobId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+    
+    /**
+     * Stream reconciliation status transitions as server-sent events
+     * 
+     * Each transition is sent as a "status" event whose id can be used to resume the
+     * stream: a client reconnecting with the Last-Event-ID header (or the from parameter)
+     * receives the transitions it missed, as long as they are still held in the stream
+     * history of the instance it reconnects to. Otherwise a "reset" event is sent first,
+     * and the client should re-read the statuses it needs from /reconciliations.
+     * 
+     * Subscribers that cannot keep up are disconnected rather than slowing down others.
+     * 
+     * Example URL: /reconciliations/stream?status=MISMATCHED,RECONCILIATION_TIMEOUT&counterparty=BROKER_A
+     * 
+     * Example event:
+     * id: lq2x9c1k-1842
+     * event: status
+     * data: {"tradeId":"T123456","status":"MISMATCHED","previousStatus":"PENDING","businessDate":"2023-06-15",
+     *        "counterparty":"BROKER_A","instrument":"AAPL","occurredAt":"2023-06-15T10:35:05"}
+     * 
+     * @param status Optional comma-separated statuses to receive transitions into
+     * @param counterparty Optional counterparty filter
+     * @param from Optional event id to resume after
+     * @param lastEventId Event id sent by the client when reconnecting, used if from is not given
+     * @return Event stream, or HTTP 400 for an unknown status
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamStatusTransitions(
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String counterparty,
+            @RequestParam(required = false) String from,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        
+        Set<ReconciliationStatus> statuses = EnumSet.noneOf(ReconciliationStatus.class);
+        if (status != null) {
+            try {
+                for (String name : status.split(",")) {
+                    if (!name.isBlank()) {
+                        statuses.add(ReconciliationStatus.valueOf(name.trim().toUpperCase()));
+                    }
+                }
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().build();
+            }
+        }
+        
+        return ResponseEntity.ok(streamService.subscribe(statuses, counterparty, from != null ? from : lastEventId));
+    }
+}
@@ -0,0 +1,164 @@
+package com.trading.reconciliation.controller;
+
+import com.trading.reconciliation.dto.ReconciliationRerunJobDto;
+import com.trading.reconciliation.dto.ReconciliationRerunRequestDto;
+import com.trading.reconciliation.service.ReconciliationRerunService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * REST controller for re-reconciliation jobs
+ * 
+ * A job re-runs reconciliation for every reconciliation in a range of business dates
+ * and statuses, for example after a matching rule has changed. Jobs run in the
+ * background at a throttled rate, survive restarts by resuming from their last
+ * checkpoint, and report their progress and estimated time to completion.
+ */
+@RestController
+@ConditionalOnProperty(name = "reconciliation.storage.engine", havingValue = "jpa", matchIfMissing = true)
+@RequestMapping("/reconciliations/reruns")
+@Slf4j
+@RequiredArgsConstructor
+public class ReconciliationRerunController {
+    
+    private final ReconciliationRerunService rerunService;
+    
+    /**
+     * Start a re-reconciliation job
+     * 
+     * Example request:
+     * {
+     *   "from": "2023-05-01",
+     *   "to": "2023-06-15",
+     *   "statuses": ["MISMATCHED", "ERROR"],
+     *   "ratePerSecond": 500
+     * }
+     * 
+     * @param request The business date range, statuses and optional rate
+     * @return HTTP 202 (Accepted) with the job, or HTTP 400 for an invalid range, status or rate
+     */
+    @PostMapping
+    public ResponseEntity<ReconciliationRerunJobDto> startRerun(@RequestBody ReconciliationRerunRequestDto request) {
+        log.info("Received request to re-run reconciliation from {} to {} for statuses {}",
+                request.getFrom(), request.getTo(), request.getStatuses());
+        
+        if (request.getFrom() == null || request.getTo() == null || request.getFrom().isAfter(request.getTo())) {
+            return ResponseEntity.badRequest().build();
+        }
+        
+        try {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(rerunService.startRerun(
+                    request.getFrom(), request.getTo(), request.getStatuses(), request.getRatePerSecond()));
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid re-reconciliation request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    /**
+     * Get the most recent re-reconciliation jobs
+     * @return Up to 20 jobs, newest first
+     */
+    @GetMapping
+    public ResponseEntity<List<ReconciliationRerunJobDto>> getRecentReruns() {
+        return ResponseEntity.ok(rerunService.getRecentReruns());
+    }
+    
+    /**
+     * Get the progress of a re-reconciliation job
+     * 
+     * Example response:
+     * {
+     *   "jobId": 7,
+     *   "state": "RUNNING",
+     *   "ratePerSecond": 500,
+     *   "total": 1200000,
+     *   "processed": 450000,
+     *   "failed": 12,
+     *   "percentComplete": 37.5,
+     *   "throughputPerSecond": 498.7,
+     *   "etaSeconds": 1503,
+     *   "checkpointId": 8812734
+     * }
+     * 
+     * @param jobId The job id
+     * @return The job, or HTTP 404 if not found
+     */
+    @GetMapping("/{jobId}")
+    public ResponseEntity<ReconciliationRerunJobDto> getRerun(@PathVariable long jobId) {
+        return ResponseEntity.of(rerunService.getRerun(jobId));
+    }
+    
+    /**
+     * Get the trades that failed in a re-reconciliation job
+     * 
+     * Failed trades are retried once the job has walked all its reconciliations; the
+     * ones listed here have failed again, or have not been retried yet.
+     * 
+     * @param jobId The job id
+     * @return The trade identifiers, or HTTP 404 if the job is not found
+     */
+    @GetMapping("/{jobId}/failures")
+    public ResponseEntity<List<String>> getFailedTrades(@PathVariable long jobId) {
+        return ResponseEntity.of(rerunService.getFailedTrades(jobId));
+    }
+    
+    /**
+     * Change the rate of a re-reconciliation job while it runs
+     * @param jobId The job id
+     * @param ratePerSecond Trades re-reconciled per second
+     * @return The job, HTTP 400 for an invalid rate, or HTTP 404 if not found
+     */
+    @PatchMapping("/{jobId}")
+    public ResponseEntity<ReconciliationRerunJobDto> updateRate(@PathVariable long jobId,
+                                                                @RequestParam int ratePerSecond) {
+        try {
+            return ResponseEntity.of(rerunService.updateRate(jobId, ratePerSecond));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    /**
+     * Pause a running job after its current chunk
+     * @param jobId The job id
+     * @return The job, or HTTP 404 if not found
+     */
+    @PostMapping("/{jobId}/pause")
+    public ResponseEntity<ReconciliationRerunJobDto> pause(@PathVariable long jobId) {
+        return ResponseEntity.of(rerunService.pause(jobId));
+    }
+    
+    /**
+     * Resume a paused job from its last checkpoint
+     * @param jobId The job id
+     * @return The job, or HTTP 404 if not found
+     */
+    @PostMapping("/{jobId}/resume")
+    public ResponseEntity<ReconciliationRerunJobDto> resume(@PathVariable long jobId) {
+        return ResponseEntity.of(rerunService.resume(jobId));
+    }
+    
+    /**
+     * Cancel a running or paused job after its current chunk
+     * @param jobId The job id
+     * @return The job, or HTTP 404 if not found
+     */
+    @PostMapping("/{jobId}/cancel")
+    public ResponseEntity<ReconciliationRerunJobDto> cancel(@PathVariable long jobId) {
+        return ResponseEntity.of(rerunService.cancel(jobId));
+    }
+}
@@ -1,7 +1,12 @@
 package com.trading.reconciliation.controller;
 
 import com.trading.reconciliation.dto.TradeDataDto;
+import com.trading.reconciliation.exception.AdmissionRejectedException;
+import com.trading.reconciliation.ingest.IngestJournal;
+import com.trading.reconciliation.service.AdmissionControlService;
 import com.trading.reconciliation.service.TradeDataService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -12,11 +17,14 @@
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.Optional;
+
 /**
  * REST controller for trade data submission
  * 
  * This controller provides endpoints for submitting trade data from different systems.
- * Trade data is sent as JSON and validated using Jakarta Bean Validation annotations.
+ * Trade data is sent as JSON, or in the compact Smile or CBOR binary encodings chosen
+ * by the request Content-Type, and validated using Jakarta Bean Validation annotations.
  * 
  * After receiving the trade data, the controller forwards it to the TradeDataService,
  * which stores it in the database and triggers the reconciliation process.
@@ -24,6 +32,15 @@
  * The controller returns an HTTP 202 (Accepted) response to indicate that the
  * trade data has been accepted for processing, but the reconciliation may
  * not be complete yet.
+ * 
+ * Before a submission is processed it passes admission control. When the
+ * reconciliation pipeline is overloaded the controller responds with HTTP 429
+ * (Too Many Requests) and a Retry-After header instead of enqueuing more work.
+ * 
+ * When the ingest journal is enabled (reconciliation.ingest.mode=journal), accepted
+ * trades are appended to the local journal and acknowledged once durable on disk;
+ * the journal drainer persists them and triggers reconciliation in the background.
+ * Ingest latency is recorded per mode in the reconciliation.ingest.latency timer.
  */
 @RestController
 @RequestMapping("/trades")
@@ -32,6 +49,12 @@
 public class TradeController {
     
     private final TradeDataService tradeDataService;
+    private final AdmissionControlService admissionControlService;
+    private final Optional<IngestJournal> ingestJournal;
+    private final MeterRegistry meterRegistry;
+    
+    private static final String SYSTEM_A = "System A";
+    private static final String SYSTEM_B = "System B";
     
     /**
      * Submit trade data from System A
@@ -47,19 +70,32 @@ public class TradeController {
      *   "quantity": 100,
      *   "price": 150.75,
      *   "tradeDate": "2023-06-15T10:30:00",
-     *   "counterparty": "BROKER_A"
+     *   "counterparty": "BROKER_A",
+     *   "desk": "FX"
      * }
      * 
+     * The desk is optional. Trades of a desk with its own lane are admitted and
+     * reconciled within that lane.
+     * 
      * @param tradeDataDto The trade data DTO with trade details
-     * @return HTTP 202 Accepted response
+     * @return HTTP 202 Accepted response, or HTTP 429 if the service is overloaded
      */
     @PostMapping("/systemA")
     public ResponseEntity<Void> submitSystemATrade(@Valid @RequestBody TradeDataDto tradeDataDto) {
         log.info("Received trade data from System A with tradeId: {}", tradeDataDto.getTradeId());
+        admissionControlService.checkAdmission(SYSTEM_A, tradeDataDto.getDesk());
         
+        Timer.Sample sample = Timer.start(meterRegistry);
         try {
-            tradeDataService.saveSystemATrade(tradeDataDto);
+            if (ingestJournal.isPresent()) {
+                ingestJournal.get().append(SYSTEM_A, tradeDataDto);
+            } else {
+                tradeDataService.saveSystemATrade(tradeDataDto);
+            }
+            sample.stop(ingestLatencyTimer());
             return ResponseEntity.status(HttpStatus.ACCEPTED).build();
+        } catch (AdmissionRejectedException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Error processing trade data from System A", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
@@ -75,18 +111,38 @@ public ResponseEntity<Void> submitSystemATrade(@Valid @RequestBody TradeDataDto
      * The request format is identical to the System A endpoint.
      * 
      * @param tradeDataDto The trade data DTO with trade details
-     * @return HTTP 202 Accepted response
+     * @return HTTP 202 Accepted response, or HTTP 429 if the service is overloaded
      */
     @PostMapping("/systemB")
     public ResponseEntity<Void> submitSystemBTrade(@Valid @RequestBody TradeDataDto tradeDataDto) {
         log.info("Received trade data from System B with tradeId: {}", tradeDataDto.getTradeId());
+        admissionControlService.checkAdmission(SYSTEM_B, tradeDataDto.getDesk());
         
+        Timer.Sample sample = Timer.start(meterRegistry);
         try {
-            tradeDataService.saveSystemBTrade(tradeDataDto);
+            if (ingestJournal.isPresent()) {
+                ingestJournal.get().append(SYSTEM_B, tradeDataDto);
+            } else {
+                tradeDataService.saveSystemBTrade(tradeDataDto);
+            }
+            sample.stop(ingestLatencyTimer());
             return ResponseEntity.status(HttpStatus.ACCEPTED).build();
+        } catch (AdmissionRejectedException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Error processing trade data from System B", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
-} 
\ No newline at end of file
+    
+    /**
+     * Timer for the time taken to accept a trade, tagged by ingest mode
+     */
+    private Timer ingestLatencyTimer() {
+        return Timer.builder("reconciliation.ingest.latency")
+                .description("Time taken to accept a submitted trade")
+                .tag("mode", ingestJournal.isPresent() ? "journal" : "direct")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,41 @@
+package com.trading.reconciliation.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO for break analytics of one counterparty, instrument or day
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BreakAnalyticsDto {
+    
+    private String group;
+    private long matched;
+    private long mismatched;
+    private long error;
+    private long total;
+    private double breakRate;
+    private List<FieldMismatchCount> topMismatchedFields;
+    private Long matchLagP50Millis;
+    private Long matchLagP90Millis;
+    private Long matchLagP99Millis;
+    
+    /**
+     * Number of mismatches of one field
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class FieldMismatchCount {
+        
+        private String field;
+        private long mismatches;
+    }
+}
@@ -0,0 +1,27 @@
+package com.trading.reconciliation.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * DTO for the progress and outcome of a dead-letter replay
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeadLetterReplayResponseDto {
+    
+    private String jobId;
+    private String state;
+    private int requested;
+    private int replayed;
+    private long remaining;
+    private Instant startedAt;
+    private Instant finishedAt;
+    private String error;
+}
@@ -0,0 +1,37 @@
+package com.trading.reconciliation.dto;
+
+import com.trading.reconciliation.ingest.RejectedTradeRow;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * DTO for the progress of a trade file ingestion
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FileIngestJobDto {
+    
+    private String jobId;
+    private String fileName;
+    private String sourceSystem;
+    private String format;
+    private String state;
+    private long fileSizeBytes;
+    private long bytesProcessed;
+    private double percentComplete;
+    private long rowsLoaded;
+    private long rowsRejected;
+    private double rowsPerSecond;
+    private Instant startedAt;
+    private Instant finishedAt;
+    private String error;
+    private String rejectReport;
+    private List<RejectedTradeRow> rejects;
+}
@@ -0,0 +1,40 @@
+package com.trading.reconciliation.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * DTO for a net position that differs between System A and System B
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PositionBreakDto {
+    
+    private LocalDate businessDate;
+    private String instrument;
+    private String counterparty;
+    private BigDecimal systemAQuantity;
+    private BigDecimal systemBQuantity;
+    private BigDecimal systemANotional;
+    private BigDecimal systemBNotional;
+    private long systemATradeCount;
+    private long systemBTradeCount;
+    
+    /**
+     * System A minus System B
+     */
+    private BigDecimal quantityDifference;
+    private BigDecimal notionalDifference;
+    
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime detectedAt;
+}
@@ -0,0 +1,25 @@
+package com.trading.reconciliation.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * DTO summarizing one position reconciliation run
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PositionReconciliationRunDto {
+    
+    private LocalDate from;
+    private LocalDate to;
+    private long legsScanned;
+    private int positions;
+    private int breaks;
+    private long durationMillis;
+}
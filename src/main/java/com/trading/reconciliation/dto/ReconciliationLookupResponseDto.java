@@ -0,0 +1,22 @@
+package com.trading.reconciliation.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DTO for the result of a bulk reconciliation status lookup
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReconciliationLookupResponseDto {
+    
+    private Map<String, ReconciliationResponseDto> results;
+    private List<String> notFound;
+}
@@ -0,0 +1,56 @@
+package com.trading.reconciliation.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.trading.reconciliation.model.RerunJobState;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * DTO for the progress of a re-reconciliation job
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReconciliationRerunJobDto {
+    
+    private Long jobId;
+    private LocalDate from;
+    private LocalDate to;
+    private List<String> statuses;
+    private RerunJobState state;
+    private int ratePerSecond;
+    
+    /**
+     * Number of matching reconciliations when the job was created
+     */
+    private long total;
+    private long processed;
+    private long failed;
+    private double percentComplete;
+    
+    /**
+     * Trades re-reconciled per second of processing, and the estimated time left at that pace
+     */
+    private double throughputPerSecond;
+    private Long etaSeconds;
+    
+    private long checkpointId;
+    private String ownerInstance;
+    private String lastError;
+    
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime createdAt;
+    
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime updatedAt;
+    
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime completedAt;
+}
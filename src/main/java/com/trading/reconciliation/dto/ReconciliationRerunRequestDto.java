@@ -0,0 +1,35 @@
+package com.trading.reconciliation.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * DTO for starting a re-reconciliation job
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReconciliationRerunRequestDto {
+    
+    /**
+     * Business dates of the reconciliations to re-run, inclusive
+     */
+    private LocalDate from;
+    private LocalDate to;
+    
+    /**
+     * Statuses of the reconciliations to re-run; all statuses when empty
+     */
+    private List<String> statuses;
+    
+    /**
+     * Trades re-reconciled per second; the configured default when absent
+     */
+    private Integer ratePerSecond;
+}
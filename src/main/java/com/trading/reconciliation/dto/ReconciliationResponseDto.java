@@ -7,6 +7,8 @@
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 /**
@@ -23,6 +25,29 @@ public class ReconciliationResponseDto {
     private String statusDescription;
     private String details;
     
+    private LocalDate businessDate;
+    private String counterparty;
+    private String instrument;
+    
+    /**
+     * Comma-separated names of the fields that differed, for MISMATCHED results
+     */
+    private String mismatchedFields;
+    
+    /**
+     * Quantity and price of each leg, when the result was served from the read model
+     */
+    private BigDecimal systemAQuantity;
+    private BigDecimal systemAPrice;
+    private BigDecimal systemBQuantity;
+    private BigDecimal systemBPrice;
+    
+    /**
+     * Versions of the legs the result was computed from
+     */
+    private Long systemAVersion;
+    private Long systemBVersion;
+    
     @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
     private LocalDateTime createdAt;
     
@@ -31,4 +56,9 @@ public class ReconciliationResponseDto {
     
     @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
     private LocalDateTime lastReconciliationAttempt;
+    
+    /**
+     * Whether the result was served from the archive tables
+     */
+    private boolean archived;
 } 
\ No newline at end of file
@@ -0,0 +1,28 @@
+package com.trading.reconciliation.dto;
+
+import com.trading.reconciliation.model.ReconciliationStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * DTO for a committed reconciliation status transition, as pushed to stream subscribers
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReconciliationStatusEventDto {
+    
+    private String tradeId;
+    private ReconciliationStatus status;
+    private ReconciliationStatus previousStatus;
+    private LocalDate businessDate;
+    private String counterparty;
+    private String instrument;
+    private LocalDateTime occurredAt;
+}
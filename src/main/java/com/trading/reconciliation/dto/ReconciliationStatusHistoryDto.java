@@ -0,0 +1,37 @@
+package com.trading.reconciliation.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.trading.reconciliation.model.ReconciliationStatus;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO for a status transition of a trade's reconciliation, returned via API
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReconciliationStatusHistoryDto {
+    
+    private String tradeId;
+    
+    /**
+     * Status before the transition, or null when the reconciliation was created
+     */
+    private ReconciliationStatus previousStatus;
+    private ReconciliationStatus status;
+    private String statusDescription;
+    
+    /**
+     * Comma-separated names of the fields that differed, for MISMATCHED transitions
+     */
+    private String mismatchedFields;
+    
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss.SSS")
+    private LocalDateTime occurredAt;
+}
@@ -0,0 +1,38 @@
+package com.trading.reconciliation.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * DTO for reconciliation task messages carrying a snapshot of the triggering trade leg
+ * 
+ * The snapshot holds the business fields of the leg as persisted, together with its
+ * id and version, so the listener only has to fetch the counterpart leg and can
+ * recognise tasks that were superseded by a later amendment of the same leg.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReconciliationTaskMessage {
+    
+    private String tradeId;
+    private String sourceSystem;
+    private Long legId;
+    private Long version;
+    private String instrument;
+    private BigDecimal quantity;
+    private BigDecimal price;
+    
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime tradeDate;
+    
+    private String counterparty;
+    private String desk;
+}
@@ -27,4 +27,9 @@ public class TradeDataDto {
     private LocalDateTime tradeDate;
     
     private String counterparty;
+    
+    /**
+     * Desk or book the trade belongs to, optional; selects the desk lane it is processed in
+     */
+    private String desk;
 } 
\ No newline at end of file
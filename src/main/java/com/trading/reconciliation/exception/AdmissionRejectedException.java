@@ -0,0 +1,21 @@
+package com.trading.reconciliation.exception;
+
+/**
+ * Thrown when a trade submission is rejected because the service is overloaded
+ * 
+ * The GlobalExceptionHandler maps this exception to HTTP 429 (Too Many Requests)
+ * with a Retry-After header.
+ */
+public class AdmissionRejectedException extends RuntimeException {
+    
+    private final long retryAfterSeconds;
+    
+    public AdmissionRejectedException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+    
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -1,12 +1,14 @@
 package com.trading.reconciliation.exception;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
 
 import java.time.LocalDateTime;
 import java.util.HashMap;
@@ -63,6 +65,102 @@ public ResponseEntity<ErrorResponse> handleValidationExceptions(MethodArgumentNo
         return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(errorResponse);
     }
     
+    /**
+     * Handle submissions rejected by admission control
+     * 
+     * This method handles exceptions thrown when the service is overloaded and
+     * sheds load. The response tells the client when to retry via the Retry-After
+     * header instead of letting the request queue behind the backlog.
+     * 
+     * @param ex The admission rejection with the suggested retry delay
+     * @return ResponseEntity with HTTP 429 (Too Many Requests) and error details
+     */
+    @ExceptionHandler(AdmissionRejectedException.class)
+    public ResponseEntity<ErrorResponse> handleAdmissionRejected(AdmissionRejectedException ex) {
+        ErrorResponse errorResponse = new ErrorResponse(
+                HttpStatus.TOO_MANY_REQUESTS.value(),
+                "Too many requests",
+                ex.getMessage(),
+                LocalDateTime.now()
+        );
+        
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(errorResponse);
+    }
+    
+    /**
+     * Handle dead-letter replays requested while another replay is running
+     * 
+     * @param ex The exception describing the conflict
+     * @return ResponseEntity with HTTP 409 (Conflict) and error details
+     */
+    @ExceptionHandler(ReplayInProgressException.class)
+    public ResponseEntity<ErrorResponse> handleReplayInProgress(ReplayInProgressException ex) {
+        ErrorResponse errorResponse = new ErrorResponse(
+                HttpStatus.CONFLICT.value(),
+                "Conflict",
+                ex.getMessage(),
+                LocalDateTime.now()
+        );
+        
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(errorResponse);
+    }
+    
+    /**
+     * Handle position reconciliations requested while another run is in progress
+     * 
+     * @param ex The exception describing the conflict
+     * @return ResponseEntity with HTTP 409 (Conflict) and error details
+     */
+    @ExceptionHandler(PositionRunInProgressException.class)
+    public ResponseEntity<ErrorResponse> handlePositionRunInProgress(PositionRunInProgressException ex) {
+        ErrorResponse errorResponse = new ErrorResponse(
+                HttpStatus.CONFLICT.value(),
+                "Conflict",
+                ex.getMessage(),
+                LocalDateTime.now()
+        );
+        
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(errorResponse);
+    }
+    
+    /**
+     * Handle operations the configured storage engine does not support
+     * 
+     * @param ex The exception naming the operation
+     * @return ResponseEntity with HTTP 501 (Not Implemented) and error details
+     */
+    @ExceptionHandler(StorageEngineUnsupportedException.class)
+    public ResponseEntity<ErrorResponse> handleStorageEngineUnsupported(StorageEngineUnsupportedException ex) {
+        ErrorResponse errorResponse = new ErrorResponse(
+                HttpStatus.NOT_IMPLEMENTED.value(),
+                "Not implemented",
+                ex.getMessage(),
+                LocalDateTime.now()
+        );
+        
+        return ResponseEntity.status(HttpStatus.NOT_IMPLEMENTED).body(errorResponse);
+    }
+    
+    /**
+     * Handle trade file uploads larger than the configured maximum
+     * 
+     * @param ex The exception raised while reading the upload
+     * @return ResponseEntity with HTTP 413 (Payload Too Large) and error details
+     */
+    @ExceptionHandler(MaxUploadSizeExceededException.class)
+    public ResponseEntity<ErrorResponse> handleMaxUploadSizeExceeded(MaxUploadSizeExceededException ex) {
+        ErrorResponse errorResponse = new ErrorResponse(
+                HttpStatus.PAYLOAD_TOO_LARGE.value(),
+                "Payload too large",
+                "The upload exceeds the maximum file size",
+                LocalDateTime.now()
+        );
+        
+        return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body(errorResponse);
+    }
+    
     /**
      * Handle general exceptions not handled by specific handlers
      * 
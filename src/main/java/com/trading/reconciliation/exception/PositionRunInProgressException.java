@@ -0,0 +1,13 @@
+package com.trading.reconciliation.exception;
+
+/**
+ * Thrown when a position reconciliation is requested while another run is still in progress
+ * 
+ * The GlobalExceptionHandler maps this exception to HTTP 409 (Conflict).
+ */
+public class PositionRunInProgressException extends RuntimeException {
+    
+    public PositionRunInProgressException(String message) {
+        super(message);
+    }
+}
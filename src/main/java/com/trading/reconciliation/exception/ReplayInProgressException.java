@@ -0,0 +1,13 @@
+package com.trading.reconciliation.exception;
+
+/**
+ * Thrown when a dead-letter replay is requested while another replay is still running
+ * 
+ * The GlobalExceptionHandler maps this exception to HTTP 409 (Conflict).
+ */
+public class ReplayInProgressException extends RuntimeException {
+    
+    public ReplayInProgressException(String message) {
+        super(message);
+    }
+}
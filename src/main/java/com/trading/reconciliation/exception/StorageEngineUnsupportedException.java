@@ -0,0 +1,13 @@
+package com.trading.reconciliation.exception;
+
+/**
+ * Thrown when an operation needs the PostgreSQL tables that the configured storage engine does not write
+ * 
+ * The GlobalExceptionHandler maps this exception to HTTP 501 (Not Implemented).
+ */
+public class StorageEngineUnsupportedException extends RuntimeException {
+    
+    public StorageEngineUnsupportedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,114 @@
+package com.trading.reconciliation.ingest;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Progress of the ingestion of one trade file
+ *
+ * Counters are updated concurrently by the workers parsing the file's ranges.
+ */
+@Getter
+public class FileIngestJob {
+
+    public enum State { RUNNING, COMPLETED, FAILED }
+
+    private final String id = UUID.randomUUID().toString();
+    private final String fileName;
+    private final String sourceSystem;
+    private final TradeFileFormat format;
+    private final long fileSizeBytes;
+    private final Path rejectReport;
+    @Getter(AccessLevel.NONE)
+    private final int maxRejectsKept;
+    private final Instant startedAt = Instant.now();
+
+    @Getter(AccessLevel.NONE)
+    private final AtomicLong bytesProcessed = new AtomicLong();
+    @Getter(AccessLevel.NONE)
+    private final AtomicLong rowsLoaded = new AtomicLong();
+    @Getter(AccessLevel.NONE)
+    private final AtomicLong rowsRejected = new AtomicLong();
+    @Getter(AccessLevel.NONE)
+    private final List<RejectedTradeRow> rejects = new ArrayList<>();
+
+    private volatile State state = State.RUNNING;
+    private volatile Instant finishedAt;
+    private volatile String error;
+
+    public FileIngestJob(String fileName, String sourceSystem, TradeFileFormat format, long fileSizeBytes,
+                         Path rejectReport, int maxRejectsKept) {
+        this.fileName = fileName;
+        this.sourceSystem = sourceSystem;
+        this.format = format;
+        this.fileSizeBytes = fileSizeBytes;
+        this.rejectReport = rejectReport;
+        this.maxRejectsKept = maxRejectsKept;
+    }
+
+    public void addBytesProcessed(long bytes) {
+        bytesProcessed.addAndGet(bytes);
+    }
+
+    public void addRowsLoaded(long rows) {
+        rowsLoaded.addAndGet(rows);
+    }
+
+    /**
+     * Count a rejected row, keeping the first ones for the job status
+     */
+    public void addReject(RejectedTradeRow reject) {
+        rowsRejected.incrementAndGet();
+        synchronized (rejects) {
+            if (rejects.size() < maxRejectsKept) {
+                rejects.add(reject);
+            }
+        }
+    }
+
+    public void complete() {
+        finishedAt = Instant.now();
+        state = State.COMPLETED;
+    }
+
+    public void fail(String error) {
+        this.error = error;
+        finishedAt = Instant.now();
+        state = State.FAILED;
+    }
+
+    /**
+     * Rows loaded per second since the job started, up to when it finished
+     */
+    public double getRowsPerSecond() {
+        Instant end = finishedAt != null ? finishedAt : Instant.now();
+        long millis = Math.max(1, Duration.between(startedAt, end).toMillis());
+        return rowsLoaded.get() * 1000.0 / millis;
+    }
+
+    public long getBytesProcessed() {
+        return bytesProcessed.get();
+    }
+
+    public long getRowsLoaded() {
+        return rowsLoaded.get();
+    }
+
+    public long getRowsRejected() {
+        return rowsRejected.get();
+    }
+
+    public List<RejectedTradeRow> getRejects() {
+        synchronized (rejects) {
+            return List.copyOf(rejects);
+        }
+    }
+}
@@ -0,0 +1,445 @@
+package com.trading.reconciliation.ingest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trading.reconciliation.dto.TradeDataDto;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Local append-only journal for low-latency acknowledgement of trade submissions
+ *
+ * Accepted trades are appended to memory-mapped segment files and acknowledged as
+ * soon as they are durable on local disk, instead of waiting for a database
+ * transaction and a broker publish. The IngestJournalDrainer later persists the
+ * entries to trade_data in large batches and commits its progress as a checkpoint.
+ *
+ * Record layout: [int length][int crc32][length bytes of JSON payload]. Segment files
+ * are pre-allocated and zero-filled, so a zero length marks the end of the written data.
+ *
+ * Durability uses group commit: appenders write into the mapped buffer, wake the
+ * background flusher thread and wait. The flusher forces the mapping to disk and
+ * releases every appender whose record is covered by that force; records appended
+ * while a force is in progress are covered by the next one. One fsync therefore
+ * acknowledges every trade that arrived during the previous fsync.
+ *
+ * On startup the last segment is scanned and verified record by record; a torn record
+ * at the tail (which was never acknowledged) is discarded. Entries after the last
+ * checkpoint are replayed by the drainer, so acknowledged trades are never lost.
+ *
+ * Journal positions encode the segment index in the upper 32 bits and the byte
+ * offset within the segment in the lower 32 bits, so positions are totally ordered.
+ */
+@Component
+@ConditionalOnProperty(name = "reconciliation.ingest.mode", havingValue = "journal")
+@Slf4j
+public class IngestJournal {
+
+    private static final int HEADER_BYTES = 8;
+    private static final Pattern SEGMENT_NAME = Pattern.compile("journal-(\\d{10})\\.log");
+    private static final String CHECKPOINT_FILE = "checkpoint";
+    private static final String REJECTED_FILE = "rejected.jsonl";
+
+    private final Path directory;
+    private final int segmentSizeBytes;
+    private final long flushIntervalNanos;
+    private final ObjectMapper objectMapper;
+
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final Object durableMonitor = new Object();
+
+    private FileChannel currentChannel;
+    private MappedByteBuffer currentBuffer;
+    private int currentSegment;
+
+    private volatile long writtenPosition;
+    private volatile long durablePosition;
+    private volatile boolean running;
+    private Thread flusher;
+
+    private int readSegment = -1;
+    private FileChannel readChannel;
+    private MappedByteBuffer readBuffer;
+
+    public IngestJournal(
+            @Value("${reconciliation.ingest.journal.directory}") Path directory,
+            @Value("${reconciliation.ingest.journal.segment-size-bytes}") int segmentSizeBytes,
+            @Value("${reconciliation.ingest.journal.flush-interval-ms}") long flushIntervalMillis,
+            ObjectMapper objectMapper) {
+        this.directory = directory;
+        this.segmentSizeBytes = segmentSizeBytes;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Open the journal, recover the write position and start the flusher thread
+     */
+    @PostConstruct
+    public void open() throws IOException {
+        Files.createDirectories(directory);
+
+        List<Integer> segments = listSegments();
+        currentSegment = segments.isEmpty() ? 0 : segments.get(segments.size() - 1);
+        mapCurrentSegment();
+        recoverWritePosition();
+
+        writtenPosition = position(currentSegment, currentBuffer.position());
+        durablePosition = writtenPosition;
+        running = true;
+
+        flusher = new Thread(this::flushLoop, "ingest-journal-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+
+        log.info("Opened ingest journal in {} at segment {} offset {}",
+                directory, currentSegment, currentBuffer.position());
+    }
+
+    /**
+     * Flush outstanding records and stop the flusher thread
+     */
+    @PreDestroy
+    public void close() throws IOException {
+        appendLock.lock();
+        try {
+            currentBuffer.force();
+            markDurable(writtenPosition);
+            running = false;
+            currentChannel.close();
+        } finally {
+            appendLock.unlock();
+        }
+
+        if (flusher != null) {
+            flusher.interrupt();
+            try {
+                flusher.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        synchronized (this) {
+            closeReadSegment();
+        }
+    }
+
+    /**
+     * Append a trade submission and wait until it is durable on disk
+     * @param sourceSystem The source system the trade was submitted for
+     * @param trade The trade data
+     * @throws IOException if the entry could not be written or the journal was closed while waiting
+     */
+    public void append(String sourceSystem, TradeDataDto trade) throws IOException {
+        byte[] payload = objectMapper.writeValueAsBytes(new JournalEntry(sourceSystem, trade));
+
+        // Leave room for the zero length that terminates the segment
+        if (HEADER_BYTES + payload.length + Integer.BYTES > segmentSizeBytes) {
+            throw new IOException("Journal entry of " + payload.length + " bytes exceeds the segment size");
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+
+        long target;
+        appendLock.lock();
+        try {
+            if (!running) {
+                throw new IOException("Ingest journal is closed");
+            }
+            if (currentBuffer.remaining() < HEADER_BYTES + payload.length + Integer.BYTES) {
+                rollSegment();
+            }
+
+            currentBuffer.putInt(payload.length);
+            currentBuffer.putInt((int) crc.getValue());
+            currentBuffer.put(payload);
+
+            target = position(currentSegment, currentBuffer.position());
+            writtenPosition = target;
+        } finally {
+            appendLock.unlock();
+        }
+
+        LockSupport.unpark(flusher);
+        awaitDurable(target);
+    }
+
+    /**
+     * Read durable entries starting at the given position
+     * @param fromPosition The position to read from, usually the last committed checkpoint
+     * @param maxEntries Maximum number of entries to return
+     * @return The entries read and the position following them
+     */
+    public synchronized JournalBatch read(long fromPosition, int maxEntries) throws IOException {
+        List<JournalEntry> entries = new ArrayList<>();
+        List<Long> entryEndPositions = new ArrayList<>();
+        int segment = segmentOf(fromPosition);
+        int offset = offsetOf(fromPosition);
+        long limit = durablePosition;
+
+        while (entries.size() < maxEntries && position(segment, offset) < limit) {
+            ByteBuffer buffer = readSegment(segment);
+            buffer.position(offset);
+
+            int length = buffer.remaining() >= HEADER_BYTES ? buffer.getInt() : 0;
+            if (length == 0) {
+                // End of this segment, continue with the next one
+                segment++;
+                offset = 0;
+                continue;
+            }
+
+            buffer.getInt(); // Checksum was verified when the segment was written or recovered
+            byte[] payload = new byte[length];
+            buffer.get(payload);
+            entries.add(objectMapper.readValue(payload, JournalEntry.class));
+            offset = buffer.position();
+            entryEndPositions.add(position(segment, offset));
+        }
+
+        return new JournalBatch(entries, entryEndPositions, position(segment, offset));
+    }
+
+    /**
+     * Read the last committed checkpoint
+     * @return The position up to which entries have been persisted
+     */
+    public long readCheckpoint() throws IOException {
+        Path checkpoint = directory.resolve(CHECKPOINT_FILE);
+        if (!Files.exists(checkpoint)) {
+            return position(listSegments().stream().findFirst().orElse(0), 0);
+        }
+        return Long.parseLong(Files.readString(checkpoint).trim());
+    }
+
+    /**
+     * Durably record that all entries before the given position have been persisted,
+     * and delete segments that are no longer needed
+     * @param position The position following the last persisted entry
+     */
+    public void commitCheckpoint(long position) throws IOException {
+        Path temp = directory.resolve(CHECKPOINT_FILE + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.write(ByteBuffer.wrap(Long.toString(position).getBytes()));
+            channel.force(true);
+        }
+        Files.move(temp, directory.resolve(CHECKPOINT_FILE),
+                StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+        int checkpointSegment = segmentOf(position);
+        for (int segment : listSegments()) {
+            if (segment < checkpointSegment && segment != currentSegment) {
+                synchronized (this) {
+                    if (segment == readSegment) {
+                        closeReadSegment();
+                    }
+                }
+                Files.deleteIfExists(segmentPath(segment));
+                log.debug("Deleted drained journal segment {}", segment);
+            }
+        }
+    }
+
+    /**
+     * Durably append an entry that cannot be persisted to the rejected file in the journal
+     * directory, one JSON document per line, so the checkpoint can move past it
+     * @param entry The entry that could not be persisted
+     * @param reason Why the entry could not be persisted
+     */
+    public void reject(JournalEntry entry, String reason) throws IOException {
+        byte[] payload = objectMapper.writeValueAsBytes(
+                new RejectedJournalEntry(entry.sourceSystem(), entry.trade(), reason, LocalDateTime.now()));
+        try (FileChannel channel = FileChannel.open(directory.resolve(REJECTED_FILE), StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            channel.write(new ByteBuffer[] {ByteBuffer.wrap(payload), ByteBuffer.wrap(new byte[] {'\n'})});
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Background loop forcing written records to disk and releasing waiting appenders
+     */
+    private void flushLoop() {
+        while (running) {
+            try {
+                MappedByteBuffer buffer;
+                long target;
+                appendLock.lock();
+                try {
+                    buffer = currentBuffer;
+                    target = writtenPosition;
+                } finally {
+                    appendLock.unlock();
+                }
+
+                if (target > durablePosition) {
+                    buffer.force();
+                    markDurable(target);
+                } else {
+                    // Idle until an appender wakes us up
+                    LockSupport.parkNanos(flushIntervalNanos);
+                }
+            } catch (Exception e) {
+                log.error("Error flushing ingest journal", e);
+            }
+        }
+    }
+
+    private void markDurable(long position) {
+        synchronized (durableMonitor) {
+            if (position > durablePosition) {
+                durablePosition = position;
+                durableMonitor.notifyAll();
+            }
+        }
+    }
+
+    private void awaitDurable(long target) throws IOException {
+        synchronized (durableMonitor) {
+            while (durablePosition < target) {
+                if (!running) {
+                    throw new IOException("Ingest journal closed before entry became durable");
+                }
+                try {
+                    durableMonitor.wait(TimeUnit.NANOSECONDS.toMillis(flushIntervalNanos) + 1);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new InterruptedIOException("Interrupted while waiting for journal flush");
+                }
+            }
+        }
+    }
+
+    /**
+     * Force the current segment and continue in a new one; called with the append lock held
+     */
+    private void rollSegment() throws IOException {
+        currentBuffer.force();
+        markDurable(position(currentSegment, currentBuffer.position()));
+        currentChannel.close();
+
+        currentSegment++;
+        mapCurrentSegment();
+        log.debug("Rolled ingest journal to segment {}", currentSegment);
+    }
+
+    private void mapCurrentSegment() throws IOException {
+        currentChannel = FileChannel.open(segmentPath(currentSegment),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        currentBuffer = currentChannel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSizeBytes);
+    }
+
+    /**
+     * Scan the current segment for the end of valid data, discarding a torn record at the tail
+     */
+    private void recoverWritePosition() {
+        MappedByteBuffer buffer = currentBuffer;
+        buffer.position(0);
+
+        while (buffer.remaining() >= HEADER_BYTES) {
+            int start = buffer.position();
+            int length = buffer.getInt();
+            int checksum = buffer.getInt();
+
+            if (length == 0) {
+                buffer.position(start);
+                return;
+            }
+
+            boolean valid = length > 0 && length <= buffer.remaining();
+            if (valid) {
+                byte[] payload = new byte[length];
+                buffer.get(payload);
+                CRC32 crc = new CRC32();
+                crc.update(payload);
+                valid = (int) crc.getValue() == checksum;
+            }
+
+            if (!valid) {
+                log.warn("Discarding torn ingest journal record in segment {} at offset {}", currentSegment, start);
+                buffer.position(start);
+                while (buffer.hasRemaining()) {
+                    buffer.put((byte) 0);
+                }
+                buffer.force();
+                buffer.position(start);
+                return;
+            }
+        }
+    }
+
+    private ByteBuffer readSegment(int segment) throws IOException {
+        if (segment != readSegment) {
+            closeReadSegment();
+            readChannel = FileChannel.open(segmentPath(segment), StandardOpenOption.READ);
+            readBuffer = readChannel.map(FileChannel.MapMode.READ_ONLY, 0, readChannel.size());
+            readSegment = segment;
+        }
+        return readBuffer.duplicate();
+    }
+
+    private void closeReadSegment() {
+        if (readChannel != null) {
+            try {
+                readChannel.close();
+            } catch (IOException e) {
+                log.debug("Error closing journal segment {}", readSegment, e);
+            }
+        }
+        readChannel = null;
+        readBuffer = null;
+        readSegment = -1;
+    }
+
+    private List<Integer> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(path -> SEGMENT_NAME.matcher(path.getFileName().toString()))
+                    .filter(Matcher::matches)
+                    .map(matcher -> Integer.parseInt(matcher.group(1)))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private Path segmentPath(int segment) {
+        return directory.resolve(String.format("journal-%010d.log", segment));
+    }
+
+    static long position(int segment, int offset) {
+        return ((long) segment << 32) | (offset & 0xFFFFFFFFL);
+    }
+
+    static int segmentOf(long position) {
+        return (int) (position >>> 32);
+    }
+
+    static int offsetOf(long position) {
+        return (int) position;
+    }
+}
@@ -0,0 +1,140 @@
+package com.trading.reconciliation.ingest;
+
+import com.trading.reconciliation.dto.TradeDataDto;
+import com.trading.reconciliation.service.TradeDataService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.AmqpException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Background drainer persisting journaled trades to the database
+ *
+ * Reads durable entries from the IngestJournal after the last checkpoint, saves
+ * them to trade_data in large batches, triggers reconciliation and only then
+ * commits the new checkpoint. Each batch is saved in a single transaction, so a
+ * failed batch leaves nothing behind. If persisting fails because the database or
+ * broker is unavailable, the checkpoint is not moved and the same entries are retried
+ * on the next run, so delivery is at-least-once; resubmitting the latest version of a
+ * leg does not store a new version, which makes replays after a crash harmless.
+ *
+ * Any other failure is blamed on the entries themselves: the batch is split in halves
+ * until the failing entries are isolated, and an entry that cannot be saved on its own
+ * is moved to the journal's rejected file and counted, so one bad trade never holds
+ * back the checkpoint for the trades behind it.
+ */
+@Component
+@ConditionalOnProperty(name = "reconciliation.ingest.mode", havingValue = "journal")
+@Slf4j
+public class IngestJournalDrainer {
+
+    private final IngestJournal ingestJournal;
+    private final TradeDataService tradeDataService;
+    private final Counter drainedEntries;
+    private final Counter rejectedEntries;
+
+    @Value("${reconciliation.ingest.journal.drain-batch-size}")
+    private int drainBatchSize;
+
+    public IngestJournalDrainer(IngestJournal ingestJournal, TradeDataService tradeDataService,
+                                MeterRegistry meterRegistry) {
+        this.ingestJournal = ingestJournal;
+        this.tradeDataService = tradeDataService;
+        this.drainedEntries = Counter.builder("reconciliation.ingest.journal.drained")
+                .description("Journaled trades persisted to the database")
+                .register(meterRegistry);
+        this.rejectedEntries = Counter.builder("reconciliation.ingest.journal.rejected")
+                .description("Journaled trades that could not be persisted and were moved to the rejected file")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Drain all durable journal entries in batches
+     */
+    @Scheduled(fixedDelayString = "${reconciliation.ingest.journal.drain-interval-ms}")
+    public void drain() {
+        try {
+            long checkpoint = ingestJournal.readCheckpoint();
+            JournalBatch batch = ingestJournal.read(checkpoint, drainBatchSize);
+
+            while (!batch.isEmpty()) {
+                persistOrSplit(batch, 0, batch.entries().size());
+                batch = ingestJournal.read(batch.nextPosition(), drainBatchSize);
+            }
+        } catch (Exception e) {
+            log.error("Error draining ingest journal, will retry from last checkpoint", e);
+        }
+    }
+
+    /**
+     * Persist the entries of a batch in the range [from, to) and commit the checkpoint after them,
+     * splitting the range to isolate entries that cannot be persisted
+     */
+    private void persistOrSplit(JournalBatch batch, int from, int to) throws IOException {
+        List<JournalEntry> entries = batch.entries().subList(from, to);
+        try {
+            persist(entries);
+        } catch (RuntimeException e) {
+            if (isTransientFailure(e)) {
+                throw e;
+            }
+            if (entries.size() > 1) {
+                log.warn("Failed to persist {} journaled trades, retrying in smaller batches: {}",
+                        entries.size(), e.getMessage());
+                int middle = (from + to) >>> 1;
+                persistOrSplit(batch, from, middle);
+                persistOrSplit(batch, middle, to);
+                return;
+            }
+
+            JournalEntry entry = entries.get(0);
+            ingestJournal.reject(entry, String.valueOf(e.getMessage()));
+            ingestJournal.commitCheckpoint(batch.positionAfter(from));
+            rejectedEntries.increment();
+            log.error("Moved journaled trade {} from {} to the rejected file",
+                    entry.trade().getTradeId(), entry.sourceSystem(), e);
+            return;
+        }
+
+        ingestJournal.commitCheckpoint(batch.positionAfter(to - 1));
+        drainedEntries.increment(entries.size());
+    }
+
+    /**
+     * Persist entries grouped by source system in one transaction, preserving submission order within each source
+     */
+    private void persist(List<JournalEntry> entries) {
+        Map<String, List<TradeDataDto>> tradesBySource = new LinkedHashMap<>();
+        for (JournalEntry entry : entries) {
+            tradesBySource.computeIfAbsent(entry.sourceSystem(), source -> new ArrayList<>()).add(entry.trade());
+        }
+
+        tradeDataService.saveTradeBatch(tradesBySource);
+        log.debug("Drained {} journaled trades", entries.size());
+    }
+
+    /**
+     * Whether the failure lies with the database or broker rather than the entries, so retrying later can succeed
+     */
+    private boolean isTransientFailure(Exception e) {
+        return e instanceof TransientDataAccessException
+                || e instanceof RecoverableDataAccessException
+                || e instanceof DataAccessResourceFailureException
+                || e instanceof CannotCreateTransactionException
+                || e instanceof AmqpException;
+    }
+}
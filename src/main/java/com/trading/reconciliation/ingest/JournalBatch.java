@@ -0,0 +1,25 @@
+package com.trading.reconciliation.ingest;
+
+import java.util.List;
+
+/**
+ * A batch of entries read from the ingest journal
+ * 
+ * @param entries The entries in journal order
+ * @param entryEndPositions The journal position just after each entry, to commit part of the batch
+ * @param nextPosition The journal position just after the last entry, to be committed once the batch is persisted
+ */
+public record JournalBatch(List<JournalEntry> entries, List<Long> entryEndPositions, long nextPosition) {
+    
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+    
+    /**
+     * @param index Index of an entry in this batch
+     * @return The position to commit once every entry up to and including this one is persisted
+     */
+    public long positionAfter(int index) {
+        return index == entries.size() - 1 ? nextPosition : entryEndPositions.get(index);
+    }
+}
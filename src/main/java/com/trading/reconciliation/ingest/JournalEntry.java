@@ -0,0 +1,12 @@
+package com.trading.reconciliation.ingest;
+
+import com.trading.reconciliation.dto.TradeDataDto;
+
+/**
+ * A trade submission as recorded in the ingest journal
+ * 
+ * @param sourceSystem The source system the trade was submitted for
+ * @param trade The submitted trade data
+ */
+public record JournalEntry(String sourceSystem, TradeDataDto trade) {
+}
@@ -0,0 +1,13 @@
+package com.trading.reconciliation.ingest;
+
+import com.trading.reconciliation.dto.TradeDataDto;
+
+/**
+ * A trade parsed from a line of a trade file
+ *
+ * @param offset Byte offset of the line within the file
+ * @param trade The parsed trade data
+ * @param rawLine The line as it appeared in the file, stored as the trade's raw data
+ */
+public record ParsedTradeRow(long offset, TradeDataDto trade, String rawLine) {
+}
@@ -0,0 +1,16 @@
+package com.trading.reconciliation.ingest;
+
+import com.trading.reconciliation.dto.TradeDataDto;
+
+import java.time.LocalDateTime;
+
+/**
+ * A journaled trade that could not be persisted and was moved out of the journal
+ * 
+ * @param sourceSystem The source system the trade was submitted for
+ * @param trade The submitted trade data
+ * @param reason Why the trade could not be persisted
+ * @param rejectedAt When the trade was moved out of the journal
+ */
+public record RejectedJournalEntry(String sourceSystem, TradeDataDto trade, String reason, LocalDateTime rejectedAt) {
+}
@@ -0,0 +1,11 @@
+package com.trading.reconciliation.ingest;
+
+/**
+ * A line of a trade file that could not be mapped to a trade
+ *
+ * @param offset Byte offset of the line within the file
+ * @param reason Why the line was rejected
+ * @param rawLine The line as it appeared in the file
+ */
+public record RejectedTradeRow(long offset, String reason, String rawLine) {
+}
@@ -0,0 +1,48 @@
+package com.trading.reconciliation.ingest;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Optional;
+
+/**
+ * Layout of an end-of-day trade file
+ *
+ * Both layouts hold one trade per line with the columns tradeId, instrument,
+ * quantity, price, tradeDate and counterparty, in that order.
+ */
+public enum TradeFileFormat {
+
+    /** Comma-separated values, optionally double-quoted, with an optional header line */
+    CSV("csv"),
+
+    /** Fixed-width columns as configured in reconciliation.file-ingest.fixed-width-columns */
+    FIXED_WIDTH("dat", "txt");
+
+    private final String[] extensions;
+
+    TradeFileFormat(String... extensions) {
+        this.extensions = extensions;
+    }
+
+    /**
+     * Look up a format by name, ignoring case and accepting "fixed-width" for FIXED_WIDTH
+     * @param name The format name
+     * @return An Optional containing the format if the name is known
+     */
+    public static Optional<TradeFileFormat> fromName(String name) {
+        String normalized = name.trim().replace('-', '_').toUpperCase(Locale.ROOT);
+        return Arrays.stream(values()).filter(format -> format.name().equals(normalized)).findFirst();
+    }
+
+    /**
+     * Determine the format of a file from its extension
+     * @param fileName The file name
+     * @return An Optional containing the format if the extension is known
+     */
+    public static Optional<TradeFileFormat> fromFileName(String fileName) {
+        String lowerCase = fileName.toLowerCase(Locale.ROOT);
+        return Arrays.stream(values())
+                .filter(format -> Arrays.stream(format.extensions).anyMatch(ext -> lowerCase.endsWith("." + ext)))
+                .findFirst();
+    }
+}
@@ -0,0 +1,227 @@
+package com.trading.reconciliation.ingest;
+
+import com.trading.reconciliation.dto.TradeDataDto;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parser for end-of-day trade files using memory-mapped I/O
+ *
+ * A file is split into byte ranges that can be parsed independently and in parallel.
+ * A range owns every line that starts inside it: parsing skips the partial line at
+ * the start of the range, which belongs to the previous range, and finishes the line
+ * that crosses its end. Each range is mapped read-only on its own, so files larger
+ * than 2 GB are supported and only the pages being parsed are resident.
+ *
+ * Lines are decoded as UTF-8 and mapped to TradeDataDto; lines that cannot be mapped
+ * are reported as rejects with their byte offset instead of failing the file.
+ */
+public class TradeFileParser {
+
+    /** Longest line accepted, and how far a range's mapping extends past its end */
+    static final int MAX_LINE_BYTES = 64 * 1024;
+
+    private static final int COLUMNS = 6;
+
+    private final TradeFileFormat format;
+    private final int[] fixedWidthColumns;
+
+    /**
+     * @param format The file layout
+     * @param fixedWidthColumns Widths of the six columns for FIXED_WIDTH files
+     */
+    public TradeFileParser(TradeFileFormat format, int[] fixedWidthColumns) {
+        if (format == TradeFileFormat.FIXED_WIDTH && fixedWidthColumns.length != COLUMNS) {
+            throw new IllegalArgumentException("Fixed-width layout needs " + COLUMNS + " column widths");
+        }
+        this.format = format;
+        this.fixedWidthColumns = fixedWidthColumns;
+    }
+
+    /**
+     * Split a file into byte ranges of roughly equal size
+     * @param fileSize Size of the file in bytes
+     * @param maxRangeBytes Largest range to produce
+     * @param minRanges Number of ranges to produce at least, if the file is large enough
+     * @return The ranges, covering the file without gaps
+     */
+    public static List<FileRange> split(long fileSize, long maxRangeBytes, int minRanges) {
+        long ranges = Math.max(minRanges, (fileSize + maxRangeBytes - 1) / maxRangeBytes);
+        long rangeBytes = Math.max(MAX_LINE_BYTES, (fileSize + ranges - 1) / ranges);
+
+        List<FileRange> result = new ArrayList<>();
+        for (long start = 0; start < fileSize; start += rangeBytes) {
+            result.add(new FileRange(start, Math.min(fileSize, start + rangeBytes)));
+        }
+        return result;
+    }
+
+    /**
+     * Parse the lines owned by a byte range
+     * @param channel Channel of the file, opened for reading
+     * @param fileSize Size of the file in bytes
+     * @param range The range to parse
+     * @param handler Receives parsed rows and rejects, in file order
+     */
+    public void parse(FileChannel channel, long fileSize, FileRange range, RowHandler handler) throws IOException {
+        // Map one byte before the range to tell whether it starts on a line boundary
+        long mapStart = Math.max(0, range.start() - 1);
+        long mapEnd = Math.min(fileSize, range.end() + MAX_LINE_BYTES);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, mapStart, mapEnd - mapStart);
+
+        int position = (int) (range.start() - mapStart);
+        int end = (int) (range.end() - mapStart);
+        if (range.start() > 0 && buffer.get(position - 1) != '\n') {
+            position = nextLine(buffer, position);
+        }
+
+        byte[] line = new byte[MAX_LINE_BYTES];
+        while (position < end && position < buffer.limit()) {
+            int lineEnd = indexOf(buffer, position, '\n');
+            int next = lineEnd < 0 ? buffer.limit() : lineEnd + 1;
+            long offset = mapStart + position;
+            int length = (lineEnd < 0 ? buffer.limit() : lineEnd) - position;
+
+            if (lineEnd < 0 && mapEnd < fileSize) {
+                handler.onReject(new RejectedTradeRow(offset, "Line longer than " + MAX_LINE_BYTES + " bytes", ""));
+                return;
+            }
+            if (length > 0 && buffer.get(position + length - 1) == '\r') {
+                length--;
+            }
+            if (length > line.length) {
+                handler.onReject(new RejectedTradeRow(offset, "Line longer than " + MAX_LINE_BYTES + " bytes", ""));
+            } else if (length > 0) {
+                buffer.get(position, line, 0, length);
+                parseLine(offset, new String(line, 0, length, StandardCharsets.UTF_8), handler);
+            }
+            position = next;
+        }
+    }
+
+    private void parseLine(long offset, String rawLine, RowHandler handler) {
+        if (rawLine.isBlank()) {
+            return;
+        }
+
+        List<String> columns = format == TradeFileFormat.CSV ? splitCsv(rawLine) : splitFixedWidth(rawLine);
+        if (offset == 0 && "tradeId".equalsIgnoreCase(columns.get(0))) {
+            // Header line
+            return;
+        }
+        if (columns.size() != COLUMNS) {
+            handler.onReject(new RejectedTradeRow(offset,
+                    "Expected " + COLUMNS + " columns but found " + columns.size(), rawLine));
+            return;
+        }
+        for (int i = 0; i < COLUMNS; i++) {
+            if (columns.get(i).isEmpty()) {
+                handler.onReject(new RejectedTradeRow(offset, "Column " + (i + 1) + " is empty", rawLine));
+                return;
+            }
+        }
+
+        try {
+            TradeDataDto trade = TradeDataDto.builder()
+                    .tradeId(columns.get(0))
+                    .instrument(columns.get(1))
+                    .quantity(new BigDecimal(columns.get(2)))
+                    .price(new BigDecimal(columns.get(3)))
+                    .tradeDate(LocalDateTime.parse(columns.get(4).replace(' ', 'T')))
+                    .counterparty(columns.get(5))
+                    .build();
+            handler.onRow(new ParsedTradeRow(offset, trade, rawLine));
+        } catch (NumberFormatException e) {
+            handler.onReject(new RejectedTradeRow(offset, "Invalid quantity or price", rawLine));
+        } catch (DateTimeParseException e) {
+            handler.onReject(new RejectedTradeRow(offset, "Invalid trade date: " + columns.get(4), rawLine));
+        }
+    }
+
+    /**
+     * Split a CSV line, honouring double-quoted columns with "" as an escaped quote
+     */
+    static List<String> splitCsv(String line) {
+        List<String> columns = new ArrayList<>(COLUMNS);
+        StringBuilder column = new StringBuilder();
+        boolean quoted = false;
+
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    column.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    column.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                columns.add(column.toString().trim());
+                column.setLength(0);
+            } else {
+                column.append(c);
+            }
+        }
+        columns.add(column.toString().trim());
+        return columns;
+    }
+
+    private List<String> splitFixedWidth(String line) {
+        List<String> columns = new ArrayList<>(COLUMNS);
+        int start = 0;
+        for (int width : fixedWidthColumns) {
+            if (start >= line.length()) {
+                break;
+            }
+            int end = Math.min(line.length(), start + width);
+            columns.add(line.substring(start, end).trim());
+            start = end;
+        }
+        return columns;
+    }
+
+    private static int nextLine(MappedByteBuffer buffer, int position) {
+        int lineEnd = indexOf(buffer, position, '\n');
+        return lineEnd < 0 ? buffer.limit() : lineEnd + 1;
+    }
+
+    private static int indexOf(MappedByteBuffer buffer, int from, char c) {
+        for (int i = from; i < buffer.limit(); i++) {
+            if (buffer.get(i) == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * A byte range of a trade file
+     *
+     * @param start First byte of the range, inclusive
+     * @param end Last byte of the range, exclusive
+     */
+    public record FileRange(long start, long end) {
+    }
+
+    /**
+     * Receives the outcome of every line parsed from a range
+     */
+    public interface RowHandler {
+
+        void onRow(ParsedTradeRow row);
+
+        void onReject(RejectedTradeRow reject);
+    }
+}
@@ -0,0 +1,47 @@
+package com.trading.reconciliation.messaging;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.support.converter.AbstractJackson2MessageConverter;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import org.springframework.lang.Nullable;
+import org.springframework.util.MimeType;
+
+import java.io.IOException;
+
+/**
+ * Jackson based AMQP message converter for binary encodings such as Smile and CBOR
+ * 
+ * Type information is carried in the same headers as with the JSON converter, so
+ * listeners are unaffected by the encoding chosen by the publisher. As with the JSON
+ * converter, only types in the trusted packages are resolved from those headers.
+ */
+public class BinaryJacksonMessageConverter extends AbstractJackson2MessageConverter {
+    
+    /**
+     * Create a converter for a binary Jackson format
+     * @param objectMapper An ObjectMapper backed by the binary format's factory
+     * @param contentType The content type identifying the format, e.g. application/x-jackson-smile
+     * @param trustedPackages Packages of the types messages may name in their __TypeId__ header
+     */
+    public BinaryJacksonMessageConverter(ObjectMapper objectMapper, MimeType contentType, String... trustedPackages) {
+        super(objectMapper, contentType, trustedPackages);
+    }
+    
+    /**
+     * Read the body as bytes
+     * 
+     * The base class decodes the body into a String first unless the content type names
+     * a charset, which the binary formats' parsers cannot read.
+     */
+    @Override
+    public Object fromMessage(Message message, @Nullable Object conversionHint) throws MessageConversionException {
+        JavaType javaType = getJavaTypeMapper().toJavaType(message.getMessageProperties());
+        try {
+            return objectMapper.readValue(message.getBody(), javaType);
+        } catch (IOException e) {
+            throw new MessageConversionException("Failed to convert " + getSupportedContentType() + " message content", e);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.trading.reconciliation.messaging;
+
+import com.trading.reconciliation.dto.ReconciliationTaskMessage;
+import com.trading.reconciliation.profiling.TaskDequeueEvent;
+import com.trading.reconciliation.service.ReconciliationService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.annotation.RabbitListenerConfigurer;
+import org.springframework.amqp.rabbit.config.SimpleRabbitListenerEndpoint;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistrar;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Listener for reconciliation tasks of the desk lanes
+ *
+ * One listener container is registered per configured desk lane, consuming the lane's
+ * tasks queue with the lane's own number of consumers. Tasks are handled like those of
+ * the bulk queue, except that the reconciliation runs within the lane's pool share and
+ * lag is tracked under the lane's name.
+ *
+ * Failed tasks are retried through the lane queue's own retry queues, so they return
+ * to their lane.
+ */
+@Component
+@ConditionalOnProperty(name = "reconciliation.task.transport", havingValue = "rabbitmq", matchIfMissing = true)
+@Slf4j
+@RequiredArgsConstructor
+public class DeskLaneTaskListener implements RabbitListenerConfigurer {
+    
+    private final DeskLanes deskLanes;
+    private final ReconciliationService reconciliationService;
+    private final TaskLagTracker taskLagTracker;
+    private final ReconciliationTaskRetrier taskRetrier;
+    private final MessageConverter messageConverter;
+    
+    @Override
+    public void configureRabbitListeners(RabbitListenerEndpointRegistrar registrar) {
+        for (String lane : deskLanes.deskLaneNames()) {
+            SimpleRabbitListenerEndpoint endpoint = new SimpleRabbitListenerEndpoint();
+            endpoint.setId("desk-lane-" + lane);
+            endpoint.setQueueNames(deskLanes.tasksQueue(lane));
+            endpoint.setConcurrency(String.valueOf(deskLanes.settings(lane).getConcurrency()));
+            endpoint.setMessageListener(message -> processDeskLaneTask(lane, message));
+            registrar.registerEndpoint(endpoint);
+        }
+    }
+    
+    /**
+     * Process a reconciliation task consumed from a desk lane's queue
+     *
+     * @param lane The desk lane
+     * @param message The received message, carrying a trade ID or a leg snapshot
+     */
+    void processDeskLaneTask(String lane, Message message) {
+        if (ReconciliationTaskRetrier.attemptOf(message) == 0) {
+            taskLagTracker.recordConsumed(lane, message.getMessageProperties().getTimestamp());
+        }
+        
+        TaskDequeueEvent taskEvent = new TaskDequeueEvent();
+        taskEvent.begin();
+        String tradeId = null;
+        
+        try {
+            Object task = messageConverter.fromMessage(message);
+            if (task instanceof ReconciliationTaskMessage snapshotTask) {
+                tradeId = snapshotTask.getTradeId();
+                log.info("Received {} lane reconciliation task for tradeId: {} with {} leg snapshot",
+                        lane, tradeId, snapshotTask.getSourceSystem());
+                deskLanes.runWithPoolShare(lane, () -> reconciliationService.executeReconciliation(snapshotTask));
+            } else {
+                String taskTradeId = (String) task;
+                tradeId = taskTradeId;
+                log.info("Received {} lane reconciliation task for tradeId: {}", lane, tradeId);
+                deskLanes.runWithPoolShare(lane, () -> reconciliationService.executeReconciliation(taskTradeId));
+            }
+            log.info("Completed {} lane reconciliation task for tradeId: {}", lane, tradeId);
+            completeTaskEvent(taskEvent, tradeId, lane, message, false);
+        } catch (Exception e) {
+            completeTaskEvent(taskEvent, tradeId, lane, message, true);
+            log.error("Error processing {} lane reconciliation task for tradeId: {}", lane, tradeId, e);
+            taskRetrier.retryOrDeadLetter(message, e);
+        }
+    }
+    
+    /**
+     * Record the processing of a task as a flight recorder event
+     */
+    private void completeTaskEvent(TaskDequeueEvent taskEvent, String tradeId, String lane, Message message,
+                                   boolean failed) {
+        taskEvent.complete(tradeId, lane, ReconciliationTaskRetrier.attemptOf(message),
+                TaskLagTracker.queueWaitMillis(message), failed);
+    }
+}
@@ -0,0 +1,206 @@
+package com.trading.reconciliation.messaging;
+
+import com.trading.reconciliation.config.DeskLaneProperties;
+import com.trading.reconciliation.exception.AdmissionRejectedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Routes trades to desk lanes and enforces each lane's share of the primary pool
+ *
+ * A trade's desk selects its lane. Reconciliation tasks of a desk lane are published to
+ * the lane's own tasks queue and consumed by the lane's own listeners, so a burst from
+ * one desk backs up only that desk's queue. Database work of a lane, whether a direct
+ * submission or a reconciliation, holds one of the lane's permits, so a lane can never
+ * occupy more connections than its configured pool share.
+ *
+ * Everything else uses the shared lane, which keeps the reconciliation tasks queue and
+ * is bounded only by the pool itself.
+ */
+@Component
+@Slf4j
+public class DeskLanes {
+    
+    public static final String SHARED_LANE = "shared";
+    
+    private static final Set<String> RESERVED_LANES = Set.of(SHARED_LANE, TaskLagTracker.BULK_LANE,
+            TaskLagTracker.PRIORITY_LANE);
+    
+    private final String reconciliationTasksQueue;
+    private final long acquireTimeoutMillis;
+    private final long retryAfterSeconds;
+    private final Map<String, String> laneByDesk = new HashMap<>();
+    private final Map<String, Lane> lanes = new LinkedHashMap<>();
+    
+    public DeskLanes(
+            DeskLaneProperties properties,
+            MeterRegistry meterRegistry,
+            @Value("${reconciliation.queue.reconciliation-tasks}") String reconciliationTasksQueue,
+            @Value("${reconciliation.admission.retry-after-seconds}") long retryAfterSeconds) {
+        this.reconciliationTasksQueue = reconciliationTasksQueue;
+        this.acquireTimeoutMillis = properties.getPoolShareAcquireTimeoutMs();
+        this.retryAfterSeconds = retryAfterSeconds;
+        
+        properties.getLanes().forEach((name, settings) -> {
+            if (RESERVED_LANES.contains(name)) {
+                throw new IllegalStateException("Desk lane name " + name + " is reserved");
+            }
+            
+            List<String> desks = settings.getDesks().isEmpty() ? List.of(name) : settings.getDesks();
+            for (String desk : desks) {
+                String previous = laneByDesk.put(normalize(desk), name);
+                if (previous != null) {
+                    throw new IllegalStateException("Desk " + desk + " is routed to lanes " + previous + " and " + name);
+                }
+            }
+            
+            Lane lane = new Lane(settings, new Semaphore(settings.getPoolShare(), true),
+                    Counter.builder("reconciliation.desk.pool.rejected")
+                            .description("Submissions rejected because their desk lane used up its pool share")
+                            .tag("lane", name)
+                            .register(meterRegistry));
+            Gauge.builder("reconciliation.desk.pool.in.use", lane,
+                            l -> l.settings().getPoolShare() - l.permits().availablePermits())
+                    .description("Primary pool connections held by the desk lane")
+                    .tag("lane", name)
+                    .register(meterRegistry);
+            lanes.put(name, lane);
+            log.info("Desk lane {} serves desks {} with {} listeners and a pool share of {}",
+                    name, desks, settings.getConcurrency(), settings.getPoolShare());
+        });
+    }
+    
+    /**
+     * Lane of a desk
+     * @param desk The desk or book of a trade, may be null
+     * @return The name of the desk's lane, or SHARED_LANE if the desk has none
+     */
+    public String laneOf(String desk) {
+        if (desk == null) {
+            return SHARED_LANE;
+        }
+        return laneByDesk.getOrDefault(normalize(desk), SHARED_LANE);
+    }
+    
+    /**
+     * Names of the configured desk lanes, excluding the shared lane
+     */
+    public Collection<String> deskLaneNames() {
+        return lanes.keySet();
+    }
+    
+    /**
+     * Settings of a configured desk lane
+     * @param lane The lane name
+     * @return The lane's settings, or null for the shared lane
+     */
+    public DeskLaneProperties.Lane settings(String lane) {
+        Lane deskLane = lanes.get(lane);
+        return deskLane != null ? deskLane.settings() : null;
+    }
+    
+    /**
+     * Tasks queue of a lane
+     * @param lane The lane name
+     * @return The lane's tasks queue, or the reconciliation tasks queue for the shared lane
+     */
+    public String tasksQueue(String lane) {
+        return lanes.containsKey(lane) ? queueName(reconciliationTasksQueue, lane) : reconciliationTasksQueue;
+    }
+    
+    /**
+     * Run a submission's database work within its lane's pool share
+     *
+     * Submissions are rejected rather than queued when the lane's share stays exhausted,
+     * so a flooding desk cannot tie up request threads either.
+     *
+     * @param lane The lane of the submission
+     * @param work The database work
+     * @return The result of the work
+     * @throws AdmissionRejectedException if no permit became free within the acquire timeout
+     */
+    public <T> T callWithPoolShare(String lane, Supplier<T> work) {
+        Lane deskLane = lanes.get(lane);
+        if (deskLane == null) {
+            return work.get();
+        }
+        
+        boolean acquired;
+        try {
+            acquired = deskLane.permits().tryAcquire(acquireTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        if (!acquired) {
+            deskLane.rejected().increment();
+            log.warn("Rejecting submission for desk lane {}, its pool share is in use", lane);
+            throw new AdmissionRejectedException(
+                    "Desk lane " + lane + " is overloaded (pool-share), retry later", retryAfterSeconds);
+        }
+        
+        try {
+            return work.get();
+        } finally {
+            deskLane.permits().release();
+        }
+    }
+    
+    /**
+     * Run a reconciliation task within its lane's pool share, waiting for a free permit
+     * @param lane The lane the task was consumed from
+     * @param work The reconciliation
+     */
+    public void runWithPoolShare(String lane, Runnable work) {
+        Lane deskLane = lanes.get(lane);
+        if (deskLane == null) {
+            work.run();
+            return;
+        }
+        
+        try {
+            deskLane.permits().acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for the pool share of desk lane " + lane, e);
+        }
+        
+        try {
+            work.run();
+        } finally {
+            deskLane.permits().release();
+        }
+    }
+    
+    /**
+     * Name of the tasks queue of a desk lane
+     * @param tasksQueue The reconciliation tasks queue
+     * @param lane The desk lane
+     * @return The lane's queue name
+     */
+    public static String queueName(String tasksQueue, String lane) {
+        return tasksQueue + ".desk." + lane;
+    }
+    
+    private static String normalize(String desk) {
+        return desk.trim().toUpperCase(Locale.ROOT);
+    }
+    
+    private record Lane(DeskLaneProperties.Lane settings, Semaphore permits, Counter rejected) {
+    }
+}
@@ -0,0 +1,88 @@
+package com.trading.reconciliation.messaging;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trading.reconciliation.dto.ReconciliationTaskMessage;
+import com.trading.reconciliation.repository.ReconciliationTaskRepository;
+import com.trading.reconciliation.repository.ReconciliationTaskRepository.NewTask;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Task transport storing reconciliation tasks in the reconciliation_task table
+ * 
+ * Tasks published within a transaction are collected and inserted in one batch just
+ * before it commits, so a batch of legs and their tasks costs a single extra round
+ * trip and a leg is never committed without its task, or the other way round. Tasks
+ * published outside a transaction are inserted right away.
+ */
+@Component
+@ConditionalOnProperty(name = "reconciliation.task.transport", havingValue = "postgres")
+@RequiredArgsConstructor
+public class PostgresTaskTransport implements ReconciliationTaskTransport {
+    
+    private final ReconciliationTaskRepository taskRepository;
+    private final ObjectMapper objectMapper;
+    
+    @Override
+    public void publish(String queue, String tradeId, Object task) {
+        NewTask newTask = new NewTask(queue, tradeId, task instanceof ReconciliationTaskMessage ? toJson(task) : null);
+        
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && TransactionSynchronizationManager.isSynchronizationActive()) {
+            transactionTasks().add(newTask);
+        } else {
+            taskRepository.enqueueAll(List.of(newTask));
+        }
+    }
+    
+    @Override
+    public boolean isTransactional() {
+        return true;
+    }
+    
+    @Override
+    public Long queueDepth(String queue) {
+        return taskRepository.countPending(queue);
+    }
+    
+    private String toJson(Object task) {
+        try {
+            return objectMapper.writeValueAsString(task);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize reconciliation task", e);
+        }
+    }
+    
+    /**
+     * Tasks published in the current transaction, inserted just before it commits
+     */
+    @SuppressWarnings("unchecked")
+    private List<NewTask> transactionTasks() {
+        List<NewTask> tasks = (List<NewTask>) TransactionSynchronizationManager.getResource(this);
+        if (tasks != null) {
+            return tasks;
+        }
+        
+        List<NewTask> collected = new ArrayList<>();
+        TransactionSynchronizationManager.bindResource(this, collected);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                taskRepository.enqueueAll(collected);
+            }
+            
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(PostgresTaskTransport.this);
+            }
+        });
+        return collected;
+    }
+}
@@ -0,0 +1,261 @@
+package com.trading.reconciliation.messaging;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trading.reconciliation.dto.ReconciliationTaskMessage;
+import com.trading.reconciliation.profiling.TaskDequeueEvent;
+import com.trading.reconciliation.repository.ReconciliationTaskRepository;
+import com.trading.reconciliation.repository.ReconciliationTaskRepository.ClaimedTask;
+import com.trading.reconciliation.service.LeaseService;
+import com.trading.reconciliation.service.ReconciliationService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Workers reconciling tasks of the Postgres task transport
+ * 
+ * Every lane gets its own workers, as many as it has RabbitMQ consumers otherwise:
+ * the bulk queue, the priority queue and each desk lane's queue. A worker claims a
+ * batch of its queue's oldest tasks under a lease, reconciles them one by one and
+ * deletes the processed ones in one batch. Workers on all instances compete for the
+ * same rows without blocking each other, and a worker that finds its queue empty
+ * polls again after a short pause.
+ * 
+ * Delivery is at least once: the tasks of a worker that dies are claimed again once
+ * their lease expires, and reconciling a trade twice is harmless. A failed task is
+ * released for a retry after the same jittered backoff as on RabbitMQ and marked dead
+ * after the last attempt, from where it can be replayed. A task claimed more often than
+ * that never finished any of its attempts, most likely because it kept killing its
+ * worker, so it is marked dead without running it again.
+ */
+@Component
+@ConditionalOnProperty(name = "reconciliation.task.transport", havingValue = "postgres")
+@Slf4j
+public class PostgresTaskWorkers {
+    
+    private final ReconciliationTaskRepository taskRepository;
+    private final ReconciliationService reconciliationService;
+    private final DeskLanes deskLanes;
+    private final TaskLagTracker taskLagTracker;
+    private final ReconciliationTaskRetrier taskRetrier;
+    private final ObjectMapper objectMapper;
+    private final String owner;
+    private final Counter retriedTasks;
+    private final Counter deadLetteredTasks;
+    private final ExecutorService workers = Executors.newCachedThreadPool();
+    
+    private volatile boolean running = true;
+    
+    @Value("${reconciliation.queue.reconciliation-tasks}")
+    private String reconciliationTasksQueue;
+    
+    @Value("${reconciliation.queue.reconciliation-priority-tasks}")
+    private String reconciliationPriorityTasksQueue;
+    
+    @Value("${reconciliation.task.postgres.workers}")
+    private int bulkWorkers;
+    
+    @Value("${reconciliation.priority.concurrency}")
+    private int priorityWorkers;
+    
+    @Value("${reconciliation.task.postgres.claim-batch-size}")
+    private int claimBatchSize;
+    
+    @Value("${reconciliation.task.postgres.lease-ms}")
+    private long leaseMillis;
+    
+    @Value("${reconciliation.task.postgres.poll-interval-ms}")
+    private long pollIntervalMillis;
+    
+    @Value("${reconciliation.retry.max-attempts}")
+    private int maxAttempts;
+    
+    public PostgresTaskWorkers(ReconciliationTaskRepository taskRepository,
+                               ReconciliationService reconciliationService,
+                               DeskLanes deskLanes,
+                               TaskLagTracker taskLagTracker,
+                               ReconciliationTaskRetrier taskRetrier,
+                               ObjectMapper objectMapper,
+                               LeaseService leaseService,
+                               MeterRegistry meterRegistry) {
+        this.taskRepository = taskRepository;
+        this.reconciliationService = reconciliationService;
+        this.deskLanes = deskLanes;
+        this.taskLagTracker = taskLagTracker;
+        this.taskRetrier = taskRetrier;
+        this.objectMapper = objectMapper;
+        this.owner = leaseService.getInstanceId();
+        this.retriedTasks = Counter.builder("reconciliation.task.retried")
+                .description("Reconciliation tasks scheduled for a delayed retry")
+                .register(meterRegistry);
+        this.deadLetteredTasks = Counter.builder("reconciliation.task.dead.lettered")
+                .description("Reconciliation tasks moved to the dead-letter queue after the last attempt")
+                .register(meterRegistry);
+    }
+    
+    /**
+     * Start the workers of every lane once the application is ready
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        startWorkers(reconciliationTasksQueue, TaskLagTracker.BULK_LANE, bulkWorkers);
+        startWorkers(reconciliationPriorityTasksQueue, TaskLagTracker.PRIORITY_LANE, priorityWorkers);
+        for (String lane : deskLanes.deskLaneNames()) {
+            startWorkers(deskLanes.tasksQueue(lane), lane, deskLanes.settings(lane).getConcurrency());
+        }
+    }
+    
+    /**
+     * Let the workers finish their current batch before the instance stops
+     */
+    @PreDestroy
+    public void stop() {
+        running = false;
+        workers.shutdown();
+        try {
+            if (!workers.awaitTermination(leaseMillis, TimeUnit.MILLISECONDS)) {
+                // Unfinished tasks are claimed again once their lease expires
+                workers.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            workers.shutdownNow();
+        }
+    }
+    
+    private void startWorkers(String queue, String lane, int count) {
+        log.info("Starting {} Postgres task workers for the {} lane on {}", count, lane, queue);
+        for (int i = 0; i < count; i++) {
+            workers.submit(() -> work(queue, lane));
+        }
+    }
+    
+    private void work(String queue, String lane) {
+        while (running) {
+            int claimed;
+            try {
+                claimed = pollOnce(queue, lane);
+            } catch (Exception e) {
+                log.error("Error claiming reconciliation tasks from {}", queue, e);
+                claimed = 0;
+            }
+            
+            if (claimed == 0) {
+                try {
+                    Thread.sleep(pollIntervalMillis);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+    
+    /**
+     * Claim and reconcile one batch of tasks
+     * @param queue The queue to claim from
+     * @param lane The lane the queue belongs to
+     * @return Number of tasks claimed
+     */
+    int pollOnce(String queue, String lane) {
+        List<ClaimedTask> tasks = taskRepository.claim(queue, owner, claimBatchSize, leaseMillis);
+        
+        List<Long> processed = new ArrayList<>(tasks.size());
+        for (ClaimedTask task : tasks) {
+            if (task.attempts() > maxAttempts) {
+                deadLetterAbandoned(task);
+            } else if (process(lane, task)) {
+                processed.add(task.id());
+            }
+        }
+        
+        if (!processed.isEmpty()) {
+            taskRepository.complete(processed, owner);
+        }
+        return tasks.size();
+    }
+    
+    /**
+     * Reconcile one claimed task
+     * @return true if the task was processed, false if it was released for a retry or marked dead
+     */
+    private boolean process(String lane, ClaimedTask task) {
+        int attempt = task.attempts() - 1;
+        long queueWaitMillis = Math.max(0, Duration.between(task.enqueuedAt(), LocalDateTime.now()).toMillis());
+        if (attempt == 0) {
+            taskLagTracker.recordConsumed(lane, Timestamp.valueOf(task.enqueuedAt()));
+        }
+        
+        TaskDequeueEvent taskEvent = new TaskDequeueEvent();
+        taskEvent.begin();
+        
+        try {
+            if (task.payload() != null) {
+                ReconciliationTaskMessage snapshotTask = objectMapper.readValue(task.payload(),
+                        ReconciliationTaskMessage.class);
+                deskLanes.runWithPoolShare(lane, () -> reconciliationService.executeReconciliation(snapshotTask));
+            } else {
+                deskLanes.runWithPoolShare(lane, () -> reconciliationService.executeReconciliation(task.tradeId()));
+            }
+            taskEvent.complete(task.tradeId(), lane, attempt, queueWaitMillis, false);
+            return true;
+        } catch (Exception e) {
+            taskEvent.complete(task.tradeId(), lane, attempt, queueWaitMillis, true);
+            log.error("Error processing {} lane reconciliation task for tradeId: {}", lane, task.tradeId(), e);
+            retryOrDeadLetter(task, e);
+            return false;
+        }
+    }
+    
+    /**
+     * Mark dead a task whose earlier claims all expired without the task being processed
+     */
+    private void deadLetterAbandoned(ClaimedTask task) {
+        log.error("Reconciliation task for tradeId: {} was claimed {} times without finishing, marking it dead", 
+                task.tradeId(), task.attempts() - 1);
+        try {
+            taskRepository.deadLetter(task.id(), owner, 
+                    "Lease expired on " + (task.attempts() - 1) + " attempts without the task finishing");
+            deadLetteredTasks.increment();
+        } catch (Exception e) {
+            // The task is claimed again once its lease expires
+            log.error("Error marking abandoned reconciliation task for tradeId: {} dead", task.tradeId(), e);
+        }
+    }
+    
+    private void retryOrDeadLetter(ClaimedTask task, Exception cause) {
+        try {
+            if (task.attempts() >= maxAttempts) {
+                log.error("Reconciliation task for tradeId: {} failed {} times, marking it dead", 
+                        task.tradeId(), task.attempts());
+                taskRepository.deadLetter(task.id(), owner, String.valueOf(cause.getMessage()));
+                deadLetteredTasks.increment();
+                return;
+            }
+            
+            long delayMillis = taskRetrier.backoffDelayMillis(task.attempts());
+            log.warn("Reconciliation task for tradeId: {} failed, retry {} of {} in {} ms", 
+                    task.tradeId(), task.attempts(), maxAttempts - 1, delayMillis);
+            taskRepository.retryLater(task.id(), owner, delayMillis, String.valueOf(cause.getMessage()));
+            retriedTasks.increment();
+        } catch (Exception e) {
+            // The task is claimed again once its lease expires
+            log.error("Error releasing failed reconciliation task for tradeId: {}", task.tradeId(), e);
+        }
+    }
+}
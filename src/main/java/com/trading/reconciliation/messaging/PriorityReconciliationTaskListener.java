@@ -0,0 +1,69 @@
+package com.trading.reconciliation.messaging;
+
+import com.trading.reconciliation.profiling.TaskDequeueEvent;
+import com.trading.reconciliation.service.ReconciliationService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.annotation.RabbitHandler;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Listener for priority reconciliation task messages from RabbitMQ
+ * 
+ * Manual and API-initiated reconciliation triggers are published to a separate
+ * priority queue, consumed by a reserved set of consumers created by the
+ * priorityListenerContainerFactory. An operator's re-check therefore does not
+ * wait behind a backlog of ingestion-triggered tasks on the bulk queue.
+ * 
+ * Failed tasks are retried through the priority queue's own retry queues.
+ */
+@Component
+@ConditionalOnProperty(name = "reconciliation.task.transport", havingValue = "rabbitmq", matchIfMissing = true)
+@Slf4j
+@RequiredArgsConstructor
+@RabbitListener(queues = "${reconciliation.queue.reconciliation-priority-tasks}",
+        containerFactory = "priorityListenerContainerFactory")
+public class PriorityReconciliationTaskListener {
+    
+    private final ReconciliationService reconciliationService;
+    private final TaskLagTracker taskLagTracker;
+    private final ReconciliationTaskRetrier taskRetrier;
+    
+    /**
+     * Process priority reconciliation task messages
+     * 
+     * @param tradeId The trade identifier to reconcile
+     * @param message The received message, used for lag measurement and retries
+     */
+    @RabbitHandler
+    public void processPriorityReconciliationTask(String tradeId, Message message) {
+        log.info("Received priority reconciliation task for tradeId: {}", tradeId);
+        if (ReconciliationTaskRetrier.attemptOf(message) == 0) {
+            taskLagTracker.recordConsumed(TaskLagTracker.PRIORITY_LANE, message.getMessageProperties().getTimestamp());
+        }
+        
+        TaskDequeueEvent taskEvent = new TaskDequeueEvent();
+        taskEvent.begin();
+        
+        try {
+            reconciliationService.executeReconciliation(tradeId);
+            log.info("Completed priority reconciliation task for tradeId: {}", tradeId);
+            completeTaskEvent(taskEvent, tradeId, message, false);
+        } catch (Exception e) {
+            completeTaskEvent(taskEvent, tradeId, message, true);
+            log.error("Error processing priority reconciliation task for tradeId: {}", tradeId, e);
+            taskRetrier.retryOrDeadLetter(message, e);
+        }
+    }
+    
+    /**
+     * Record the processing of a task as a flight recorder event
+     */
+    private void completeTaskEvent(TaskDequeueEvent taskEvent, String tradeId, Message message, boolean failed) {
+        taskEvent.complete(tradeId, TaskLagTracker.PRIORITY_LANE, ReconciliationTaskRetrier.attemptOf(message),
+                TaskLagTracker.queueWaitMillis(message), failed);
+    }
+}
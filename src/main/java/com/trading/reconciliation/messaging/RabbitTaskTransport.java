@@ -0,0 +1,39 @@
+package com.trading.reconciliation.messaging;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Task transport publishing reconciliation tasks to RabbitMQ
+ * 
+ * Tasks are published once the transaction saving the leg has committed, since the
+ * broker cannot take part in it.
+ */
+@Component
+@ConditionalOnProperty(name = "reconciliation.task.transport", havingValue = "rabbitmq", matchIfMissing = true)
+@RequiredArgsConstructor
+public class RabbitTaskTransport implements ReconciliationTaskTransport {
+    
+    private final RabbitTemplate rabbitTemplate;
+    private final AmqpAdmin amqpAdmin;
+    
+    @Override
+    public void publish(String queue, String tradeId, Object task) {
+        rabbitTemplate.convertAndSend(queue, task);
+    }
+    
+    @Override
+    public boolean isTransactional() {
+        return false;
+    }
+    
+    @Override
+    public Long queueDepth(String queue) {
+        QueueInformation queueInformation = amqpAdmin.getQueueInfo(queue);
+        return queueInformation != null ? (long) queueInformation.getMessageCount() : null;
+    }
+}
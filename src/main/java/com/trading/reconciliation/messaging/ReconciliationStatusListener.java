@@ -0,0 +1,27 @@
+package com.trading.reconciliation.messaging;
+
+import com.trading.reconciliation.dto.ReconciliationStatusEventDto;
+import com.trading.reconciliation.service.ReconciliationStreamService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Listener feeding status transitions from the fanout exchange into this instance's stream
+ * 
+ * Each instance consumes from its own auto-deleted queue with a single consumer, so
+ * transitions are appended to the stream in the order they were received.
+ */
+@Component
+@ConditionalOnProperty(name = "reconciliation.task.transport", havingValue = "rabbitmq", matchIfMissing = true)
+@RequiredArgsConstructor
+public class ReconciliationStatusListener {
+    
+    private final ReconciliationStreamService streamService;
+    
+    @RabbitListener(queues = "#{reconciliationStatusEventsQueue.name}", concurrency = "1")
+    public void onStatusEvent(ReconciliationStatusEventDto statusEvent) {
+        streamService.publish(statusEvent);
+    }
+}
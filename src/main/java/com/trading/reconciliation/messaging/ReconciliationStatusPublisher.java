@@ -0,0 +1,72 @@
+package com.trading.reconciliation.messaging;
+
+import com.trading.reconciliation.dto.ReconciliationStatusEventDto;
+import com.trading.reconciliation.model.ReconciliationStatus;
+import com.trading.reconciliation.service.ReconciliationOutcomeEvent;
+import com.trading.reconciliation.service.ReconciliationStreamService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+
+/**
+ * Publisher of committed reconciliation status transitions to RabbitMQ
+ * 
+ * Transitions are published to a fanout exchange once their transaction has committed,
+ * so every instance receives them and can push them to its own stream subscribers,
+ * whichever instance did the reconciliation. Outcomes that leave the status unchanged
+ * are not published.
+ * 
+ * Without a broker, when tasks are carried by the Postgres task transport, transitions
+ * go straight to this instance's stream, so each instance streams only the transitions
+ * it recorded itself.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class ReconciliationStatusPublisher {
+    
+    private final RabbitTemplate rabbitTemplate;
+    private final ReconciliationStreamService streamService;
+    
+    @Value("${reconciliation.queue.status-events-exchange}")
+    private String statusEventsExchange;
+    
+    @Value("${reconciliation.task.transport}")
+    private String taskTransport;
+    
+    @TransactionalEventListener
+    public void onReconciliationOutcome(ReconciliationOutcomeEvent event) {
+        ReconciliationStatus previousStatus = event.previous() == null ? null : event.previous().status();
+        if (previousStatus == event.current().status()) {
+            return;
+        }
+        
+        ReconciliationStatusEventDto.ReconciliationStatusEventDtoBuilder statusEvent = ReconciliationStatusEventDto.builder()
+                .tradeId(event.tradeId())
+                .status(event.current().status())
+                .previousStatus(previousStatus)
+                .occurredAt(LocalDateTime.now());
+        if (event.current().key() != null) {
+            statusEvent.businessDate(event.current().key().businessDate())
+                    .counterparty(event.current().key().counterparty())
+                    .instrument(event.current().key().instrument());
+        }
+        
+        if ("postgres".equals(taskTransport)) {
+            streamService.publish(statusEvent.build());
+            return;
+        }
+        
+        try {
+            rabbitTemplate.convertAndSend(statusEventsExchange, "", statusEvent.build());
+        } catch (Exception e) {
+            // The transition is committed; subscribers miss it but can still query the status
+            log.warn("Error publishing status transition for tradeId: {}", event.tradeId(), e);
+        }
+    }
+}
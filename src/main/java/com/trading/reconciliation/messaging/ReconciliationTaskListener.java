@@ -1,9 +1,14 @@
 package com.trading.reconciliation.messaging;
 
+import com.trading.reconciliation.dto.ReconciliationTaskMessage;
+import com.trading.reconciliation.profiling.TaskDequeueEvent;
 import com.trading.reconciliation.service.ReconciliationService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.rabbit.annotation.RabbitHandler;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
 /**
@@ -12,22 +17,31 @@
  * This component listens to the reconciliation tasks queue and processes incoming
  * messages to trigger the reconciliation process for the specified trade ID.
  * 
+ * Tasks either carry only the trade ID, in which case both legs are loaded from the
+ * database, or a snapshot of the triggering leg, in which case only the counterpart
+ * leg is looked up and superseded amendments are skipped by version.
+ * 
  * The listener uses Spring AMQP's @RabbitListener annotation to automatically
  * register with RabbitMQ and receive messages. The queue name is configured
  * in the application.yml file.
  * 
- * In a production environment, this could be enhanced with:
- * - Dead-letter queue for failed message processing
- * - Retry mechanism for transient failures
- * - Circuit breaker for resilience
- * - Message acknowledge mode configuration
+ * Tasks that fail with an exception, which the reconciliation service only lets
+ * through for transient failures such as a database failover, are handed to the
+ * ReconciliationTaskRetrier for a delayed retry and are dead-lettered after the last
+ * attempt.
+ * 
+ * Not registered when tasks are carried by the Postgres task transport.
  */
 @Component
+@ConditionalOnProperty(name = "reconciliation.task.transport", havingValue = "rabbitmq", matchIfMissing = true)
 @Slf4j
 @RequiredArgsConstructor
+@RabbitListener(queues = "${reconciliation.queue.reconciliation-tasks}")
 public class ReconciliationTaskListener {
     
     private final ReconciliationService reconciliationService;
+    private final TaskLagTracker taskLagTracker;
+    private final ReconciliationTaskRetrier taskRetrier;
     
     /**
      * Process reconciliation task messages from the reconciliation-tasks queue
@@ -37,21 +51,65 @@ public class ReconciliationTaskListener {
      * and triggers the reconciliation process.
      * 
      * @param tradeId The trade identifier to reconcile
+     * @param message The received message, used for lag measurement and retries
      */
-    @RabbitListener(queues = "${reconciliation.queue.reconciliation-tasks}")
-    public void processReconciliationTask(String tradeId) {
+    @RabbitHandler
+    public void processReconciliationTask(String tradeId, Message message) {
         log.info("Received reconciliation task for tradeId: {}", tradeId);
+        recordConsumed(message);
+        TaskDequeueEvent taskEvent = new TaskDequeueEvent();
+        taskEvent.begin();
         
         try {
             reconciliationService.executeReconciliation(tradeId);
             log.info("Completed reconciliation task for tradeId: {}", tradeId);
+            completeTaskEvent(taskEvent, tradeId, message, false);
         } catch (Exception e) {
+            completeTaskEvent(taskEvent, tradeId, message, true);
             log.error("Error processing reconciliation task for tradeId: {}", tradeId, e);
-            // In a production system, we might want to implement retry logic or dead-letter queue here
-            // For example:
-            // 1. Move message to a dead-letter queue
-            // 2. Implement a retry mechanism with backoff
-            // 3. Send notification about failed reconciliation
+            taskRetrier.retryOrDeadLetter(message, e);
+        }
+    }
+    
+    /**
+     * Process reconciliation task messages carrying a snapshot of the triggering leg
+     * 
+     * @param task The reconciliation task with the triggering leg
+     * @param message The received message, used for lag measurement and retries
+     */
+    @RabbitHandler
+    public void processReconciliationTask(ReconciliationTaskMessage task, Message message) {
+        log.info("Received reconciliation task for tradeId: {} with {} leg snapshot", 
+                task.getTradeId(), task.getSourceSystem());
+        recordConsumed(message);
+        TaskDequeueEvent taskEvent = new TaskDequeueEvent();
+        taskEvent.begin();
+        
+        try {
+            reconciliationService.executeReconciliation(task);
+            log.info("Completed reconciliation task for tradeId: {}", task.getTradeId());
+            completeTaskEvent(taskEvent, task.getTradeId(), message, false);
+        } catch (Exception e) {
+            completeTaskEvent(taskEvent, task.getTradeId(), message, true);
+            log.error("Error processing reconciliation task for tradeId: {}", task.getTradeId(), e);
+            taskRetrier.retryOrDeadLetter(message, e);
+        }
+    }
+    
+    /**
+     * Record listener lag for first deliveries; retried tasks waited on purpose
+     */
+    private void recordConsumed(Message message) {
+        if (ReconciliationTaskRetrier.attemptOf(message) == 0) {
+            taskLagTracker.recordConsumed(message.getMessageProperties().getTimestamp());
         }
     }
-} 
\ No newline at end of file
+    
+    /**
+     * Record the processing of a task as a flight recorder event
+     */
+    private void completeTaskEvent(TaskDequeueEvent taskEvent, String tradeId, Message message, boolean failed) {
+        taskEvent.complete(tradeId, TaskLagTracker.BULK_LANE, ReconciliationTaskRetrier.attemptOf(message),
+                TaskLagTracker.queueWaitMillis(message), failed);
+    }
+}
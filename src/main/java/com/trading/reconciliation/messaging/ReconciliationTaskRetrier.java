@@ -0,0 +1,134 @@
+package com.trading.reconciliation.messaging;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageBuilder;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Schedules failed reconciliation tasks for a delayed retry or moves them to the dead-letter queue
+ * 
+ * A failed task is republished unchanged to the retry queue of its attempt, with a
+ * per-message expiration of the backoff delay. When the message expires the broker
+ * dead-letters it back onto the reconciliation tasks queue, so waiting for a retry
+ * holds no consumer thread and survives restarts. Delays grow exponentially per
+ * attempt up to a cap and are jittered so tasks that failed together during an
+ * outage do not all come back at the same instant.
+ * 
+ * Each attempt has its own retry queue because RabbitMQ only expires messages at the
+ * head of a queue; within one attempt the delays differ by the jitter at most. Every
+ * task queue has its own chain of retry queues, so a retried task returns to the lane
+ * it was consumed from.
+ * After the last attempt the task is moved to the dead-letter queue, from where it
+ * can be replayed once the cause is fixed. The queue it was consumed from is kept in
+ * a header, so a replay returns it to its lane as well.
+ */
+@Component
+@Slf4j
+public class ReconciliationTaskRetrier {
+    
+    public static final String RETRY_ATTEMPT_HEADER = "x-retry-attempt";
+    public static final String LAST_ERROR_HEADER = "x-last-error";
+    public static final String ORIGIN_QUEUE_HEADER = "x-origin-queue";
+    
+    private final RabbitTemplate rabbitTemplate;
+    private final Counter retriedTasks;
+    private final Counter deadLetteredTasks;
+    
+    @Value("${reconciliation.queue.reconciliation-tasks}")
+    private String reconciliationTasksQueue;
+    
+    @Value("${reconciliation.queue.reconciliation-tasks-dlq}")
+    private String deadLetterQueue;
+    
+    @Value("${reconciliation.retry.max-attempts}")
+    private int maxAttempts;
+    
+    @Value("${reconciliation.retry.initial-delay-ms}")
+    private long initialDelayMillis;
+    
+    @Value("${reconciliation.retry.max-delay-ms}")
+    private long maxDelayMillis;
+    
+    @Value("${reconciliation.retry.jitter}")
+    private double jitter;
+    
+    public ReconciliationTaskRetrier(RabbitTemplate rabbitTemplate, MeterRegistry meterRegistry) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.retriedTasks = Counter.builder("reconciliation.task.retried")
+                .description("Reconciliation tasks scheduled for a delayed retry")
+                .register(meterRegistry);
+        this.deadLetteredTasks = Counter.builder("reconciliation.task.dead.lettered")
+                .description("Reconciliation tasks moved to the dead-letter queue after the last attempt")
+                .register(meterRegistry);
+    }
+    
+    /**
+     * Republish a failed task to the retry queue of its next attempt, or dead-letter it
+     * @param message The failed task message as received
+     * @param cause The failure
+     */
+    public void retryOrDeadLetter(Message message, Exception cause) {
+        int attempt = attemptOf(message) + 1;
+        String tasksQueue = message.getMessageProperties().getConsumerQueue() != null
+                ? message.getMessageProperties().getConsumerQueue()
+                : reconciliationTasksQueue;
+        
+        if (attempt >= maxAttempts) {
+            log.error("Reconciliation task from {} failed {} times, moving it to {}", 
+                    tasksQueue, attempt, deadLetterQueue);
+            rabbitTemplate.send("", deadLetterQueue, MessageBuilder.fromClonedMessage(message)
+                    .setHeader(RETRY_ATTEMPT_HEADER, attempt)
+                    .setHeader(LAST_ERROR_HEADER, String.valueOf(cause.getMessage()))
+                    .setHeader(ORIGIN_QUEUE_HEADER, tasksQueue)
+                    .build());
+            deadLetteredTasks.increment();
+            return;
+        }
+        
+        long delayMillis = backoffDelayMillis(attempt);
+        log.warn("Reconciliation task from {} failed, retry {} of {} in {} ms", 
+                tasksQueue, attempt, maxAttempts - 1, delayMillis);
+        rabbitTemplate.send("", retryQueueName(tasksQueue, attempt), MessageBuilder.fromClonedMessage(message)
+                .setHeader(RETRY_ATTEMPT_HEADER, attempt)
+                .setHeader(LAST_ERROR_HEADER, String.valueOf(cause.getMessage()))
+                .setExpiration(String.valueOf(delayMillis))
+                .build());
+        retriedTasks.increment();
+    }
+    
+    /**
+     * Number of retries a task message has already been through
+     * @param message The task message
+     * @return 0 for a first delivery
+     */
+    public static int attemptOf(Message message) {
+        Object attempt = message.getMessageProperties().getHeader(RETRY_ATTEMPT_HEADER);
+        return attempt instanceof Number number ? number.intValue() : 0;
+    }
+    
+    /**
+     * Name of the retry queue holding tasks waiting for the given attempt
+     * @param tasksQueue The reconciliation tasks queue
+     * @param attempt The retry attempt, starting at 1
+     * @return The retry queue name
+     */
+    public static String retryQueueName(String tasksQueue, int attempt) {
+        return tasksQueue + ".retry." + attempt;
+    }
+    
+    /**
+     * Jittered exponential backoff delay before the given retry attempt
+     */
+    long backoffDelayMillis(int attempt) {
+        double delay = Math.min(initialDelayMillis * Math.pow(2, attempt - 1), maxDelayMillis);
+        double spread = jitter * (2 * ThreadLocalRandom.current().nextDouble() - 1);
+        return Math.max(1, Math.round(delay * (1 + spread)));
+    }
+}
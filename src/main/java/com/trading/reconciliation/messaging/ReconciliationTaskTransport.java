@@ -0,0 +1,36 @@
+package com.trading.reconciliation.messaging;
+
+/**
+ * Transport carrying reconciliation tasks from their trigger to the workers reconciling them
+ * 
+ * Selected with reconciliation.task.transport. The rabbitmq transport publishes to the
+ * broker's task queues, consumed by the RabbitMQ listeners. The postgres transport
+ * inserts tasks into the reconciliation_task table within the caller's transaction,
+ * claimed by the PostgresTaskWorkers, so deployments without a broker can run the
+ * service and a leg and its task commit together.
+ * 
+ * Queue names are the same for both transports, so lanes keep their meaning.
+ */
+public interface ReconciliationTaskTransport {
+
+    /**
+     * Publish a reconciliation task
+     * @param queue The tasks queue of the task's lane
+     * @param tradeId The trade identifier
+     * @param task The trade ID, or a ReconciliationTaskMessage carrying the triggering leg
+     */
+    void publish(String queue, String tradeId, Object task);
+
+    /**
+     * Whether published tasks commit or roll back with the caller's transaction
+     * @return true if tasks should be published before the transaction saving the leg commits
+     */
+    boolean isTransactional();
+
+    /**
+     * Number of tasks waiting in a queue
+     * @param queue The tasks queue
+     * @return The depth, or null if the transport could not tell
+     */
+    Long queueDepth(String queue);
+}
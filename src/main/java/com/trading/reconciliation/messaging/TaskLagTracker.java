@@ -0,0 +1,140 @@
+package com.trading.reconciliation.messaging;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.amqp.core.Message;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Tracks how long reconciliation tasks wait in the broker before a listener picks them up
+ * 
+ * Every task message is stamped with its publish time by the RabbitTemplate, and every
+ * row of the Postgres task transport with its enqueue time. The listener or worker
+ * reports that timestamp on receipt and the tracker records the queue wait as a timer and
+ * keeps an exponentially weighted moving average, which admission control uses as the
+ * listener lag signal.
+ * 
+ * Lag is tracked separately per lane, so the priority lane's wait stays visible while
+ * the bulk lane is backlogged. Desk lanes are tracked under their own names. The timer
+ * is tagged with the lane.
+ * 
+ * A lane with nothing consumed for a while is only reported as lag-free if its queue is
+ * empty. A listener that has stalled with tasks waiting consumes nothing, so its lag is
+ * then reported as at least the time since the last task was consumed.
+ */
+@Component
+public class TaskLagTracker {
+    
+    public static final String BULK_LANE = "bulk";
+    public static final String PRIORITY_LANE = "priority";
+    
+    /**
+     * Weight of the newest observation in the moving average
+     */
+    private static final double SMOOTHING_FACTOR = 0.2;
+    
+    private final MeterRegistry meterRegistry;
+    private final Map<String, LaneLag> lanes = new ConcurrentHashMap<>();
+    
+    public TaskLagTracker(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        lane(BULK_LANE);
+        lane(PRIORITY_LANE);
+    }
+    
+    /**
+     * Record the lag of a task consumed from the bulk lane
+     * @param publishedAt The publish timestamp of the message, or null if it was not stamped
+     */
+    public void recordConsumed(Date publishedAt) {
+        recordConsumed(BULK_LANE, publishedAt);
+    }
+    
+    /**
+     * Record the lag of a consumed task
+     * @param lane The lane the task was consumed from
+     * @param publishedAt The publish timestamp of the message, or null if it was not stamped
+     */
+    public void recordConsumed(String lane, Date publishedAt) {
+        if (publishedAt == null) {
+            return;
+        }
+        
+        lane(lane).record(Math.max(0, System.currentTimeMillis() - publishedAt.getTime()));
+    }
+    
+    /**
+     * Time a consumed message waited in the broker
+     * @param message The consumed message
+     * @return Wait in milliseconds, or -1 if the message was not stamped with its publish time
+     */
+    public static long queueWaitMillis(Message message) {
+        Date publishedAt = message.getMessageProperties().getTimestamp();
+        return publishedAt == null ? -1 : Math.max(0, System.currentTimeMillis() - publishedAt.getTime());
+    }
+    
+    /**
+     * Get the smoothed listener lag of the bulk lane
+     * @param idleResetMillis If no task has been consumed for this long, the smoothed lag no longer applies
+     * @param queueEmpty Whether the lane's queue is empty; an idle lane with an empty queue has no lag
+     * @return Smoothed lag in milliseconds, or the time since the last consumed task if the lane is stalled
+     */
+    public long getListenerLagMillis(long idleResetMillis, boolean queueEmpty) {
+        return getListenerLagMillis(BULK_LANE, idleResetMillis, queueEmpty);
+    }
+    
+    /**
+     * Get the smoothed listener lag of a lane
+     * @param lane The lane
+     * @param idleResetMillis If no task has been consumed for this long, the smoothed lag no longer applies
+     * @param queueEmpty Whether the lane's queue is empty; an idle lane with an empty queue has no lag
+     * @return Smoothed lag in milliseconds, or the time since the last consumed task if the lane is stalled
+     */
+    public long getListenerLagMillis(String lane, long idleResetMillis, boolean queueEmpty) {
+        return lane(lane).lagMillis(idleResetMillis, queueEmpty);
+    }
+    
+    private LaneLag lane(String lane) {
+        return lanes.computeIfAbsent(lane, name -> new LaneLag(Timer.builder("reconciliation.task.queue.wait")
+                .description("Time reconciliation tasks spent in the broker before being consumed")
+                .tag("lane", name)
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry)));
+    }
+    
+    /**
+     * Queue wait statistics of one lane
+     */
+    private static class LaneLag {
+        
+        private final Timer queueWaitTimer;
+        
+        private volatile double averageLagMillis = 0;
+        // Creation counts as an observation, so a lane that never consumed anything is stalled from then on
+        private volatile long lastObservedAt = System.currentTimeMillis();
+        
+        LaneLag(Timer queueWaitTimer) {
+            this.queueWaitTimer = queueWaitTimer;
+        }
+        
+        void record(long lagMillis) {
+            queueWaitTimer.record(Duration.ofMillis(lagMillis));
+            averageLagMillis = SMOOTHING_FACTOR * lagMillis + (1 - SMOOTHING_FACTOR) * averageLagMillis;
+            lastObservedAt = System.currentTimeMillis();
+        }
+        
+        long lagMillis(long idleResetMillis, boolean queueEmpty) {
+            long sinceLastObservation = System.currentTimeMillis() - lastObservedAt;
+            if (sinceLastObservation <= idleResetMillis) {
+                return (long) averageLagMillis;
+            }
+            // Idle with nothing waiting, or stalled with the oldest task waiting at least this long
+            return queueEmpty ? 0 : Math.max((long) averageLagMillis, sinceLastObservation);
+        }
+    }
+}
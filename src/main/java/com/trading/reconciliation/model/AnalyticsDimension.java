@@ -0,0 +1,35 @@
+package com.trading.reconciliation.model;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Dimension break analytics can be grouped by
+ */
+public enum AnalyticsDimension {
+    
+    COUNTERPARTY("counterparty"),
+    INSTRUMENT("instrument"),
+    DAY("business_date");
+    
+    private final String column;
+    
+    AnalyticsDimension(String column) {
+        this.column = column;
+    }
+    
+    public String getColumn() {
+        return column;
+    }
+    
+    /**
+     * Look up a dimension by name, ignoring case
+     * @param name The dimension name, such as "counterparty"
+     * @return An Optional containing the dimension if the name is known
+     */
+    public static Optional<AnalyticsDimension> fromName(String name) {
+        return Arrays.stream(values())
+                .filter(dimension -> dimension.name().equalsIgnoreCase(name))
+                .findFirst();
+    }
+}
@@ -0,0 +1,81 @@
+package com.trading.reconciliation.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Entity class representing a reconciliation result moved out of the hot table by the retention job
+ */
+@Entity
+@Table(name = "trade_reconciliation_archive",
+        indexes = @Index(name = "idx_trade_reconciliation_archive_trade_id", columnList = "trade_id"))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArchivedTradeReconciliation {
+
+    @Id
+    private Long id;
+
+    @Column(name = "trade_id", nullable = false)
+    private String tradeId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private ReconciliationStatus status;
+
+    @Column(name = "details", columnDefinition = "TEXT")
+    private String details;
+
+    @Column(name = "system_a_trade_id")
+    private Long systemATradeId;
+
+    @Column(name = "system_b_trade_id")
+    private Long systemBTradeId;
+
+    /**
+     * Versions of the legs the last outcome was computed from
+     */
+    @Column(name = "system_a_version")
+    private Long systemAVersion;
+
+    @Column(name = "system_b_version")
+    private Long systemBVersion;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @Column(name = "last_reconciliation_attempt")
+    private LocalDateTime lastReconciliationAttempt;
+
+    /**
+     * Trade date, counterparty and instrument of the last recorded outcome, used to roll up break analytics
+     */
+    @Column(name = "business_date")
+    private LocalDate businessDate;
+
+    @Column(name = "counterparty")
+    private String counterparty;
+
+    @Column(name = "instrument")
+    private String instrument;
+
+    /**
+     * Comma-separated names of the fields that differed, for MISMATCHED outcomes
+     */
+    @Column(name = "mismatched_fields")
+    private String mismatchedFields;
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+}
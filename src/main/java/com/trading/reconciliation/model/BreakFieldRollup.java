@@ -0,0 +1,42 @@
+package com.trading.reconciliation.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Entity class representing mismatch counts per field, business date, counterparty and instrument
+ */
+@Entity
+@Table(name = "break_field_rollup",
+        uniqueConstraints = @UniqueConstraint(name = "uk_break_field_rollup_key",
+                columnNames = {"business_date", "counterparty", "instrument", "field"}))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BreakFieldRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "business_date", nullable = false)
+    private LocalDate businessDate;
+
+    @Column(name = "counterparty", nullable = false)
+    private String counterparty;
+
+    @Column(name = "instrument", nullable = false)
+    private String instrument;
+
+    @Column(name = "field", nullable = false)
+    private String field;
+
+    @Column(name = "mismatch_count", nullable = false)
+    private long mismatchCount;
+}
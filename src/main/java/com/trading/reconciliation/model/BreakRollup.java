@@ -0,0 +1,45 @@
+package com.trading.reconciliation.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Entity class representing reconciliation outcome counts per business date, counterparty and instrument
+ */
+@Entity
+@Table(name = "break_rollup",
+        uniqueConstraints = @UniqueConstraint(name = "uk_break_rollup_key",
+                columnNames = {"business_date", "counterparty", "instrument"}))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BreakRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "business_date", nullable = false)
+    private LocalDate businessDate;
+
+    @Column(name = "counterparty", nullable = false)
+    private String counterparty;
+
+    @Column(name = "instrument", nullable = false)
+    private String instrument;
+
+    @Column(name = "matched_count", nullable = false)
+    private long matchedCount;
+
+    @Column(name = "mismatched_count", nullable = false)
+    private long mismatchedCount;
+
+    @Column(name = "error_count", nullable = false)
+    private long errorCount;
+}
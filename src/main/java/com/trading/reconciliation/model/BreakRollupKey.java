@@ -0,0 +1,12 @@
+package com.trading.reconciliation.model;
+
+import java.time.LocalDate;
+
+/**
+ * Dimensions break analytics are rolled up by
+ * @param businessDate Trade date of the reconciled trade
+ * @param counterparty Counterparty of the reconciled trade
+ * @param instrument Instrument of the reconciled trade
+ */
+public record BreakRollupKey(LocalDate businessDate, String counterparty, String instrument) {
+}
@@ -0,0 +1,26 @@
+package com.trading.reconciliation.model;
+
+/**
+ * Enum representing how status transitions are written to the status history
+ */
+public enum HistoryDurability {
+    
+    /**
+     * Inserted in one batch within the transaction that recorded the transitions; never
+     * lost, at the cost of the insert on the reconciliation path
+     */
+    TRANSACTIONAL,
+    
+    /**
+     * Buffered once the transaction committed; reconciliations wait for buffer space
+     * when the writer falls behind, and buffered transitions are lost only if the
+     * instance is killed without a graceful shutdown
+     */
+    BLOCKING,
+    
+    /**
+     * Buffered once the transaction committed; transitions that find the buffer full
+     * are dropped and counted, so the history can never slow reconciliation down
+     */
+    BEST_EFFORT
+}
@@ -0,0 +1,45 @@
+package com.trading.reconciliation.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+/**
+ * Entity class representing a match lag histogram bucket per business date, counterparty and instrument
+ * 
+ * Bucket n counts matches whose lag was at most 2^(n/4) milliseconds and more than
+ * the bound of bucket n-1, so percentiles read from the histogram are within 19%.
+ */
+@Entity
+@Table(name = "match_lag_rollup",
+        uniqueConstraints = @UniqueConstraint(name = "uk_match_lag_rollup_key",
+                columnNames = {"business_date", "counterparty", "instrument", "bucket"}))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MatchLagRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "business_date", nullable = false)
+    private LocalDate businessDate;
+
+    @Column(name = "counterparty", nullable = false)
+    private String counterparty;
+
+    @Column(name = "instrument", nullable = false)
+    private String instrument;
+
+    @Column(name = "bucket", nullable = false)
+    private int bucket;
+
+    @Column(name = "match_count", nullable = false)
+    private long matchCount;
+}
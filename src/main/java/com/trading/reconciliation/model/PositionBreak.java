@@ -0,0 +1,73 @@
+package com.trading.reconciliation.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Entity class representing a net position that differs between System A and System B
+ * 
+ * Positions are the summed signed quantity and notional (quantity times price) of the
+ * latest version of every trade leg, per trade date, instrument and counterparty. Each
+ * position reconciliation run replaces the breaks of the business dates it covered.
+ */
+@Entity
+@Table(name = "position_break",
+        indexes = @Index(name = "idx_position_break_business_date", columnList = "business_date"),
+        uniqueConstraints = @UniqueConstraint(name = "uk_position_break_key",
+                columnNames = {"business_date", "instrument", "counterparty"}))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PositionBreak {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "business_date", nullable = false)
+    private LocalDate businessDate;
+
+    @Column(name = "instrument", nullable = false)
+    private String instrument;
+
+    @Column(name = "counterparty", nullable = false)
+    private String counterparty;
+
+    @Column(name = "system_a_quantity", nullable = false)
+    private BigDecimal systemAQuantity;
+
+    @Column(name = "system_b_quantity", nullable = false)
+    private BigDecimal systemBQuantity;
+
+    @Column(name = "system_a_notional", nullable = false)
+    private BigDecimal systemANotional;
+
+    @Column(name = "system_b_notional", nullable = false)
+    private BigDecimal systemBNotional;
+
+    @Column(name = "system_a_trade_count", nullable = false)
+    private long systemATradeCount;
+
+    @Column(name = "system_b_trade_count", nullable = false)
+    private long systemBTradeCount;
+
+    /**
+     * System A minus System B
+     */
+    @Column(name = "quantity_difference", nullable = false)
+    private BigDecimal quantityDifference;
+
+    @Column(name = "notional_difference", nullable = false)
+    private BigDecimal notionalDifference;
+
+    @Column(name = "detected_at", nullable = false)
+    private LocalDateTime detectedAt;
+}
@@ -0,0 +1,49 @@
+package com.trading.reconciliation.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entity class representing a trade whose re-reconciliation failed in a re-run job
+ * 
+ * The job's checkpoint moves past failed trades, so they are recorded here and retried
+ * once the job has walked all its reconciliations. A trade that still fails keeps its
+ * row, so the job's failures can be looked up once it has completed.
+ */
+@Entity
+@Table(name = "reconciliation_rerun_failure",
+        uniqueConstraints = @UniqueConstraint(name = "uk_reconciliation_rerun_failure_job_trade",
+                columnNames = {"job_id", "trade_id"}))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReconciliationRerunFailure {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "job_id", nullable = false)
+    private long jobId;
+
+    @Column(name = "trade_id", nullable = false)
+    private String tradeId;
+
+    /**
+     * Number of times the trade has failed in the job
+     */
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @Column(name = "error", columnDefinition = "TEXT")
+    private String error;
+
+    @Column(name = "failed_at", nullable = false)
+    private LocalDateTime failedAt;
+}
@@ -0,0 +1,94 @@
+package com.trading.reconciliation.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Entity class representing a job re-running reconciliation over historical trades
+ * 
+ * The job walks the matching reconciliations in id order. After each chunk the id of
+ * the last reconciliation processed is stored as the checkpoint, so a job interrupted
+ * by a crash or a pause resumes after it.
+ */
+@Entity
+@Table(name = "reconciliation_rerun_job")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReconciliationRerunJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * Business dates of the reconciliations to re-run, inclusive
+     */
+    @Column(name = "from_date", nullable = false)
+    private LocalDate fromDate;
+
+    @Column(name = "to_date", nullable = false)
+    private LocalDate toDate;
+
+    /**
+     * Comma-separated statuses of the reconciliations to re-run
+     */
+    @Column(name = "statuses", nullable = false)
+    private String statuses;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "state", nullable = false)
+    private RerunJobState state;
+
+    /**
+     * Trades re-reconciled per second, across all workers; may be changed while the job runs
+     */
+    @Column(name = "rate_per_second", nullable = false)
+    private int ratePerSecond;
+
+    /**
+     * Id of the last reconciliation processed
+     */
+    @Column(name = "checkpoint_id", nullable = false)
+    private long checkpointId;
+
+    /**
+     * Number of matching reconciliations when the job was created
+     */
+    @Column(name = "total", nullable = false)
+    private long total;
+
+    @Column(name = "processed", nullable = false)
+    private long processed;
+
+    @Column(name = "failed", nullable = false)
+    private long failed;
+
+    /**
+     * Time spent processing chunks, excluding time the job was paused or not picked up
+     */
+    @Column(name = "active_millis", nullable = false)
+    private long activeMillis;
+
+    @Column(name = "owner_instance")
+    private String ownerInstance;
+
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+}
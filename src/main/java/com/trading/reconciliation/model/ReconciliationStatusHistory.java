@@ -0,0 +1,52 @@
+package com.trading.reconciliation.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entity class representing one status transition of a trade's reconciliation
+ * 
+ * Rows are only ever inserted, so the table keeps the full path of a trade from
+ * PENDING through any breaks to its latest status.
+ */
+@Entity
+@Table(name = "reconciliation_status_history",
+        indexes = @Index(name = "idx_reconciliation_status_history_trade_id", columnList = "trade_id, occurred_at"))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReconciliationStatusHistory {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "trade_id", nullable = false)
+    private String tradeId;
+
+    /**
+     * Status before the transition, or null when the reconciliation was created
+     */
+    @Column(name = "previous_status")
+    @Enumerated(EnumType.STRING)
+    private ReconciliationStatus previousStatus;
+
+    @Column(name = "status", nullable = false)
+    @Enumerated(EnumType.STRING)
+    private ReconciliationStatus status;
+
+    /**
+     * Comma-separated names of the fields that differed, for MISMATCHED transitions
+     */
+    @Column(name = "mismatched_fields", length = 1000)
+    private String mismatchedFields;
+
+    @Column(name = "occurred_at", nullable = false)
+    private LocalDateTime occurredAt;
+}
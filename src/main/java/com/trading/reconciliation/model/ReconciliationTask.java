@@ -0,0 +1,72 @@
+package com.trading.reconciliation.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entity class representing a reconciliation task waiting in the Postgres task transport
+ * 
+ * A task belongs to the queue it was published to. It is claimed by a worker for the
+ * duration of a lease and deleted once processed; a task whose lease expires, because
+ * its worker died, can be claimed again.
+ */
+@Entity
+@Table(name = "reconciliation_task",
+        indexes = @Index(name = "idx_reconciliation_task_queue_available_at", columnList = "queue, available_at"))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReconciliationTask {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "queue", nullable = false)
+    private String queue;
+
+    @Column(name = "trade_id", nullable = false)
+    private String tradeId;
+
+    /**
+     * JSON of the task with the triggering leg, or null for a task carrying only the trade ID
+     */
+    @Column(name = "payload", columnDefinition = "TEXT")
+    private String payload;
+
+    @Column(name = "enqueued_at", nullable = false)
+    private LocalDateTime enqueuedAt;
+
+    /**
+     * When the task can be claimed next, later than enqueuedAt while it waits for a retry
+     */
+    @Column(name = "available_at", nullable = false)
+    private LocalDateTime availableAt;
+
+    /**
+     * Number of times the task was claimed
+     */
+    @Column(name = "attempts", nullable = false)
+    private int attempts;
+
+    @Column(name = "lease_owner")
+    private String leaseOwner;
+
+    @Column(name = "lease_expires_at")
+    private LocalDateTime leaseExpiresAt;
+
+    @Column(name = "last_error", length = 1000)
+    private String lastError;
+
+    /**
+     * Whether the task exhausted its attempts and waits for a replay
+     */
+    @Column(name = "dead", nullable = false)
+    private boolean dead;
+}
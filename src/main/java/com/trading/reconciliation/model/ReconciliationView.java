@@ -0,0 +1,91 @@
+package com.trading.reconciliation.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Entity class representing the query-side view of a reconciliation
+ * 
+ * One row per reconciliation, denormalized with the prices and quantities of both legs so
+ * the reconciliation API never joins trade_data. Rows are written only by
+ * ReconciliationViewRepository from the source tables; the indexes match the filter and
+ * sort combinations of GET /reconciliations.
+ */
+@Entity
+@Table(name = "reconciliation_view",
+        indexes = {
+                @Index(name = "idx_reconciliation_view_updated_at", columnList = "updated_at"),
+                @Index(name = "idx_reconciliation_view_status_updated_at", columnList = "status, updated_at"),
+                @Index(name = "idx_reconciliation_view_counterparty_updated_at", columnList = "counterparty, updated_at"),
+                @Index(name = "idx_reconciliation_view_counterparty_status_updated_at",
+                        columnList = "counterparty, status, updated_at")
+        })
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReconciliationView {
+
+    /**
+     * Id of the source row in trade_reconciliation
+     */
+    @Id
+    @Column(name = "reconciliation_id")
+    private Long reconciliationId;
+
+    @Column(name = "trade_id", nullable = false, unique = true)
+    private String tradeId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false)
+    private ReconciliationStatus status;
+
+    @Column(name = "details", columnDefinition = "TEXT")
+    private String details;
+
+    @Column(name = "business_date")
+    private LocalDate businessDate;
+
+    @Column(name = "counterparty")
+    private String counterparty;
+
+    @Column(name = "instrument")
+    private String instrument;
+
+    @Column(name = "mismatched_fields")
+    private String mismatchedFields;
+
+    @Column(name = "system_a_quantity")
+    private BigDecimal systemAQuantity;
+
+    @Column(name = "system_a_price")
+    private BigDecimal systemAPrice;
+
+    @Column(name = "system_b_quantity")
+    private BigDecimal systemBQuantity;
+
+    @Column(name = "system_b_price")
+    private BigDecimal systemBPrice;
+
+    @Column(name = "system_a_version")
+    private Long systemAVersion;
+
+    @Column(name = "system_b_version")
+    private Long systemBVersion;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
+    @Column(name = "last_reconciliation_attempt")
+    private LocalDateTime lastReconciliationAttempt;
+}
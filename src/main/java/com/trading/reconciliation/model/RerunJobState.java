@@ -0,0 +1,15 @@
+package com.trading.reconciliation.model;
+
+/**
+ * Enum representing the states of a re-reconciliation job
+ */
+public enum RerunJobState {
+    
+    /**
+     * Picked up by an instance, or waiting to be resumed from its checkpoint
+     */
+    RUNNING,
+    PAUSED,
+    COMPLETED,
+    CANCELLED
+}
@@ -11,11 +11,20 @@
 
 /**
  * Entity class representing raw trade data received from source systems
+ * 
+ * Rows are never updated: each amendment of a leg is stored as a new row with the
+ * next version, and TradeLegHead points at the latest one.
  */
 @Entity
-@Table(name = "trade_data")
+@Table(name = "trade_data",
+        indexes = {
+                @Index(name = "idx_trade_data_trade_id_source_system", columnList = "trade_id, source_system"),
+                @Index(name = "idx_trade_data_trade_date", columnList = "trade_date")
+        },
+        uniqueConstraints = @UniqueConstraint(name = "uk_trade_data_leg_version",
+                columnNames = {"trade_id", "source_system", "version"}))
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class TradeData {
@@ -48,6 +57,18 @@ public class TradeData {
     @Column(name = "received_at", nullable = false)
     private LocalDateTime receivedAt;
 
+    /**
+     * Desk or book of the trade, null if the source system did not send one
+     */
+    @Column(name = "desk")
+    private String desk;
+
     @Column(name = "raw_data", columnDefinition = "TEXT")
     private String rawData;
+
+    /**
+     * Version of the leg, starting at 1 and incremented by every amendment from its source system
+     */
+    @Column(name = "version")
+    private Long version;
 } 
\ No newline at end of file
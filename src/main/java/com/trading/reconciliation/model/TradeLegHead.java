@@ -0,0 +1,48 @@
+package com.trading.reconciliation.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Entity class representing the pointer to the latest version of a trade leg
+ * 
+ * trade_data is append-only; this narrow row per trade and source system is the only
+ * thing updated when a leg is amended. It hands out the next version number and
+ * points at the trade_data row holding the current version.
+ */
+@Entity
+@Table(name = "trade_leg_head",
+        indexes = @Index(name = "idx_trade_leg_head_trade_data_id", columnList = "trade_data_id"),
+        uniqueConstraints = @UniqueConstraint(name = "uk_trade_leg_head_leg",
+                columnNames = {"trade_id", "source_system"}))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TradeLegHead {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "trade_id", nullable = false)
+    private String tradeId;
+
+    @Column(name = "source_system", nullable = false)
+    private String sourceSystem;
+
+    /**
+     * Latest version handed out for the leg
+     */
+    @Column(name = "version", nullable = false)
+    private long version;
+
+    /**
+     * Id of the trade_data row holding the latest version
+     */
+    @Column(name = "trade_data_id")
+    private Long tradeDataId;
+}
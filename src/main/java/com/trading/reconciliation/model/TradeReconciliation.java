@@ -6,15 +6,17 @@
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 /**
  * Entity class representing trade reconciliation results
  */
 @Entity
-@Table(name = "trade_reconciliation")
+@Table(name = "trade_reconciliation",
+        indexes = @Index(name = "idx_trade_reconciliation_status_updated_at", columnList = "status, updated_at"))
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 public class TradeReconciliation {
@@ -39,6 +41,15 @@ public class TradeReconciliation {
     @Column(name = "system_b_trade_id")
     private Long systemBTradeId;
 
+    /**
+     * Versions of the legs the last outcome was computed from
+     */
+    @Column(name = "system_a_version")
+    private Long systemAVersion;
+
+    @Column(name = "system_b_version")
+    private Long systemBVersion;
+
     @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt;
 
@@ -48,6 +59,24 @@ public class TradeReconciliation {
     @Column(name = "last_reconciliation_attempt")
     private LocalDateTime lastReconciliationAttempt;
 
+    /**
+     * Trade date, counterparty and instrument of the last recorded outcome, used to roll up break analytics
+     */
+    @Column(name = "business_date")
+    private LocalDate businessDate;
+
+    @Column(name = "counterparty")
+    private String counterparty;
+
+    @Column(name = "instrument")
+    private String instrument;
+
+    /**
+     * Comma-separated names of the fields that differed, for MISMATCHED outcomes
+     */
+    @Column(name = "mismatched_fields")
+    private String mismatchedFields;
+
     /**
      * Pre-persist hook to set createdAt and updatedAt fields
      */
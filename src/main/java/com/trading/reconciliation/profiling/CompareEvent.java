@@ -0,0 +1,37 @@
+package com.trading.reconciliation.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for comparing the two legs of a trade
+ */
+@Name("com.trading.reconciliation.Compare")
+@Label("Leg Compare")
+@Category(FlightRecordingEndpoint.EVENT_CATEGORY)
+@Description("Comparing the fields of both legs")
+@StackTrace(false)
+public class CompareEvent extends Event {
+    
+    @Label("Trade Id")
+    private String tradeId;
+    
+    @Label("Mismatched Fields")
+    private int mismatches;
+    
+    /**
+     * End the event and commit it if it is being recorded
+     */
+    public void complete(String tradeId, int mismatches) {
+        end();
+        if (shouldCommit()) {
+            this.tradeId = tradeId;
+            this.mismatches = mismatches;
+            commit();
+        }
+    }
+}
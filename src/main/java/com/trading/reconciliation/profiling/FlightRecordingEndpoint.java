@@ -0,0 +1,163 @@
+package com.trading.reconciliation.profiling;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.endpoint.condition.ConditionalOnAvailableEndpoint;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.boot.actuate.endpoint.web.annotation.WebEndpoint;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Actuator endpoint for on-demand Java Flight Recorder recordings
+ * 
+ * POST /actuator/flightrecording starts a recording with the JDK's profile settings
+ * plus the reconciliation pipeline events (category "Trade Reconciliation"), DELETE
+ * stops it and returns the .jfr file, and GET reports its state. Recordings are bounded
+ * in duration and size and stop on their own when the duration elapses; the file is
+ * still returned by the next DELETE. Only one recording runs at a time.
+ * 
+ * The pipeline events carry the tradeId of every ingest, trigger, task, leg fetch,
+ * compare and persist, so slow trades can be found in JDK Mission Control or with
+ * the jfr tool, e.g. jfr print --events com.trading.reconciliation.TaskDequeue.
+ * 
+ * The events recording the environment variables, system properties and JVM arguments
+ * are disabled, as they would put the database and broker credentials in the file.
+ * The endpoint has no authentication of its own and is only enabled on request.
+ */
+@Component
+@WebEndpoint(id = "flightrecording")
+@ConditionalOnAvailableEndpoint(endpoint = FlightRecordingEndpoint.class)
+@Slf4j
+public class FlightRecordingEndpoint {
+    
+    public static final String EVENT_CATEGORY = "Trade Reconciliation";
+    
+    private static final String JFR_CONTENT_TYPE = "application/octet-stream";
+    
+    static final List<String> DISABLED_EVENTS = List.of(
+            "jdk.InitialEnvironmentVariable", "jdk.InitialSystemProperty", "jdk.JVMInformation");
+    
+    private final Object lock = new Object();
+    private Recording recording;
+    
+    @Value("${reconciliation.profiling.settings}")
+    private String settings;
+    
+    @Value("${reconciliation.profiling.default-duration-seconds}")
+    private long defaultDurationSeconds;
+    
+    @Value("${reconciliation.profiling.max-duration-seconds}")
+    private long maxDurationSeconds;
+    
+    @Value("${reconciliation.profiling.max-size-mb}")
+    private long maxSizeMb;
+    
+    /**
+     * Get the state of the current recording
+     * @return The recording status, or HTTP 404 if there is none
+     */
+    @ReadOperation
+    public WebEndpointResponse<RecordingStatus> status() {
+        synchronized (lock) {
+            if (recording == null) {
+                return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+            }
+            return new WebEndpointResponse<>(RecordingStatus.of(recording));
+        }
+    }
+    
+    /**
+     * Start a recording
+     * @param durationSeconds How long to record, capped at the configured maximum
+     * @return The recording status, or HTTP 429 if a recording is already running
+     */
+    @WriteOperation
+    public WebEndpointResponse<RecordingStatus> start(@Nullable Long durationSeconds) throws IOException, ParseException {
+        Duration duration = Duration.ofSeconds(Math.min(
+                durationSeconds == null ? defaultDurationSeconds : Math.max(1, durationSeconds), maxDurationSeconds));
+        
+        synchronized (lock) {
+            if (recording != null && recording.getState() == RecordingState.RUNNING) {
+                return new WebEndpointResponse<>(RecordingStatus.of(recording), WebEndpointResponse.STATUS_TOO_MANY_REQUESTS);
+            }
+            if (recording != null) {
+                recording.close();
+            }
+            
+            Map<String, String> recordingSettings = new HashMap<>(Configuration.getConfiguration(settings).getSettings());
+            DISABLED_EVENTS.forEach(event -> recordingSettings.put(event + "#enabled", "false"));
+            Recording newRecording = new Recording(recordingSettings);
+            newRecording.setName("reconciliation-" + Instant.now().toEpochMilli());
+            newRecording.setDuration(duration);
+            newRecording.setMaxSize(maxSizeMb * 1024 * 1024);
+            newRecording.setToDisk(true);
+            newRecording.start();
+            recording = newRecording;
+            
+            log.info("Started flight recording {} for {}", recording.getName(), duration);
+            return new WebEndpointResponse<>(RecordingStatus.of(recording));
+        }
+    }
+    
+    /**
+     * Stop the recording and return its contents
+     * @return The .jfr file, or HTTP 404 if there is no recording
+     */
+    @DeleteOperation(produces = JFR_CONTENT_TYPE)
+    public WebEndpointResponse<Resource> stop() throws IOException {
+        Recording stopped;
+        synchronized (lock) {
+            if (recording == null) {
+                return new WebEndpointResponse<>(WebEndpointResponse.STATUS_NOT_FOUND);
+            }
+            stopped = recording;
+            recording = null;
+        }
+        
+        Path file = Files.createTempFile(stopped.getName(), ".jfr");
+        try {
+            if (stopped.getState() == RecordingState.RUNNING) {
+                stopped.stop();
+            }
+            stopped.dump(file);
+            log.info("Stopped flight recording {}, {} bytes", stopped.getName(), Files.size(file));
+            return new WebEndpointResponse<>(new ByteArrayResource(Files.readAllBytes(file)));
+        } finally {
+            stopped.close();
+            Files.deleteIfExists(file);
+        }
+    }
+    
+    /**
+     * State of a recording
+     */
+    public record RecordingStatus(String name, String state, String startedAt, long durationSeconds,
+                                  long maxSizeBytes, long sizeBytes) {
+        
+        static RecordingStatus of(Recording recording) {
+            return new RecordingStatus(recording.getName(), recording.getState().name(),
+                    recording.getStartTime() == null ? null : recording.getStartTime().toString(),
+                    recording.getDuration() == null ? 0 : recording.getDuration().toSeconds(),
+                    recording.getMaxSize(), recording.getSize());
+        }
+    }
+}
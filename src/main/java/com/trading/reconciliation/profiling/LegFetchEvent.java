@@ -0,0 +1,42 @@
+package com.trading.reconciliation.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for loading the trade legs to reconcile
+ */
+@Name("com.trading.reconciliation.LegFetch")
+@Label("Leg Fetch")
+@Category(FlightRecordingEndpoint.EVENT_CATEGORY)
+@Description("Loading trade legs for a reconciliation")
+@StackTrace(false)
+public class LegFetchEvent extends Event {
+    
+    @Label("Trade Id")
+    private String tradeId;
+    
+    @Label("Legs Found")
+    private int legsFound;
+    
+    @Label("From Cache")
+    @Description("Whether the counterpart leg came from the snapshot cache")
+    private boolean fromCache;
+    
+    /**
+     * End the event and commit it if it is being recorded
+     */
+    public void complete(String tradeId, int legsFound, boolean fromCache) {
+        end();
+        if (shouldCommit()) {
+            this.tradeId = tradeId;
+            this.legsFound = legsFound;
+            this.fromCache = fromCache;
+            commit();
+        }
+    }
+}
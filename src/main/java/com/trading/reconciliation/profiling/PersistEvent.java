@@ -0,0 +1,37 @@
+package com.trading.reconciliation.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for loading and saving a reconciliation record
+ */
+@Name("com.trading.reconciliation.Persist")
+@Label("Reconciliation Persist")
+@Category(FlightRecordingEndpoint.EVENT_CATEGORY)
+@Description("Loading and saving the reconciliation record; updates are flushed at commit, which is part of the Reconciliation Task event")
+@StackTrace(false)
+public class PersistEvent extends Event {
+    
+    @Label("Trade Id")
+    private String tradeId;
+    
+    @Label("Status")
+    private String status;
+    
+    /**
+     * End the event and commit it if it is being recorded
+     */
+    public void complete(String tradeId, String status) {
+        end();
+        if (shouldCommit()) {
+            this.tradeId = tradeId;
+            this.status = status;
+            commit();
+        }
+    }
+}
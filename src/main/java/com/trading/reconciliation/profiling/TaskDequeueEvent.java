@@ -0,0 +1,53 @@
+package com.trading.reconciliation.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * JFR event for processing a reconciliation task taken from the broker, including its commit
+ */
+@Name("com.trading.reconciliation.TaskDequeue")
+@Label("Reconciliation Task")
+@Category(FlightRecordingEndpoint.EVENT_CATEGORY)
+@Description("Processing a consumed reconciliation task; the duration includes the transaction commit")
+@StackTrace(false)
+public class TaskDequeueEvent extends Event {
+    
+    @Label("Trade Id")
+    private String tradeId;
+    
+    @Label("Lane")
+    private String lane;
+    
+    @Label("Attempt")
+    @Description("Retry attempt, 0 for the first delivery")
+    private int attempt;
+    
+    @Label("Queue Wait (ms)")
+    @Description("Time from publish to consumption, -1 if the message was not stamped")
+    @Timespan(Timespan.MILLISECONDS)
+    private long queueWaitMillis;
+    
+    @Label("Failed")
+    private boolean failed;
+    
+    /**
+     * End the event and commit it if it is being recorded
+     */
+    public void complete(String tradeId, String lane, int attempt, long queueWaitMillis, boolean failed) {
+        end();
+        if (shouldCommit()) {
+            this.tradeId = tradeId;
+            this.lane = lane;
+            this.attempt = attempt;
+            this.queueWaitMillis = queueWaitMillis;
+            this.failed = failed;
+            commit();
+        }
+    }
+}
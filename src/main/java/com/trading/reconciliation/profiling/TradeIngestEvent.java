@@ -0,0 +1,42 @@
+package com.trading.reconciliation.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for saving one trade leg received from a source system
+ */
+@Name("com.trading.reconciliation.TradeIngest")
+@Label("Trade Ingest")
+@Category(FlightRecordingEndpoint.EVENT_CATEGORY)
+@Description("Saving a trade leg to trade_data")
+@StackTrace(false)
+public class TradeIngestEvent extends Event {
+    
+    @Label("Trade Id")
+    private String tradeId;
+    
+    @Label("Source System")
+    private String sourceSystem;
+    
+    @Label("Amended")
+    @Description("Whether an existing leg was updated")
+    private boolean amended;
+    
+    /**
+     * End the event and commit it if it is being recorded
+     */
+    public void complete(String tradeId, String sourceSystem, boolean amended) {
+        end();
+        if (shouldCommit()) {
+            this.tradeId = tradeId;
+            this.sourceSystem = sourceSystem;
+            this.amended = amended;
+            commit();
+        }
+    }
+}
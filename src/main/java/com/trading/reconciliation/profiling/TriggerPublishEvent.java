@@ -0,0 +1,42 @@
+package com.trading.reconciliation.profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * JFR event for publishing a reconciliation task to the broker
+ */
+@Name("com.trading.reconciliation.TriggerPublish")
+@Label("Reconciliation Trigger Publish")
+@Category(FlightRecordingEndpoint.EVENT_CATEGORY)
+@Description("Publishing a reconciliation task")
+@StackTrace(false)
+public class TriggerPublishEvent extends Event {
+    
+    @Label("Trade Id")
+    private String tradeId;
+    
+    @Label("Queue")
+    private String queue;
+    
+    @Label("Leg Snapshot")
+    @Description("Whether the task carries the triggering leg")
+    private boolean legSnapshot;
+    
+    /**
+     * End the event and commit it if it is being recorded
+     */
+    public void complete(String tradeId, String queue, boolean legSnapshot) {
+        end();
+        if (shouldCommit()) {
+            this.tradeId = tradeId;
+            this.queue = queue;
+            this.legSnapshot = legSnapshot;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.trading.reconciliation.repository;
+
+import com.trading.reconciliation.model.ArchivedTradeData;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Repository interface for ArchivedTradeData entity
+ */
+@Repository
+public interface ArchivedTradeDataRepository extends JpaRepository<ArchivedTradeData, Long> {
+    
+    /**
+     * Find all archived trade data by tradeId
+     * @param tradeId The trade identifier
+     * @return List of archived trade data with the specified tradeId
+     */
+    List<ArchivedTradeData> findByTradeId(String tradeId);
+    
+    /**
+     * Move the trade legs belonging to the given reconciliations into the archive table
+     * @param reconciliationIds The ids of the reconciliations whose legs should be moved
+     * @return Number of trade legs archived
+     */
+    @Modifying
+    @Query(value = "WITH moved AS (" +
+            "DELETE FROM trade_data d USING trade_reconciliation r " +
+            "WHERE r.id IN (:reconciliationIds) AND d.trade_id = r.trade_id " +
+            "RETURNING d.id, d.trade_id, d.instrument, d.quantity, d.price, d.trade_date, d.counterparty, " +
+            "d.source_system, d.desk, d.received_at, d.raw_data, d.version) " +
+            "INSERT INTO trade_data_archive (id, trade_id, instrument, quantity, price, trade_date, counterparty, " +
+            "source_system, desk, received_at, raw_data, version, archived_at) " +
+            "SELECT id, trade_id, instrument, quantity, price, trade_date, counterparty, " +
+            "source_system, desk, received_at, raw_data, version, now() FROM moved",
+            nativeQuery = true)
+    int archiveLegsOfReconciliations(@Param("reconciliationIds") List<Long> reconciliationIds);
+}
@@ -0,0 +1,62 @@
+package com.trading.reconciliation.repository;
+
+import com.trading.reconciliation.model.ArchivedTradeReconciliation;
+import com.trading.reconciliation.repository.TradeReconciliationRepository.ReconciliationVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository interface for ArchivedTradeReconciliation entity
+ */
+@Repository
+public interface ArchivedTradeReconciliationRepository extends JpaRepository<ArchivedTradeReconciliation, Long> {
+    
+    /**
+     * Find the most recently archived reconciliation for a tradeId
+     * @param tradeId The trade identifier
+     * @return An Optional containing the archived reconciliation if found
+     */
+    Optional<ArchivedTradeReconciliation> findFirstByTradeIdOrderByArchivedAtDesc(String tradeId);
+    
+    /**
+     * Find the version of the most recently archived reconciliation for a tradeId without loading it
+     * @param tradeId The trade identifier
+     * @return An Optional containing the id and update time if found
+     */
+    Optional<ReconciliationVersion> findFirstVersionByTradeIdOrderByArchivedAtDesc(String tradeId);
+    
+    /**
+     * Find archived reconciliations for a set of trades
+     * @param tradeIds The trade identifiers
+     * @return The archived reconciliations found, possibly several per tradeId
+     */
+    List<ArchivedTradeReconciliation> findByTradeIdIn(Collection<String> tradeIds);
+    
+    /**
+     * Move reconciliations from the hot table into the archive table
+     * @param ids The ids of the reconciliations to move; expected to be locked by the caller
+     * @return Number of reconciliations archived
+     */
+    @Modifying
+    @Query(value = "WITH moved AS (" +
+            "DELETE FROM trade_reconciliation WHERE id IN (:ids) " +
+            "RETURNING id, trade_id, status, details, system_a_trade_id, system_b_trade_id, " +
+            "system_a_version, system_b_version, created_at, updated_at, last_reconciliation_attempt, business_date, counterparty, instrument, " +
+            "mismatched_fields) " +
+            "INSERT INTO trade_reconciliation_archive (id, trade_id, status, details, system_a_trade_id, " +
+            "system_b_trade_id, system_a_version, system_b_version, created_at, updated_at, " +
+            "last_reconciliation_attempt, business_date, " +
+            "counterparty, instrument, mismatched_fields, archived_at) " +
+            "SELECT id, trade_id, status, details, system_a_trade_id, system_b_trade_id, " +
+            "system_a_version, system_b_version, created_at, updated_at, last_reconciliation_attempt, business_date, counterparty, instrument, " +
+            "mismatched_fields, now() FROM moved",
+            nativeQuery = true)
+    int archiveReconciliations(@Param("ids") List<Long> ids);
+}
@@ -0,0 +1,187 @@
+package com.trading.reconciliation.repository;
+
+import com.trading.reconciliation.model.AnalyticsDimension;
+import com.trading.reconciliation.model.BreakFieldRollup;
+import com.trading.reconciliation.model.BreakRollup;
+import com.trading.reconciliation.model.MatchLagRollup;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository for the break analytics rollup tables
+ * 
+ * Rollups are only ever changed by adding deltas, with one JDBC batch of upserts per
+ * table, so instances can flush concurrently without reading the current counts first.
+ * Reads sum the rollup rows of a date range, grouped by one dimension.
+ */
+@Repository
+@RequiredArgsConstructor
+public class BreakAnalyticsRepository {
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    /**
+     * Add outcome count deltas to break_rollup
+     * @param deltas The deltas; counts may be negative
+     */
+    public void addBreakCounts(Collection<BreakRollup> deltas) {
+        jdbcTemplate.batchUpdate("INSERT INTO break_rollup (business_date, counterparty, instrument, " +
+                        "matched_count, mismatched_count, error_count) VALUES (?, ?, ?, ?, ?, ?) " +
+                        "ON CONFLICT (business_date, counterparty, instrument) DO UPDATE SET " +
+                        "matched_count = break_rollup.matched_count + EXCLUDED.matched_count, " +
+                        "mismatched_count = break_rollup.mismatched_count + EXCLUDED.mismatched_count, " +
+                        "error_count = break_rollup.error_count + EXCLUDED.error_count",
+                deltas, deltas.size(), (ps, delta) -> {
+                    ps.setDate(1, Date.valueOf(delta.getBusinessDate()));
+                    ps.setString(2, delta.getCounterparty());
+                    ps.setString(3, delta.getInstrument());
+                    ps.setLong(4, delta.getMatchedCount());
+                    ps.setLong(5, delta.getMismatchedCount());
+                    ps.setLong(6, delta.getErrorCount());
+                });
+    }
+    
+    /**
+     * Add mismatch count deltas to break_field_rollup
+     * @param deltas The deltas; counts may be negative
+     */
+    public void addFieldCounts(Collection<BreakFieldRollup> deltas) {
+        jdbcTemplate.batchUpdate("INSERT INTO break_field_rollup (business_date, counterparty, instrument, " +
+                        "field, mismatch_count) VALUES (?, ?, ?, ?, ?) " +
+                        "ON CONFLICT (business_date, counterparty, instrument, field) DO UPDATE SET " +
+                        "mismatch_count = break_field_rollup.mismatch_count + EXCLUDED.mismatch_count",
+                deltas, deltas.size(), (ps, delta) -> {
+                    ps.setDate(1, Date.valueOf(delta.getBusinessDate()));
+                    ps.setString(2, delta.getCounterparty());
+                    ps.setString(3, delta.getInstrument());
+                    ps.setString(4, delta.getField());
+                    ps.setLong(5, delta.getMismatchCount());
+                });
+    }
+    
+    /**
+     * Add match lag histogram deltas to match_lag_rollup
+     * @param deltas The deltas
+     */
+    public void addMatchLags(Collection<MatchLagRollup> deltas) {
+        jdbcTemplate.batchUpdate("INSERT INTO match_lag_rollup (business_date, counterparty, instrument, " +
+                        "bucket, match_count) VALUES (?, ?, ?, ?, ?) " +
+                        "ON CONFLICT (business_date, counterparty, instrument, bucket) DO UPDATE SET " +
+                        "match_count = match_lag_rollup.match_count + EXCLUDED.match_count",
+                deltas, deltas.size(), (ps, delta) -> {
+                    ps.setDate(1, Date.valueOf(delta.getBusinessDate()));
+                    ps.setString(2, delta.getCounterparty());
+                    ps.setString(3, delta.getInstrument());
+                    ps.setInt(4, delta.getBucket());
+                    ps.setLong(5, delta.getMatchCount());
+                });
+    }
+    
+    /**
+     * Sum outcome counts over a date range
+     * @param groupBy The dimension to group by
+     * @param from First business date, inclusive
+     * @param to Last business date, inclusive
+     * @param counterparty Optional counterparty filter
+     * @param instrument Optional instrument filter
+     * @return Outcome counts per group
+     */
+    public List<GroupedBreakCounts> sumBreakCounts(AnalyticsDimension groupBy, LocalDate from, LocalDate to,
+                                                   String counterparty, String instrument) {
+        List<Object> args = new ArrayList<>();
+        String sql = "SELECT " + groupExpression(groupBy) + " AS grp, SUM(matched_count) AS matched, " +
+                "SUM(mismatched_count) AS mismatched, SUM(error_count) AS error FROM break_rollup " +
+                where(from, to, counterparty, instrument, args) + " GROUP BY grp";
+        
+        return jdbcTemplate.query(sql, (rs, rowNum) -> new GroupedBreakCounts(
+                rs.getString("grp"), rs.getLong("matched"), rs.getLong("mismatched"), rs.getLong("error")),
+                args.toArray());
+    }
+    
+    /**
+     * Sum mismatch counts per field over a date range
+     * @param groupBy The dimension to group by
+     * @param from First business date, inclusive
+     * @param to Last business date, inclusive
+     * @param counterparty Optional counterparty filter
+     * @param instrument Optional instrument filter
+     * @return Mismatch counts per group and field, with zero counts left out
+     */
+    public List<GroupedFieldCount> sumFieldCounts(AnalyticsDimension groupBy, LocalDate from, LocalDate to,
+                                                  String counterparty, String instrument) {
+        List<Object> args = new ArrayList<>();
+        String sql = "SELECT " + groupExpression(groupBy) + " AS grp, field, SUM(mismatch_count) AS mismatches " +
+                "FROM break_field_rollup " + where(from, to, counterparty, instrument, args) +
+                " GROUP BY grp, field HAVING SUM(mismatch_count) > 0";
+        
+        return jdbcTemplate.query(sql, (rs, rowNum) -> new GroupedFieldCount(
+                rs.getString("grp"), rs.getString("field"), rs.getLong("mismatches")),
+                args.toArray());
+    }
+    
+    /**
+     * Sum match lag histograms over a date range
+     * @param groupBy The dimension to group by
+     * @param from First business date, inclusive
+     * @param to Last business date, inclusive
+     * @param counterparty Optional counterparty filter
+     * @param instrument Optional instrument filter
+     * @return Match counts per group and histogram bucket
+     */
+    public List<GroupedLagBucket> sumMatchLags(AnalyticsDimension groupBy, LocalDate from, LocalDate to,
+                                               String counterparty, String instrument) {
+        List<Object> args = new ArrayList<>();
+        String sql = "SELECT " + groupExpression(groupBy) + " AS grp, bucket, SUM(match_count) AS matches " +
+                "FROM match_lag_rollup " + where(from, to, counterparty, instrument, args) +
+                " GROUP BY grp, bucket";
+        
+        return jdbcTemplate.query(sql, (rs, rowNum) -> new GroupedLagBucket(
+                rs.getString("grp"), rs.getInt("bucket"), rs.getLong("matches")),
+                args.toArray());
+    }
+    
+    private String groupExpression(AnalyticsDimension groupBy) {
+        return "CAST(" + groupBy.getColumn() + " AS TEXT)";
+    }
+    
+    private String where(LocalDate from, LocalDate to, String counterparty, String instrument, List<Object> args) {
+        StringBuilder where = new StringBuilder("WHERE business_date BETWEEN ? AND ?");
+        args.add(Date.valueOf(from));
+        args.add(Date.valueOf(to));
+        
+        if (counterparty != null) {
+            where.append(" AND counterparty = ?");
+            args.add(counterparty);
+        }
+        if (instrument != null) {
+            where.append(" AND instrument = ?");
+            args.add(instrument);
+        }
+        return where.toString();
+    }
+    
+    /**
+     * Outcome counts of one group
+     */
+    public record GroupedBreakCounts(String group, long matched, long mismatched, long error) {
+    }
+    
+    /**
+     * Mismatch count of one field within a group
+     */
+    public record GroupedFieldCount(String group, String field, long mismatches) {
+    }
+    
+    /**
+     * Match count of one lag histogram bucket within a group
+     */
+    public record GroupedLagBucket(String group, int bucket, long matches) {
+    }
+}
@@ -0,0 +1,160 @@
+package com.trading.reconciliation.repository;
+
+import com.trading.reconciliation.model.PositionBreak;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository for position reconciliation
+ * 
+ * Trade legs are streamed through a server-side cursor, one fetch at a time, and handed
+ * to the caller as primitives: the trade date as an epoch day, the quantity scaled to
+ * millionths and the notional as a double. Only the latest version of each leg is read.
+ * The cursor needs an open transaction, which the caller provides.
+ */
+@Repository
+public class PositionRepository {
+    
+    /**
+     * Quantities are streamed and summed as whole millionths
+     */
+    public static final int QUANTITY_SCALE = 6;
+    
+    private static final String SCAN_LATEST_LEGS = "SELECT d.source_system, " +
+            "d.trade_date::date - DATE '1970-01-01' AS epoch_day, d.instrument, d.counterparty, " +
+            "round(d.quantity * 1000000)::bigint AS quantity_micros, (d.quantity * d.price)::float8 AS notional " +
+            "FROM trade_data d " +
+            "WHERE d.trade_date >= ? AND d.trade_date < ? AND d.source_system IN (?, ?) " +
+            "AND (EXISTS (SELECT 1 FROM trade_leg_head h WHERE h.trade_data_id = d.id) " +
+            "OR NOT EXISTS (SELECT 1 FROM trade_leg_head h " +
+            "WHERE h.trade_id = d.trade_id AND h.source_system = d.source_system))";
+    
+    private static final RowMapper<PositionBreak> BREAK_MAPPER = (rs, rowNum) -> PositionBreak.builder()
+            .id(rs.getLong("id"))
+            .businessDate(rs.getDate("business_date").toLocalDate())
+            .instrument(rs.getString("instrument"))
+            .counterparty(rs.getString("counterparty"))
+            .systemAQuantity(rs.getBigDecimal("system_a_quantity"))
+            .systemBQuantity(rs.getBigDecimal("system_b_quantity"))
+            .systemANotional(rs.getBigDecimal("system_a_notional"))
+            .systemBNotional(rs.getBigDecimal("system_b_notional"))
+            .systemATradeCount(rs.getLong("system_a_trade_count"))
+            .systemBTradeCount(rs.getLong("system_b_trade_count"))
+            .quantityDifference(rs.getBigDecimal("quantity_difference"))
+            .notionalDifference(rs.getBigDecimal("notional_difference"))
+            .detectedAt(rs.getTimestamp("detected_at").toLocalDateTime())
+            .build();
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate cursorJdbcTemplate;
+    
+    public PositionRepository(JdbcTemplate jdbcTemplate, DataSource dataSource,
+                              @Value("${reconciliation.positions.fetch-size}") int fetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.cursorJdbcTemplate = new JdbcTemplate(dataSource);
+        this.cursorJdbcTemplate.setFetchSize(fetchSize);
+    }
+    
+    /**
+     * Stream the latest version of every leg from both source systems traded in a date range
+     * @param from First trade date, inclusive
+     * @param to Last trade date, inclusive
+     * @param systemA Name of the first source system
+     * @param systemB Name of the second source system
+     * @param consumer Receives each leg
+     */
+    public void scanLatestLegs(LocalDate from, LocalDate to, String systemA, String systemB, LegConsumer consumer) {
+        cursorJdbcTemplate.query(SCAN_LATEST_LEGS, rs -> {
+            consumer.accept(systemA.equals(rs.getString(1)), rs.getInt(2), rs.getString(3), rs.getString(4),
+                    rs.getLong(5), rs.getDouble(6));
+        }, Timestamp.valueOf(from.atStartOfDay()), Timestamp.valueOf(to.plusDays(1).atStartOfDay()), systemA, systemB);
+    }
+    
+    /**
+     * Replace the breaks of a range of business dates
+     * @param from First business date, inclusive
+     * @param to Last business date, inclusive
+     * @param breaks The breaks found for the range
+     * @return Number of previous breaks removed
+     */
+    public int replaceBreaks(LocalDate from, LocalDate to, Collection<PositionBreak> breaks) {
+        int removed = jdbcTemplate.update("DELETE FROM position_break WHERE business_date BETWEEN ? AND ?",
+                Date.valueOf(from), Date.valueOf(to));
+        jdbcTemplate.batchUpdate("INSERT INTO position_break (business_date, instrument, counterparty, " +
+                        "system_a_quantity, system_b_quantity, system_a_notional, system_b_notional, " +
+                        "system_a_trade_count, system_b_trade_count, quantity_difference, notional_difference, " +
+                        "detected_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                breaks, 1000, (ps, positionBreak) -> {
+                    ps.setDate(1, Date.valueOf(positionBreak.getBusinessDate()));
+                    ps.setString(2, positionBreak.getInstrument());
+                    ps.setString(3, positionBreak.getCounterparty());
+                    ps.setBigDecimal(4, positionBreak.getSystemAQuantity());
+                    ps.setBigDecimal(5, positionBreak.getSystemBQuantity());
+                    ps.setBigDecimal(6, positionBreak.getSystemANotional());
+                    ps.setBigDecimal(7, positionBreak.getSystemBNotional());
+                    ps.setLong(8, positionBreak.getSystemATradeCount());
+                    ps.setLong(9, positionBreak.getSystemBTradeCount());
+                    ps.setBigDecimal(10, positionBreak.getQuantityDifference());
+                    ps.setBigDecimal(11, positionBreak.getNotionalDifference());
+                    ps.setTimestamp(12, Timestamp.valueOf(positionBreak.getDetectedAt()));
+                });
+        return removed;
+    }
+    
+    /**
+     * Find the breaks of a range of business dates, largest notional difference first
+     * @param from First business date, inclusive
+     * @param to Last business date, inclusive
+     * @param counterparty Optional counterparty filter
+     * @param instrument Optional instrument filter
+     * @param limit Maximum number of breaks returned
+     * @return The breaks found
+     */
+    public List<PositionBreak> findBreaks(LocalDate from, LocalDate to, String counterparty, String instrument,
+                                          int limit) {
+        List<Object> args = new ArrayList<>();
+        args.add(Date.valueOf(from));
+        args.add(Date.valueOf(to));
+        StringBuilder sql = new StringBuilder("SELECT * FROM position_break WHERE business_date BETWEEN ? AND ?");
+        if (counterparty != null && !counterparty.isEmpty()) {
+            sql.append(" AND counterparty = ?");
+            args.add(counterparty);
+        }
+        if (instrument != null && !instrument.isEmpty()) {
+            sql.append(" AND instrument = ?");
+            args.add(instrument);
+        }
+        sql.append(" ORDER BY abs(notional_difference) DESC, abs(quantity_difference) DESC LIMIT ?");
+        args.add(limit);
+        
+        return jdbcTemplate.query(sql.toString(), BREAK_MAPPER, args.toArray());
+    }
+    
+    /**
+     * Receives streamed trade legs without boxing
+     */
+    @FunctionalInterface
+    public interface LegConsumer {
+        
+        /**
+         * @param systemA Whether the leg comes from the first source system
+         * @param epochDay Trade date as days since 1970-01-01
+         * @param instrument The instrument
+         * @param counterparty The counterparty
+         * @param quantityMicros Signed quantity in millionths
+         * @param notional Signed quantity times price
+         */
+        void accept(boolean systemA, int epochDay, String instrument, String counterparty,
+                    long quantityMicros, double notional);
+    }
+}
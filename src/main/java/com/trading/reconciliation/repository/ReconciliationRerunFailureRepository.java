@@ -0,0 +1,63 @@
+package com.trading.reconciliation.repository;
+
+import com.trading.reconciliation.model.ReconciliationRerunFailure;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository interface for ReconciliationRerunFailure entity
+ */
+@Repository
+public interface ReconciliationRerunFailureRepository extends JpaRepository<ReconciliationRerunFailure, Long> {
+    
+    /**
+     * Find a page of a job's failed trades that have failed fewer than the given number of times
+     * @param jobId The job id
+     * @param attempts Only failures with fewer attempts are returned
+     * @param pageable Page size; the page number should be 0
+     * @return The failures, oldest first
+     */
+    List<ReconciliationRerunFailure> findByJobIdAndAttemptsLessThanOrderByIdAsc(long jobId, int attempts,
+                                                                                Pageable pageable);
+    
+    /**
+     * Find the failed trades of a job
+     * @param jobId The job id
+     * @return The failures, oldest first
+     */
+    List<ReconciliationRerunFailure> findByJobIdOrderByIdAsc(long jobId);
+    
+    /**
+     * Record a failed trade, replacing an earlier failure of the same trade in the job
+     * @param jobId The job id
+     * @param tradeId The trade identifier
+     * @param attempts Number of times the trade has failed in the job
+     * @param error Message of the failure
+     * @return Number of failures recorded
+     */
+    @Modifying
+    @Query(value = "INSERT INTO reconciliation_rerun_failure (job_id, trade_id, attempts, error, failed_at) " +
+            "VALUES (:jobId, :tradeId, :attempts, :error, now()) " +
+            "ON CONFLICT (job_id, trade_id) DO UPDATE SET attempts = EXCLUDED.attempts, error = EXCLUDED.error, " +
+            "failed_at = EXCLUDED.failed_at",
+            nativeQuery = true)
+    int recordFailure(@Param("jobId") long jobId, @Param("tradeId") String tradeId,
+                      @Param("attempts") int attempts, @Param("error") String error);
+    
+    /**
+     * Remove the failures of trades that have since been re-reconciled
+     * @param jobId The job id
+     * @param tradeIds The trade identifiers
+     * @return Number of failures removed
+     */
+    @Modifying
+    @Query("DELETE FROM ReconciliationRerunFailure f WHERE f.jobId = :jobId AND f.tradeId IN (:tradeIds)")
+    int deleteByJobIdAndTradeIds(@Param("jobId") long jobId, @Param("tradeIds") Collection<String> tradeIds);
+}
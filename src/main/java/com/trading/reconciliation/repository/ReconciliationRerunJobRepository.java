@@ -0,0 +1,83 @@
+package com.trading.reconciliation.repository;
+
+import com.trading.reconciliation.model.ReconciliationRerunJob;
+import com.trading.reconciliation.model.RerunJobState;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository interface for ReconciliationRerunJob entity
+ * 
+ * The instance running a job only writes its progress, and API requests only write
+ * the state and rate, each with a targeted update, so neither overwrites the other.
+ */
+@Repository
+public interface ReconciliationRerunJobRepository extends JpaRepository<ReconciliationRerunJob, Long> {
+    
+    /**
+     * Find jobs in a state
+     * @param state The job state
+     * @return The jobs, oldest first
+     */
+    List<ReconciliationRerunJob> findByStateOrderByIdAsc(RerunJobState state);
+    
+    /**
+     * Find the most recent jobs
+     * @return Up to 20 jobs, newest first
+     */
+    List<ReconciliationRerunJob> findTop20ByOrderByIdDesc();
+    
+    /**
+     * Record the progress of a processed chunk
+     * @param id The job id
+     * @param checkpointId Id of the last reconciliation in the chunk
+     * @param processed Trades re-reconciled in the chunk
+     * @param failed Trades that failed in the chunk
+     * @param activeMillis Time spent on the chunk
+     * @param ownerInstance The instance running the job
+     * @param lastError Message of the last failure in the chunk, or null to keep the previous one
+     * @return Number of jobs updated
+     */
+    @Modifying
+    @Query(value = "UPDATE reconciliation_rerun_job SET checkpoint_id = :checkpointId, " +
+            "processed = processed + :processed, failed = failed + :failed, " +
+            "active_millis = active_millis + :activeMillis, owner_instance = :ownerInstance, " +
+            "last_error = COALESCE(:lastError, last_error), updated_at = now() WHERE id = :id",
+            nativeQuery = true)
+    int recordProgress(@Param("id") long id, @Param("checkpointId") long checkpointId,
+                       @Param("processed") long processed, @Param("failed") long failed,
+                       @Param("activeMillis") long activeMillis, @Param("ownerInstance") String ownerInstance,
+                       @Param("lastError") String lastError);
+    
+    /**
+     * Change the state of a job if it is in one of the expected states
+     * @param id The job id
+     * @param expected The states the job may be in
+     * @param state The new state
+     * @param completedAt When the job completed or was cancelled, null otherwise
+     * @return Number of jobs updated, 0 if the job was in another state
+     */
+    @Modifying
+    @Query("UPDATE ReconciliationRerunJob j SET j.state = :state, j.completedAt = :completedAt, " +
+            "j.updatedAt = CURRENT_TIMESTAMP WHERE j.id = :id AND j.state IN (:expected)")
+    int transition(@Param("id") long id, @Param("expected") Collection<RerunJobState> expected,
+                   @Param("state") RerunJobState state, @Param("completedAt") LocalDateTime completedAt);
+    
+    /**
+     * Change the rate of a job
+     * @param id The job id
+     * @param ratePerSecond Trades re-reconciled per second
+     * @return Number of jobs updated
+     */
+    @Modifying
+    @Query("UPDATE ReconciliationRerunJob j SET j.ratePerSecond = :ratePerSecond, j.updatedAt = CURRENT_TIMESTAMP " +
+            "WHERE j.id = :id")
+    int updateRate(@Param("id") long id, @Param("ratePerSecond") int ratePerSecond);
+}
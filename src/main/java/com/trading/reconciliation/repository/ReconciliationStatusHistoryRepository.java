@@ -0,0 +1,60 @@
+package com.trading.reconciliation.repository;
+
+import com.trading.reconciliation.model.ReconciliationStatus;
+import com.trading.reconciliation.model.ReconciliationStatusHistory;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository for the append-only reconciliation_status_history table
+ * 
+ * Transitions are inserted with one JDBC batch per write, so the writer draining the
+ * history buffer costs a single round trip per batch rather than one per transition.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ReconciliationStatusHistoryRepository {
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    /**
+     * Insert status transitions
+     * @param transitions The transitions, in the order they occurred
+     */
+    public void insertAll(Collection<ReconciliationStatusHistory> transitions) {
+        jdbcTemplate.batchUpdate("INSERT INTO reconciliation_status_history (trade_id, previous_status, status, " +
+                        "mismatched_fields, occurred_at) VALUES (?, ?, ?, ?, ?)",
+                transitions, transitions.size(), (ps, transition) -> {
+                    ps.setString(1, transition.getTradeId());
+                    ps.setString(2, transition.getPreviousStatus() == null ? null : transition.getPreviousStatus().name());
+                    ps.setString(3, transition.getStatus().name());
+                    ps.setString(4, transition.getMismatchedFields());
+                    ps.setTimestamp(5, Timestamp.valueOf(transition.getOccurredAt()));
+                });
+    }
+    
+    /**
+     * Find the status transitions of a trade
+     * @param tradeId The trade identifier
+     * @return The transitions, oldest first
+     */
+    public List<ReconciliationStatusHistory> findByTradeId(String tradeId) {
+        return jdbcTemplate.query("SELECT id, trade_id, previous_status, status, mismatched_fields, occurred_at " +
+                        "FROM reconciliation_status_history WHERE trade_id = ? ORDER BY occurred_at, id",
+                (rs, rowNum) -> ReconciliationStatusHistory.builder()
+                        .id(rs.getLong("id"))
+                        .tradeId(rs.getString("trade_id"))
+                        .previousStatus(rs.getString("previous_status") == null
+                                ? null : ReconciliationStatus.valueOf(rs.getString("previous_status")))
+                        .status(ReconciliationStatus.valueOf(rs.getString("status")))
+                        .mismatchedFields(rs.getString("mismatched_fields"))
+                        .occurredAt(rs.getTimestamp("occurred_at").toLocalDateTime())
+                        .build(),
+                tradeId);
+    }
+}
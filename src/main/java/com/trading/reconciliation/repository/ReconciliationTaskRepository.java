@@ -0,0 +1,167 @@
+package com.trading.reconciliation.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Repository for the reconciliation_task table of the Postgres task transport
+ * 
+ * Workers claim tasks in batches with FOR UPDATE SKIP LOCKED, so competing workers on
+ * any number of instances never wait for each other's rows and never claim the same
+ * task while its lease lasts. All times are taken from the database clock.
+ */
+@Repository
+@RequiredArgsConstructor
+public class ReconciliationTaskRepository {
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    /**
+     * Insert tasks, ready to be claimed once the inserting transaction commits
+     * @param tasks The tasks
+     */
+    public void enqueueAll(Collection<NewTask> tasks) {
+        jdbcTemplate.batchUpdate("INSERT INTO reconciliation_task (queue, trade_id, payload, enqueued_at, " +
+                        "available_at, attempts, dead) VALUES (?, ?, ?, clock_timestamp(), clock_timestamp(), 0, false)",
+                tasks, tasks.size(), (ps, task) -> {
+                    ps.setString(1, task.queue());
+                    ps.setString(2, task.tradeId());
+                    ps.setString(3, task.payload());
+                });
+    }
+    
+    /**
+     * Claim the oldest available tasks of a queue under a lease
+     * 
+     * Tasks are available when they are not dead, not waiting for a retry and not leased,
+     * or their lease expired. Every claim counts as an attempt, so a task that keeps
+     * killing its worker comes back with more attempts than allowed, and the worker marks
+     * it dead instead of running it again.
+     * 
+     * @param queue The queue to claim from
+     * @param owner The instance claiming the tasks
+     * @param limit Maximum number of tasks to claim
+     * @param leaseMillis How long the tasks stay claimed
+     * @return The claimed tasks, oldest first
+     */
+    public List<ClaimedTask> claim(String queue, String owner, int limit, long leaseMillis) {
+        return jdbcTemplate.query("WITH claimable AS (SELECT id FROM reconciliation_task " +
+                        "WHERE queue = ? AND NOT dead AND available_at <= clock_timestamp() " +
+                        "AND (lease_expires_at IS NULL OR lease_expires_at < clock_timestamp()) " +
+                        "ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED) " +
+                        "UPDATE reconciliation_task t SET lease_owner = ?, attempts = t.attempts + 1, " +
+                        "lease_expires_at = clock_timestamp() + ? * interval '1 millisecond' " +
+                        "FROM claimable WHERE t.id = claimable.id " +
+                        "RETURNING t.id, t.trade_id, t.payload, t.enqueued_at, t.attempts",
+                (rs, rowNum) -> new ClaimedTask(rs.getLong("id"), rs.getString("trade_id"), rs.getString("payload"),
+                        rs.getTimestamp("enqueued_at").toLocalDateTime(), rs.getInt("attempts")),
+                queue, limit, owner, leaseMillis).stream()
+                .sorted(Comparator.comparingLong(ClaimedTask::id))
+                .toList();
+    }
+    
+    /**
+     * Delete processed tasks still leased by the owner
+     * @param ids The task IDs
+     * @param owner The instance that claimed the tasks
+     * @return Number of tasks deleted
+     */
+    public int complete(Collection<Long> ids, String owner) {
+        int[][] deleted = jdbcTemplate.batchUpdate("DELETE FROM reconciliation_task WHERE id = ? AND lease_owner = ?",
+                ids, ids.size(), (ps, id) -> {
+                    ps.setLong(1, id);
+                    ps.setString(2, owner);
+                });
+        return Arrays.stream(deleted).flatMapToInt(Arrays::stream).map(count -> Math.max(count, 0)).sum();
+    }
+    
+    /**
+     * Release a failed task for another attempt after a delay
+     * @param id The task ID
+     * @param owner The instance that claimed the task
+     * @param delayMillis Delay before the task can be claimed again
+     * @param error Description of the failure
+     * @return 1 if the task was released, 0 if the owner no longer held its lease
+     */
+    public int retryLater(long id, String owner, long delayMillis, String error) {
+        return jdbcTemplate.update("UPDATE reconciliation_task SET lease_owner = NULL, lease_expires_at = NULL, " +
+                        "available_at = clock_timestamp() + ? * interval '1 millisecond', last_error = ? " +
+                        "WHERE id = ? AND lease_owner = ?",
+                delayMillis, truncate(error), id, owner);
+    }
+    
+    /**
+     * Mark a task that exhausted its attempts as dead
+     * @param id The task ID
+     * @param owner The instance that claimed the task
+     * @param error Description of the last failure
+     * @return 1 if the task was marked, 0 if the owner no longer held its lease
+     */
+    public int deadLetter(long id, String owner, String error) {
+        return jdbcTemplate.update("UPDATE reconciliation_task SET dead = true, lease_owner = NULL, " +
+                        "lease_expires_at = NULL, last_error = ? WHERE id = ? AND lease_owner = ?",
+                truncate(error), id, owner);
+    }
+    
+    /**
+     * Give dead tasks a fresh set of attempts
+     * @param limit Maximum number of tasks to replay
+     * @return Number of tasks replayed
+     */
+    public int replayDead(int limit) {
+        return jdbcTemplate.update("UPDATE reconciliation_task SET dead = false, attempts = 0, last_error = NULL, " +
+                "available_at = clock_timestamp() WHERE id IN (SELECT id FROM reconciliation_task WHERE dead " +
+                "ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED)", limit);
+    }
+    
+    /**
+     * Count the tasks of a queue that are not dead, whether waiting, leased or waiting for a retry
+     * @param queue The queue
+     * @return Number of tasks
+     */
+    public long countPending(String queue) {
+        Long count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM reconciliation_task WHERE queue = ? AND NOT dead", Long.class, queue);
+        return count != null ? count : 0;
+    }
+    
+    /**
+     * Count dead tasks
+     * @return Number of tasks waiting for a replay
+     */
+    public long countDead() {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM reconciliation_task WHERE dead", Long.class);
+        return count != null ? count : 0;
+    }
+    
+    private static String truncate(String error) {
+        return error != null && error.length() > 1000 ? error.substring(0, 1000) : error;
+    }
+    
+    /**
+     * Task to insert
+     * @param queue The queue it is published to
+     * @param tradeId The trade identifier
+     * @param payload JSON of the task with the triggering leg, or null
+     */
+    public record NewTask(String queue, String tradeId, String payload) {
+    }
+    
+    /**
+     * Task claimed by a worker
+     * @param id The task ID
+     * @param tradeId The trade identifier
+     * @param payload JSON of the task with the triggering leg, or null
+     * @param enqueuedAt When the task was published
+     * @param attempts Number of claims including this one
+     */
+    public record ClaimedTask(long id, String tradeId, String payload, LocalDateTime enqueuedAt, int attempts) {
+    }
+}
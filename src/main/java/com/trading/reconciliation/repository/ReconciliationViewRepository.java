@@ -0,0 +1,243 @@
+package com.trading.reconciliation.repository;
+
+import com.trading.reconciliation.model.ReconciliationStatus;
+import com.trading.reconciliation.model.ReconciliationView;
+import com.trading.reconciliation.repository.TradeReconciliationRepository.ReconciliationVersion;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository interface for the reconciliation_view read model
+ * 
+ * Rows are only written by copying the current state of trade_reconciliation and both
+ * trade legs, so a refresh is idempotent and can be repeated at any time. Reads return
+ * ReconciliationViewRow projections rather than managed entities.
+ */
+@Repository
+public interface ReconciliationViewRepository extends JpaRepository<ReconciliationView, Long> {
+    
+    String REFRESH_INSERT = "INSERT INTO reconciliation_view (reconciliation_id, trade_id, status, details, " +
+            "business_date, counterparty, instrument, mismatched_fields, system_a_quantity, system_a_price, " +
+            "system_b_quantity, system_b_price, system_a_version, system_b_version, created_at, updated_at, " +
+            "last_reconciliation_attempt) " +
+            "SELECT r.id, r.trade_id, r.status, r.details, r.business_date, r.counterparty, r.instrument, " +
+            "r.mismatched_fields, a.quantity, a.price, b.quantity, b.price, r.system_a_version, r.system_b_version, " +
+            "r.created_at, r.updated_at, " +
+            "r.last_reconciliation_attempt " +
+            "FROM trade_reconciliation r " +
+            "LEFT JOIN trade_data a ON a.id = r.system_a_trade_id " +
+            "LEFT JOIN trade_data b ON b.id = r.system_b_trade_id ";
+    
+    String REFRESH_UPSERT = "ON CONFLICT (reconciliation_id) DO UPDATE SET status = EXCLUDED.status, " +
+            "details = EXCLUDED.details, business_date = EXCLUDED.business_date, " +
+            "counterparty = EXCLUDED.counterparty, instrument = EXCLUDED.instrument, " +
+            "mismatched_fields = EXCLUDED.mismatched_fields, system_a_quantity = EXCLUDED.system_a_quantity, " +
+            "system_a_price = EXCLUDED.system_a_price, system_b_quantity = EXCLUDED.system_b_quantity, " +
+            "system_b_price = EXCLUDED.system_b_price, system_a_version = EXCLUDED.system_a_version, " +
+            "system_b_version = EXCLUDED.system_b_version, updated_at = EXCLUDED.updated_at, " +
+            "last_reconciliation_attempt = EXCLUDED.last_reconciliation_attempt";
+    
+    /**
+     * Copy the current state of the given trades' reconciliations into the view
+     * @param tradeIds The trade identifiers
+     * @return Number of view rows written
+     */
+    @Modifying
+    @Query(value = REFRESH_INSERT + "WHERE r.trade_id IN (:tradeIds) " + REFRESH_UPSERT, nativeQuery = true)
+    int refreshByTradeIds(@Param("tradeIds") Collection<String> tradeIds);
+    
+    /**
+     * Copy reconciliations in an id range whose view row is missing or older than the source
+     * @param fromId Lower bound of the reconciliation id range, exclusive
+     * @param toId Upper bound of the reconciliation id range, inclusive
+     * @return Number of view rows written
+     */
+    @Modifying
+    @Query(value = REFRESH_INSERT +
+            "LEFT JOIN reconciliation_view v ON v.reconciliation_id = r.id " +
+            "WHERE r.id > :fromId AND r.id <= :toId AND (v.reconciliation_id IS NULL OR v.updated_at < r.updated_at) " +
+            REFRESH_UPSERT, nativeQuery = true)
+    int refreshStaleInRange(@Param("fromId") long fromId, @Param("toId") long toId);
+    
+    /**
+     * Remove view rows in an id range whose reconciliation no longer exists
+     * 
+     * A refresh that read a reconciliation just before the retention job moved it can
+     * write the row back after the retention job removed it; those rows are removed here.
+     * 
+     * @param fromId Lower bound of the reconciliation id range, exclusive
+     * @param toId Upper bound of the reconciliation id range, inclusive
+     * @return Number of view rows removed
+     */
+    @Modifying
+    @Query(value = "DELETE FROM reconciliation_view v WHERE v.reconciliation_id > :fromId " +
+            "AND v.reconciliation_id <= :toId " +
+            "AND NOT EXISTS (SELECT 1 FROM trade_reconciliation r WHERE r.id = v.reconciliation_id)",
+            nativeQuery = true)
+    int deleteOrphansInRange(@Param("fromId") long fromId, @Param("toId") long toId);
+    
+    /**
+     * Remove the view rows of reconciliations that are being archived
+     * @param reconciliationIds The ids of the archived reconciliations
+     * @return Number of view rows removed
+     */
+    @Modifying
+    @Query(value = "DELETE FROM reconciliation_view WHERE reconciliation_id IN (:reconciliationIds)", nativeQuery = true)
+    int deleteByReconciliationIds(@Param("reconciliationIds") List<Long> reconciliationIds);
+    
+    /**
+     * Find the view of a trade's reconciliation
+     * @param tradeId The trade identifier
+     * @return An Optional containing the view row if found
+     */
+    Optional<ReconciliationViewRow> findByTradeId(String tradeId);
+    
+    /**
+     * Find the version of a trade's view row without loading it
+     * @param tradeId The trade identifier
+     * @return An Optional containing the reconciliation id and update time if found
+     */
+    @Query("SELECT v.reconciliationId AS id, v.updatedAt AS updatedAt FROM ReconciliationView v " +
+            "WHERE v.tradeId = :tradeId")
+    Optional<ReconciliationVersion> findVersionByTradeId(@Param("tradeId") String tradeId);
+    
+    /**
+     * Find the views of a set of trades' reconciliations
+     * @param tradeIds The trade identifiers
+     * @return The view rows found
+     */
+    List<ReconciliationViewRow> findByTradeIdIn(Collection<String> tradeIds);
+    
+    /**
+     * Find a page of view rows
+     * @param pageable Pagination and sorting information
+     * @return Page of view rows
+     */
+    Page<ReconciliationViewRow> findAllBy(Pageable pageable);
+    
+    /**
+     * Find a page of view rows with the given status
+     * @param status The reconciliation status
+     * @param pageable Pagination and sorting information
+     * @return Page of view rows
+     */
+    Page<ReconciliationViewRow> findByStatus(ReconciliationStatus status, Pageable pageable);
+    
+    /**
+     * Find a page of view rows of the given counterparty
+     * @param counterparty The counterparty
+     * @param pageable Pagination and sorting information
+     * @return Page of view rows
+     */
+    Page<ReconciliationViewRow> findByCounterparty(String counterparty, Pageable pageable);
+    
+    /**
+     * Find a page of view rows of the given counterparty and status
+     * @param counterparty The counterparty
+     * @param status The reconciliation status
+     * @param pageable Pagination and sorting information
+     * @return Page of view rows
+     */
+    Page<ReconciliationViewRow> findByCounterpartyAndStatus(String counterparty, ReconciliationStatus status,
+                                                            Pageable pageable);
+    
+    /**
+     * Get the version of all view rows
+     * @return Number of rows and latest update time
+     */
+    @Query("SELECT COUNT(v) AS total, MAX(v.updatedAt) AS lastUpdatedAt FROM ReconciliationView v")
+    CollectionVersion findCollectionVersion();
+    
+    /**
+     * Get the version of the view rows with the given status
+     * @param status The reconciliation status
+     * @return Number of rows and latest update time
+     */
+    @Query("SELECT COUNT(v) AS total, MAX(v.updatedAt) AS lastUpdatedAt FROM ReconciliationView v " +
+            "WHERE v.status = :status")
+    CollectionVersion findCollectionVersionByStatus(@Param("status") ReconciliationStatus status);
+    
+    /**
+     * Get the version of the view rows of the given counterparty
+     * @param counterparty The counterparty
+     * @return Number of rows and latest update time
+     */
+    @Query("SELECT COUNT(v) AS total, MAX(v.updatedAt) AS lastUpdatedAt FROM ReconciliationView v " +
+            "WHERE v.counterparty = :counterparty")
+    CollectionVersion findCollectionVersionByCounterparty(@Param("counterparty") String counterparty);
+    
+    /**
+     * Get the version of the view rows of the given counterparty and status
+     * @param counterparty The counterparty
+     * @param status The reconciliation status
+     * @return Number of rows and latest update time
+     */
+    @Query("SELECT COUNT(v) AS total, MAX(v.updatedAt) AS lastUpdatedAt FROM ReconciliationView v " +
+            "WHERE v.counterparty = :counterparty AND v.status = :status")
+    CollectionVersion findCollectionVersionByCounterpartyAndStatus(@Param("counterparty") String counterparty,
+                                                                   @Param("status") ReconciliationStatus status);
+    
+    /**
+     * Projection of a view row as returned by the reconciliation API
+     */
+    interface ReconciliationViewRow {
+        
+        String getTradeId();
+        
+        ReconciliationStatus getStatus();
+        
+        String getDetails();
+        
+        LocalDate getBusinessDate();
+        
+        String getCounterparty();
+        
+        String getInstrument();
+        
+        String getMismatchedFields();
+        
+        BigDecimal getSystemAQuantity();
+        
+        BigDecimal getSystemAPrice();
+        
+        BigDecimal getSystemBQuantity();
+        
+        BigDecimal getSystemBPrice();
+        
+        Long getSystemAVersion();
+        
+        Long getSystemBVersion();
+        
+        LocalDateTime getCreatedAt();
+        
+        LocalDateTime getUpdatedAt();
+        
+        LocalDateTime getLastReconciliationAttempt();
+    }
+    
+    /**
+     * Number of view rows matching a filter and their latest update time
+     * 
+     * Rows leaving the filter lower the count, and rows entering it or changing move the
+     * latest update time, so together they change whenever a page sorted by update time
+     * may have changed.
+     */
+    interface CollectionVersion {
+        
+        long getTotal();
+        
+        LocalDateTime getLastUpdatedAt();
+    }
+}
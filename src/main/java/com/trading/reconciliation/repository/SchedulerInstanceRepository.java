@@ -0,0 +1,47 @@
+package com.trading.reconciliation.repository;
+
+import com.trading.reconciliation.model.SchedulerInstance;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Repository interface for SchedulerInstance entity
+ */
+@Repository
+public interface SchedulerInstanceRepository extends JpaRepository<SchedulerInstance, String> {
+    
+    /**
+     * Register an instance or refresh its heartbeat
+     * @param instanceId The instance identifier
+     * @return Number of rows written
+     */
+    @Modifying
+    @Query(value = "INSERT INTO scheduler_instance (instance_id, started_at, heartbeat_at) VALUES (:instanceId, clock_timestamp(), clock_timestamp()) " +
+            "ON CONFLICT (instance_id) DO UPDATE SET heartbeat_at = clock_timestamp()", nativeQuery = true)
+    int heartbeat(@Param("instanceId") String instanceId);
+    
+    /**
+     * Find the instances whose heartbeat is recent enough to consider them alive
+     * @param ttlMillis Maximum heartbeat age
+     * @return Ids of the live instances in ascending order
+     */
+    @Query(value = "SELECT instance_id FROM scheduler_instance " +
+            "WHERE heartbeat_at > clock_timestamp() - :ttlMillis * interval '1 millisecond' ORDER BY instance_id",
+            nativeQuery = true)
+    List<String> findLiveInstanceIds(@Param("ttlMillis") long ttlMillis);
+    
+    /**
+     * Remove instances that stopped sending heartbeats
+     * @param ttlMillis Heartbeat age after which an instance is removed
+     * @return Number of instances removed
+     */
+    @Modifying
+    @Query(value = "DELETE FROM scheduler_instance WHERE heartbeat_at < clock_timestamp() - :ttlMillis * interval '1 millisecond'",
+            nativeQuery = true)
+    int deleteExpired(@Param("ttlMillis") long ttlMillis);
+}
@@ -0,0 +1,51 @@
+package com.trading.reconciliation.repository;
+
+import com.trading.reconciliation.model.SchedulerLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Repository interface for SchedulerLease entity
+ */
+@Repository
+public interface SchedulerLeaseRepository extends JpaRepository<SchedulerLease, String> {
+    
+    /**
+     * Acquire or renew a lease if it is free, expired or already held by the owner
+     * @param name The lease name
+     * @param owner The instance acquiring the lease
+     * @param ttlMillis How long the lease is held unless renewed
+     * @return 1 if the lease is now held by the owner, 0 if another instance holds it
+     */
+    @Modifying
+    @Query(value = "INSERT INTO scheduler_lease (name, owner, acquired_at, expires_at) " +
+            "VALUES (:name, :owner, clock_timestamp(), clock_timestamp() + :ttlMillis * interval '1 millisecond') " +
+            "ON CONFLICT (name) DO UPDATE SET owner = EXCLUDED.owner, expires_at = EXCLUDED.expires_at, " +
+            "acquired_at = CASE WHEN scheduler_lease.owner = EXCLUDED.owner " +
+            "THEN scheduler_lease.acquired_at ELSE EXCLUDED.acquired_at END " +
+            "WHERE scheduler_lease.owner = EXCLUDED.owner OR scheduler_lease.expires_at < clock_timestamp()",
+            nativeQuery = true)
+    int tryAcquire(@Param("name") String name, @Param("owner") String owner, @Param("ttlMillis") long ttlMillis);
+    
+    /**
+     * Release a lease held by the owner
+     * @param name The lease name
+     * @param owner The instance holding the lease
+     * @return Number of leases released
+     */
+    @Modifying
+    @Query(value = "DELETE FROM scheduler_lease WHERE name = :name AND owner = :owner", nativeQuery = true)
+    int release(@Param("name") String name, @Param("owner") String owner);
+    
+    /**
+     * Release all leases held by the owner
+     * @param owner The instance holding the leases
+     * @return Number of leases released
+     */
+    @Modifying
+    @Query(value = "DELETE FROM scheduler_lease WHERE owner = :owner", nativeQuery = true)
+    int releaseAll(@Param("owner") String owner);
+}
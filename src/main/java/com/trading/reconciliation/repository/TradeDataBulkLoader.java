@@ -0,0 +1,112 @@
+package com.trading.reconciliation.repository;
+
+import com.trading.reconciliation.ingest.ParsedTradeRow;
+import lombok.RequiredArgsConstructor;
+import org.postgresql.PGConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.StringReader;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Bulk loader for trade data using the PostgreSQL COPY protocol
+ * 
+ * Rows are streamed with COPY into a session-local staging table, then appended
+ * to trade_data with two set-based statements: the first claims the next version
+ * of each leg in trade_leg_head, the second inserts the new versions and points
+ * the heads at them. Existing rows are never updated. If the same trade appears
+ * more than once in a batch, its last row wins; a row repeating the leg's latest
+ * version, as when a file is loaded twice, is skipped.
+ * 
+ * Must be called within a transaction, since the staging table is emptied on commit.
+ */
+@Repository
+@RequiredArgsConstructor
+public class TradeDataBulkLoader {
+    
+    private static final String CREATE_STAGING_TABLE = "CREATE TEMP TABLE IF NOT EXISTS trade_data_staging (" +
+            "seq BIGINT, trade_id VARCHAR(255), instrument VARCHAR(255), quantity NUMERIC, price NUMERIC, " +
+            "trade_date TIMESTAMP, counterparty VARCHAR(255), raw_data TEXT) ON COMMIT DELETE ROWS";
+    
+    private static final String COPY_STAGING = "COPY trade_data_staging " +
+            "(seq, trade_id, instrument, quantity, price, trade_date, counterparty, raw_data) FROM STDIN WITH (FORMAT csv)";
+    
+    /**
+     * The last staged row of each trade, unless it repeats the leg's latest version
+     */
+    private static final String LATEST_STAGED = "WITH latest AS (" +
+            "SELECT DISTINCT ON (s.trade_id) s.* FROM trade_data_staging s " +
+            "WHERE NOT EXISTS (SELECT 1 FROM trade_leg_head h JOIN trade_data d ON d.id = h.trade_data_id " +
+            "WHERE h.trade_id = s.trade_id AND h.source_system = ? AND d.raw_data = s.raw_data) " +
+            "ORDER BY s.trade_id, s.seq DESC) ";
+    
+    private static final String CLAIM_VERSIONS = LATEST_STAGED +
+            "INSERT INTO trade_leg_head (trade_id, source_system, version) " +
+            "SELECT l.trade_id, ?, (SELECT COALESCE(MAX(d.version), COUNT(*)) + 1 FROM trade_data d " +
+            "WHERE d.trade_id = l.trade_id AND d.source_system = ?) FROM latest l " +
+            "ON CONFLICT (trade_id, source_system) DO UPDATE SET version = trade_leg_head.version + 1";
+    
+    private static final String INSERT_VERSIONS = LATEST_STAGED + ", " +
+            "inserted AS (" +
+            "INSERT INTO trade_data (trade_id, instrument, quantity, price, trade_date, counterparty, source_system, " +
+            "received_at, raw_data, version) " +
+            "SELECT l.trade_id, l.instrument, l.quantity, l.price, l.trade_date, l.counterparty, h.source_system, " +
+            "now(), l.raw_data, h.version FROM latest l " +
+            "JOIN trade_leg_head h ON h.trade_id = l.trade_id AND h.source_system = ? " +
+            "RETURNING id, trade_id) " +
+            "UPDATE trade_leg_head h SET trade_data_id = i.id FROM inserted i " +
+            "WHERE h.trade_id = i.trade_id AND h.source_system = ?";
+    
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    
+    /**
+     * Load a batch of parsed rows into trade_data
+     * @param sourceSystem The source system the rows belong to
+     * @param rows The rows in file order
+     * @return The distinct tradeIds of the loaded rows
+     */
+    public List<String> load(String sourceSystem, List<ParsedTradeRow> rows) {
+        jdbcTemplate.execute(CREATE_STAGING_TABLE);
+        copyIntoStaging(rows);
+        // Heads still point at the previous versions here, so both statements see the same latest rows
+        jdbcTemplate.update(CLAIM_VERSIONS, sourceSystem, sourceSystem, sourceSystem);
+        jdbcTemplate.update(INSERT_VERSIONS, sourceSystem, sourceSystem, sourceSystem);
+        return jdbcTemplate.queryForList("SELECT DISTINCT trade_id FROM trade_data_staging", String.class);
+    }
+    
+    private void copyIntoStaging(List<ParsedTradeRow> rows) {
+        StringBuilder csv = new StringBuilder(rows.size() * 160);
+        long seq = 0;
+        for (ParsedTradeRow row : rows) {
+            csv.append(seq++).append(',');
+            appendQuoted(csv, row.trade().getTradeId()).append(',');
+            appendQuoted(csv, row.trade().getInstrument()).append(',');
+            csv.append(row.trade().getQuantity().toPlainString()).append(',');
+            csv.append(row.trade().getPrice().toPlainString()).append(',');
+            csv.append(row.trade().getTradeDate()).append(',');
+            appendQuoted(csv, row.trade().getCounterparty()).append(',');
+            appendQuoted(csv, row.rawLine()).append('\n');
+        }
+        
+        // The connection bound to the surrounding transaction, which owns the staging table
+        Connection connection = DataSourceUtils.getConnection(dataSource);
+        try {
+            connection.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_STAGING, new StringReader(csv.toString()));
+        } catch (SQLException | IOException e) {
+            throw new IllegalStateException("Failed to copy " + rows.size() + " trades into staging", e);
+        } finally {
+            DataSourceUtils.releaseConnection(connection, dataSource);
+        }
+    }
+    
+    private static StringBuilder appendQuoted(StringBuilder csv, String value) {
+        return csv.append('"').append(value.replace("\"", "\"\"")).append('"');
+    }
+}
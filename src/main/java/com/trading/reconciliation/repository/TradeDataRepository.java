@@ -2,6 +2,8 @@
 
 import com.trading.reconciliation.model.TradeData;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -9,29 +11,38 @@
 
 /**
  * Repository interface for TradeData entity
+ * 
+ * trade_data is append-only: every amendment of a leg is a new row with the next
+ * version, and trade_leg_head points at the latest one.
  */
 @Repository
 public interface TradeDataRepository extends JpaRepository<TradeData, Long> {
     
     /**
-     * Find trade data by tradeId and sourceSystem
+     * Find the latest version of a trade leg
+     * 
+     * Reads the leg's head and the row it points at. Legs stored before heads existed
+     * have a single row and no head; they are found by the second branch, which only
+     * runs when the head is missing.
+     * 
      * @param tradeId The trade identifier
      * @param sourceSystem The source system (e.g., "System A", "System B")
-     * @return An Optional containing the trade data if found
+     * @return An Optional containing the latest version of the leg if found
      */
-    Optional<TradeData> findByTradeIdAndSourceSystem(String tradeId, String sourceSystem);
+    @Query(value = "SELECT d.* FROM trade_leg_head h JOIN trade_data d ON d.id = h.trade_data_id " +
+            "WHERE h.trade_id = :tradeId AND h.source_system = :sourceSystem " +
+            "UNION ALL " +
+            "SELECT d.* FROM trade_data d WHERE d.trade_id = :tradeId AND d.source_system = :sourceSystem " +
+            "AND NOT EXISTS (SELECT 1 FROM trade_leg_head h " +
+            "WHERE h.trade_id = :tradeId AND h.source_system = :sourceSystem) " +
+            "LIMIT 1",
+            nativeQuery = true)
+    Optional<TradeData> findLatestLeg(@Param("tradeId") String tradeId, @Param("sourceSystem") String sourceSystem);
     
     /**
-     * Find all trade data by tradeId
+     * Find every stored version of a trade's legs
      * @param tradeId The trade identifier
-     * @return List of trade data with the specified tradeId
+     * @return All versions of both legs, by source system and version
      */
-    List<TradeData> findByTradeId(String tradeId);
-    
-    /**
-     * Find all trade data by sourceSystem
-     * @param sourceSystem The source system (e.g., "System A", "System B")
-     * @return List of trade data from the specified source system
-     */
-    List<TradeData> findBySourceSystem(String sourceSystem);
+    List<TradeData> findByTradeIdOrderBySourceSystemAscVersionAsc(String tradeId);
 } 
\ No newline at end of file
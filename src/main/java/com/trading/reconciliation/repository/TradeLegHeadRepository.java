@@ -0,0 +1,61 @@
+package com.trading.reconciliation.repository;
+
+import com.trading.reconciliation.model.TradeLegHead;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Repository interface for TradeLegHead entity
+ */
+@Repository
+public interface TradeLegHeadRepository extends JpaRepository<TradeLegHead, Long> {
+    
+    /**
+     * Claim the next version of a trade leg
+     * 
+     * Creates the leg's head if needed, starting after any versions stored before heads
+     * existed, and locks it until the transaction ends, so concurrent amendments of the
+     * same leg get consecutive versions.
+     * 
+     * @param tradeId The trade identifier
+     * @param sourceSystem The source system
+     * @return The version to store the amendment under
+     */
+    @Query(value = "INSERT INTO trade_leg_head (trade_id, source_system, version) " +
+            "SELECT :tradeId, :sourceSystem, COALESCE(MAX(version), COUNT(*)) + 1 FROM trade_data " +
+            "WHERE trade_id = :tradeId AND source_system = :sourceSystem " +
+            "ON CONFLICT (trade_id, source_system) DO UPDATE SET version = trade_leg_head.version + 1 " +
+            "RETURNING version",
+            nativeQuery = true)
+    long claimNextVersion(@Param("tradeId") String tradeId, @Param("sourceSystem") String sourceSystem);
+    
+    /**
+     * Point a leg's head at the row holding its latest version
+     * @param tradeId The trade identifier
+     * @param sourceSystem The source system
+     * @param tradeDataId The id of the trade_data row
+     * @return Number of heads updated
+     */
+    @Modifying
+    @Query(value = "UPDATE trade_leg_head SET trade_data_id = :tradeDataId " +
+            "WHERE trade_id = :tradeId AND source_system = :sourceSystem",
+            nativeQuery = true)
+    int pointTo(@Param("tradeId") String tradeId, @Param("sourceSystem") String sourceSystem,
+                @Param("tradeDataId") Long tradeDataId);
+    
+    /**
+     * Remove the heads of the legs belonging to the given reconciliations, before the legs are archived
+     * @param reconciliationIds The ids of the reconciliations being archived
+     * @return Number of heads removed
+     */
+    @Modifying
+    @Query(value = "DELETE FROM trade_leg_head h USING trade_reconciliation r " +
+            "WHERE r.id IN (:reconciliationIds) AND h.trade_id = r.trade_id",
+            nativeQuery = true)
+    int deleteHeadsOfReconciliations(@Param("reconciliationIds") List<Long> reconciliationIds);
+}
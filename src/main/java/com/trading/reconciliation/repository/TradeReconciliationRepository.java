@@ -2,14 +2,19 @@
 
 import com.trading.reconciliation.model.ReconciliationStatus;
 import com.trading.reconciliation.model.TradeReconciliation;
+import com.trading.reconciliation.storage.TradePartitions;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,6 +24,9 @@
 @Repository
 public interface TradeReconciliationRepository extends JpaRepository<TradeReconciliation, Long> {
     
+    String EXPIRED_COLUMNS = "RETURNING trade_id AS \"tradeId\", business_date AS \"businessDate\", " +
+            "counterparty AS \"counterparty\", instrument AS \"instrument\"";
+    
     /**
      * Find reconciliation by tradeId
      * @param tradeId The trade identifier
@@ -26,6 +34,62 @@ public interface TradeReconciliationRepository extends JpaRepository<TradeReconc
      */
     Optional<TradeReconciliation> findByTradeId(String tradeId);
     
+    /**
+     * Find reconciliation by tradeId and lock its row until the transaction ends
+     * @param tradeId The trade identifier
+     * @return An Optional containing the reconciliation if found
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM TradeReconciliation r WHERE r.tradeId = :tradeId")
+    Optional<TradeReconciliation> findForUpdateByTradeId(@Param("tradeId") String tradeId);
+    
+    /**
+     * Find reconciliations for a set of trades
+     * @param tradeIds The trade identifiers
+     * @return The reconciliations found
+     */
+    List<TradeReconciliation> findByTradeIdIn(Collection<String> tradeIds);
+    
+    /**
+     * Find the version of a trade's reconciliation without loading it
+     * @param tradeId The trade identifier
+     * @return An Optional containing the id and update time if found
+     */
+    @Query("SELECT r.id AS id, r.updatedAt AS updatedAt FROM TradeReconciliation r WHERE r.tradeId = :tradeId")
+    Optional<ReconciliationVersion> findVersionByTradeId(@Param("tradeId") String tradeId);
+    
+    /**
+     * Find the next reconciliations after a keyset position, for re-running reconciliation
+     * @param afterId Only reconciliations with a larger id are returned
+     * @param from First business date, inclusive
+     * @param to Last business date, inclusive
+     * @param statuses The statuses to include
+     * @param limit Maximum number of reconciliations returned
+     * @return Ids and tradeIds of the reconciliations, in id order
+     */
+    @Query(value = "SELECT id AS \"id\", trade_id AS \"tradeId\" FROM trade_reconciliation " +
+            "WHERE id > :afterId AND business_date BETWEEN :from AND :to AND status IN (:statuses) " +
+            "ORDER BY id LIMIT :limit", nativeQuery = true)
+    List<ReconciliationKey> findKeysAfter(@Param("afterId") long afterId, @Param("from") LocalDate from,
+                                          @Param("to") LocalDate to, @Param("statuses") Collection<String> statuses,
+                                          @Param("limit") int limit);
+    
+    /**
+     * Count reconciliations by business date range and status
+     * @param from First business date, inclusive
+     * @param to Last business date, inclusive
+     * @param statuses The statuses to include
+     * @return Number of reconciliations
+     */
+    long countByBusinessDateBetweenAndStatusIn(LocalDate from, LocalDate to, Collection<ReconciliationStatus> statuses);
+    
+    /**
+     * Find the largest reconciliation id
+     * @return The largest id, or 0 if there are no reconciliations
+     */
+    @Query("SELECT COALESCE(MAX(r.id), 0) FROM TradeReconciliation r")
+    long findMaxId();
+    
     /**
      * Find reconciliations by status
      * @param status The reconciliation status
@@ -42,13 +106,126 @@ public interface TradeReconciliationRepository extends JpaRepository<TradeReconc
     List<TradeReconciliation> findByStatus(ReconciliationStatus status);
     
     /**
-     * Find pending reconciliations that have timed out
-     * @param status The PENDING status
-     * @param timeoutThreshold The time threshold for timeout
-     * @return List of pending reconciliations that have timed out
+     * Find a page of pending reconciliations in one tradeId hash partition, in id order after the given id
+     * @param afterId Only reconciliations with a larger id are returned
+     * @param partition Index of the partition, see TradePartitions
+     * @param partitions Number of partitions
+     * @param limit Maximum number of reconciliations returned
+     * @return The id, tradeId and creation time of the matching reconciliations
+     */
+    @Query(value = "SELECT id AS \"id\", trade_id AS \"tradeId\", created_at AS \"createdAt\" " +
+            "FROM trade_reconciliation WHERE status = 'PENDING' AND id > :afterId " +
+            "AND MOD(MOD(" + TradePartitions.SQL_HASH + ", :partitions) + :partitions, :partitions) = :partition " +
+            "ORDER BY id LIMIT :limit",
+            nativeQuery = true)
+    List<PendingReconciliation> findPendingInPartitionAfter(
+            @Param("afterId") long afterId,
+            @Param("partition") int partition,
+            @Param("partitions") int partitions,
+            @Param("limit") int limit);
+    
+    /**
+     * Mark the given trades' reconciliations as timed out if they are still pending and past the threshold
+     * @param tradeIds The trade identifiers
+     * @param timeoutThreshold Only reconciliations created before this time are expired
+     * @param details The details to store
+     * @param now The update time
+     * @return The reconciliations expired
+     */
+    @Query(value = "UPDATE trade_reconciliation SET status = 'RECONCILIATION_TIMEOUT', details = :details, " +
+            "last_reconciliation_attempt = :now, updated_at = :now " +
+            "WHERE trade_id IN (:tradeIds) AND status = 'PENDING' AND created_at < :timeoutThreshold " +
+            EXPIRED_COLUMNS,
+            nativeQuery = true)
+    List<ExpiredReconciliation> expirePendingByTradeIds(
+            @Param("tradeIds") List<String> tradeIds,
+            @Param("timeoutThreshold") LocalDateTime timeoutThreshold,
+            @Param("details") String details,
+            @Param("now") LocalDateTime now);
+    
+    /**
+     * Mark a chunk of pending reconciliations past the threshold as timed out
+     * 
+     * Rows locked by concurrent reconciliation work are skipped rather than waited for.
+     * 
+     * @param timeoutThreshold Only reconciliations created before this time are expired
+     * @param details The details to store
+     * @param now The update time
+     * @param limit Maximum number of reconciliations to expire
+     * @return The reconciliations expired
+     */
+    @Query(value = "UPDATE trade_reconciliation SET status = 'RECONCILIATION_TIMEOUT', details = :details, " +
+            "last_reconciliation_attempt = :now, updated_at = :now " +
+            "WHERE id IN (SELECT id FROM trade_reconciliation WHERE status = 'PENDING' " +
+            "AND created_at < :timeoutThreshold LIMIT :limit FOR UPDATE SKIP LOCKED) " +
+            EXPIRED_COLUMNS,
+            nativeQuery = true)
+    List<ExpiredReconciliation> expireTimedOutPending(
+            @Param("timeoutThreshold") LocalDateTime timeoutThreshold,
+            @Param("details") String details,
+            @Param("now") LocalDateTime now,
+            @Param("limit") int limit);
+    
+    /**
+     * Lock a chunk of reconciliations that are eligible for archival
+     * 
+     * Rows locked by concurrent reconciliation work are skipped rather than waited for.
+     * 
+     * @param statuses The terminal statuses to archive
+     * @param cutoff Only reconciliations last updated before this time are returned
+     * @param limit Maximum number of ids to lock
+     * @return Ids of the locked reconciliations
+     */
+    @Query(value = "SELECT id FROM trade_reconciliation WHERE status IN (:statuses) AND updated_at < :cutoff " +
+            "LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<Long> lockArchivableIds(
+            @Param("statuses") List<String> statuses,
+            @Param("cutoff") LocalDateTime cutoff,
+            @Param("limit") int limit);
+    
+    /**
+     * Projection of a pending reconciliation used to schedule its timeout
+     */
+    interface PendingReconciliation {
+        
+        Long getId();
+        
+        String getTradeId();
+        
+        LocalDateTime getCreatedAt();
+    }
+    
+    /**
+     * Projection of a reconciliation that was just marked as timed out
+     */
+    interface ExpiredReconciliation {
+        
+        String getTradeId();
+        
+        LocalDate getBusinessDate();
+        
+        String getCounterparty();
+        
+        String getInstrument();
+    }
+    
+    /**
+     * Id and tradeId of a reconciliation
+     */
+    interface ReconciliationKey {
+        
+        Long getId();
+        
+        String getTradeId();
+    }
+    
+    /**
+     * Id and update time of a reconciliation, which together identify the state it is in
      */
-    @Query("SELECT r FROM TradeReconciliation r WHERE r.status = :status AND r.createdAt < :timeoutThreshold")
-    List<TradeReconciliation> findTimedOutReconciliations(
-            @Param("status") ReconciliationStatus status,
-            @Param("timeoutThreshold") LocalDateTime timeoutThreshold);
-} 
\ No newline at end of file
+    interface ReconciliationVersion {
+        
+        Long getId();
+        
+        LocalDateTime getUpdatedAt();
+    }
+}
@@ -0,0 +1,15 @@
+package com.trading.reconciliation.service;
+
+/**
+ * Service interface for admission control on trade ingestion
+ */
+public interface AdmissionControlService {
+
+    /**
+     * Check whether a trade from the given source system may be accepted
+     * @param sourceSystem The source system (e.g., "System A", "System B")
+     * @param desk The desk or book of the trade, or null; trades of a desk lane are checked against the lane's backlog
+     * @throws com.trading.reconciliation.exception.AdmissionRejectedException if the service or the desk lane is overloaded
+     */
+    void checkAdmission(String sourceSystem, String desk);
+}
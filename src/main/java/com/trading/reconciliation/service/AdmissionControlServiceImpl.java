@@ -0,0 +1,213 @@
+package com.trading.reconciliation.service;
+
+import com.trading.reconciliation.exception.AdmissionRejectedException;
+import com.trading.reconciliation.config.DeskLaneProperties;
+import com.trading.reconciliation.messaging.DeskLanes;
+import com.trading.reconciliation.messaging.ReconciliationTaskTransport;
+import com.trading.reconciliation.messaging.TaskLagTracker;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Implementation of AdmissionControlService
+ *
+ * Admission decisions are driven by three signals sampled in the background:
+ *
+ * 1. Depth of the reconciliation tasks queue, read from the task transport
+ * 2. Connection acquisition wait time of the primary database pool
+ * 3. Listener lag, i.e. how long tasks wait in the queue before being consumed
+ *
+ * Each source system has its own thresholds, so a less critical feed can be shed
+ * earlier than a more critical one. Submissions are checked against the latest
+ * sample only, which keeps the check itself free of I/O on the ingest path.
+ *
+ * Trades of a desk with its own lane are checked against the depth and listener lag
+ * of the lane's queue and the lane's thresholds instead, so a desk flooding its lane
+ * is shed without rejecting other desks. The pool wait is shared by all lanes.
+ */
+@Service
+@Slf4j
+public class AdmissionControlServiceImpl implements AdmissionControlService {
+
+    private static final String SYSTEM_A = "System A";
+    private static final String SYSTEM_B = "System B";
+
+    private final ReconciliationTaskTransport taskTransport;
+    private final TaskLagTracker taskLagTracker;
+    private final DeskLanes deskLanes;
+    private final MeterRegistry meterRegistry;
+    private final String reconciliationTasksQueue;
+    private final boolean admissionEnabled;
+    private final long retryAfterSeconds;
+    private final long sampleIntervalMillis;
+    private final Map<String, SourceLimits> limitsBySource;
+    private final Map<String, LaneLoad> loadByDeskLane = new LinkedHashMap<>();
+
+    private volatile long queueDepth = 0;
+    private volatile long poolWaitMillis = 0;
+    private volatile long listenerLagMillis = 0;
+
+    public AdmissionControlServiceImpl(
+            ReconciliationTaskTransport taskTransport,
+            TaskLagTracker taskLagTracker,
+            DeskLanes deskLanes,
+            MeterRegistry meterRegistry,
+            @Value("${reconciliation.queue.reconciliation-tasks}") String reconciliationTasksQueue,
+            @Value("${reconciliation.admission.enabled}") boolean admissionEnabled,
+            @Value("${reconciliation.admission.retry-after-seconds}") long retryAfterSeconds,
+            @Value("${reconciliation.admission.sample-interval-ms}") long sampleIntervalMillis,
+            @Value("${reconciliation.admission.system-a.max-queue-depth}") long systemAMaxQueueDepth,
+            @Value("${reconciliation.admission.system-a.max-pool-wait-ms}") long systemAMaxPoolWaitMillis,
+            @Value("${reconciliation.admission.system-a.max-listener-lag-ms}") long systemAMaxListenerLagMillis,
+            @Value("${reconciliation.admission.system-b.max-queue-depth}") long systemBMaxQueueDepth,
+            @Value("${reconciliation.admission.system-b.max-pool-wait-ms}") long systemBMaxPoolWaitMillis,
+            @Value("${reconciliation.admission.system-b.max-listener-lag-ms}") long systemBMaxListenerLagMillis) {
+        this.taskTransport = taskTransport;
+        this.taskLagTracker = taskLagTracker;
+        this.deskLanes = deskLanes;
+        this.meterRegistry = meterRegistry;
+        this.reconciliationTasksQueue = reconciliationTasksQueue;
+        this.admissionEnabled = admissionEnabled;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.sampleIntervalMillis = sampleIntervalMillis;
+        this.limitsBySource = Map.of(
+                SYSTEM_A, new SourceLimits(systemAMaxQueueDepth, systemAMaxPoolWaitMillis, systemAMaxListenerLagMillis),
+                SYSTEM_B, new SourceLimits(systemBMaxQueueDepth, systemBMaxPoolWaitMillis, systemBMaxListenerLagMillis));
+
+        Gauge.builder("reconciliation.admission.queue.depth", this, service -> service.queueDepth)
+                .description("Sampled depth of the reconciliation tasks queue")
+                .register(meterRegistry);
+        Gauge.builder("reconciliation.admission.pool.wait", this, service -> service.poolWaitMillis)
+                .description("Sampled maximum connection acquisition wait of the primary pool")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        Gauge.builder("reconciliation.admission.listener.lag", this, service -> service.listenerLagMillis)
+                .description("Smoothed time tasks wait in the queue before being consumed")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+
+        for (String lane : deskLanes.deskLaneNames()) {
+            LaneLoad laneLoad = new LaneLoad(deskLanes.settings(lane));
+            Gauge.builder("reconciliation.admission.lane.queue.depth", laneLoad, load -> load.queueDepth)
+                    .description("Sampled depth of a desk lane's tasks queue")
+                    .tag("lane", lane)
+                    .register(meterRegistry);
+            Gauge.builder("reconciliation.admission.lane.listener.lag", laneLoad, load -> load.listenerLagMillis)
+                    .description("Smoothed time a desk lane's tasks wait in its queue before being consumed")
+                    .baseUnit("milliseconds")
+                    .tag("lane", lane)
+                    .register(meterRegistry);
+            loadByDeskLane.put(lane, laneLoad);
+        }
+    }
+
+    @Override
+    public void checkAdmission(String sourceSystem, String desk) {
+        if (!admissionEnabled) {
+            return;
+        }
+
+        SourceLimits limits = limitsBySource.get(sourceSystem);
+        if (limits == null) {
+            return;
+        }
+
+        String lane = deskLanes.laneOf(desk);
+        LaneLoad laneLoad = loadByDeskLane.get(lane);
+        long laneQueueDepth = laneLoad != null ? laneLoad.queueDepth : queueDepth;
+        long laneListenerLagMillis = laneLoad != null ? laneLoad.listenerLagMillis : listenerLagMillis;
+        long maxQueueDepth = laneLoad != null ? laneLoad.settings.getMaxQueueDepth() : limits.maxQueueDepth();
+        long maxListenerLagMillis = laneLoad != null
+                ? laneLoad.settings.getMaxListenerLagMs()
+                : limits.maxListenerLagMillis();
+
+        String reason = null;
+        if (laneQueueDepth > maxQueueDepth) {
+            reason = "queue-depth";
+        } else if (poolWaitMillis > limits.maxPoolWaitMillis()) {
+            reason = "pool-wait";
+        } else if (laneListenerLagMillis > maxListenerLagMillis) {
+            reason = "listener-lag";
+        }
+
+        if (reason != null) {
+            Counter.builder("reconciliation.admission.rejected")
+                    .description("Trade submissions rejected by admission control")
+                    .tag("source", sourceSystem)
+                    .tag("lane", lane)
+                    .tag("reason", reason)
+                    .register(meterRegistry)
+                    .increment();
+            log.warn("Rejecting trade from {} in lane {} due to {} (queue depth: {}, pool wait: {}ms, listener lag: {}ms)",
+                    sourceSystem, lane, reason, laneQueueDepth, poolWaitMillis, laneListenerLagMillis);
+            throw new AdmissionRejectedException(
+                    "Service is overloaded (" + reason + "), retry later", retryAfterSeconds);
+        }
+    }
+
+    /**
+     * Sample the overload signals used for admission decisions
+     */
+    @Scheduled(fixedDelayString = "${reconciliation.admission.sample-interval-ms}")
+    public void sampleLoad() {
+        try {
+            Long depth = taskTransport.queueDepth(reconciliationTasksQueue);
+            if (depth != null) {
+                queueDepth = depth;
+            }
+        } catch (Exception e) {
+            // Keep the last known depth; ingestion itself will fail if the transport is unavailable
+            log.debug("Could not sample depth of queue {}: {}", reconciliationTasksQueue, e.getMessage());
+        }
+
+        Timer acquireTimer = meterRegistry.find("hikaricp.connections.acquire")
+                .tag("pool", "primary-pool")
+                .timer();
+        poolWaitMillis = acquireTimer != null ? (long) acquireTimer.max(TimeUnit.MILLISECONDS) : 0;
+
+        // Lag readings older than a few sampling periods no longer describe the listener
+        listenerLagMillis = taskLagTracker.getListenerLagMillis(sampleIntervalMillis * 10, queueDepth == 0);
+
+        loadByDeskLane.forEach((lane, laneLoad) -> {
+            String laneQueue = deskLanes.tasksQueue(lane);
+            try {
+                Long depth = taskTransport.queueDepth(laneQueue);
+                if (depth != null) {
+                    laneLoad.queueDepth = depth;
+                }
+            } catch (Exception e) {
+                log.debug("Could not sample depth of queue {}: {}", laneQueue, e.getMessage());
+            }
+            laneLoad.listenerLagMillis = taskLagTracker.getListenerLagMillis(lane, sampleIntervalMillis * 10,
+                    laneLoad.queueDepth == 0);
+        });
+    }
+
+    private record SourceLimits(long maxQueueDepth, long maxPoolWaitMillis, long maxListenerLagMillis) {
+    }
+
+    /**
+     * Latest load sample of a desk lane
+     */
+    private static class LaneLoad {
+
+        private final DeskLaneProperties.Lane settings;
+
+        private volatile long queueDepth = 0;
+        private volatile long listenerLagMillis = 0;
+
+        LaneLoad(DeskLaneProperties.Lane settings) {
+            this.settings = settings;
+        }
+    }
+}
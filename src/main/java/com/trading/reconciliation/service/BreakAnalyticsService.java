@@ -0,0 +1,31 @@
+package com.trading.reconciliation.service;
+
+import com.trading.reconciliation.dto.BreakAnalyticsDto;
+import com.trading.reconciliation.model.AnalyticsDimension;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Service interface for break analytics rolled up from reconciliation outcomes
+ */
+public interface BreakAnalyticsService {
+
+    /**
+     * Get break counts, top mismatched fields and match lag percentiles over a date range
+     * @param groupBy The dimension to group by
+     * @param from First business date, inclusive
+     * @param to Last business date, inclusive
+     * @param counterparty Optional counterparty filter
+     * @param instrument Optional instrument filter
+     * @return Analytics per group, ordered by number of breaks descending
+     */
+    List<BreakAnalyticsDto> getBreakAnalytics(AnalyticsDimension groupBy, LocalDate from, LocalDate to,
+                                              String counterparty, String instrument);
+
+    /**
+     * Write the outcome deltas collected since the last flush to the rollup tables
+     * @return Number of rollup rows changed
+     */
+    int flush();
+}
@@ -0,0 +1,325 @@
+package com.trading.reconciliation.service;
+
+import com.trading.reconciliation.dto.BreakAnalyticsDto;
+import com.trading.reconciliation.dto.BreakAnalyticsDto.FieldMismatchCount;
+import com.trading.reconciliation.model.AnalyticsDimension;
+import com.trading.reconciliation.model.BreakFieldRollup;
+import com.trading.reconciliation.model.BreakRollup;
+import com.trading.reconciliation.model.BreakRollupKey;
+import com.trading.reconciliation.model.MatchLagRollup;
+import com.trading.reconciliation.model.ReconciliationStatus;
+import com.trading.reconciliation.repository.BreakAnalyticsRepository;
+import com.trading.reconciliation.repository.BreakAnalyticsRepository.GroupedBreakCounts;
+import com.trading.reconciliation.repository.BreakAnalyticsRepository.GroupedFieldCount;
+import com.trading.reconciliation.repository.BreakAnalyticsRepository.GroupedLagBucket;
+import com.trading.reconciliation.service.ReconciliationOutcomeEvent.Outcome;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+/**
+ * Implementation of BreakAnalyticsService
+ * 
+ * Every committed reconciliation outcome is turned into deltas against the rollup
+ * tables: the previously recorded outcome of the trade is subtracted and the new one
+ * added, so a trade that is amended from MISMATCHED to MATCHED moves between the
+ * counts instead of being counted twice. Deltas are collected in memory and written
+ * in one batch per table on every flush, so a burst of outcomes for the same
+ * counterparty, instrument and day costs a single upsert.
+ * 
+ * MATCHED, MISMATCHED and ERROR outcomes are counted. Timeouts are expired with
+ * set-based updates and are not broken down here. Deltas collected since the last
+ * flush are lost if the instance is killed without a graceful shutdown.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class BreakAnalyticsServiceImpl implements BreakAnalyticsService {
+    
+    private final BreakAnalyticsRepository analyticsRepository;
+    private final TransactionTemplate transactionTemplate;
+    
+    private final Object lock = new Object();
+    private Deltas pending = new Deltas();
+    
+    @Value("${reconciliation.analytics.top-fields}")
+    private int topFields;
+    
+    /**
+     * Collect the deltas of a reconciliation outcome once its transaction has committed
+     */
+    @TransactionalEventListener
+    public void onReconciliationOutcome(ReconciliationOutcomeEvent event) {
+        Outcome previous = event.previous();
+        Outcome current = event.current();
+        if (Objects.equals(previous, current) && event.matchLagMillis() == null) {
+            return;
+        }
+        
+        synchronized (lock) {
+            if (isCounted(previous)) {
+                pending.addOutcome(previous, -1);
+            }
+            if (isCounted(current)) {
+                pending.addOutcome(current, 1);
+                if (event.matchLagMillis() != null) {
+                    pending.addMatchLag(current.key(), lagBucket(event.matchLagMillis()));
+                }
+            }
+        }
+    }
+    
+    /**
+     * Scheduled entry point flushing collected deltas
+     */
+    @Scheduled(fixedDelayString = "${reconciliation.analytics.flush-interval-ms}")
+    public void runFlush() {
+        flush();
+    }
+    
+    /**
+     * Flush collected deltas before the instance stops
+     */
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+    
+    @Override
+    public int flush() {
+        Deltas deltas;
+        synchronized (lock) {
+            if (pending.isEmpty()) {
+                return 0;
+            }
+            deltas = pending;
+            pending = new Deltas();
+        }
+        
+        List<BreakRollup> breakCounts = deltas.breakCounts.values().stream()
+                .filter(delta -> delta.getMatchedCount() != 0 || delta.getMismatchedCount() != 0
+                        || delta.getErrorCount() != 0)
+                .toList();
+        List<BreakFieldRollup> fieldCounts = deltas.fieldCounts.values().stream()
+                .filter(delta -> delta.getMismatchCount() != 0)
+                .toList();
+        List<MatchLagRollup> matchLags = new ArrayList<>(deltas.matchLags.values());
+        
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                analyticsRepository.addBreakCounts(breakCounts);
+                analyticsRepository.addFieldCounts(fieldCounts);
+                analyticsRepository.addMatchLags(matchLags);
+            });
+        } catch (Exception e) {
+            log.error("Error flushing break analytics, will retry with the next flush", e);
+            synchronized (lock) {
+                pending.merge(deltas);
+            }
+            return 0;
+        }
+        
+        int rows = breakCounts.size() + fieldCounts.size() + matchLags.size();
+        log.debug("Flushed {} break analytics rollup rows", rows);
+        return rows;
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public List<BreakAnalyticsDto> getBreakAnalytics(AnalyticsDimension groupBy, LocalDate from, LocalDate to,
+                                                     String counterparty, String instrument) {
+        log.info("Getting break analytics by {} from {} to {}", groupBy, from, to);
+        
+        Map<String, BreakAnalyticsDto> analytics = new HashMap<>();
+        for (GroupedBreakCounts counts : analyticsRepository.sumBreakCounts(groupBy, from, to, counterparty, instrument)) {
+            long total = counts.matched() + counts.mismatched() + counts.error();
+            analytics.put(counts.group(), BreakAnalyticsDto.builder()
+                    .group(counts.group())
+                    .matched(counts.matched())
+                    .mismatched(counts.mismatched())
+                    .error(counts.error())
+                    .total(total)
+                    .breakRate(total == 0 ? 0 : (double) counts.mismatched() / total)
+                    .topMismatchedFields(new ArrayList<>())
+                    .build());
+        }
+        
+        for (GroupedFieldCount fieldCount : analyticsRepository.sumFieldCounts(groupBy, from, to, counterparty, instrument)) {
+            BreakAnalyticsDto dto = analytics.get(fieldCount.group());
+            if (dto != null) {
+                dto.getTopMismatchedFields().add(new FieldMismatchCount(fieldCount.field(), fieldCount.mismatches()));
+            }
+        }
+        
+        Map<String, TreeMap<Integer, Long>> histograms = new HashMap<>();
+        for (GroupedLagBucket bucket : analyticsRepository.sumMatchLags(groupBy, from, to, counterparty, instrument)) {
+            histograms.computeIfAbsent(bucket.group(), group -> new TreeMap<>()).put(bucket.bucket(), bucket.matches());
+        }
+        
+        for (BreakAnalyticsDto dto : analytics.values()) {
+            dto.getTopMismatchedFields().sort(Comparator.comparingLong(FieldMismatchCount::getMismatches).reversed());
+            if (dto.getTopMismatchedFields().size() > topFields) {
+                dto.setTopMismatchedFields(new ArrayList<>(dto.getTopMismatchedFields().subList(0, topFields)));
+            }
+            
+            TreeMap<Integer, Long> histogram = histograms.get(dto.getGroup());
+            if (histogram != null) {
+                dto.setMatchLagP50Millis(percentile(histogram, 0.50));
+                dto.setMatchLagP90Millis(percentile(histogram, 0.90));
+                dto.setMatchLagP99Millis(percentile(histogram, 0.99));
+            }
+        }
+        
+        return analytics.values().stream()
+                .sorted(Comparator.comparingLong(BreakAnalyticsDto::getMismatched).reversed()
+                        .thenComparing(BreakAnalyticsDto::getGroup))
+                .toList();
+    }
+    
+    private boolean isCounted(Outcome outcome) {
+        return outcome != null && outcome.key() != null
+                && (outcome.status() == ReconciliationStatus.MATCHED
+                        || outcome.status() == ReconciliationStatus.MISMATCHED
+                        || outcome.status() == ReconciliationStatus.ERROR);
+    }
+    
+    /**
+     * Histogram bucket of a match lag; bucket n holds lags up to 2^(n/4) milliseconds
+     */
+    static int lagBucket(long lagMillis) {
+        if (lagMillis <= 1) {
+            return 0;
+        }
+        
+        int bucket = (int) Math.ceil(4 * Math.log(lagMillis) / Math.log(2));
+        while (bucketUpperBoundMillis(bucket) < lagMillis) {
+            bucket++;
+        }
+        while (bucket > 0 && bucketUpperBoundMillis(bucket - 1) >= lagMillis) {
+            bucket--;
+        }
+        return bucket;
+    }
+    
+    /**
+     * Largest lag counted in a histogram bucket
+     */
+    static long bucketUpperBoundMillis(int bucket) {
+        return (long) Math.floor(Math.pow(2, bucket / 4.0));
+    }
+    
+    /**
+     * Estimate a percentile from a lag histogram, as the upper bound of the bucket it falls into
+     */
+    static Long percentile(TreeMap<Integer, Long> histogram, double percentile) {
+        long total = histogram.values().stream().mapToLong(Long::longValue).sum();
+        if (total <= 0) {
+            return null;
+        }
+        
+        long rank = (long) Math.ceil(percentile * total);
+        long seen = 0;
+        for (Map.Entry<Integer, Long> bucket : histogram.entrySet()) {
+            seen += bucket.getValue();
+            if (seen >= rank) {
+                return bucketUpperBoundMillis(bucket.getKey());
+            }
+        }
+        return bucketUpperBoundMillis(histogram.lastKey());
+    }
+    
+    /**
+     * Rollup deltas collected between two flushes
+     */
+    private static final class Deltas {
+        
+        private final Map<BreakRollupKey, BreakRollup> breakCounts = new HashMap<>();
+        private final Map<FieldKey, BreakFieldRollup> fieldCounts = new HashMap<>();
+        private final Map<LagKey, MatchLagRollup> matchLags = new HashMap<>();
+        
+        boolean isEmpty() {
+            return breakCounts.isEmpty() && fieldCounts.isEmpty() && matchLags.isEmpty();
+        }
+        
+        void addOutcome(Outcome outcome, long sign) {
+            BreakRollup counts = breakCounts.computeIfAbsent(outcome.key(), key -> BreakRollup.builder()
+                    .businessDate(key.businessDate())
+                    .counterparty(key.counterparty())
+                    .instrument(key.instrument())
+                    .build());
+            
+            switch (outcome.status()) {
+                case MATCHED -> counts.setMatchedCount(counts.getMatchedCount() + sign);
+                case MISMATCHED -> counts.setMismatchedCount(counts.getMismatchedCount() + sign);
+                case ERROR -> counts.setErrorCount(counts.getErrorCount() + sign);
+                default -> throw new IllegalArgumentException("Outcome not counted: " + outcome.status());
+            }
+            
+            if (outcome.status() == ReconciliationStatus.MISMATCHED) {
+                for (String field : outcome.mismatchedFields()) {
+                    addFieldCount(outcome.key(), field, sign);
+                }
+            }
+        }
+        
+        void addFieldCount(BreakRollupKey key, String field, long delta) {
+            BreakFieldRollup counts = fieldCounts.computeIfAbsent(new FieldKey(key, field), fieldKey ->
+                    BreakFieldRollup.builder()
+                            .businessDate(key.businessDate())
+                            .counterparty(key.counterparty())
+                            .instrument(key.instrument())
+                            .field(field)
+                            .build());
+            counts.setMismatchCount(counts.getMismatchCount() + delta);
+        }
+        
+        void addMatchLag(BreakRollupKey key, int bucket) {
+            addMatchLags(key, bucket, 1);
+        }
+        
+        void addMatchLags(BreakRollupKey key, int bucket, long delta) {
+            MatchLagRollup counts = matchLags.computeIfAbsent(new LagKey(key, bucket), lagKey ->
+                    MatchLagRollup.builder()
+                            .businessDate(key.businessDate())
+                            .counterparty(key.counterparty())
+                            .instrument(key.instrument())
+                            .bucket(bucket)
+                            .build());
+            counts.setMatchCount(counts.getMatchCount() + delta);
+        }
+        
+        void merge(Deltas other) {
+            other.breakCounts.forEach((key, delta) -> {
+                BreakRollup counts = breakCounts.putIfAbsent(key, delta);
+                if (counts != null) {
+                    counts.setMatchedCount(counts.getMatchedCount() + delta.getMatchedCount());
+                    counts.setMismatchedCount(counts.getMismatchedCount() + delta.getMismatchedCount());
+                    counts.setErrorCount(counts.getErrorCount() + delta.getErrorCount());
+                }
+            });
+            other.fieldCounts.forEach((key, delta) -> addFieldCount(key.key(), key.field(), delta.getMismatchCount()));
+            other.matchLags.forEach((key, delta) -> addMatchLags(key.key(), key.bucket(), delta.getMatchCount()));
+        }
+    }
+    
+    private record FieldKey(BreakRollupKey key, String field) {
+    }
+    
+    private record LagKey(BreakRollupKey key, int bucket) {
+    }
+}
@@ -0,0 +1,9 @@
+package com.trading.reconciliation.service;
+
+/**
+ * Published when the set of live service instances changes, including on the first heartbeat
+ * @param partition Index of this instance's tradeId hash partition
+ * @param partitions Number of live instances, and thus partitions
+ */
+public record ClusterMembershipChangedEvent(int partition, int partitions) {
+}
@@ -0,0 +1,26 @@
+package com.trading.reconciliation.service;
+
+import com.trading.reconciliation.dto.DeadLetterReplayResponseDto;
+
+import java.util.Optional;
+
+/**
+ * Service interface for dead-lettered reconciliation tasks
+ */
+public interface DeadLetterService {
+    
+    /**
+     * Start moving dead-lettered reconciliation tasks back onto the reconciliation tasks queue
+     * @param limit Maximum number of tasks to replay
+     * @return The replay job, running in the background
+     * @throws com.trading.reconciliation.exception.ReplayInProgressException if a replay is already running
+     */
+    DeadLetterReplayResponseDto startReplay(int limit);
+    
+    /**
+     * Get the progress of a replay started on this instance
+     * @param jobId The replay job identifier
+     * @return Optional containing the replay job if known
+     */
+    Optional<DeadLetterReplayResponseDto> getReplay(String jobId);
+}
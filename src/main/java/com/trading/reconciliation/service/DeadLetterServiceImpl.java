@@ -0,0 +1,259 @@
+package com.trading.reconciliation.service;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.GetResponse;
+import com.trading.reconciliation.dto.DeadLetterReplayResponseDto;
+import com.trading.reconciliation.exception.ReplayInProgressException;
+import com.trading.reconciliation.messaging.ReconciliationTaskRetrier;
+import com.trading.reconciliation.repository.ReconciliationTaskRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Implementation of DeadLetterService
+ * 
+ * Replayed tasks are paced at a configured rate so that clearing a large dead-letter
+ * queue after an outage does not flood the listeners and the database again. A replay
+ * runs in the background on its own thread, and its progress is kept on the instance
+ * that runs it. Only one replay runs at a time across all instances, guarded by a lease
+ * that the replay renews while it runs.
+ * 
+ * Dead letters are replayed onto the tasks queue they failed on, so a lane's tasks go
+ * back to the lane. With the Postgres task transport, dead tasks stay in the task table
+ * and are replayed by giving them a fresh set of attempts.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class DeadLetterServiceImpl implements DeadLetterService {
+    
+    private final RabbitTemplate rabbitTemplate;
+    private final AmqpAdmin amqpAdmin;
+    private final LeaseService leaseService;
+    private final ReconciliationTaskRepository taskRepository;
+    private final AtomicBoolean replaying = new AtomicBoolean();
+    private final ExecutorService replayExecutor = Executors.newSingleThreadExecutor(
+            new CustomizableThreadFactory("dead-letter-replay-"));
+    private final Map<String, ReplayJob> jobs = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ReplayJob> eldest) {
+            return size() > MAX_JOBS_KEPT;
+        }
+    };
+    
+    private static final String REPLAY_LEASE = "dead-letter-replay";
+    private static final Duration REPLAY_LEASE_TTL = Duration.ofMinutes(15);
+    private static final int MAX_JOBS_KEPT = 20;
+    
+    @Value("${reconciliation.queue.reconciliation-tasks}")
+    private String reconciliationTasksQueue;
+    
+    @Value("${reconciliation.queue.reconciliation-tasks-dlq}")
+    private String deadLetterQueue;
+    
+    @Value("${reconciliation.dead-letter.replay-rate-per-second}")
+    private int replayRatePerSecond;
+    
+    @Value("${reconciliation.dead-letter.replay-max-batch}")
+    private int replayMaxBatch;
+    
+    @Value("${reconciliation.task.transport}")
+    private String taskTransport;
+    
+    @Override
+    public DeadLetterReplayResponseDto startReplay(int limit) {
+        if (!replaying.compareAndSet(false, true)) {
+            throw new ReplayInProgressException("A dead-letter replay is already in progress");
+        }
+        
+        DeadLetterReplayResponseDto started;
+        try {
+            // Replays started on different instances would multiply the configured rate
+            if (!leaseService.tryAcquire(REPLAY_LEASE, REPLAY_LEASE_TTL)) {
+                throw new ReplayInProgressException("A dead-letter replay is in progress on another instance");
+            }
+            
+            ReplayJob job = new ReplayJob(Math.min(limit, replayMaxBatch));
+            synchronized (jobs) {
+                jobs.put(job.id, job);
+            }
+            started = toDto(job);
+            replayExecutor.execute(() -> run(job));
+        } catch (RuntimeException e) {
+            replaying.set(false);
+            throw e;
+        }
+        return started;
+    }
+    
+    @Override
+    public Optional<DeadLetterReplayResponseDto> getReplay(String jobId) {
+        synchronized (jobs) {
+            return Optional.ofNullable(jobs.get(jobId)).map(this::toDto);
+        }
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        replayExecutor.shutdownNow();
+    }
+    
+    private void run(ReplayJob job) {
+        try {
+            replay(job);
+            job.remaining = remainingDeadLetters();
+            job.state = ReplayJob.State.COMPLETED;
+        } catch (Exception e) {
+            log.error("Dead-letter replay {} failed after {} tasks", job.id, job.replayed, e);
+            job.error = e.getMessage();
+            job.state = ReplayJob.State.FAILED;
+        } finally {
+            try {
+                leaseService.release(REPLAY_LEASE);
+            } catch (Exception e) {
+                log.warn("Could not release the dead-letter replay lease, it expires on its own", e);
+            }
+            replaying.set(false);
+            job.finishedAt = Instant.now();
+        }
+    }
+    
+    private void replay(ReplayJob job) {
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / Math.max(1, replayRatePerSecond);
+        long leaseRenewalNanos = REPLAY_LEASE_TTL.toNanos() / 3;
+        log.info("Replaying up to {} dead-lettered reconciliation tasks at {} per second", 
+                job.requested, replayRatePerSecond);
+        
+        long nextSendAt = System.nanoTime();
+        long leaseRenewedAt = nextSendAt;
+        while (job.replayed < job.requested && !Thread.currentThread().isInterrupted()) {
+            LockSupport.parkNanos(nextSendAt - System.nanoTime());
+            if (System.nanoTime() - leaseRenewedAt > leaseRenewalNanos) {
+                if (!leaseService.tryAcquire(REPLAY_LEASE, REPLAY_LEASE_TTL)) {
+                    throw new IllegalStateException("Lost the dead-letter replay lease");
+                }
+                leaseRenewedAt = System.nanoTime();
+            }
+            if (!replayNext()) {
+                break;
+            }
+            nextSendAt += intervalNanos;
+            job.replayed++;
+        }
+        
+        log.info("Replayed {} dead-lettered reconciliation tasks", job.replayed);
+    }
+    
+    /**
+     * Replay the next dead-lettered task
+     * @return false if there was none left
+     */
+    private boolean replayNext() {
+        if (isPostgresTransport()) {
+            return taskRepository.replayDead(1) > 0;
+        }
+        return Boolean.TRUE.equals(rabbitTemplate.execute(this::replayOne));
+    }
+    
+    /**
+     * Move one task from the dead-letter queue back to the tasks queue it was consumed from,
+     * with a fresh retry budget
+     * 
+     * Dead letters without an origin queue header go to the shared tasks queue. The dead letter is only acknowledged after it has been republished, so a failure in
+     * between leaves it in the dead-letter queue rather than losing it.
+     */
+    private boolean replayOne(Channel channel) throws IOException {
+        GetResponse response = channel.basicGet(deadLetterQueue, false);
+        if (response == null) {
+            return false;
+        }
+        
+        Map<String, Object> headers = new HashMap<>();
+        if (response.getProps().getHeaders() != null) {
+            headers.putAll(response.getProps().getHeaders());
+        }
+        headers.remove(ReconciliationTaskRetrier.RETRY_ATTEMPT_HEADER);
+        headers.remove(ReconciliationTaskRetrier.LAST_ERROR_HEADER);
+        Object originQueue = headers.remove(ReconciliationTaskRetrier.ORIGIN_QUEUE_HEADER);
+        String tasksQueue = originQueue != null ? originQueue.toString() : reconciliationTasksQueue;
+        
+        AMQP.BasicProperties properties = response.getProps().builder()
+                .headers(headers)
+                .timestamp(new Date())
+                .build();
+        channel.basicPublish("", tasksQueue, properties, response.getBody());
+        channel.basicAck(response.getEnvelope().getDeliveryTag(), false);
+        return true;
+    }
+    
+    private long remainingDeadLetters() {
+        if (isPostgresTransport()) {
+            return taskRepository.countDead();
+        }
+        
+        QueueInformation queueInfo = amqpAdmin.getQueueInfo(deadLetterQueue);
+        return queueInfo != null ? queueInfo.getMessageCount() : 0;
+    }
+    
+    private boolean isPostgresTransport() {
+        return "postgres".equals(taskTransport);
+    }
+    
+    private DeadLetterReplayResponseDto toDto(ReplayJob job) {
+        return DeadLetterReplayResponseDto.builder()
+                .jobId(job.id)
+                .state(job.state.name())
+                .requested(job.requested)
+                .replayed(job.replayed)
+                .remaining(job.remaining)
+                .startedAt(job.startedAt)
+                .finishedAt(job.finishedAt)
+                .error(job.error)
+                .build();
+    }
+    
+    /**
+     * Progress of one replay, updated by the replay thread
+     */
+    private static class ReplayJob {
+        
+        enum State { RUNNING, COMPLETED, FAILED }
+        
+        private final String id = UUID.randomUUID().toString();
+        private final int requested;
+        private final Instant startedAt = Instant.now();
+        
+        private volatile State state = State.RUNNING;
+        private volatile int replayed;
+        private volatile long remaining = -1;
+        private volatile Instant finishedAt;
+        private volatile String error;
+        
+        ReplayJob(int requested) {
+            this.requested = requested;
+        }
+    }
+}
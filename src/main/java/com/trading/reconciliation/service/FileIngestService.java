@@ -0,0 +1,43 @@
+package com.trading.reconciliation.service;
+
+import com.trading.reconciliation.dto.FileIngestJobDto;
+import com.trading.reconciliation.ingest.TradeFileFormat;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Service interface for bulk ingestion of end-of-day trade files
+ */
+public interface FileIngestService {
+    
+    /**
+     * Store an uploaded trade file and start ingesting it in the background
+     * @param file The uploaded file
+     * @param sourceSystem The source system the trades belong to (e.g., "System B")
+     * @param format The file layout
+     * @return The job tracking the ingestion
+     */
+    FileIngestJobDto submitUpload(MultipartFile file, String sourceSystem, TradeFileFormat format) throws IOException;
+    
+    /**
+     * Start ingesting the trade files that were dropped into the inbox directory
+     * @return Number of files picked up
+     */
+    int pollInbox();
+    
+    /**
+     * Get the progress of an ingestion job
+     * @param jobId The job identifier
+     * @return An Optional containing the job if it is known to this instance
+     */
+    Optional<FileIngestJobDto> getJob(String jobId);
+    
+    /**
+     * Get the most recent ingestion jobs of this instance
+     * @return Jobs, most recent first
+     */
+    List<FileIngestJobDto> getJobs();
+}
@@ -0,0 +1,366 @@
+package com.trading.reconciliation.service;
+
+import com.trading.reconciliation.dto.FileIngestJobDto;
+import com.trading.reconciliation.ingest.FileIngestJob;
+import com.trading.reconciliation.ingest.ParsedTradeRow;
+import com.trading.reconciliation.ingest.RejectedTradeRow;
+import com.trading.reconciliation.ingest.TradeFileFormat;
+import com.trading.reconciliation.ingest.TradeFileParser;
+import com.trading.reconciliation.ingest.TradeFileParser.FileRange;
+import com.trading.reconciliation.messaging.ReconciliationTaskTransport;
+import com.trading.reconciliation.repository.TradeDataBulkLoader;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+/**
+ * Implementation of FileIngestService
+ * 
+ * A file is split into byte ranges that are memory-mapped and parsed in parallel,
+ * one range per worker. Each worker collects parsed rows into batches and loads
+ * every batch through the PostgreSQL COPY path in its own transaction, then queues
+ * reconciliation tasks for the batch's trades on the bulk lane. Manual triggers
+ * keep their own lane, so they are not delayed by a file load.
+ * 
+ * Lines that cannot be parsed are rejected individually. They are counted, the first
+ * ones are kept on the job, and all of them are written to a reject report next to
+ * the processed file.
+ * 
+ * Files are handled in the inbox directory's subdirectories: processing while being
+ * loaded, then done or failed. Files dropped into the inbox are claimed with an atomic
+ * move, so several instances can watch a shared directory. Job progress is kept in
+ * memory on the instance running the job.
+ */
+@Service
+@ConditionalOnProperty(name = "reconciliation.storage.engine", havingValue = "jpa", matchIfMissing = true)
+@Slf4j
+public class FileIngestServiceImpl implements FileIngestService {
+    
+    private static final long MAX_RANGE_BYTES = 1L << 30;
+    private static final int MAX_JOBS_KEPT = 100;
+    
+    private final TradeDataBulkLoader bulkLoader;
+    private final ReconciliationService reconciliationService;
+    private final ReconciliationTaskTransport taskTransport;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter loadedRows;
+    private final Counter rejectedRows;
+    private final int parallelism;
+    
+    private final ExecutorService jobExecutor;
+    private final ExecutorService rangeExecutor;
+    private final Map<String, FileIngestJob> jobs = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, FileIngestJob> eldest) {
+            return size() > MAX_JOBS_KEPT && eldest.getValue().getState() != FileIngestJob.State.RUNNING;
+        }
+    };
+    
+    @Value("${reconciliation.file-ingest.inbox-directory}")
+    private String inboxDirectory;
+    
+    @Value("${reconciliation.file-ingest.inbox-source-system}")
+    private String inboxSourceSystem;
+    
+    @Value("${reconciliation.file-ingest.settle-ms}")
+    private long settleMillis;
+    
+    @Value("${reconciliation.file-ingest.batch-size}")
+    private int batchSize;
+    
+    @Value("${reconciliation.file-ingest.max-rejects-reported}")
+    private int maxRejectsReported;
+    
+    @Value("${reconciliation.file-ingest.fixed-width-columns}")
+    private int[] fixedWidthColumns;
+    
+    public FileIngestServiceImpl(TradeDataBulkLoader bulkLoader,
+                                 ReconciliationService reconciliationService,
+                                 ReconciliationTaskTransport taskTransport,
+                                 TransactionTemplate transactionTemplate,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${reconciliation.file-ingest.parallelism}") int parallelism,
+                                 @Value("${reconciliation.file-ingest.max-concurrent-files}") int maxConcurrentFiles) {
+        this.bulkLoader = bulkLoader;
+        this.reconciliationService = reconciliationService;
+        this.taskTransport = taskTransport;
+        this.transactionTemplate = transactionTemplate;
+        this.parallelism = parallelism;
+        this.jobExecutor = Executors.newFixedThreadPool(maxConcurrentFiles);
+        this.rangeExecutor = Executors.newFixedThreadPool(parallelism);
+        this.loadedRows = Counter.builder("reconciliation.file.ingest.rows")
+                .description("Rows of trade files processed")
+                .tag("outcome", "loaded")
+                .register(meterRegistry);
+        this.rejectedRows = Counter.builder("reconciliation.file.ingest.rows")
+                .description("Rows of trade files processed")
+                .tag("outcome", "rejected")
+                .register(meterRegistry);
+    }
+    
+    @Override
+    public FileIngestJobDto submitUpload(MultipartFile file, String sourceSystem, TradeFileFormat format)
+            throws IOException {
+        String fileName = Paths.get(Optional.ofNullable(file.getOriginalFilename()).orElse("upload")).getFileName().toString();
+        Path target = directory("processing").resolve(System.currentTimeMillis() + "-" + fileName);
+        
+        log.info("Receiving {} trade file {} from {}", format, fileName, sourceSystem);
+        file.transferTo(target);
+        
+        return toDto(submit(target, sourceSystem, format));
+    }
+    
+    /**
+     * Scheduled entry point picking up files dropped into the inbox directory
+     */
+    @Scheduled(fixedDelayString = "${reconciliation.file-ingest.poll-interval-ms}")
+    public void runInboxPoll() {
+        if (inboxDirectory != null && Files.isDirectory(Paths.get(inboxDirectory))) {
+            pollInbox();
+        }
+    }
+    
+    @Override
+    public int pollInbox() {
+        List<Path> files;
+        try (Stream<Path> entries = Files.list(Paths.get(inboxDirectory))) {
+            long settledBefore = System.currentTimeMillis() - settleMillis;
+            files = entries.filter(Files::isRegularFile)
+                    .filter(file -> TradeFileFormat.fromFileName(file.getFileName().toString()).isPresent())
+                    .filter(file -> lastModifiedMillis(file) < settledBefore)
+                    .sorted()
+                    .toList();
+        } catch (IOException e) {
+            log.error("Error listing trade file inbox {}", inboxDirectory, e);
+            return 0;
+        }
+        
+        int pickedUp = 0;
+        for (Path file : files) {
+            try {
+                // The move claims the file; if another instance claimed it first, the move fails
+                Path claimed = Files.move(file, directory("processing").resolve(file.getFileName()),
+                        StandardCopyOption.ATOMIC_MOVE);
+                submit(claimed, inboxSourceSystem,
+                        TradeFileFormat.fromFileName(claimed.getFileName().toString()).orElseThrow());
+                pickedUp++;
+            } catch (IOException e) {
+                log.debug("Trade file {} was claimed by another instance", file, e);
+            }
+        }
+        return pickedUp;
+    }
+    
+    @Override
+    public Optional<FileIngestJobDto> getJob(String jobId) {
+        synchronized (jobs) {
+            return Optional.ofNullable(jobs.get(jobId)).map(this::toDto);
+        }
+    }
+    
+    @Override
+    public List<FileIngestJobDto> getJobs() {
+        List<FileIngestJobDto> result;
+        synchronized (jobs) {
+            result = new ArrayList<>(jobs.values().stream().map(this::toDto).toList());
+        }
+        Collections.reverse(result);
+        return result;
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        jobExecutor.shutdownNow();
+        rangeExecutor.shutdownNow();
+    }
+    
+    private FileIngestJob submit(Path file, String sourceSystem, TradeFileFormat format) throws IOException {
+        Path rejectReport = directory("done").resolve(file.getFileName() + ".rejects.csv");
+        FileIngestJob job = new FileIngestJob(file.getFileName().toString(), sourceSystem, format, Files.size(file),
+                rejectReport, maxRejectsReported);
+        synchronized (jobs) {
+            jobs.put(job.getId(), job);
+        }
+        
+        log.info("Starting ingestion job {} for {} trade file {} ({} bytes) from {}", 
+                job.getId(), format, job.getFileName(), job.getFileSizeBytes(), sourceSystem);
+        jobExecutor.submit(() -> run(job, file));
+        return job;
+    }
+    
+    private void run(FileIngestJob job, Path file) {
+        TradeFileParser parser = new TradeFileParser(job.getFormat(), fixedWidthColumns);
+        
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+             BufferedWriter rejectWriter = Files.newBufferedWriter(job.getRejectReport(), StandardCharsets.UTF_8)) {
+            long fileSize = channel.size();
+            
+            List<Future<?>> ranges = new ArrayList<>();
+            for (FileRange range : TradeFileParser.split(fileSize, MAX_RANGE_BYTES, parallelism)) {
+                ranges.add(rangeExecutor.submit(() -> {
+                    RangeLoader loader = new RangeLoader(job, range, rejectWriter);
+                    parser.parse(channel, fileSize, range, loader);
+                    loader.flush(range.end());
+                    return null;
+                }));
+            }
+            
+            try {
+                for (Future<?> range : ranges) {
+                    range.get();
+                }
+            } catch (ExecutionException | InterruptedException e) {
+                ranges.forEach(range -> range.cancel(true));
+                throw e;
+            }
+            
+            job.complete();
+            moveTo(file, "done");
+            log.info("Ingestion job {} loaded {} trades from {} ({} rejected) at {} rows/s", job.getId(), 
+                    job.getRowsLoaded(), job.getFileName(), job.getRowsRejected(), (long) job.getRowsPerSecond());
+        } catch (Exception e) {
+            Throwable cause = e instanceof ExecutionException ? e.getCause() : e;
+            log.error("Ingestion job {} for trade file {} failed", job.getId(), job.getFileName(), cause);
+            job.fail(cause.getMessage());
+            moveTo(file, "failed");
+        }
+    }
+    
+    /**
+     * Collects the rows parsed from one range into batches and loads them
+     */
+    private class RangeLoader implements TradeFileParser.RowHandler {
+        
+        private final FileIngestJob job;
+        private final FileRange range;
+        private final BufferedWriter rejectWriter;
+        private final List<ParsedTradeRow> batch = new ArrayList<>();
+        private long reportedUpTo;
+        
+        RangeLoader(FileIngestJob job, FileRange range, BufferedWriter rejectWriter) {
+            this.job = job;
+            this.range = range;
+            this.rejectWriter = rejectWriter;
+            this.reportedUpTo = range.start();
+        }
+        
+        @Override
+        public void onRow(ParsedTradeRow row) {
+            batch.add(row);
+            if (batch.size() >= batchSize) {
+                flush(row.offset());
+            }
+        }
+        
+        @Override
+        public void onReject(RejectedTradeRow reject) {
+            job.addReject(reject);
+            rejectedRows.increment();
+            try {
+                synchronized (rejectWriter) {
+                    rejectWriter.write(reject.offset() + "," + quote(reject.reason()) + "," + quote(reject.rawLine()));
+                    rejectWriter.newLine();
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException("Failed to write reject report", e);
+            }
+        }
+        
+        void flush(long offset) {
+            if (!batch.isEmpty()) {
+                List<String> tradeIds = transactionTemplate.execute(status -> {
+                    List<String> loaded = bulkLoader.load(job.getSourceSystem(), batch);
+                    if (taskTransport.isTransactional()) {
+                        loaded.forEach(reconciliationService::triggerReconciliation);
+                    }
+                    return loaded;
+                });
+                if (!taskTransport.isTransactional()) {
+                    tradeIds.forEach(reconciliationService::triggerReconciliation);
+                }
+                
+                job.addRowsLoaded(batch.size());
+                loadedRows.increment(batch.size());
+                batch.clear();
+            }
+            
+            long processedUpTo = Math.min(offset, range.end());
+            job.addBytesProcessed(processedUpTo - reportedUpTo);
+            reportedUpTo = processedUpTo;
+        }
+    }
+    
+    private Path directory(String name) throws IOException {
+        return Files.createDirectories(Paths.get(inboxDirectory, name));
+    }
+    
+    private void moveTo(Path file, String directoryName) {
+        try {
+            Files.move(file, directory(directoryName).resolve(file.getFileName()), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            log.error("Error moving trade file {} to {}", file, directoryName, e);
+        }
+    }
+    
+    private static long lastModifiedMillis(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return Long.MAX_VALUE;
+        }
+    }
+    
+    private static String quote(String value) {
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+    
+    private FileIngestJobDto toDto(FileIngestJob job) {
+        return FileIngestJobDto.builder()
+                .jobId(job.getId())
+                .fileName(job.getFileName())
+                .sourceSystem(job.getSourceSystem())
+                .format(job.getFormat().name())
+                .state(job.getState().name())
+                .fileSizeBytes(job.getFileSizeBytes())
+                .bytesProcessed(job.getBytesProcessed())
+                .percentComplete(job.getFileSizeBytes() == 0 ? 100
+                        : Math.min(100, 100.0 * job.getBytesProcessed() / job.getFileSizeBytes()))
+                .rowsLoaded(job.getRowsLoaded())
+                .rowsRejected(job.getRowsRejected())
+                .rowsPerSecond(job.getRowsPerSecond())
+                .startedAt(job.getStartedAt())
+                .finishedAt(job.getFinishedAt())
+                .error(job.getError())
+                .rejectReport(job.getRejectReport().toString())
+                .rejects(job.getRejects())
+                .build();
+    }
+}
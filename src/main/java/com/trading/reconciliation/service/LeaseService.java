@@ -0,0 +1,29 @@
+package com.trading.reconciliation.service;
+
+import java.time.Duration;
+
+/**
+ * Service interface for coordinating scheduled work across service instances
+ */
+public interface LeaseService {
+    
+    /**
+     * Acquire or renew a named lease for this instance
+     * @param leaseName The lease name, one per kind of scheduled work
+     * @param ttl How long the lease is held unless renewed or released
+     * @return true if this instance holds the lease
+     */
+    boolean tryAcquire(String leaseName, Duration ttl);
+    
+    /**
+     * Release a lease held by this instance
+     * @param leaseName The lease name
+     */
+    void release(String leaseName);
+    
+    /**
+     * Get the identifier of this instance
+     * @return The instance identifier
+     */
+    String getInstanceId();
+}
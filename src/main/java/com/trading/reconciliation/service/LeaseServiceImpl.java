@@ -0,0 +1,138 @@
+package com.trading.reconciliation.service;
+
+import com.trading.reconciliation.repository.SchedulerInstanceRepository;
+import com.trading.reconciliation.repository.SchedulerLeaseRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Implementation of LeaseService backed by the reconciliation database
+ * 
+ * Singleton jobs take a named lease in the scheduler_lease table with an atomic
+ * upsert that only succeeds when the lease is free, expired or already held by this
+ * instance. Lease and heartbeat times come from the database clock, so instances do
+ * not need synchronized clocks. Leases are taken in a transaction of their own, so a
+ * job can renew its lease from inside a long-running, possibly read-only, transaction. If the holder dies, its lease expires and the next
+ * instance whose schedule fires takes over.
+ * 
+ * Every instance also sends heartbeats to the scheduler_instance table. The live
+ * instances, ordered by id, split the tradeId hash space between them, so per-trade
+ * work can be partitioned. When an instance joins or stops sending heartbeats, the
+ * partitions are recomputed and a ClusterMembershipChangedEvent is published.
+ */
+@Service
+@Slf4j
+public class LeaseServiceImpl implements LeaseService {
+    
+    private final SchedulerLeaseRepository leaseRepository;
+    private final SchedulerInstanceRepository instanceRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final String instanceId;
+    
+    @Value("${reconciliation.cluster.instance-ttl-ms}")
+    private long instanceTtlMillis;
+    
+    private volatile List<String> liveInstances = List.of();
+    private volatile int partition = 0;
+    private volatile int partitions = 1;
+    
+    public LeaseServiceImpl(SchedulerLeaseRepository leaseRepository,
+                            SchedulerInstanceRepository instanceRepository,
+                            ApplicationEventPublisher eventPublisher,
+                            TransactionTemplate transactionTemplate,
+                            @Value("${reconciliation.cluster.instance-id:}") String instanceId) {
+        this.leaseRepository = leaseRepository;
+        this.instanceRepository = instanceRepository;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.instanceId = StringUtils.hasText(instanceId) ? instanceId : defaultInstanceId();
+    }
+    
+    @Override
+    public boolean tryAcquire(String leaseName, Duration ttl) {
+        boolean acquired = transactionTemplate.execute(status -> 
+                leaseRepository.tryAcquire(leaseName, instanceId, ttl.toMillis()) > 0);
+        if (!acquired) {
+            log.debug("Lease {} is held by another instance", leaseName);
+        }
+        return acquired;
+    }
+    
+    @Override
+    public void release(String leaseName) {
+        transactionTemplate.executeWithoutResult(status -> leaseRepository.release(leaseName, instanceId));
+    }
+    
+    @Override
+    public String getInstanceId() {
+        return instanceId;
+    }
+    
+    /**
+     * Send a heartbeat and recompute the tradeId partitions from the live instances
+     */
+    @Scheduled(fixedDelayString = "${reconciliation.cluster.heartbeat-interval-ms}")
+    public void heartbeat() {
+        List<String> instances;
+        try {
+            instances = transactionTemplate.execute(status -> {
+                instanceRepository.heartbeat(instanceId);
+                instanceRepository.deleteExpired(instanceTtlMillis * 10);
+                return instanceRepository.findLiveInstanceIds(instanceTtlMillis);
+            });
+        } catch (Exception e) {
+            log.error("Error sending heartbeat for instance {}", instanceId, e);
+            return;
+        }
+        
+        if (instances.equals(liveInstances)) {
+            return;
+        }
+        
+        liveInstances = instances;
+        partitions = Math.max(1, instances.size());
+        partition = Math.max(0, instances.indexOf(instanceId));
+        log.info("Cluster membership changed, {} live instances, this instance {} owns partition {}", 
+                partitions, instanceId, partition);
+        eventPublisher.publishEvent(new ClusterMembershipChangedEvent(partition, partitions));
+    }
+    
+    /**
+     * Leave the cluster on shutdown so other instances take over without waiting for expiry
+     */
+    @PreDestroy
+    public void leave() {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                leaseRepository.releaseAll(instanceId);
+                instanceRepository.deleteById(instanceId);
+            });
+        } catch (Exception e) {
+            log.warn("Could not release leases of instance {} on shutdown", instanceId, e);
+        }
+    }
+    
+    private static String defaultInstanceId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "unknown";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
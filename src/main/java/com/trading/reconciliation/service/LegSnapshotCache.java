@@ -0,0 +1,75 @@
+package com.trading.reconciliation.service;
+
+import com.trading.reconciliation.dto.ReconciliationTaskMessage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Bounded cache of the latest trade leg snapshots seen by reconciliation tasks
+ * 
+ * Used to discard tasks that were superseded by a later amendment of the same leg
+ * without a database round trip and, optionally, to supply the counterpart leg.
+ * Entries are evicted in least-recently-used order once the cache is full.
+ */
+@Component
+public class LegSnapshotCache {
+    
+    private final Map<String, ReconciliationTaskMessage> snapshots;
+    
+    public LegSnapshotCache(@Value("${reconciliation.task.leg-cache-size}") int maxEntries) {
+        this.snapshots = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ReconciliationTaskMessage> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+    
+    /**
+     * Record a snapshot unless a newer version of the same leg is already cached
+     * @param snapshot The leg snapshot
+     * @return false if the snapshot is older than the cached version of the leg
+     */
+    public synchronized boolean offer(ReconciliationTaskMessage snapshot) {
+        String key = key(snapshot.getTradeId(), snapshot.getSourceSystem());
+        ReconciliationTaskMessage cached = snapshots.get(key);
+        
+        if (cached != null && version(cached) > version(snapshot)) {
+            return false;
+        }
+        
+        snapshots.put(key, snapshot);
+        return true;
+    }
+    
+    /**
+     * Forget the cached snapshot of a leg, for example one found to be older than the stored outcome
+     * @param tradeId The trade identifier
+     * @param sourceSystem The source system of the leg
+     */
+    public synchronized void evict(String tradeId, String sourceSystem) {
+        snapshots.remove(key(tradeId, sourceSystem));
+    }
+    
+    /**
+     * Get the latest cached snapshot of a leg
+     * @param tradeId The trade identifier
+     * @param sourceSystem The source system of the leg
+     * @return Optional containing the snapshot if cached
+     */
+    public synchronized Optional<ReconciliationTaskMessage> get(String tradeId, String sourceSystem) {
+        return Optional.ofNullable(snapshots.get(key(tradeId, sourceSystem)));
+    }
+    
+    private static String key(String tradeId, String sourceSystem) {
+        return sourceSystem + '|' + tradeId;
+    }
+    
+    private static long version(ReconciliationTaskMessage snapshot) {
+        return snapshot.getVersion() != null ? snapshot.getVersion() : 0;
+    }
+}
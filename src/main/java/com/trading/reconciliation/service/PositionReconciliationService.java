@@ -0,0 +1,37 @@
+package com.trading.reconciliation.service;
+
+import com.trading.reconciliation.dto.PositionBreakDto;
+import com.trading.reconciliation.dto.PositionReconciliationRunDto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Service interface for reconciling net positions between System A and System B
+ */
+public interface PositionReconciliationService {
+
+    /**
+     * Aggregate the positions of both systems over a range of trade dates, compare them and store the breaks
+     * 
+     * Replaces the breaks previously stored for the range.
+     * 
+     * @param from First trade date, inclusive
+     * @param to Last trade date, inclusive
+     * @return Summary of the run
+     * @throws com.trading.reconciliation.exception.PositionRunInProgressException if another run is in progress
+     */
+    PositionReconciliationRunDto reconcilePositions(LocalDate from, LocalDate to);
+
+    /**
+     * Get the stored position breaks over a range of business dates, largest notional difference first
+     * @param from First business date, inclusive
+     * @param to Last business date, inclusive
+     * @param counterparty Optional counterparty filter
+     * @param instrument Optional instrument filter
+     * @param limit Maximum number of breaks returned
+     * @return The breaks found
+     */
+    List<PositionBreakDto> getPositionBreaks(LocalDate from, LocalDate to, String counterparty, String instrument,
+                                             int limit);
+}
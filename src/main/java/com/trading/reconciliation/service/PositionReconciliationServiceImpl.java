@@ -0,0 +1,313 @@
+package com.trading.reconciliation.service;
+
+import com.trading.reconciliation.dto.PositionBreakDto;
+import com.trading.reconciliation.dto.PositionReconciliationRunDto;
+import com.trading.reconciliation.exception.PositionRunInProgressException;
+import com.trading.reconciliation.model.PositionBreak;
+import com.trading.reconciliation.repository.PositionRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Implementation of PositionReconciliationService
+ * 
+ * A run makes a single pass over the latest version of every trade leg in the date
+ * range, streamed from a database cursor, and folds each leg into a hash aggregate per
+ * trade date, instrument and counterparty. Aggregates hold only primitive sums for each
+ * system, so memory grows with the number of positions, not with the number of trades.
+ * Quantities are summed exactly in millionths; notionals are summed as doubles with
+ * compensated summation and reported to 4 decimal places.
+ * 
+ * A position is a break when its quantities or notionals differ by more than the
+ * configured tolerances, including positions that only one system has. The scan runs
+ * in a read-only transaction, so it uses the read replica when one is enabled; the
+ * breaks are written in a separate transaction.
+ * 
+ * The scheduled run is handed to a thread of its own, so a long scan does not hold a
+ * scheduler thread. Only one instance runs at a time under a lease, which is renewed
+ * while the scan streams, so a scan outlasting the lease TTL is not joined by another
+ * instance; if the lease is lost the run is abandoned.
+ */
+@Service
+@ConditionalOnProperty(name = "reconciliation.storage.engine", havingValue = "jpa", matchIfMissing = true)
+@Slf4j
+public class PositionReconciliationServiceImpl implements PositionReconciliationService {
+
+    private static final String SYSTEM_A = "System A";
+    private static final String SYSTEM_B = "System B";
+    private static final String POSITIONS_LEASE = "position-reconciliation";
+    private static final int NOTIONAL_SCALE = 4;
+    private static final int LEASE_CHECK_LEGS = 4096;
+
+    private final PositionRepository positionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readOnlyTransactionTemplate;
+    private final LeaseService leaseService;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final ExecutorService positionExecutor = Executors.newSingleThreadExecutor(
+            new CustomizableThreadFactory("position-reconciliation-"));
+
+    private long leaseRenewedAt;
+
+    @Value("${reconciliation.positions.enabled}")
+    private boolean positionsEnabled;
+
+    @Value("${reconciliation.positions.quantity-tolerance}")
+    private BigDecimal quantityTolerance;
+
+    @Value("${reconciliation.positions.notional-tolerance}")
+    private double notionalTolerance;
+
+    @Value("${reconciliation.positions.lookback-days}")
+    private int lookbackDays;
+
+    @Value("${reconciliation.positions.lease-ttl-ms}")
+    private long leaseTtlMillis;
+
+    public PositionReconciliationServiceImpl(PositionRepository positionRepository,
+                                             TransactionTemplate transactionTemplate,
+                                             LeaseService leaseService) {
+        this.positionRepository = positionRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+        this.leaseService = leaseService;
+    }
+
+    /**
+     * Scheduled entry point, reconciling the positions of the previous business dates on the position thread
+     */
+    @Scheduled(cron = "${reconciliation.positions.cron}")
+    public void runPositionReconciliation() {
+        if (!positionsEnabled) {
+            return;
+        }
+        LocalDate today = LocalDate.now();
+        positionExecutor.execute(() -> {
+            try {
+                reconcilePositions(today.minusDays(lookbackDays), today.minusDays(1));
+            } catch (PositionRunInProgressException e) {
+                log.debug("Position reconciliation is running elsewhere: {}", e.getMessage());
+            } catch (Exception e) {
+                log.error("Error reconciling positions", e);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        positionExecutor.shutdownNow();
+    }
+
+    @Override
+    public PositionReconciliationRunDto reconcilePositions(LocalDate from, LocalDate to) {
+        if (!running.compareAndSet(false, true)) {
+            throw new PositionRunInProgressException("A position reconciliation is already running on this instance");
+        }
+        try {
+            // Every instance may be asked to run; only the lease holder scans
+            if (!leaseService.tryAcquire(POSITIONS_LEASE, Duration.ofMillis(leaseTtlMillis))) {
+                throw new PositionRunInProgressException("A position reconciliation is running on another instance");
+            }
+            leaseRenewedAt = System.nanoTime();
+            try {
+                return reconcile(from, to);
+            } finally {
+                leaseService.release(POSITIONS_LEASE);
+            }
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private PositionReconciliationRunDto reconcile(LocalDate from, LocalDate to) {
+        log.info("Reconciling positions from {} to {}", from, to);
+        long start = System.nanoTime();
+
+        PositionAggregate aggregate = new PositionAggregate();
+        readOnlyTransactionTemplate.executeWithoutResult(status -> positionRepository.scanLatestLegs(from, to,
+                SYSTEM_A, SYSTEM_B, (systemA, epochDay, instrument, counterparty, quantityMicros, notional) -> {
+                    aggregate.add(systemA, epochDay, instrument, counterparty, quantityMicros, notional);
+                    if (aggregate.legs() % LEASE_CHECK_LEGS == 0) {
+                        renewLeaseIfDue();
+                    }
+                }));
+
+        List<PositionBreak> breaks = aggregate.breaks(
+                quantityTolerance.movePointRight(PositionRepository.QUANTITY_SCALE).longValue(),
+                notionalTolerance, LocalDateTime.now());
+        renewLeaseIfDue();
+        transactionTemplate.executeWithoutResult(status -> positionRepository.replaceBreaks(from, to, breaks));
+
+        long durationMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+        log.info("Reconciled {} positions from {} trade legs between {} and {} in {} ms, {} breaks",
+                aggregate.size(), aggregate.legs(), from, to, durationMillis, breaks.size());
+
+        return PositionReconciliationRunDto.builder()
+                .from(from)
+                .to(to)
+                .legsScanned(aggregate.legs())
+                .positions(aggregate.size())
+                .breaks(breaks.size())
+                .durationMillis(durationMillis)
+                .build();
+    }
+
+    /**
+     * Renew the lease once a third of its TTL has passed since it was last taken
+     * @throws PositionRunInProgressException if another instance has taken it over
+     */
+    private void renewLeaseIfDue() {
+        Duration leaseTtl = Duration.ofMillis(leaseTtlMillis);
+        if (System.nanoTime() - leaseRenewedAt < leaseTtl.toNanos() / 3) {
+            return;
+        }
+        if (!leaseService.tryAcquire(POSITIONS_LEASE, leaseTtl)) {
+            throw new PositionRunInProgressException("Lost the position reconciliation lease to another instance");
+        }
+        leaseRenewedAt = System.nanoTime();
+    }
+
+    @Override
+    public List<PositionBreakDto> getPositionBreaks(LocalDate from, LocalDate to, String counterparty,
+                                                    String instrument, int limit) {
+        return positionRepository.findBreaks(from, to, counterparty, instrument, limit).stream()
+                .map(this::mapToDto)
+                .toList();
+    }
+
+    private PositionBreakDto mapToDto(PositionBreak positionBreak) {
+        return PositionBreakDto.builder()
+                .businessDate(positionBreak.getBusinessDate())
+                .instrument(positionBreak.getInstrument())
+                .counterparty(positionBreak.getCounterparty())
+                .systemAQuantity(positionBreak.getSystemAQuantity())
+                .systemBQuantity(positionBreak.getSystemBQuantity())
+                .systemANotional(positionBreak.getSystemANotional())
+                .systemBNotional(positionBreak.getSystemBNotional())
+                .systemATradeCount(positionBreak.getSystemATradeCount())
+                .systemBTradeCount(positionBreak.getSystemBTradeCount())
+                .quantityDifference(positionBreak.getQuantityDifference())
+                .notionalDifference(positionBreak.getNotionalDifference())
+                .detectedAt(positionBreak.getDetectedAt())
+                .build();
+    }
+
+    /**
+     * Hash aggregate of the positions of both systems
+     */
+    static final class PositionAggregate {
+
+        private final Map<PositionKey, PositionSums> positions = new HashMap<>();
+        private long legs;
+
+        void add(boolean systemA, int epochDay, String instrument, String counterparty,
+                 long quantityMicros, double notional) {
+            PositionSums sums = positions.computeIfAbsent(new PositionKey(epochDay, instrument, counterparty),
+                    key -> new PositionSums());
+            if (systemA) {
+                sums.systemAQuantityMicros += quantityMicros;
+                sums.systemANotional.add(notional);
+                sums.systemATrades++;
+            } else {
+                sums.systemBQuantityMicros += quantityMicros;
+                sums.systemBNotional.add(notional);
+                sums.systemBTrades++;
+            }
+            legs++;
+        }
+
+        int size() {
+            return positions.size();
+        }
+
+        long legs() {
+            return legs;
+        }
+
+        List<PositionBreak> breaks(long quantityToleranceMicros, double notionalTolerance, LocalDateTime detectedAt) {
+            List<PositionBreak> breaks = new ArrayList<>();
+            positions.forEach((key, sums) -> {
+                long quantityDifference = sums.systemAQuantityMicros - sums.systemBQuantityMicros;
+                double notionalDifference = sums.systemANotional.sum() - sums.systemBNotional.sum();
+                if (Math.abs(quantityDifference) <= quantityToleranceMicros
+                        && Math.abs(notionalDifference) <= notionalTolerance) {
+                    return;
+                }
+                breaks.add(PositionBreak.builder()
+                        .businessDate(LocalDate.ofEpochDay(key.epochDay()))
+                        .instrument(key.instrument())
+                        .counterparty(key.counterparty())
+                        .systemAQuantity(quantity(sums.systemAQuantityMicros))
+                        .systemBQuantity(quantity(sums.systemBQuantityMicros))
+                        .systemANotional(notional(sums.systemANotional.sum()))
+                        .systemBNotional(notional(sums.systemBNotional.sum()))
+                        .systemATradeCount(sums.systemATrades)
+                        .systemBTradeCount(sums.systemBTrades)
+                        .quantityDifference(quantity(quantityDifference))
+                        .notionalDifference(notional(notionalDifference))
+                        .detectedAt(detectedAt)
+                        .build());
+            });
+            return breaks;
+        }
+
+        private static BigDecimal quantity(long micros) {
+            return BigDecimal.valueOf(micros, PositionRepository.QUANTITY_SCALE);
+        }
+
+        private static BigDecimal notional(double notional) {
+            return BigDecimal.valueOf(notional).setScale(NOTIONAL_SCALE, RoundingMode.HALF_EVEN);
+        }
+    }
+
+    private record PositionKey(int epochDay, String instrument, String counterparty) {
+    }
+
+    private static final class PositionSums {
+        long systemAQuantityMicros;
+        long systemBQuantityMicros;
+        final CompensatedSum systemANotional = new CompensatedSum();
+        final CompensatedSum systemBNotional = new CompensatedSum();
+        long systemATrades;
+        long systemBTrades;
+    }
+
+    /**
+     * Kahan summation, so adding millions of notionals does not accumulate rounding error
+     */
+    private static final class CompensatedSum {
+        private double sum;
+        private double compensation;
+
+        void add(double value) {
+            double adjusted = value - compensation;
+            double next = sum + adjusted;
+            compensation = (next - sum) - adjusted;
+            sum = next;
+        }
+
+        double sum() {
+            return sum;
+        }
+    }
+}
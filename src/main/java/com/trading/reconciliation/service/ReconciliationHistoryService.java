@@ -0,0 +1,24 @@
+package com.trading.reconciliation.service;
+
+import com.trading.reconciliation.dto.ReconciliationStatusHistoryDto;
+
+import java.util.List;
+
+/**
+ * Service interface for the append-only history of reconciliation status transitions
+ */
+public interface ReconciliationHistoryService {
+
+    /**
+     * Get the status transitions of a trade
+     * @param tradeId The trade identifier
+     * @return The transitions written so far, oldest first
+     */
+    List<ReconciliationStatusHistoryDto> getStatusHistory(String tradeId);
+
+    /**
+     * Write the buffered status transitions to the history table
+     * @return Number of transitions written
+     */
+    int flush();
+}
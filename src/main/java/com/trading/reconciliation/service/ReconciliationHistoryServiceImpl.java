@@ -0,0 +1,286 @@
+package com.trading.reconciliation.service;
+
+import com.trading.reconciliation.dto.ReconciliationStatusHistoryDto;
+import com.trading.reconciliation.model.HistoryDurability;
+import com.trading.reconciliation.model.ReconciliationStatusHistory;
+import com.trading.reconciliation.repository.ReconciliationStatusHistoryRepository;
+import com.trading.reconciliation.service.ReconciliationOutcomeEvent.Outcome;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Implementation of ReconciliationHistoryService
+ * 
+ * Every reconciliation outcome whose status differs from the previous one, whether
+ * recorded by executeReconciliation or expired by the timeout service, becomes a row
+ * of the status history. How it gets there depends on the durability mode:
+ * 
+ * - TRANSACTIONAL collects the transitions of a transaction and inserts them in one
+ *   batch just before it commits, so history and status commit or roll back together
+ * - BLOCKING and BEST_EFFORT offer transitions to a bounded buffer once the
+ *   transaction has committed. A writer thread of its own drains the buffer in large
+ *   batches, one transaction per batch. When the buffer is full, BLOCKING makes the
+ *   committing thread wait for space, for at most the offer timeout, while BEST_EFFORT
+ *   drops the transition straight away; either way a dropped transition is counted
+ * 
+ * The committing thread may be a scheduler thread, for example when timeouts expire,
+ * so it never waits indefinitely, and the writer never shares a thread with it.
+ * 
+ * A batch that fails to write is kept and retried first on the next flush, so the
+ * buffer fills up rather than transitions being reordered or lost while the database
+ * is unavailable. Buffered transitions are lost if the instance is killed without a
+ * graceful shutdown.
+ */
+@Service
+@Slf4j
+public class ReconciliationHistoryServiceImpl implements ReconciliationHistoryService {
+    
+    private final ReconciliationStatusHistoryRepository historyRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final HistoryDurability durability;
+    private final BlockingQueue<ReconciliationStatusHistory> buffer;
+    private final int batchSize;
+    private final long flushIntervalMillis;
+    private final long offerTimeoutMillis;
+    private final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor(
+            new CustomizableThreadFactory("history-writer-"));
+    private final Counter writtenTransitions;
+    private final Counter droppedTransitions;
+    
+    private final Object writerLock = new Object();
+    private List<ReconciliationStatusHistory> failedBatch = List.of();
+    
+    public ReconciliationHistoryServiceImpl(
+            ReconciliationStatusHistoryRepository historyRepository,
+            TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${reconciliation.history.durability}") String durability,
+            @Value("${reconciliation.history.buffer-size}") int bufferSize,
+            @Value("${reconciliation.history.batch-size}") int batchSize,
+            @Value("${reconciliation.history.flush-interval-ms}") long flushIntervalMillis,
+            @Value("${reconciliation.history.offer-timeout-ms}") long offerTimeoutMillis) {
+        this.historyRepository = historyRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.durability = HistoryDurability.valueOf(durability.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+        this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        this.batchSize = batchSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.offerTimeoutMillis = offerTimeoutMillis;
+        this.writtenTransitions = Counter.builder("reconciliation.history.written")
+                .description("Status transitions written to the status history")
+                .register(meterRegistry);
+        this.droppedTransitions = Counter.builder("reconciliation.history.dropped")
+                .description("Status transitions dropped because the history buffer stayed full")
+                .register(meterRegistry);
+        Gauge.builder("reconciliation.history.buffered", buffer, BlockingQueue::size)
+                .description("Status transitions waiting for the history writer")
+                .register(meterRegistry);
+        
+        log.info("Recording reconciliation status history with {} durability", this.durability);
+    }
+    
+    /**
+     * Start the writer draining the buffer in the buffered modes
+     */
+    @PostConstruct
+    public void start() {
+        if (durability != HistoryDurability.TRANSACTIONAL) {
+            writer.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMillis, flushIntervalMillis,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+    
+    /**
+     * Collect a status transition for insertion with the transaction that recorded it
+     */
+    @EventListener
+    public void onReconciliationOutcomeInTransaction(ReconciliationOutcomeEvent event) {
+        if (durability != HistoryDurability.TRANSACTIONAL) {
+            return;
+        }
+        
+        ReconciliationStatusHistory transition = toTransition(event);
+        if (transition == null) {
+            return;
+        }
+        
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            transactionTransitions().add(transition);
+        } else {
+            historyRepository.insertAll(List.of(transition));
+            writtenTransitions.increment();
+        }
+    }
+    
+    /**
+     * Buffer a status transition for the writer once its transaction has committed
+     */
+    @TransactionalEventListener
+    public void onReconciliationOutcome(ReconciliationOutcomeEvent event) {
+        if (durability == HistoryDurability.TRANSACTIONAL) {
+            return;
+        }
+        
+        ReconciliationStatusHistory transition = toTransition(event);
+        if (transition == null) {
+            return;
+        }
+        
+        long timeoutMillis = durability == HistoryDurability.BLOCKING ? offerTimeoutMillis : 0;
+        try {
+            if (buffer.offer(transition, timeoutMillis, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        
+        droppedTransitions.increment();
+        log.warn("Dropped status transition of tradeId: {} to {}, the history buffer is full",
+                transition.getTradeId(), transition.getStatus());
+    }
+    
+    /**
+     * Stop the writer and write buffered transitions before the instance stops
+     */
+    @PreDestroy
+    public void flushOnShutdown() {
+        writer.shutdownNow();
+        flush();
+    }
+    
+    @Override
+    public int flush() {
+        synchronized (writerLock) {
+            int written = 0;
+            List<ReconciliationStatusHistory> batch;
+            do {
+                batch = failedBatch;
+                if (batch.isEmpty()) {
+                    batch = new ArrayList<>(batchSize);
+                    buffer.drainTo(batch, batchSize);
+                    if (batch.isEmpty()) {
+                        break;
+                    }
+                }
+                
+                List<ReconciliationStatusHistory> transitions = batch;
+                try {
+                    transactionTemplate.executeWithoutResult(status -> historyRepository.insertAll(transitions));
+                } catch (Exception e) {
+                    log.error("Error writing {} status transitions, will retry with the next flush", batch.size(), e);
+                    failedBatch = batch;
+                    break;
+                }
+                
+                failedBatch = List.of();
+                writtenTransitions.increment(batch.size());
+                written += batch.size();
+            } while (batch.size() == batchSize);
+            
+            if (written > 0) {
+                log.debug("Wrote {} status transitions to the status history", written);
+            }
+            return written;
+        }
+    }
+    
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            // Keep the writer running; failed batches are already kept for the next flush
+            log.error("Error flushing the status history buffer", e);
+        }
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public List<ReconciliationStatusHistoryDto> getStatusHistory(String tradeId) {
+        log.info("Getting status history for tradeId: {}", tradeId);
+        
+        return historyRepository.findByTradeId(tradeId).stream()
+                .map(transition -> ReconciliationStatusHistoryDto.builder()
+                        .tradeId(transition.getTradeId())
+                        .previousStatus(transition.getPreviousStatus())
+                        .status(transition.getStatus())
+                        .statusDescription(transition.getStatus().getDescription())
+                        .mismatchedFields(transition.getMismatchedFields())
+                        .occurredAt(transition.getOccurredAt())
+                        .build())
+                .toList();
+    }
+    
+    /**
+     * Status transition of an outcome, or null if the status did not change
+     */
+    private ReconciliationStatusHistory toTransition(ReconciliationOutcomeEvent event) {
+        Outcome previous = event.previous();
+        Outcome current = event.current();
+        if (current == null || (previous != null && previous.status() == current.status())) {
+            return null;
+        }
+        
+        return ReconciliationStatusHistory.builder()
+                .tradeId(event.tradeId())
+                .previousStatus(previous == null ? null : previous.status())
+                .status(current.status())
+                .mismatchedFields(current.mismatchedFields().isEmpty()
+                        ? null : String.join(",", current.mismatchedFields()))
+                .occurredAt(LocalDateTime.now())
+                .build();
+    }
+    
+    /**
+     * Transitions collected in the current transaction, inserted just before it commits
+     */
+    @SuppressWarnings("unchecked")
+    private List<ReconciliationStatusHistory> transactionTransitions() {
+        List<ReconciliationStatusHistory> transitions =
+                (List<ReconciliationStatusHistory>) TransactionSynchronizationManager.getResource(this);
+        if (transitions != null) {
+            return transitions;
+        }
+        
+        List<ReconciliationStatusHistory> collected = new ArrayList<>();
+        TransactionSynchronizationManager.bindResource(this, collected);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                historyRepository.insertAll(collected);
+            }
+            
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(ReconciliationHistoryServiceImpl.this);
+                if (status == STATUS_COMMITTED) {
+                    writtenTransitions.increment(collected.size());
+                }
+            }
+        });
+        return collected;
+    }
+}
@@ -0,0 +1,46 @@
+package com.trading.reconciliation.service;
+
+import com.trading.reconciliation.model.BreakRollupKey;
+import com.trading.reconciliation.model.ReconciliationStatus;
+import com.trading.reconciliation.model.TradeReconciliation;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Published when reconciliation of a trade records an outcome
+ * @param tradeId The trade identifier
+ * @param previous The outcome recorded before, or null for a new reconciliation
+ * @param current The outcome recorded now
+ * @param matchLagMillis Time from the first reconciliation attempt to the match, or null unless the trade just matched
+ */
+public record ReconciliationOutcomeEvent(String tradeId, Outcome previous, Outcome current, Long matchLagMillis) {
+    
+    /**
+     * Status and rollup dimensions of a recorded outcome
+     * @param status The reconciliation status
+     * @param key Business date, counterparty and instrument, or null if no leg was seen yet
+     * @param mismatchedFields Names of the fields that differed
+     */
+    public record Outcome(ReconciliationStatus status, BreakRollupKey key, List<String> mismatchedFields) {
+        
+        /**
+         * Capture the outcome currently stored in a reconciliation record
+         * @param reconciliation The reconciliation record
+         * @return The outcome, or null if the record has no status yet
+         */
+        public static Outcome of(TradeReconciliation reconciliation) {
+            if (reconciliation.getStatus() == null) {
+                return null;
+            }
+            
+            BreakRollupKey key = reconciliation.getBusinessDate() == null ? null : new BreakRollupKey(
+                    reconciliation.getBusinessDate(), reconciliation.getCounterparty(), reconciliation.getInstrument());
+            List<String> mismatchedFields = reconciliation.getMismatchedFields() == null
+                    ? List.of()
+                    : Arrays.asList(reconciliation.getMismatchedFields().split(","));
+            
+            return new Outcome(reconciliation.getStatus(), key, mismatchedFields);
+        }
+    }
+}
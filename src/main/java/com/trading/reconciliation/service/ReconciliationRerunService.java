@@ -0,0 +1,74 @@
+package com.trading.reconciliation.service;
+
+import com.trading.reconciliation.dto.ReconciliationRerunJobDto;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Service interface for re-running reconciliation over historical trades, for example after a matching rule change
+ */
+public interface ReconciliationRerunService {
+
+    /**
+     * Start a job re-running reconciliation for the reconciliations in a business date range
+     * @param from First business date, inclusive
+     * @param to Last business date, inclusive
+     * @param statuses The statuses to include; all statuses when empty
+     * @param ratePerSecond Trades re-reconciled per second, or null for the configured default
+     * @return The created job
+     * @throws IllegalArgumentException if a status or the rate is invalid
+     */
+    ReconciliationRerunJobDto startRerun(LocalDate from, LocalDate to, List<String> statuses, Integer ratePerSecond);
+
+    /**
+     * Get the progress of a job
+     * @param jobId The job id
+     * @return Optional containing the job if found
+     */
+    Optional<ReconciliationRerunJobDto> getRerun(long jobId);
+
+    /**
+     * Get the trades whose re-reconciliation failed in a job and has not succeeded on retry
+     * @param jobId The job id
+     * @return Optional containing the trade identifiers if the job was found
+     */
+    Optional<List<String>> getFailedTrades(long jobId);
+
+    /**
+     * Get the most recent jobs
+     * @return The jobs, newest first
+     */
+    List<ReconciliationRerunJobDto> getRecentReruns();
+
+    /**
+     * Change the rate of a job; a running job picks it up with its next chunk
+     * @param jobId The job id
+     * @param ratePerSecond Trades re-reconciled per second
+     * @return Optional containing the job if found
+     * @throws IllegalArgumentException if the rate is invalid
+     */
+    Optional<ReconciliationRerunJobDto> updateRate(long jobId, int ratePerSecond);
+
+    /**
+     * Pause a running job after its current chunk
+     * @param jobId The job id
+     * @return Optional containing the job if found; it is unchanged unless it was running
+     */
+    Optional<ReconciliationRerunJobDto> pause(long jobId);
+
+    /**
+     * Resume a paused job from its checkpoint
+     * @param jobId The job id
+     * @return Optional containing the job if found; it is unchanged unless it was paused
+     */
+    Optional<ReconciliationRerunJobDto> resume(long jobId);
+
+    /**
+     * Cancel a running or paused job after its current chunk
+     * @param jobId The job id
+     * @return Optional containing the job if found; it is unchanged if it had already finished
+     */
+    Optional<ReconciliationRerunJobDto> cancel(long jobId);
+}
@@ -0,0 +1,416 @@
+package com.trading.reconciliation.service;
+
+import com.trading.reconciliation.dto.ReconciliationRerunJobDto;
+import com.trading.reconciliation.model.ReconciliationRerunFailure;
+import com.trading.reconciliation.model.ReconciliationRerunJob;
+import com.trading.reconciliation.model.ReconciliationStatus;
+import com.trading.reconciliation.model.RerunJobState;
+import com.trading.reconciliation.repository.ReconciliationRerunFailureRepository;
+import com.trading.reconciliation.repository.ReconciliationRerunJobRepository;
+import com.trading.reconciliation.repository.TradeReconciliationRepository;
+import com.trading.reconciliation.repository.TradeReconciliationRepository.ReconciliationKey;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+
+/**
+ * Implementation of ReconciliationRerunService
+ * 
+ * Jobs re-run reconciliation directly, without going through the task queue, so a
+ * large re-run never delays live reconciliation tasks. The matching reconciliations
+ * are read in keyset order (by id, after the checkpoint) in chunks, each chunk is
+ * processed by a pool of workers paced at the job's rate, and the checkpoint and
+ * counters are written after every chunk.
+ * 
+ * Jobs are stored in the database, and the instance running a job holds a lease for
+ * it that is renewed after every chunk. If that instance dies, another instance finds
+ * the job still RUNNING when the lease expires and resumes it from its checkpoint, so
+ * at most one chunk is re-reconciled twice, which is harmless. Rate, pause and cancel
+ * requests are written to the job and picked up before the next chunk, on whichever
+ * instance runs it.
+ * 
+ * The checkpoint moves past trades whose re-reconciliation failed, so they are recorded
+ * in the same transaction as the checkpoint. Once all matching reconciliations have
+ * been walked, the recorded trades are retried in chunks the same way before the job
+ * completes; those that recover are moved from the failed to the processed count, and
+ * those that fail again stay recorded.
+ */
+@Service
+@ConditionalOnProperty(name = "reconciliation.storage.engine", havingValue = "jpa", matchIfMissing = true)
+@Slf4j
+public class ReconciliationRerunServiceImpl implements ReconciliationRerunService {
+    
+    private static final String RERUN_LEASE_PREFIX = "reconciliation-rerun-";
+    private static final int MAX_ATTEMPTS = 2;
+    
+    private final ReconciliationRerunJobRepository jobRepository;
+    private final ReconciliationRerunFailureRepository failureRepository;
+    private final TradeReconciliationRepository reconciliationRepository;
+    private final ReconciliationService reconciliationService;
+    private final LeaseService leaseService;
+    private final TransactionTemplate transactionTemplate;
+    
+    private final ExecutorService jobExecutor;
+    private final ExecutorService workerExecutor;
+    private final Set<Long> activeJobs = ConcurrentHashMap.newKeySet();
+    
+    @Value("${reconciliation.rerun.chunk-size}")
+    private int chunkSize;
+    
+    @Value("${reconciliation.rerun.default-rate-per-second}")
+    private int defaultRatePerSecond;
+    
+    @Value("${reconciliation.rerun.max-rate-per-second}")
+    private int maxRatePerSecond;
+    
+    @Value("${reconciliation.rerun.lease-ttl-ms}")
+    private long leaseTtlMillis;
+    
+    public ReconciliationRerunServiceImpl(ReconciliationRerunJobRepository jobRepository,
+                                          ReconciliationRerunFailureRepository failureRepository,
+                                          TradeReconciliationRepository reconciliationRepository,
+                                          ReconciliationService reconciliationService,
+                                          LeaseService leaseService,
+                                          TransactionTemplate transactionTemplate,
+                                          @Value("${reconciliation.rerun.worker-threads}") int workerThreads) {
+        this.jobRepository = jobRepository;
+        this.failureRepository = failureRepository;
+        this.reconciliationRepository = reconciliationRepository;
+        this.reconciliationService = reconciliationService;
+        this.leaseService = leaseService;
+        this.transactionTemplate = transactionTemplate;
+        this.jobExecutor = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("rerun-job-"));
+        this.workerExecutor = Executors.newFixedThreadPool(workerThreads,
+                new CustomizableThreadFactory("rerun-worker-"));
+    }
+    
+    @Override
+    public ReconciliationRerunJobDto startRerun(LocalDate from, LocalDate to, List<String> statuses,
+                                                Integer ratePerSecond) {
+        EnumSet<ReconciliationStatus> included = parseStatuses(statuses);
+        int rate = ratePerSecond != null ? validRate(ratePerSecond) : defaultRatePerSecond;
+        
+        LocalDateTime now = LocalDateTime.now();
+        ReconciliationRerunJob job = jobRepository.save(ReconciliationRerunJob.builder()
+                .fromDate(from)
+                .toDate(to)
+                .statuses(String.join(",", included.stream().map(Enum::name).toList()))
+                .state(RerunJobState.RUNNING)
+                .ratePerSecond(rate)
+                .total(reconciliationRepository.countByBusinessDateBetweenAndStatusIn(from, to, included))
+                .createdAt(now)
+                .updatedAt(now)
+                .build());
+        log.info("Created re-reconciliation job {} for {} reconciliations {} between {} and {} at {} per second",
+                job.getId(), job.getTotal(), included, from, to, rate);
+        
+        submit(job.getId());
+        return toDto(job);
+    }
+    
+    @Override
+    public Optional<ReconciliationRerunJobDto> getRerun(long jobId) {
+        return jobRepository.findById(jobId).map(this::toDto);
+    }
+    
+    @Override
+    public Optional<List<String>> getFailedTrades(long jobId) {
+        if (!jobRepository.existsById(jobId)) {
+            return Optional.empty();
+        }
+        return Optional.of(failureRepository.findByJobIdOrderByIdAsc(jobId).stream()
+                .map(ReconciliationRerunFailure::getTradeId)
+                .toList());
+    }
+    
+    @Override
+    public List<ReconciliationRerunJobDto> getRecentReruns() {
+        return jobRepository.findTop20ByOrderByIdDesc().stream().map(this::toDto).toList();
+    }
+    
+    @Override
+    public Optional<ReconciliationRerunJobDto> updateRate(long jobId, int ratePerSecond) {
+        int rate = validRate(ratePerSecond);
+        transactionTemplate.executeWithoutResult(status -> jobRepository.updateRate(jobId, rate));
+        log.info("Re-reconciliation job {} rate set to {} per second", jobId, rate);
+        return getRerun(jobId);
+    }
+    
+    @Override
+    public Optional<ReconciliationRerunJobDto> pause(long jobId) {
+        return transition(jobId, EnumSet.of(RerunJobState.RUNNING), RerunJobState.PAUSED);
+    }
+    
+    @Override
+    public Optional<ReconciliationRerunJobDto> resume(long jobId) {
+        Optional<ReconciliationRerunJobDto> job = transition(jobId, EnumSet.of(RerunJobState.PAUSED),
+                RerunJobState.RUNNING);
+        job.filter(resumed -> resumed.getState() == RerunJobState.RUNNING)
+                .ifPresent(resumed -> submit(jobId));
+        return job;
+    }
+    
+    @Override
+    public Optional<ReconciliationRerunJobDto> cancel(long jobId) {
+        return transition(jobId, EnumSet.of(RerunJobState.RUNNING, RerunJobState.PAUSED), RerunJobState.CANCELLED);
+    }
+    
+    /**
+     * Pick up running jobs that no instance is working on, such as those of a crashed instance
+     */
+    @Scheduled(initialDelayString = "${reconciliation.rerun.poll-interval-ms}",
+            fixedDelayString = "${reconciliation.rerun.poll-interval-ms}")
+    public void resumeInterruptedJobs() {
+        try {
+            jobRepository.findByStateOrderByIdAsc(RerunJobState.RUNNING)
+                    .forEach(job -> submit(job.getId()));
+        } catch (Exception e) {
+            log.error("Error looking for interrupted re-reconciliation jobs", e);
+        }
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        // Interrupted jobs stay RUNNING and are resumed from their checkpoint
+        jobExecutor.shutdownNow();
+        workerExecutor.shutdownNow();
+    }
+    
+    private void submit(long jobId) {
+        if (activeJobs.add(jobId)) {
+            jobExecutor.execute(() -> {
+                try {
+                    run(jobId);
+                } finally {
+                    activeJobs.remove(jobId);
+                }
+            });
+        }
+    }
+    
+    /**
+     * Process a job chunk by chunk until it is finished, paused or cancelled, or the lease is lost
+     */
+    void run(long jobId) {
+        String lease = RERUN_LEASE_PREFIX + jobId;
+        Duration leaseTtl = Duration.ofMillis(leaseTtlMillis);
+        if (!leaseService.tryAcquire(lease, leaseTtl)) {
+            log.debug("Re-reconciliation job {} is running on another instance", jobId);
+            return;
+        }
+        
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                Optional<ReconciliationRerunJob> current = jobRepository.findById(jobId);
+                if (current.isEmpty() || current.get().getState() != RerunJobState.RUNNING) {
+                    log.info("Re-reconciliation job {} stopped in state {}", jobId,
+                            current.map(ReconciliationRerunJob::getState).orElse(null));
+                    return;
+                }
+                
+                ReconciliationRerunJob job = current.get();
+                int limit = chunkLimit(job.getRatePerSecond());
+                List<ReconciliationKey> chunk = reconciliationRepository.findKeysAfter(job.getCheckpointId(),
+                        job.getFromDate(), job.getToDate(), Arrays.asList(job.getStatuses().split(",")), limit);
+                if (!chunk.isEmpty()) {
+                    processChunk(job, chunk);
+                } else {
+                    List<ReconciliationRerunFailure> failures = failureRepository
+                            .findByJobIdAndAttemptsLessThanOrderByIdAsc(jobId, MAX_ATTEMPTS, PageRequest.of(0, limit));
+                    if (failures.isEmpty()) {
+                        transactionTemplate.executeWithoutResult(status -> jobRepository.transition(jobId,
+                                EnumSet.of(RerunJobState.RUNNING), RerunJobState.COMPLETED, LocalDateTime.now()));
+                        log.info("Re-reconciliation job {} completed", jobId);
+                        return;
+                    }
+                    retryFailures(job, failures);
+                }
+                
+                if (!leaseService.tryAcquire(lease, leaseTtl)) {
+                    log.warn("Lost the lease of re-reconciliation job {}, leaving it to another instance", jobId);
+                    return;
+                }
+            }
+        } catch (Exception e) {
+            log.error("Error running re-reconciliation job {}, it will resume from its last checkpoint", jobId, e);
+        } finally {
+            leaseService.release(lease);
+        }
+    }
+    
+    /**
+     * Re-reconcile one chunk, then record the checkpoint together with the trades that failed
+     */
+    private void processChunk(ReconciliationRerunJob job, List<ReconciliationKey> chunk) {
+        long start = System.nanoTime();
+        List<Failure> failures = reconcileAll(job, chunk.stream().map(ReconciliationKey::getTradeId).toList());
+        
+        long checkpointId = chunk.get(chunk.size() - 1).getId();
+        long activeMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+        transactionTemplate.executeWithoutResult(status -> {
+            failures.forEach(failure -> failureRepository.recordFailure(job.getId(), failure.tradeId(), 1,
+                    failure.error()));
+            jobRepository.recordProgress(job.getId(), checkpointId, chunk.size() - failures.size(), failures.size(),
+                    activeMillis, leaseService.getInstanceId(), lastError(failures));
+        });
+        log.debug("Re-reconciliation job {} processed {} trades up to reconciliation {}",
+                job.getId(), chunk.size(), checkpointId);
+    }
+    
+    /**
+     * Retry recorded failures, moving the trades that now succeed from the failed to the processed count
+     */
+    private void retryFailures(ReconciliationRerunJob job, List<ReconciliationRerunFailure> failures) {
+        long start = System.nanoTime();
+        List<String> tradeIds = failures.stream().map(ReconciliationRerunFailure::getTradeId).toList();
+        Map<String, Integer> attempts = failures.stream().collect(Collectors.toMap(
+                ReconciliationRerunFailure::getTradeId, ReconciliationRerunFailure::getAttempts));
+        List<Failure> stillFailing = reconcileAll(job, tradeIds);
+        
+        Set<String> failed = stillFailing.stream().map(Failure::tradeId).collect(Collectors.toSet());
+        List<String> recovered = tradeIds.stream().filter(tradeId -> !failed.contains(tradeId)).toList();
+        long activeMillis = Duration.ofNanos(System.nanoTime() - start).toMillis();
+        transactionTemplate.executeWithoutResult(status -> {
+            stillFailing.forEach(failure -> failureRepository.recordFailure(job.getId(), failure.tradeId(),
+                    attempts.get(failure.tradeId()) + 1, failure.error()));
+            if (!recovered.isEmpty()) {
+                failureRepository.deleteByJobIdAndTradeIds(job.getId(), recovered);
+            }
+            jobRepository.recordProgress(job.getId(), job.getCheckpointId(), recovered.size(), -recovered.size(),
+                    activeMillis, leaseService.getInstanceId(), lastError(stillFailing));
+        });
+        log.info("Re-reconciliation job {} retried {} failed trades, {} recovered",
+                job.getId(), tradeIds.size(), recovered.size());
+    }
+    
+    /**
+     * Re-reconcile trades on the worker pool at the job's rate
+     * @return The trades that failed
+     */
+    private List<Failure> reconcileAll(ReconciliationRerunJob job, List<String> tradeIds) {
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / job.getRatePerSecond();
+        AtomicLong nextStartAt = new AtomicLong(System.nanoTime());
+        ConcurrentLinkedQueue<Failure> failures = new ConcurrentLinkedQueue<>();
+        
+        List<CompletableFuture<Void>> futures = new ArrayList<>(tradeIds.size());
+        for (String tradeId : tradeIds) {
+            futures.add(CompletableFuture.runAsync(() -> {
+                LockSupport.parkNanos(nextStartAt.getAndAdd(intervalNanos) - System.nanoTime());
+                try {
+                    reconciliationService.executeReconciliation(tradeId);
+                } catch (Exception e) {
+                    // Transient failures are rethrown by the reconciliation; record them and move on
+                    log.warn("Re-reconciliation of tradeId: {} failed", tradeId, e);
+                    failures.add(new Failure(tradeId, e.getMessage()));
+                }
+            }, workerExecutor));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+        return List.copyOf(failures);
+    }
+    
+    private String lastError(List<Failure> failures) {
+        if (failures.isEmpty()) {
+            return null;
+        }
+        Failure last = failures.get(failures.size() - 1);
+        return last.tradeId() + ": " + last.error();
+    }
+    
+    /**
+     * Size chunks to take at most a quarter of the lease TTL at the given rate, so the lease is renewed in time
+     */
+    private int chunkLimit(int ratePerSecond) {
+        long limit = ratePerSecond * leaseTtlMillis / 4000;
+        return (int) Math.max(1, Math.min(chunkSize, limit));
+    }
+    
+    private Optional<ReconciliationRerunJobDto> transition(long jobId, Set<RerunJobState> expected,
+                                                           RerunJobState state) {
+        LocalDateTime completedAt = state == RerunJobState.CANCELLED ? LocalDateTime.now() : null;
+        Integer updated = transactionTemplate.execute(status ->
+                jobRepository.transition(jobId, expected, state, completedAt));
+        if (updated != null && updated > 0) {
+            log.info("Re-reconciliation job {} is now {}", jobId, state);
+        }
+        return getRerun(jobId);
+    }
+    
+    private EnumSet<ReconciliationStatus> parseStatuses(List<String> statuses) {
+        if (statuses == null || statuses.isEmpty()) {
+            return EnumSet.allOf(ReconciliationStatus.class);
+        }
+        EnumSet<ReconciliationStatus> parsed = EnumSet.noneOf(ReconciliationStatus.class);
+        for (String status : statuses) {
+            parsed.add(ReconciliationStatus.valueOf(status.trim().toUpperCase()));
+        }
+        return parsed;
+    }
+    
+    private int validRate(int ratePerSecond) {
+        if (ratePerSecond < 1 || ratePerSecond > maxRatePerSecond) {
+            throw new IllegalArgumentException("Rate must be between 1 and " + maxRatePerSecond + " per second");
+        }
+        return ratePerSecond;
+    }
+    
+    private ReconciliationRerunJobDto toDto(ReconciliationRerunJob job) {
+        long done = job.getProcessed() + job.getFailed();
+        double throughput = job.getActiveMillis() > 0 ? done * 1000.0 / job.getActiveMillis() : 0;
+        long remaining = Math.max(0, job.getTotal() - done);
+        Long etaSeconds = job.getState() == RerunJobState.RUNNING && throughput > 0
+                ? (long) Math.ceil(remaining / throughput) : null;
+        double percentComplete = job.getState() == RerunJobState.COMPLETED || job.getTotal() == 0 ? 100.0
+                : Math.min(100.0, done * 100.0 / job.getTotal());
+        
+        return ReconciliationRerunJobDto.builder()
+                .jobId(job.getId())
+                .from(job.getFromDate())
+                .to(job.getToDate())
+                .statuses(Arrays.asList(job.getStatuses().split(",")))
+                .state(job.getState())
+                .ratePerSecond(job.getRatePerSecond())
+                .total(job.getTotal())
+                .processed(job.getProcessed())
+                .failed(job.getFailed())
+                .percentComplete(percentComplete)
+                .throughputPerSecond(throughput)
+                .etaSeconds(etaSeconds)
+                .checkpointId(job.getCheckpointId())
+                .ownerInstance(job.getOwnerInstance())
+                .lastError(job.getLastError())
+                .createdAt(job.getCreatedAt())
+                .updatedAt(job.getUpdatedAt())
+                .completedAt(job.getCompletedAt())
+                .build();
+    }
+    
+    private record Failure(String tradeId, String error) {
+    }
+}
@@ -1,9 +1,13 @@
 package com.trading.reconciliation.service;
 
+import com.trading.reconciliation.dto.ReconciliationLookupResponseDto;
 import com.trading.reconciliation.dto.ReconciliationResponseDto;
+import com.trading.reconciliation.dto.ReconciliationTaskMessage;
+import com.trading.reconciliation.model.TradeData;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
+import java.util.Collection;
 import java.util.Optional;
 
 /**
@@ -17,6 +21,18 @@ public interface ReconciliationService {
      */
     void triggerReconciliation(String tradeId);
     
+    /**
+     * Trigger reconciliation for a trade on the priority lane, ahead of any ingestion backlog
+     * @param tradeId The trade identifier
+     */
+    void triggerPriorityReconciliation(String tradeId);
+    
+    /**
+     * Trigger reconciliation for a trade after one of its legs was saved
+     * @param tradeData The saved trade leg, sent along with the task when snapshots are enabled
+     */
+    void triggerReconciliation(TradeData tradeData);
+    
     /**
      * Execute reconciliation for a trade
      * @param tradeId The trade identifier
@@ -24,7 +40,13 @@ public interface ReconciliationService {
     void executeReconciliation(String tradeId);
     
     /**
-     * Process timeout for pending reconciliations
+     * Execute reconciliation for a trade using the leg snapshot carried by the task
+     * @param task The reconciliation task with the triggering leg
+     */
+    void executeReconciliation(ReconciliationTaskMessage task);
+    
+    /**
+     * Process timeout for pending reconciliations missed by the timeout schedule
      */
     void processTimeouts();
     
@@ -36,10 +58,33 @@ public interface ReconciliationService {
     Optional<ReconciliationResponseDto> getReconciliationStatus(String tradeId);
     
     /**
-     * Get paginated list of reconciliations with optional status filter
+     * Get the version of a trade's reconciliation status without loading it, for use as an ETag
+     * @param tradeId The trade identifier
+     * @return Optional containing a version that changes whenever the status response changes
+     */
+    Optional<String> getReconciliationStatusVersion(String tradeId);
+    
+    /**
+     * Get reconciliation statuses for many trades at once
+     * @param tradeIds The trade identifiers
+     * @return Reconciliation responses by tradeId, and the tradeIds not found
+     */
+    ReconciliationLookupResponseDto lookupReconciliations(Collection<String> tradeIds);
+    
+    /**
+     * Get paginated list of reconciliations with optional status and counterparty filters
      * @param status Optional status filter
+     * @param counterparty Optional counterparty filter
      * @param pageable Pagination information
      * @return Page of reconciliation responses
      */
-    Page<ReconciliationResponseDto> getReconciliations(String status, Pageable pageable);
+    Page<ReconciliationResponseDto> getReconciliations(String status, String counterparty, Pageable pageable);
+    
+    /**
+     * Get the version of the reconciliations matching the filters, for use as an ETag
+     * @param status Optional status filter
+     * @param counterparty Optional counterparty filter
+     * @return A version that changes whenever any page of the filtered list may change
+     */
+    String getReconciliationsVersion(String status, String counterparty);
 } 
\ No newline at end of file
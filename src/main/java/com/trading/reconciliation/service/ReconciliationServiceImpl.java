@@ -1,55 +1,147 @@
 package com.trading.reconciliation.service;
 
+import com.trading.reconciliation.dto.ReconciliationLookupResponseDto;
 import com.trading.reconciliation.dto.ReconciliationResponseDto;
+import com.trading.reconciliation.dto.ReconciliationTaskMessage;
+import com.trading.reconciliation.exception.StorageEngineUnsupportedException;
+import com.trading.reconciliation.messaging.DeskLanes;
+import com.trading.reconciliation.messaging.ReconciliationTaskTransport;
+import com.trading.reconciliation.model.ArchivedTradeReconciliation;
 import com.trading.reconciliation.model.ReconciliationStatus;
 import com.trading.reconciliation.model.TradeData;
 import com.trading.reconciliation.model.TradeReconciliation;
-import com.trading.reconciliation.repository.TradeDataRepository;
-import com.trading.reconciliation.repository.TradeReconciliationRepository;
+import com.trading.reconciliation.profiling.CompareEvent;
+import com.trading.reconciliation.profiling.LegFetchEvent;
+import com.trading.reconciliation.profiling.PersistEvent;
+import com.trading.reconciliation.profiling.TriggerPublishEvent;
+import com.trading.reconciliation.repository.ArchivedTradeReconciliationRepository;
+import com.trading.reconciliation.repository.ReconciliationViewRepository;
+import com.trading.reconciliation.repository.ReconciliationViewRepository.CollectionVersion;
+import com.trading.reconciliation.repository.ReconciliationViewRepository.ReconciliationViewRow;
+import com.trading.reconciliation.repository.TradeReconciliationRepository.ReconciliationVersion;
+import com.trading.reconciliation.service.ReconciliationOutcomeEvent.Outcome;
+import com.trading.reconciliation.storage.ReconciliationStore;
+import com.trading.reconciliation.storage.TradeLegStore;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
 /**
  * Implementation of ReconciliationService
+ * 
+ * Reads go to the reconciliation_view read model first. The memory storage engine
+ * never writes the source tables the read model is copied from, so with that engine
+ * single trades are read from the store alone and the list endpoint is not available.
  */
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class ReconciliationServiceImpl implements ReconciliationService {
     
-    private final TradeDataRepository tradeDataRepository;
-    private final TradeReconciliationRepository reconciliationRepository;
-    private final RabbitTemplate rabbitTemplate;
+    private final TradeLegStore legStore;
+    private final ReconciliationStore reconciliationStore;
+    private final ArchivedTradeReconciliationRepository archivedReconciliationRepository;
+    private final ReconciliationViewRepository viewRepository;
+    private final ReconciliationTaskTransport taskTransport;
+    private final DeskLanes deskLanes;
+    private final LegSnapshotCache legSnapshotCache;
+    private final ReconciliationTimeoutService timeoutService;
+    private final LeaseService leaseService;
+    private final ApplicationEventPublisher eventPublisher;
     
     private static final String SYSTEM_A = "System A";
     private static final String SYSTEM_B = "System B";
+    private static final String TIMEOUT_SWEEP_LEASE = "reconciliation-timeout-sweep";
     
     @Value("${reconciliation.queue.reconciliation-tasks}")
     private String reconciliationTasksQueue;
     
-    @Value("${reconciliation.timeout-minutes}")
-    private int reconciliationTimeoutMinutes;
+    @Value("${reconciliation.queue.reconciliation-priority-tasks}")
+    private String reconciliationPriorityTasksQueue;
+    
+    @Value("${reconciliation.timeout.sweep-interval-ms}")
+    private long timeoutSweepIntervalMillis;
+    
+    @Value("${reconciliation.task.include-leg-snapshot}")
+    private boolean includeLegSnapshot;
+    
+    @Value("${reconciliation.task.use-cached-counterpart}")
+    private boolean useCachedCounterpart;
+    
+    @Value("${reconciliation.lookup.chunk-size}")
+    private int lookupChunkSize;
+    
+    @Value("${reconciliation.storage.engine}")
+    private String storageEngine;
     
     @Override
     public void triggerReconciliation(String tradeId) {
         log.info("Triggering reconciliation for tradeId: {}", tradeId);
         
         // Send message to reconciliation queue
-        rabbitTemplate.convertAndSend(reconciliationTasksQueue, tradeId);
+        publishTask(tradeId, reconciliationTasksQueue, tradeId);
+    }
+    
+    @Override
+    public void triggerPriorityReconciliation(String tradeId) {
+        log.info("Triggering priority reconciliation for tradeId: {}", tradeId);
+        
+        // Manual triggers bypass the bulk queue
+        publishTask(tradeId, reconciliationPriorityTasksQueue, tradeId);
+    }
+    
+    @Override
+    public void triggerReconciliation(TradeData tradeData) {
+        // Trades of a desk with its own lane are reconciled from the lane's queue
+        String queue = deskLanes.tasksQueue(deskLanes.laneOf(tradeData.getDesk()));
+        
+        if (!includeLegSnapshot) {
+            log.info("Triggering reconciliation for tradeId: {}", tradeData.getTradeId());
+            publishTask(tradeData.getTradeId(), queue, tradeData.getTradeId());
+            return;
+        }
+        
+        log.info("Triggering reconciliation for tradeId: {} with {} leg version {}", 
+                tradeData.getTradeId(), tradeData.getSourceSystem(), tradeData.getVersion());
+        
+        // Send the saved leg along so the listener does not have to reload it
+        publishTask(tradeData.getTradeId(), queue, toTaskMessage(tradeData));
+    }
+    
+    /**
+     * Publish a reconciliation task, recorded as a flight recorder event
+     */
+    private void publishTask(String tradeId, String queue, Object task) {
+        TriggerPublishEvent publishEvent = new TriggerPublishEvent();
+        publishEvent.begin();
+        try {
+            taskTransport.publish(queue, tradeId, task);
+        } finally {
+            publishEvent.complete(tradeId, queue, task instanceof ReconciliationTaskMessage);
+        }
     }
     
     @Override
@@ -59,181 +151,563 @@ public void executeReconciliation(String tradeId) {
         
         try {
             // Get trade data from both systems
-            Optional<TradeData> systemATradeOpt = tradeDataRepository.findByTradeIdAndSourceSystem(tradeId, SYSTEM_A);
-            Optional<TradeData> systemBTradeOpt = tradeDataRepository.findByTradeIdAndSourceSystem(tradeId, SYSTEM_B);
+            LegFetchEvent fetchEvent = new LegFetchEvent();
+            fetchEvent.begin();
+            Optional<TradeData> systemATradeOpt = legStore.findLatestLeg(tradeId, SYSTEM_A);
+            Optional<TradeData> systemBTradeOpt = legStore.findLatestLeg(tradeId, SYSTEM_B);
+            int legsFound = (systemATradeOpt.isPresent() ? 1 : 0) + (systemBTradeOpt.isPresent() ? 1 : 0);
+            fetchEvent.complete(tradeId, legsFound, false);
             
-            // Check if we have data from both systems
-            if (systemATradeOpt.isPresent() && systemBTradeOpt.isPresent()) {
-                TradeData systemATrade = systemATradeOpt.get();
-                TradeData systemBTrade = systemBTradeOpt.get();
-                
-                // Compare the trades
-                List<String> discrepancies = compareTradeData(systemATrade, systemBTrade);
-                
-                // Get or create reconciliation record
-                TradeReconciliation reconciliation = reconciliationRepository.findByTradeId(tradeId)
-                        .orElse(new TradeReconciliation());
-                
-                // Update reconciliation record
-                reconciliation.setTradeId(tradeId);
-                reconciliation.setSystemATradeId(systemATrade.getId());
-                reconciliation.setSystemBTradeId(systemBTrade.getId());
-                reconciliation.setLastReconciliationAttempt(LocalDateTime.now());
-                
-                if (discrepancies.isEmpty()) {
-                    // No discrepancies found, mark as MATCHED
-                    reconciliation.setStatus(ReconciliationStatus.MATCHED);
-                    reconciliation.setDetails("Trades matched successfully");
-                    log.info("Trades matched for tradeId: {}", tradeId);
-                } else {
-                    // Discrepancies found, mark as MISMATCHED
-                    reconciliation.setStatus(ReconciliationStatus.MISMATCHED);
-                    reconciliation.setDetails("Discrepancies found: " + String.join(", ", discrepancies));
-                    log.info("Trades mismatched for tradeId: {}. Discrepancies: {}", 
-                            tradeId, String.join(", ", discrepancies));
-                }
-                
-                // Save reconciliation record
-                reconciliationRepository.save(reconciliation);
-            } else if (systemATradeOpt.isPresent() || systemBTradeOpt.isPresent()) {
-                // We have data from only one system, mark as PENDING
-                
-                // Get or create reconciliation record
-                TradeReconciliation reconciliation = reconciliationRepository.findByTradeId(tradeId)
-                        .orElse(new TradeReconciliation());
-                
-                // Update reconciliation record
-                reconciliation.setTradeId(tradeId);
-                reconciliation.setStatus(ReconciliationStatus.PENDING);
-                reconciliation.setLastReconciliationAttempt(LocalDateTime.now());
-                
-                if (systemATradeOpt.isPresent()) {
-                    TradeData systemATrade = systemATradeOpt.get();
-                    reconciliation.setSystemATradeId(systemATrade.getId());
-                    reconciliation.setDetails("Waiting for data from System B");
-                    log.info("Pending reconciliation for tradeId: {}. Waiting for data from System B", tradeId);
-                } else {
-                    TradeData systemBTrade = systemBTradeOpt.get();
-                    reconciliation.setSystemBTradeId(systemBTrade.getId());
-                    reconciliation.setDetails("Waiting for data from System A");
-                    log.info("Pending reconciliation for tradeId: {}. Waiting for data from System A", tradeId);
-                }
-                
-                // Save reconciliation record
-                reconciliationRepository.save(reconciliation);
-            } else {
-                // This should not happen as reconciliation is triggered when data is received from either system
-                log.warn("No trade data found for tradeId: {} in either system", tradeId);
+            if (!reconcileLegs(tradeId, systemATradeOpt, systemBTradeOpt)) {
+                log.info("Skipping reconciliation for tradeId: {}, a newer outcome is already stored", tradeId);
+            }
+        } catch (Exception e) {
+            if (isTransientFailure(e)) {
+                // Leave the status untouched, the task is retried once the database recovers
+                log.warn("Transient failure executing reconciliation for tradeId: {}", tradeId, e);
+                throw e;
+            }
+            log.error("Error executing reconciliation for tradeId: {}", tradeId, e);
+            markError(tradeId, e);
+        }
+    }
+    
+    @Override
+    @Transactional
+    public void executeReconciliation(ReconciliationTaskMessage task) {
+        String tradeId = task.getTradeId();
+        log.info("Executing reconciliation for tradeId: {} from {} leg version {}", 
+                tradeId, task.getSourceSystem(), task.getVersion());
+        
+        // A later amendment of the same leg has already been processed, nothing to do. The
+        // cache only knows what this instance has seen; the stored versions are checked as well
+        if (!legSnapshotCache.offer(task)) {
+            log.info("Skipping stale reconciliation task for tradeId: {} from {} (version {})", 
+                    tradeId, task.getSourceSystem(), task.getVersion());
+            return;
+        }
+        
+        try {
+            TradeData triggeringTrade = toTradeData(task);
+            Optional<TradeData> counterpartTrade = findCounterpart(task);
+            
+            boolean reconciled = SYSTEM_A.equals(task.getSourceSystem())
+                    ? reconcileLegs(tradeId, Optional.of(triggeringTrade), counterpartTrade)
+                    : reconcileLegs(tradeId, counterpartTrade, Optional.of(triggeringTrade));
+            if (!reconciled) {
+                // Arrived after a restart, on another instance or from a retry queue
+                log.info("Skipping stale reconciliation task for tradeId: {} from {} (version {}), "
+                        + "a newer outcome is already stored", tradeId, task.getSourceSystem(), task.getVersion());
+                legSnapshotCache.evict(tradeId, task.getSourceSystem());
             }
         } catch (Exception e) {
+            if (isTransientFailure(e)) {
+                // Leave the status untouched, the task is retried once the database recovers
+                log.warn("Transient failure executing reconciliation for tradeId: {}", tradeId, e);
+                throw e;
+            }
             log.error("Error executing reconciliation for tradeId: {}", tradeId, e);
+            markError(tradeId, e);
+        }
+    }
+    
+    /**
+     * Compare the legs of a trade and store the outcome in its reconciliation record
+     * 
+     * The record is locked while the outcome is computed. Nothing is stored if either leg
+     * is older than the version the stored outcome was computed from.
+     * 
+     * @return false if a newer outcome is already stored
+     */
+    private boolean reconcileLegs(String tradeId, Optional<TradeData> systemATradeOpt, Optional<TradeData> systemBTradeOpt) {
+        // Check if we have data from both systems
+        if (systemATradeOpt.isPresent() && systemBTradeOpt.isPresent()) {
+            TradeData systemATrade = systemATradeOpt.get();
+            TradeData systemBTrade = systemBTradeOpt.get();
+            
+            // Compare the trades
+            CompareEvent compareEvent = new CompareEvent();
+            compareEvent.begin();
+            Map<String, String> discrepancies = compareTradeData(systemATrade, systemBTrade);
+            compareEvent.complete(tradeId, discrepancies.size());
             
-            // Get or create reconciliation record and mark as ERROR
-            TradeReconciliation reconciliation = reconciliationRepository.findByTradeId(tradeId)
+            // Get or create reconciliation record
+            PersistEvent persistEvent = new PersistEvent();
+            persistEvent.begin();
+            TradeReconciliation reconciliation = reconciliationStore.findByTradeIdForUpdate(tradeId)
                     .orElse(new TradeReconciliation());
+            if (isSuperseded(reconciliation, systemATradeOpt, systemBTradeOpt)) {
+                return false;
+            }
+            Outcome previousOutcome = Outcome.of(reconciliation);
             
+            // Update reconciliation record
             reconciliation.setTradeId(tradeId);
-            reconciliation.setStatus(ReconciliationStatus.ERROR);
-            reconciliation.setDetails("Error executing reconciliation: " + e.getMessage());
+            reconciliation.setSystemATradeId(systemATrade.getId());
+            reconciliation.setSystemBTradeId(systemBTrade.getId());
+            reconciliation.setSystemAVersion(systemATrade.getVersion());
+            reconciliation.setSystemBVersion(systemBTrade.getVersion());
             reconciliation.setLastReconciliationAttempt(LocalDateTime.now());
+            setOutcomeDimensions(reconciliation, systemATrade);
+            
+            if (discrepancies.isEmpty()) {
+                // No discrepancies found, mark as MATCHED
+                reconciliation.setStatus(ReconciliationStatus.MATCHED);
+                reconciliation.setDetails("Trades matched successfully");
+                reconciliation.setMismatchedFields(null);
+                log.info("Trades matched for tradeId: {}", tradeId);
+            } else {
+                // Discrepancies found, mark as MISMATCHED
+                String details = String.join(", ", discrepancies.values());
+                reconciliation.setStatus(ReconciliationStatus.MISMATCHED);
+                reconciliation.setDetails("Discrepancies found: " + details);
+                reconciliation.setMismatchedFields(String.join(",", discrepancies.keySet()));
+                log.info("Trades mismatched for tradeId: {}. Discrepancies: {}", tradeId, details);
+            }
             
             // Save reconciliation record
-            reconciliationRepository.save(reconciliation);
+            reconciliationStore.save(reconciliation);
+            persistEvent.complete(tradeId, reconciliation.getStatus().name());
+            publishOutcome(reconciliation, previousOutcome);
+        } else if (systemATradeOpt.isPresent() || systemBTradeOpt.isPresent()) {
+            // We have data from only one system, mark as PENDING
+            
+            // Get or create reconciliation record
+            PersistEvent persistEvent = new PersistEvent();
+            persistEvent.begin();
+            TradeReconciliation reconciliation = reconciliationStore.findByTradeIdForUpdate(tradeId)
+                    .orElse(new TradeReconciliation());
+            if (isSuperseded(reconciliation, systemATradeOpt, systemBTradeOpt)) {
+                return false;
+            }
+            Outcome previousOutcome = Outcome.of(reconciliation);
+            
+            // Update reconciliation record
+            reconciliation.setTradeId(tradeId);
+            reconciliation.setStatus(ReconciliationStatus.PENDING);
+            reconciliation.setLastReconciliationAttempt(LocalDateTime.now());
+            reconciliation.setMismatchedFields(null);
+            setOutcomeDimensions(reconciliation, systemATradeOpt.orElseGet(systemBTradeOpt::get));
+            
+            if (systemATradeOpt.isPresent()) {
+                TradeData systemATrade = systemATradeOpt.get();
+                reconciliation.setSystemATradeId(systemATrade.getId());
+                reconciliation.setSystemAVersion(systemATrade.getVersion());
+                reconciliation.setDetails("Waiting for data from System B");
+                log.info("Pending reconciliation for tradeId: {}. Waiting for data from System B", tradeId);
+            } else {
+                TradeData systemBTrade = systemBTradeOpt.get();
+                reconciliation.setSystemBTradeId(systemBTrade.getId());
+                reconciliation.setSystemBVersion(systemBTrade.getVersion());
+                reconciliation.setDetails("Waiting for data from System A");
+                log.info("Pending reconciliation for tradeId: {}. Waiting for data from System A", tradeId);
+            }
+            
+            // Save reconciliation record and schedule its timeout
+            reconciliationStore.save(reconciliation);
+            persistEvent.complete(tradeId, reconciliation.getStatus().name());
+            publishOutcome(reconciliation, previousOutcome);
+            timeoutService.scheduleTimeout(tradeId, reconciliation.getCreatedAt());
+        } else {
+            // This should not happen as reconciliation is triggered when data is received from either system
+            log.warn("No trade data found for tradeId: {} in either system", tradeId);
         }
+        return true;
     }
     
     /**
-     * Compare two trade data records and return a list of discrepancies
+     * Whether a leg is older than the version of the same leg behind the stored outcome
      */
-    private List<String> compareTradeData(TradeData systemATrade, TradeData systemBTrade) {
-        List<String> discrepancies = new ArrayList<>();
+    private boolean isSuperseded(TradeReconciliation reconciliation, Optional<TradeData> systemATradeOpt,
+                                 Optional<TradeData> systemBTradeOpt) {
+        return systemATradeOpt.filter(leg -> isOlder(leg.getVersion(), reconciliation.getSystemAVersion())).isPresent()
+                || systemBTradeOpt.filter(leg -> isOlder(leg.getVersion(), reconciliation.getSystemBVersion())).isPresent();
+    }
+    
+    private static boolean isOlder(Long version, Long storedVersion) {
+        return version != null && storedVersion != null && version < storedVersion;
+    }
+    
+    /**
+     * Whether a failure is expected to go away on its own, such as a lost connection or a failover
+     */
+    private boolean isTransientFailure(Exception e) {
+        return e instanceof TransientDataAccessException
+                || e instanceof RecoverableDataAccessException
+                || e instanceof DataAccessResourceFailureException
+                || e instanceof CannotCreateTransactionException;
+    }
+    
+    /**
+     * Mark the reconciliation of a trade as ERROR
+     */
+    private void markError(String tradeId, Exception e) {
+        // Get or create reconciliation record and mark as ERROR
+        TradeReconciliation reconciliation = reconciliationStore.findByTradeId(tradeId)
+                .orElse(new TradeReconciliation());
+        Outcome previousOutcome = Outcome.of(reconciliation);
+        
+        reconciliation.setTradeId(tradeId);
+        reconciliation.setStatus(ReconciliationStatus.ERROR);
+        reconciliation.setDetails("Error executing reconciliation: " + e.getMessage());
+        reconciliation.setLastReconciliationAttempt(LocalDateTime.now());
+        reconciliation.setMismatchedFields(null);
+        
+        // Save reconciliation record
+        reconciliationStore.save(reconciliation);
+        publishOutcome(reconciliation, previousOutcome);
+    }
+    
+    /**
+     * Record the business date, counterparty and instrument the outcome is rolled up under
+     */
+    private void setOutcomeDimensions(TradeReconciliation reconciliation, TradeData tradeData) {
+        reconciliation.setBusinessDate(tradeData.getTradeDate().toLocalDate());
+        reconciliation.setCounterparty(tradeData.getCounterparty());
+        reconciliation.setInstrument(tradeData.getInstrument());
+    }
+    
+    /**
+     * Publish the outcome just saved, for break analytics once the transaction commits
+     */
+    private void publishOutcome(TradeReconciliation reconciliation, Outcome previousOutcome) {
+        Outcome outcome = Outcome.of(reconciliation);
+        
+        Long matchLagMillis = null;
+        if (outcome.status() == ReconciliationStatus.MATCHED
+                && (previousOutcome == null || previousOutcome.status() != ReconciliationStatus.MATCHED)) {
+            matchLagMillis = Duration.between(reconciliation.getCreatedAt(), LocalDateTime.now()).toMillis();
+        }
+        
+        eventPublisher.publishEvent(new ReconciliationOutcomeEvent(
+                reconciliation.getTradeId(), previousOutcome, outcome, matchLagMillis));
+    }
+    
+    /**
+     * Find the counterpart of the leg carried by a task, from the snapshot cache if enabled
+     */
+    private Optional<TradeData> findCounterpart(ReconciliationTaskMessage task) {
+        String counterpartSystem = SYSTEM_A.equals(task.getSourceSystem()) ? SYSTEM_B : SYSTEM_A;
+        LegFetchEvent fetchEvent = new LegFetchEvent();
+        fetchEvent.begin();
+        
+        if (useCachedCounterpart) {
+            Optional<ReconciliationTaskMessage> cached = legSnapshotCache.get(task.getTradeId(), counterpartSystem);
+            if (cached.isPresent()) {
+                fetchEvent.complete(task.getTradeId(), 2, true);
+                return cached.map(this::toTradeData);
+            }
+        }
+        
+        Optional<TradeData> counterpart = legStore.findLatestLeg(
+                task.getTradeId(), counterpartSystem);
+        fetchEvent.complete(task.getTradeId(), counterpart.isPresent() ? 2 : 1, false);
+        return counterpart;
+    }
+    
+    /**
+     * Map a saved trade leg to a reconciliation task message
+     */
+    private ReconciliationTaskMessage toTaskMessage(TradeData tradeData) {
+        return ReconciliationTaskMessage.builder()
+                .tradeId(tradeData.getTradeId())
+                .sourceSystem(tradeData.getSourceSystem())
+                .legId(tradeData.getId())
+                .version(tradeData.getVersion())
+                .instrument(tradeData.getInstrument())
+                .quantity(tradeData.getQuantity())
+                .price(tradeData.getPrice())
+                .tradeDate(tradeData.getTradeDate())
+                .counterparty(tradeData.getCounterparty())
+                .desk(tradeData.getDesk())
+                .build();
+    }
+    
+    /**
+     * Map a leg snapshot back to a detached TradeData for comparison
+     */
+    private TradeData toTradeData(ReconciliationTaskMessage snapshot) {
+        return TradeData.builder()
+                .id(snapshot.getLegId())
+                .tradeId(snapshot.getTradeId())
+                .sourceSystem(snapshot.getSourceSystem())
+                .version(snapshot.getVersion())
+                .instrument(snapshot.getInstrument())
+                .quantity(snapshot.getQuantity())
+                .price(snapshot.getPrice())
+                .tradeDate(snapshot.getTradeDate())
+                .counterparty(snapshot.getCounterparty())
+                .desk(snapshot.getDesk())
+                .build();
+    }
+    
+    /**
+     * Compare two trade data records and return the discrepancies, keyed by field name
+     */
+    private Map<String, String> compareTradeData(TradeData systemATrade, TradeData systemBTrade) {
+        Map<String, String> discrepancies = new LinkedHashMap<>();
         
         // Compare instrument
         if (!systemATrade.getInstrument().equals(systemBTrade.getInstrument())) {
-            discrepancies.add("Instrument mismatch: " + systemATrade.getInstrument() + " vs " + systemBTrade.getInstrument());
+            discrepancies.put("instrument", "Instrument mismatch: " + systemATrade.getInstrument() + " vs " + systemBTrade.getInstrument());
         }
         
         // Compare quantity (use compareTo for BigDecimal)
         if (systemATrade.getQuantity().compareTo(systemBTrade.getQuantity()) != 0) {
-            discrepancies.add("Quantity mismatch: " + systemATrade.getQuantity() + " vs " + systemBTrade.getQuantity());
+            discrepancies.put("quantity", "Quantity mismatch: " + systemATrade.getQuantity() + " vs " + systemBTrade.getQuantity());
         }
         
         // Compare price (use compareTo for BigDecimal)
         if (systemATrade.getPrice().compareTo(systemBTrade.getPrice()) != 0) {
-            discrepancies.add("Price mismatch: " + systemATrade.getPrice() + " vs " + systemBTrade.getPrice());
+            discrepancies.put("price", "Price mismatch: " + systemATrade.getPrice() + " vs " + systemBTrade.getPrice());
         }
         
         // Compare trade date
         if (!systemATrade.getTradeDate().equals(systemBTrade.getTradeDate())) {
-            discrepancies.add("Trade date mismatch: " + systemATrade.getTradeDate() + " vs " + systemBTrade.getTradeDate());
+            discrepancies.put("tradeDate", "Trade date mismatch: " + systemATrade.getTradeDate() + " vs " + systemBTrade.getTradeDate());
         }
         
         // Compare counterparty
         if (!systemATrade.getCounterparty().equals(systemBTrade.getCounterparty())) {
-            discrepancies.add("Counterparty mismatch: " + systemATrade.getCounterparty() + " vs " + systemBTrade.getCounterparty());
+            discrepancies.put("counterparty", "Counterparty mismatch: " + systemATrade.getCounterparty() + " vs " + systemBTrade.getCounterparty());
         }
         
         return discrepancies;
     }
     
     @Override
-    @Scheduled(fixedRate = 300000) // Run every 5 minutes
-    @Transactional
+    @Scheduled(initialDelayString = "${reconciliation.timeout.sweep-interval-ms}",
+            fixedDelayString = "${reconciliation.timeout.sweep-interval-ms}")
     public void processTimeouts() {
-        log.info("Processing reconciliation timeouts");
+        // Timeouts normally fire from the timing wheel; this sweep only catches what it missed
+        if (!leaseService.tryAcquire(TIMEOUT_SWEEP_LEASE, Duration.ofMillis(timeoutSweepIntervalMillis))) {
+            log.debug("Timeout sweep is owned by another instance");
+            return;
+        }
         
-        // Calculate timeout threshold
-        LocalDateTime timeoutThreshold = LocalDateTime.now().minusMinutes(reconciliationTimeoutMinutes);
+        log.info("Processing reconciliation timeouts");
+        timeoutService.sweepTimedOut();
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<ReconciliationResponseDto> getReconciliationStatus(String tradeId) {
+        log.info("Getting reconciliation status for tradeId: {}", tradeId);
         
-        // Find pending reconciliations that have timed out
-        List<TradeReconciliation> timedOutReconciliations = 
-                reconciliationRepository.findTimedOutReconciliations(ReconciliationStatus.PENDING, timeoutThreshold);
+        Optional<ReconciliationResponseDto> reconciliation = usesReadModel()
+                ? viewRepository.findByTradeId(tradeId).map(this::mapToResponseDto) : Optional.empty();
         
-        log.info("Found {} pending reconciliations that have timed out", timedOutReconciliations.size());
+        if (reconciliation.isEmpty()) {
+            // Reconciliations created since the last read model refresh
+            reconciliation = reconciliationStore.findByTradeId(tradeId)
+                    .map(this::mapToResponseDto);
+        }
         
-        // Process each timed out reconciliation
-        for (TradeReconciliation reconciliation : timedOutReconciliations) {
-            log.info("Processing timeout for tradeId: {}", reconciliation.getTradeId());
-            
-            // Update reconciliation status
-            reconciliation.setStatus(ReconciliationStatus.RECONCILIATION_TIMEOUT);
-            reconciliation.setDetails("Reconciliation timed out after " + reconciliationTimeoutMinutes + " minutes");
-            reconciliation.setLastReconciliationAttempt(LocalDateTime.now());
-            
-            // Save updated reconciliation
-            reconciliationRepository.save(reconciliation);
+        if (reconciliation.isEmpty()) {
+            // Slower path for reconciliations already moved out by the retention job
+            log.debug("Reconciliation not found in hot table, checking archive for tradeId: {}", tradeId);
+            reconciliation = archivedReconciliationRepository.findFirstByTradeIdOrderByArchivedAtDesc(tradeId)
+                    .map(this::mapToResponseDto);
         }
+        
+        return reconciliation;
     }
     
     @Override
-    public Optional<ReconciliationResponseDto> getReconciliationStatus(String tradeId) {
-        log.info("Getting reconciliation status for tradeId: {}", tradeId);
+    @Transactional(readOnly = true)
+    public Optional<String> getReconciliationStatusVersion(String tradeId) {
+        // Same sources in the same order as getReconciliationStatus, each prefixed as they map differently
+        Optional<String> version = usesReadModel()
+                ? viewRepository.findVersionByTradeId(tradeId).map(reconciliation -> version("v", reconciliation))
+                : Optional.empty();
         
-        return reconciliationRepository.findByTradeId(tradeId)
-                .map(this::mapToResponseDto);
+        if (version.isEmpty()) {
+            version = reconciliationStore.findVersionByTradeId(tradeId)
+                    .map(reconciliation -> version("r", reconciliation));
+        }
+        
+        if (version.isEmpty()) {
+            version = archivedReconciliationRepository.findFirstVersionByTradeIdOrderByArchivedAtDesc(tradeId)
+                    .map(reconciliation -> version("a", reconciliation));
+        }
+        
+        return version;
     }
     
     @Override
-    public Page<ReconciliationResponseDto> getReconciliations(String status, Pageable pageable) {
-        log.info("Getting reconciliations with status filter: {}", status);
-        
-        Page<TradeReconciliation> reconciliations;
-        
-        if (status != null && !status.isEmpty()) {
-            try {
-                ReconciliationStatus reconciliationStatus = ReconciliationStatus.valueOf(status.toUpperCase());
-                reconciliations = reconciliationRepository.findByStatus(reconciliationStatus, pageable);
-            } catch (IllegalArgumentException e) {
-                log.warn("Invalid status value: {}. Returning all reconciliations.", status);
-                reconciliations = reconciliationRepository.findAll(pageable);
+    @Transactional(readOnly = true)
+    public ReconciliationLookupResponseDto lookupReconciliations(Collection<String> tradeIds) {
+        List<String> uniqueTradeIds = new ArrayList<>(new LinkedHashSet<>(tradeIds));
+        log.info("Looking up reconciliation status for {} tradeIds", uniqueTradeIds.size());
+        
+        Map<String, ReconciliationResponseDto> found = new LinkedHashMap<>();
+        if (usesReadModel()) {
+            for (List<String> chunk : chunks(uniqueTradeIds)) {
+                viewRepository.findByTradeIdIn(chunk)
+                        .forEach(reconciliation -> found.put(reconciliation.getTradeId(), mapToResponseDto(reconciliation)));
+            }
+        }
+        
+        List<String> missing = uniqueTradeIds.stream().filter(tradeId -> !found.containsKey(tradeId)).toList();
+        if (!missing.isEmpty()) {
+            // Reconciliations created since the last read model refresh
+            for (List<String> chunk : chunks(missing)) {
+                reconciliationStore.findByTradeIdIn(chunk)
+                        .forEach(reconciliation -> found.put(reconciliation.getTradeId(), mapToResponseDto(reconciliation)));
+            }
+            missing = missing.stream().filter(tradeId -> !found.containsKey(tradeId)).toList();
+        }
+        
+        if (!missing.isEmpty()) {
+            // Slower path for reconciliations already moved out by the retention job
+            Map<String, ArchivedTradeReconciliation> archived = new LinkedHashMap<>();
+            for (List<String> chunk : chunks(missing)) {
+                for (ArchivedTradeReconciliation reconciliation : archivedReconciliationRepository.findByTradeIdIn(chunk)) {
+                    archived.merge(reconciliation.getTradeId(), reconciliation, (current, candidate) ->
+                            candidate.getArchivedAt().isAfter(current.getArchivedAt()) ? candidate : current);
+                }
+            }
+            archived.forEach((tradeId, reconciliation) -> found.put(tradeId, mapToResponseDto(reconciliation)));
+        }
+        
+        // Results in request order
+        Map<String, ReconciliationResponseDto> results = new LinkedHashMap<>();
+        List<String> notFound = new ArrayList<>();
+        for (String tradeId : uniqueTradeIds) {
+            ReconciliationResponseDto reconciliation = found.get(tradeId);
+            if (reconciliation != null) {
+                results.put(tradeId, reconciliation);
+            } else {
+                notFound.add(tradeId);
             }
+        }
+        
+        return ReconciliationLookupResponseDto.builder()
+                .results(results)
+                .notFound(notFound)
+                .build();
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public Page<ReconciliationResponseDto> getReconciliations(String status, String counterparty, Pageable pageable) {
+        log.info("Getting reconciliations with status filter: {} and counterparty filter: {}", status, counterparty);
+        requireReadModel();
+        
+        ReconciliationStatus reconciliationStatus = parseStatusFilter(status);
+        boolean byCounterparty = counterparty != null && !counterparty.isEmpty();
+        Page<ReconciliationViewRow> reconciliations;
+        if (reconciliationStatus != null && byCounterparty) {
+            reconciliations = viewRepository.findByCounterpartyAndStatus(counterparty, reconciliationStatus, pageable);
+        } else if (reconciliationStatus != null) {
+            reconciliations = viewRepository.findByStatus(reconciliationStatus, pageable);
+        } else if (byCounterparty) {
+            reconciliations = viewRepository.findByCounterparty(counterparty, pageable);
         } else {
-            reconciliations = reconciliationRepository.findAll(pageable);
+            reconciliations = viewRepository.findAllBy(pageable);
         }
         
         return reconciliations.map(this::mapToResponseDto);
     }
     
+    @Override
+    @Transactional(readOnly = true)
+    public String getReconciliationsVersion(String status, String counterparty) {
+        requireReadModel();
+        ReconciliationStatus reconciliationStatus = parseStatusFilter(status);
+        boolean byCounterparty = counterparty != null && !counterparty.isEmpty();
+        CollectionVersion version;
+        if (reconciliationStatus != null && byCounterparty) {
+            version = viewRepository.findCollectionVersionByCounterpartyAndStatus(counterparty, reconciliationStatus);
+        } else if (reconciliationStatus != null) {
+            version = viewRepository.findCollectionVersionByStatus(reconciliationStatus);
+        } else if (byCounterparty) {
+            version = viewRepository.findCollectionVersionByCounterparty(counterparty);
+        } else {
+            version = viewRepository.findCollectionVersion();
+        }
+        
+        return "c" + Long.toHexString(version.getTotal()) + "-" + Long.toHexString(epochMicros(version.getLastUpdatedAt()));
+    }
+    
+    /**
+     * Whether reconciliations are copied into the read model, which only the jpa storage engine does
+     */
+    private boolean usesReadModel() {
+        return "jpa".equals(storageEngine);
+    }
+    
+    private void requireReadModel() {
+        if (!usesReadModel()) {
+            throw new StorageEngineUnsupportedException("Listing reconciliations needs the jpa storage engine; "
+                    + "look trades up by tradeId with the " + storageEngine + " engine");
+        }
+    }
+    
+    /**
+     * Parse the status filter of the list endpoint, ignoring unknown values
+     */
+    private ReconciliationStatus parseStatusFilter(String status) {
+        if (status == null || status.isEmpty()) {
+            return null;
+        }
+        
+        try {
+            return ReconciliationStatus.valueOf(status.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid status value: {}. Returning all reconciliations.", status);
+            return null;
+        }
+    }
+    
+    /**
+     * Version of a reconciliation from one source, built from its id and update time
+     */
+    private static String version(String source, ReconciliationVersion reconciliation) {
+        return source + Long.toHexString(reconciliation.getId()) + "-"
+                + Long.toHexString(epochMicros(reconciliation.getUpdatedAt()));
+    }
+    
+    private static long epochMicros(LocalDateTime time) {
+        return time == null ? 0 : time.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + time.getNano() / 1_000;
+    }
+    
+    /**
+     * Split tradeIds into chunks of at most lookupChunkSize, to bound the IN list of each query
+     */
+    private List<List<String>> chunks(List<String> tradeIds) {
+        List<List<String>> chunks = new ArrayList<>();
+        for (int from = 0; from < tradeIds.size(); from += lookupChunkSize) {
+            chunks.add(tradeIds.subList(from, Math.min(from + lookupChunkSize, tradeIds.size())));
+        }
+        return chunks;
+    }
+    
+    /**
+     * Map a read model row to ReconciliationResponseDto
+     */
+    private ReconciliationResponseDto mapToResponseDto(ReconciliationViewRow reconciliation) {
+        return ReconciliationResponseDto.builder()
+                .tradeId(reconciliation.getTradeId())
+                .status(reconciliation.getStatus())
+                .statusDescription(reconciliation.getStatus().getDescription())
+                .details(reconciliation.getDetails())
+                .businessDate(reconciliation.getBusinessDate())
+                .counterparty(reconciliation.getCounterparty())
+                .instrument(reconciliation.getInstrument())
+                .mismatchedFields(reconciliation.getMismatchedFields())
+                .systemAQuantity(reconciliation.getSystemAQuantity())
+                .systemAPrice(reconciliation.getSystemAPrice())
+                .systemBQuantity(reconciliation.getSystemBQuantity())
+                .systemBPrice(reconciliation.getSystemBPrice())
+                .systemAVersion(reconciliation.getSystemAVersion())
+                .systemBVersion(reconciliation.getSystemBVersion())
+                .createdAt(reconciliation.getCreatedAt())
+                .updatedAt(reconciliation.getUpdatedAt())
+                .lastReconciliationAttempt(reconciliation.getLastReconciliationAttempt())
+                .build();
+    }
+    
     /**
      * Map TradeReconciliation entity to ReconciliationResponseDto
      */
@@ -243,9 +717,37 @@ private ReconciliationResponseDto mapToResponseDto(TradeReconciliation reconcili
                 .status(reconciliation.getStatus())
                 .statusDescription(reconciliation.getStatus().getDescription())
                 .details(reconciliation.getDetails())
+                .businessDate(reconciliation.getBusinessDate())
+                .counterparty(reconciliation.getCounterparty())
+                .instrument(reconciliation.getInstrument())
+                .mismatchedFields(reconciliation.getMismatchedFields())
+                .systemAVersion(reconciliation.getSystemAVersion())
+                .systemBVersion(reconciliation.getSystemBVersion())
+                .createdAt(reconciliation.getCreatedAt())
+                .updatedAt(reconciliation.getUpdatedAt())
+                .lastReconciliationAttempt(reconciliation.getLastReconciliationAttempt())
+                .build();
+    }
+    
+    /**
+     * Map ArchivedTradeReconciliation entity to ReconciliationResponseDto
+     */
+    private ReconciliationResponseDto mapToResponseDto(ArchivedTradeReconciliation reconciliation) {
+        return ReconciliationResponseDto.builder()
+                .tradeId(reconciliation.getTradeId())
+                .status(reconciliation.getStatus())
+                .statusDescription(reconciliation.getStatus().getDescription())
+                .details(reconciliation.getDetails())
+                .businessDate(reconciliation.getBusinessDate())
+                .counterparty(reconciliation.getCounterparty())
+                .instrument(reconciliation.getInstrument())
+                .mismatchedFields(reconciliation.getMismatchedFields())
+                .systemAVersion(reconciliation.getSystemAVersion())
+                .systemBVersion(reconciliation.getSystemBVersion())
                 .createdAt(reconciliation.getCreatedAt())
                 .updatedAt(reconciliation.getUpdatedAt())
                 .lastReconciliationAttempt(reconciliation.getLastReconciliationAttempt())
+                .archived(true)
                 .build();
     }
 } 
\ No newline at end of file
@@ -0,0 +1,28 @@
+package com.trading.reconciliation.service;
+
+import com.trading.reconciliation.dto.ReconciliationStatusEventDto;
+import com.trading.reconciliation.model.ReconciliationStatus;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Set;
+
+/**
+ * Service interface for streaming reconciliation status transitions to subscribers
+ */
+public interface ReconciliationStreamService {
+    
+    /**
+     * Subscribe to status transitions
+     * @param statuses Only transitions into these statuses are sent; all if empty
+     * @param counterparty Only transitions of this counterparty's trades are sent; all if null
+     * @param lastEventId Id of the last event received before reconnecting, to resume after it; null to start with new events
+     * @return The emitter streaming the transitions
+     */
+    SseEmitter subscribe(Set<ReconciliationStatus> statuses, String counterparty, String lastEventId);
+    
+    /**
+     * Append a status transition to the stream and offer it to matching subscribers, without blocking
+     * @param statusEvent The status transition
+     */
+    void publish(ReconciliationStatusEventDto statusEvent);
+}
@@ -0,0 +1,303 @@
+package com.trading.reconciliation.service;
+
+import com.trading.reconciliation.dto.ReconciliationStatusEventDto;
+import com.trading.reconciliation.model.ReconciliationStatus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Implementation of ReconciliationStreamService
+ * 
+ * Status transitions are appended to an in-memory ring of recent events, each with
+ * an offset. Events are sent to subscribers as server-sent events whose id combines
+ * the offset with the epoch of this instance, so a client that reconnects with the
+ * Last-Event-ID header resumes right after the last event it received. If those
+ * events have already left the ring, or the id belongs to another instance or an
+ * earlier run, the client gets a "reset" event and should re-read the statuses it
+ * cares about through the REST API before relying on the stream again.
+ * 
+ * Every subscriber has a bounded buffer. Publishing only offers events to the
+ * buffers and never waits for a subscriber; sending happens on a separate pool of
+ * sender threads. A subscriber whose buffer overflows is disconnected and can
+ * resume from its last event id while it is still in the ring.
+ */
+@Service
+@Slf4j
+public class ReconciliationStreamServiceImpl implements ReconciliationStreamService {
+    
+    private static final String STATUS_EVENT = "status";
+    private static final String RESET_EVENT = "reset";
+    
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final Object lock = new Object();
+    private final StreamEvent[] history;
+    private final List<Subscriber> subscribers = new ArrayList<>();
+    private final int bufferSize;
+    private final long emitterTimeoutMillis;
+    private final Executor senders;
+    private final Counter droppedSubscribers;
+    
+    private long nextOffset;
+    
+    @Autowired
+    public ReconciliationStreamServiceImpl(MeterRegistry meterRegistry,
+                                           @Value("${reconciliation.stream.history-size}") int historySize,
+                                           @Value("${reconciliation.stream.subscriber-buffer-size}") int bufferSize,
+                                           @Value("${reconciliation.stream.emitter-timeout-ms}") long emitterTimeoutMillis,
+                                           @Value("${reconciliation.stream.sender-threads}") int senderThreads) {
+        this(meterRegistry, historySize, bufferSize, emitterTimeoutMillis, Executors.newFixedThreadPool(senderThreads));
+    }
+    
+    ReconciliationStreamServiceImpl(MeterRegistry meterRegistry, int historySize, int bufferSize,
+                                    long emitterTimeoutMillis, Executor senders) {
+        this.history = new StreamEvent[historySize];
+        this.bufferSize = bufferSize;
+        this.emitterTimeoutMillis = emitterTimeoutMillis;
+        this.senders = senders;
+        this.droppedSubscribers = Counter.builder("reconciliation.stream.subscribers.dropped")
+                .description("Stream subscribers disconnected because they fell behind")
+                .register(meterRegistry);
+        Gauge.builder("reconciliation.stream.subscribers", this, ReconciliationStreamServiceImpl::subscriberCount)
+                .description("Connected status stream subscribers")
+                .register(meterRegistry);
+    }
+    
+    @Override
+    public SseEmitter subscribe(Set<ReconciliationStatus> statuses, String counterparty, String lastEventId) {
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMillis);
+        Subscriber subscriber = register(emitter, statuses, counterparty, lastEventId);
+        
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(e -> remove(subscriber));
+        
+        log.info("Stream subscriber connected with statuses {} and counterparty {}, resuming after {}", 
+                statuses, counterparty, lastEventId);
+        return emitter;
+    }
+    
+    @Override
+    public void publish(ReconciliationStatusEventDto statusEvent) {
+        List<Subscriber> ready = new ArrayList<>();
+        List<Subscriber> overflowed = new ArrayList<>();
+        
+        synchronized (lock) {
+            StreamEvent event = new StreamEvent(nextOffset, statusEvent);
+            history[(int) (nextOffset % history.length)] = event;
+            nextOffset++;
+            
+            for (Subscriber subscriber : subscribers) {
+                if (subscriber.matches(statusEvent)) {
+                    (subscriber.buffer.offer(event) ? ready : overflowed).add(subscriber);
+                }
+            }
+            subscribers.removeAll(overflowed);
+        }
+        
+        ready.forEach(this::scheduleSend);
+        for (Subscriber subscriber : overflowed) {
+            log.warn("Disconnecting stream subscriber that fell {} events behind", bufferSize);
+            droppedSubscribers.increment();
+            subscriber.close();
+        }
+    }
+    
+    /**
+     * Send a comment to every subscriber so idle connections are kept open
+     */
+    @Scheduled(fixedDelayString = "${reconciliation.stream.heartbeat-interval-ms}")
+    public void sendHeartbeats() {
+        List<Subscriber> current;
+        synchronized (lock) {
+            current = new ArrayList<>(subscribers);
+        }
+        for (Subscriber subscriber : current) {
+            // Skipped for subscribers that are behind, they have events to receive
+            if (subscriber.buffer.offer(StreamEvent.HEARTBEAT)) {
+                scheduleSend(subscriber);
+            }
+        }
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        List<Subscriber> current;
+        synchronized (lock) {
+            current = new ArrayList<>(subscribers);
+            subscribers.clear();
+        }
+        current.forEach(subscriber -> subscriber.emitter.complete());
+        if (senders instanceof ExecutorService executorService) {
+            executorService.shutdownNow();
+        }
+    }
+    
+    /**
+     * Register a subscriber, queueing the events it missed since its last event id
+     */
+    Subscriber register(SseEmitter emitter, Set<ReconciliationStatus> statuses, String counterparty,
+                        String lastEventId) {
+        Subscriber subscriber = new Subscriber(emitter, statuses, counterparty, bufferSize);
+        
+        synchronized (lock) {
+            if (lastEventId != null) {
+                long resumeFrom = resumeOffset(lastEventId);
+                boolean replayed = resumeFrom >= 0 && resumeFrom >= nextOffset - history.length;
+                for (long offset = resumeFrom; replayed && offset < nextOffset; offset++) {
+                    StreamEvent event = history[(int) (offset % history.length)];
+                    if (subscriber.matches(event.statusEvent()) && !subscriber.buffer.offer(event)) {
+                        replayed = false;
+                    }
+                }
+                if (!replayed) {
+                    subscriber.buffer.clear();
+                    subscriber.buffer.offer(StreamEvent.RESET);
+                }
+            }
+            subscribers.add(subscriber);
+        }
+        
+        scheduleSend(subscriber);
+        return subscriber;
+    }
+    
+    /**
+     * Id of the event at the given offset, which clients send back to resume after it
+     */
+    String eventId(long offset) {
+        return epoch + "-" + offset;
+    }
+    
+    int subscriberCount() {
+        synchronized (lock) {
+            return subscribers.size();
+        }
+    }
+    
+    /**
+     * Offset to resume from after the given event id, or -1 if it was not issued by this run of the instance
+     */
+    private long resumeOffset(String lastEventId) {
+        int separator = lastEventId.lastIndexOf('-');
+        if (separator < 0 || !epoch.equals(lastEventId.substring(0, separator))) {
+            return -1;
+        }
+        try {
+            long offset = Long.parseLong(lastEventId.substring(separator + 1));
+            return offset < nextOffset ? offset + 1 : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+    
+    private void scheduleSend(Subscriber subscriber) {
+        if (subscriber.sending.compareAndSet(false, true)) {
+            senders.execute(() -> send(subscriber));
+        }
+    }
+    
+    /**
+     * Send a subscriber's buffered events; only one sender works on a subscriber at a time
+     */
+    private void send(Subscriber subscriber) {
+        try {
+            while (true) {
+                StreamEvent event = subscriber.buffer.poll();
+                if (event == null) {
+                    subscriber.sending.set(false);
+                    // An event offered after the poll but before the flag was cleared would be stranded
+                    if (subscriber.buffer.isEmpty() || !subscriber.sending.compareAndSet(false, true)) {
+                        return;
+                    }
+                    continue;
+                }
+                
+                if (event == StreamEvent.HEARTBEAT) {
+                    subscriber.emitter.send(SseEmitter.event().comment("heartbeat"));
+                } else if (event == StreamEvent.RESET) {
+                    subscriber.emitter.send(SseEmitter.event().name(RESET_EVENT).data("history not available"));
+                } else {
+                    subscriber.emitter.send(SseEmitter.event()
+                            .id(eventId(event.offset()))
+                            .name(STATUS_EVENT)
+                            .data(event.statusEvent()));
+                }
+            }
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Stream subscriber disconnected", e);
+            subscriber.sending.set(false);
+            remove(subscriber);
+        }
+    }
+    
+    private void remove(Subscriber subscriber) {
+        synchronized (lock) {
+            subscribers.remove(subscriber);
+        }
+        subscriber.buffer.clear();
+    }
+    
+    /**
+     * An event in the stream history
+     */
+    record StreamEvent(long offset, ReconciliationStatusEventDto statusEvent) {
+        
+        static final StreamEvent HEARTBEAT = new StreamEvent(-1, null);
+        static final StreamEvent RESET = new StreamEvent(-1, null);
+    }
+    
+    /**
+     * A connected subscriber with its filter and bounded buffer
+     */
+    class Subscriber {
+        
+        private final SseEmitter emitter;
+        private final Set<ReconciliationStatus> statuses;
+        private final String counterparty;
+        private final BlockingQueue<StreamEvent> buffer;
+        private final AtomicBoolean sending = new AtomicBoolean();
+        
+        Subscriber(SseEmitter emitter, Set<ReconciliationStatus> statuses, String counterparty, int bufferSize) {
+            this.emitter = emitter;
+            this.statuses = statuses;
+            this.counterparty = counterparty;
+            this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        }
+        
+        boolean matches(ReconciliationStatusEventDto statusEvent) {
+            return (statuses.isEmpty() || statuses.contains(statusEvent.getStatus()))
+                    && (counterparty == null || counterparty.equals(statusEvent.getCounterparty()));
+        }
+        
+        List<StreamEvent> buffered() {
+            return List.copyOf(buffer);
+        }
+        
+        /**
+         * Disconnect without waiting for the client, on a sender thread
+         */
+        void close() {
+            buffer.clear();
+            senders.execute(emitter::complete);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.trading.reconciliation.service;
+
+import java.time.LocalDateTime;
+
+/**
+ * Service interface for expiring pending reconciliations
+ */
+public interface ReconciliationTimeoutService {
+    
+    /**
+     * Schedule the timeout of a pending reconciliation
+     * @param tradeId The trade identifier
+     * @param createdAt Creation time of the reconciliation, from which the timeout is measured
+     */
+    void scheduleTimeout(String tradeId, LocalDateTime createdAt);
+    
+    /**
+     * Expire the scheduled reconciliations whose timeout has been reached
+     * @return Number of reconciliations marked as RECONCILIATION_TIMEOUT
+     */
+    int expireDueTimeouts();
+    
+    /**
+     * Expire all pending reconciliations past their timeout, whether scheduled or not
+     * @return Number of reconciliations marked as RECONCILIATION_TIMEOUT
+     */
+    int sweepTimedOut();
+    
+    /**
+     * Schedule the timeouts of the pending reconciliations stored in the database for one tradeId hash partition
+     * 
+     * Timeouts already scheduled are kept.
+     * 
+     * @param partition Index of the partition
+     * @param partitions Number of partitions
+     * @return Number of timeouts scheduled
+     */
+    int rebuildSchedule(int partition, int partitions);
+}
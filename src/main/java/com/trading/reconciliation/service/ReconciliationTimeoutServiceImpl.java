@@ -0,0 +1,225 @@
+package com.trading.reconciliation.service;
+
+import com.trading.reconciliation.model.BreakRollupKey;
+import com.trading.reconciliation.model.ReconciliationStatus;
+import com.trading.reconciliation.repository.TradeReconciliationRepository.ExpiredReconciliation;
+import com.trading.reconciliation.repository.TradeReconciliationRepository.PendingReconciliation;
+import com.trading.reconciliation.service.ReconciliationOutcomeEvent.Outcome;
+import com.trading.reconciliation.storage.ReconciliationStore;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Implementation of ReconciliationTimeoutService
+ * 
+ * When a reconciliation becomes PENDING its timeout is put into an in-memory
+ * hierarchical timing wheel, so it fires within a second of its deadline without
+ * polling the table. Due trades are expired in chunks with a single set-based UPDATE
+ * per chunk, guarded by status = 'PENDING' so trades that were matched in the
+ * meantime, or expired by another instance, are left alone.
+ * 
+ * Each instance schedules the timeouts of the trades it processes. Whenever cluster
+ * membership changes, including on startup, the pending trades in the instance's own
+ * tradeId hash partition are loaded from the database, with the partition selected in
+ * the query, so the timeouts of an instance that died are picked up by the survivors.
+ * The load runs on its own thread so it never holds up the heartbeat, and a burst of
+ * membership changes is coalesced into one load for the latest partition. Timeouts
+ * already in the wheel are kept, so none are dropped while the partitions move; one
+ * that now belongs to another instance may fire on both, which the guarded UPDATE
+ * makes harmless. A rare safety-net sweep expires anything the wheels missed.
+ * 
+ * The expiring UPDATEs return the rows they changed, and a ReconciliationOutcomeEvent
+ * is published for each one so status subscribers also see timeouts.
+ */
+@Service
+@Slf4j
+public class ReconciliationTimeoutServiceImpl implements ReconciliationTimeoutService {
+    
+    private final ReconciliationStore reconciliationStore;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TimingWheel<String> timingWheel;
+    private final Counter expiredReconciliations;
+    private final ExecutorService rebuildExecutor = Executors.newSingleThreadExecutor(
+            new CustomizableThreadFactory("timeout-rebuild-"));
+    private final AtomicReference<ClusterMembershipChangedEvent> pendingRebuild = new AtomicReference<>();
+    
+    @Value("${reconciliation.timeout-minutes}")
+    private int reconciliationTimeoutMinutes;
+    
+    @Value("${reconciliation.timeout.chunk-size}")
+    private int chunkSize;
+    
+    public ReconciliationTimeoutServiceImpl(ReconciliationStore reconciliationStore,
+                                            TransactionTemplate transactionTemplate,
+                                            ApplicationEventPublisher eventPublisher,
+                                            MeterRegistry meterRegistry,
+                                            @Value("${reconciliation.timeout.tick-ms}") long tickMillis,
+                                            @Value("${reconciliation.timeout.wheel-size}") int wheelSize,
+                                            @Value("${reconciliation.timeout.wheel-levels}") int wheelLevels) {
+        this.reconciliationStore = reconciliationStore;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.timingWheel = new TimingWheel<>(tickMillis, wheelSize, wheelLevels, System.currentTimeMillis());
+        this.expiredReconciliations = Counter.builder("reconciliation.timeout.expired")
+                .description("Pending reconciliations marked as RECONCILIATION_TIMEOUT")
+                .register(meterRegistry);
+        Gauge.builder("reconciliation.timeout.scheduled", timingWheel, TimingWheel::size)
+                .description("Pending reconciliation timeouts waiting in the timing wheel")
+                .register(meterRegistry);
+    }
+    
+    @Override
+    public void scheduleTimeout(String tradeId, LocalDateTime createdAt) {
+        long deadlineMillis = createdAt.plusMinutes(reconciliationTimeoutMinutes)
+                .atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        
+        if (!timingWheel.add(tradeId, deadlineMillis)) {
+            // Already due, picked up by the next tick
+            timingWheel.add(tradeId, System.currentTimeMillis() + 1);
+        }
+    }
+    
+    /**
+     * Scheduled entry point advancing the timing wheel once per tick
+     */
+    @Scheduled(fixedDelayString = "${reconciliation.timeout.tick-ms}")
+    public void runExpiry() {
+        expireDueTimeouts();
+    }
+    
+    /**
+     * Rebuild the timing wheel for this instance's partition when cluster membership changes
+     */
+    @EventListener
+    public void onClusterMembershipChanged(ClusterMembershipChangedEvent event) {
+        // A rebuild already queued picks up the latest membership
+        if (pendingRebuild.getAndSet(event) == null) {
+            rebuildExecutor.execute(this::rebuildForLatestMembership);
+        }
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        rebuildExecutor.shutdownNow();
+    }
+    
+    @Override
+    public int expireDueTimeouts() {
+        List<String> dueTradeIds = timingWheel.advance(System.currentTimeMillis());
+        if (dueTradeIds.isEmpty()) {
+            return 0;
+        }
+        
+        int expired = 0;
+        for (int from = 0; from < dueTradeIds.size(); from += chunkSize) {
+            List<String> chunk = dueTradeIds.subList(from, Math.min(from + chunkSize, dueTradeIds.size()));
+            try {
+                expired += expireChunk(chunk);
+            } catch (Exception e) {
+                log.error("Error expiring {} reconciliation timeouts, will retry", chunk.size(), e);
+                long retryAt = System.currentTimeMillis() + 10_000;
+                chunk.forEach(tradeId -> timingWheel.add(tradeId, retryAt));
+            }
+        }
+        
+        log.info("Expired {} of {} due reconciliation timeouts", expired, dueTradeIds.size());
+        return expired;
+    }
+    
+    @Override
+    public int sweepTimedOut() {
+        log.info("Sweeping timed out pending reconciliations");
+        
+        int expired = 0;
+        int swept;
+        do {
+            LocalDateTime now = LocalDateTime.now();
+            swept = transactionTemplate.execute(status -> publishExpired(reconciliationStore.expireTimedOutPending(
+                    timeoutThreshold(now), timeoutDetails(), now, chunkSize)));
+            expired += swept;
+        } while (swept == chunkSize);
+        
+        expiredReconciliations.increment(expired);
+        log.info("Safety-net sweep expired {} pending reconciliations", expired);
+        return expired;
+    }
+    
+    @Override
+    public int rebuildSchedule(int partition, int partitions) {
+        log.info("Rebuilding reconciliation timeout schedule for partition {} of {}", partition, partitions);
+        
+        // Trades already in the wheel, or scheduled while the rebuild runs, are held once
+        int scheduled = 0;
+        long afterId = 0;
+        List<PendingReconciliation> page;
+        do {
+            page = reconciliationStore.findPendingAfter(afterId, partition, partitions, chunkSize);
+            for (PendingReconciliation pending : page) {
+                scheduleTimeout(pending.getTradeId(), pending.getCreatedAt());
+                scheduled++;
+                afterId = pending.getId();
+            }
+        } while (page.size() == chunkSize);
+        
+        log.info("Scheduled {} reconciliation timeouts", scheduled);
+        return scheduled;
+    }
+    
+    private void rebuildForLatestMembership() {
+        ClusterMembershipChangedEvent membership = pendingRebuild.getAndSet(null);
+        try {
+            rebuildSchedule(membership.partition(), membership.partitions());
+        } catch (Exception e) {
+            log.error("Error rebuilding the reconciliation timeout schedule, leaving it to the safety-net sweep", e);
+        }
+    }
+    
+    private int expireChunk(List<String> tradeIds) {
+        LocalDateTime now = LocalDateTime.now();
+        int expired = transactionTemplate.execute(status -> publishExpired(reconciliationStore.expirePendingByTradeIds(
+                tradeIds, timeoutThreshold(now), timeoutDetails(), now)));
+        expiredReconciliations.increment(expired);
+        return expired;
+    }
+    
+    /**
+     * Publish the transition of expired reconciliations, delivered once the transaction commits
+     */
+    private int publishExpired(List<ExpiredReconciliation> expired) {
+        for (ExpiredReconciliation reconciliation : expired) {
+            BreakRollupKey key = reconciliation.getBusinessDate() == null ? null : new BreakRollupKey(
+                    reconciliation.getBusinessDate(), reconciliation.getCounterparty(), reconciliation.getInstrument());
+            eventPublisher.publishEvent(new ReconciliationOutcomeEvent(reconciliation.getTradeId(),
+                    new Outcome(ReconciliationStatus.PENDING, key, List.of()),
+                    new Outcome(ReconciliationStatus.RECONCILIATION_TIMEOUT, key, List.of()),
+                    null));
+        }
+        return expired.size();
+    }
+    
+    private LocalDateTime timeoutThreshold(LocalDateTime now) {
+        return now.minusMinutes(reconciliationTimeoutMinutes);
+    }
+    
+    private String timeoutDetails() {
+        return "Reconciliation timed out after " + reconciliationTimeoutMinutes + " minutes";
+    }
+}
@@ -0,0 +1,19 @@
+package com.trading.reconciliation.service;
+
+/**
+ * Service interface for keeping the reconciliation_view read model current
+ */
+public interface ReconciliationViewService {
+    
+    /**
+     * Copy the reconciliations changed since the last refresh into the view
+     * @return Number of view rows written
+     */
+    int refresh();
+    
+    /**
+     * Copy every reconciliation whose view row is missing or stale, in id-range chunks
+     * @return Number of view rows written
+     */
+    int catchUp();
+}
@@ -0,0 +1,150 @@
+package com.trading.reconciliation.service;
+
+import com.trading.reconciliation.repository.ReconciliationViewRepository;
+import com.trading.reconciliation.repository.TradeReconciliationRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Implementation of ReconciliationViewService
+ * 
+ * The read model is kept current asynchronously: every committed reconciliation outcome
+ * marks its trade as changed, and the changed trades are copied into reconciliation_view
+ * on the next refresh, a few hundred milliseconds later, with one upsert per chunk. The
+ * upsert reads the committed state of the source tables, so the order in which outcomes
+ * arrive does not matter and a trade that changes several times between refreshes is
+ * copied once.
+ * 
+ * Trades marked since the last refresh are lost if the instance is killed without a
+ * graceful shutdown. A periodic catch-up, run by one instance at a time, copies any
+ * reconciliation whose view row is missing or older than the source, which also fills
+ * the view when it is first deployed, and removes rows of archived reconciliations
+ * that a refresh raced with the retention job.
+ */
+@Service
+@ConditionalOnProperty(name = "reconciliation.storage.engine", havingValue = "jpa", matchIfMissing = true)
+@Slf4j
+@RequiredArgsConstructor
+public class ReconciliationViewServiceImpl implements ReconciliationViewService {
+    
+    private static final String CATCH_UP_LEASE = "reconciliation-view-catch-up";
+    
+    private final ReconciliationViewRepository viewRepository;
+    private final TradeReconciliationRepository reconciliationRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final LeaseService leaseService;
+    
+    private final Object lock = new Object();
+    private Set<String> changedTradeIds = new LinkedHashSet<>();
+    
+    @Value("${reconciliation.read-model.chunk-size}")
+    private int chunkSize;
+    
+    @Value("${reconciliation.read-model.catch-up-id-range}")
+    private long catchUpIdRange;
+    
+    @Value("${reconciliation.read-model.catch-up-interval-ms}")
+    private long catchUpIntervalMillis;
+    
+    /**
+     * Mark the trade of a reconciliation outcome as changed once its transaction has committed
+     */
+    @TransactionalEventListener
+    public void onReconciliationOutcome(ReconciliationOutcomeEvent event) {
+        synchronized (lock) {
+            changedTradeIds.add(event.tradeId());
+        }
+    }
+    
+    /**
+     * Scheduled entry point refreshing changed trades
+     */
+    @Scheduled(fixedDelayString = "${reconciliation.read-model.refresh-interval-ms}")
+    public void runRefresh() {
+        refresh();
+    }
+    
+    /**
+     * Refresh changed trades before the instance stops
+     */
+    @PreDestroy
+    public void refreshOnShutdown() {
+        refresh();
+    }
+    
+    /**
+     * Scheduled entry point for the catch-up
+     */
+    @Scheduled(initialDelayString = "${reconciliation.read-model.catch-up-initial-delay-ms}",
+            fixedDelayString = "${reconciliation.read-model.catch-up-interval-ms}")
+    public void runCatchUp() {
+        if (!leaseService.tryAcquire(CATCH_UP_LEASE, Duration.ofMillis(catchUpIntervalMillis))) {
+            log.debug("Read model catch-up is owned by another instance");
+            return;
+        }
+        catchUp();
+    }
+    
+    @Override
+    public int refresh() {
+        List<String> tradeIds;
+        synchronized (lock) {
+            if (changedTradeIds.isEmpty()) {
+                return 0;
+            }
+            tradeIds = new ArrayList<>(changedTradeIds);
+            changedTradeIds = new LinkedHashSet<>();
+        }
+        
+        int refreshed = 0;
+        for (int from = 0; from < tradeIds.size(); from += chunkSize) {
+            List<String> chunk = tradeIds.subList(from, Math.min(from + chunkSize, tradeIds.size()));
+            try {
+                Integer rows = transactionTemplate.execute(status -> viewRepository.refreshByTradeIds(chunk));
+                refreshed += rows == null ? 0 : rows;
+            } catch (Exception e) {
+                log.error("Error refreshing reconciliation view, will retry with the next refresh", e);
+                synchronized (lock) {
+                    changedTradeIds.addAll(tradeIds.subList(from, tradeIds.size()));
+                }
+                break;
+            }
+        }
+        
+        log.debug("Refreshed {} reconciliation view rows", refreshed);
+        return refreshed;
+    }
+    
+    @Override
+    public int catchUp() {
+        long maxId = reconciliationRepository.findMaxId();
+        int refreshed = 0;
+        
+        for (long fromId = 0; fromId < maxId; fromId += catchUpIdRange) {
+            long rangeStart = fromId;
+            Integer rows = transactionTemplate.execute(status -> {
+                viewRepository.deleteOrphansInRange(rangeStart, rangeStart + catchUpIdRange);
+                return viewRepository.refreshStaleInRange(rangeStart, rangeStart + catchUpIdRange);
+            });
+            refreshed += rows == null ? 0 : rows;
+        }
+        
+        if (refreshed > 0) {
+            log.info("Read model catch-up copied {} missing or stale reconciliations", refreshed);
+        }
+        return refreshed;
+    }
+}
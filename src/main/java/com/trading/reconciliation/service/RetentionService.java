@@ -0,0 +1,13 @@
+package com.trading.reconciliation.service;
+
+/**
+ * Service interface for archival of completed reconciliations
+ */
+public interface RetentionService {
+
+    /**
+     * Move aged terminal-status reconciliations and their trade legs to the archive tables
+     * @return Number of reconciliations archived
+     */
+    int archiveCompletedReconciliations();
+}
@@ -0,0 +1,205 @@
+package com.trading.reconciliation.service;
+
+import com.trading.reconciliation.model.ReconciliationStatus;
+import com.trading.reconciliation.repository.ArchivedTradeDataRepository;
+import com.trading.reconciliation.repository.ArchivedTradeReconciliationRepository;
+import com.trading.reconciliation.repository.ReconciliationViewRepository;
+import com.trading.reconciliation.repository.TradeLegHeadRepository;
+import com.trading.reconciliation.repository.TradeReconciliationRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Implementation of RetentionService
+ *
+ * Reconciliations in a terminal status are moved, together with their trade legs,
+ * into the archive tables so the hot tables stay a bounded size. MATCHED results
+ * are archived after a shorter retention period than the other terminal statuses,
+ * which are more likely to still be investigated.
+ *
+ * Work is done in small chunks, each in its own short transaction, with a pause
+ * between chunks so archival never holds long locks or saturates the database.
+ * Rows that are locked by concurrent reconciliation work are skipped and picked
+ * up by a later run. Runs happen on their own thread, so the pauses never hold up the
+ * shared scheduler thread, and a run still in progress when the next one is due is
+ * not overlapped.
+ */
+@Service
+@ConditionalOnProperty(name = "reconciliation.storage.engine", havingValue = "jpa", matchIfMissing = true)
+@Slf4j
+@RequiredArgsConstructor
+public class RetentionServiceImpl implements RetentionService {
+
+    private static final List<String> MATCHED_STATUSES = List.of(ReconciliationStatus.MATCHED.name());
+    private static final List<String> OTHER_TERMINAL_STATUSES = List.of(
+            ReconciliationStatus.MISMATCHED.name(),
+            ReconciliationStatus.RECONCILIATION_TIMEOUT.name(),
+            ReconciliationStatus.ERROR.name());
+    private static final String RETENTION_LEASE = "reconciliation-retention";
+
+    private final TradeReconciliationRepository reconciliationRepository;
+    private final ArchivedTradeReconciliationRepository archivedReconciliationRepository;
+    private final ArchivedTradeDataRepository archivedTradeDataRepository;
+    private final ReconciliationViewRepository viewRepository;
+    private final TradeLegHeadRepository tradeLegHeadRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final LeaseService leaseService;
+    private final ExecutorService retentionExecutor = Executors.newSingleThreadExecutor(
+            new CustomizableThreadFactory("retention-"));
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    @Value("${reconciliation.retention.enabled}")
+    private boolean retentionEnabled;
+
+    @Value("${reconciliation.retention.matched-after-days}")
+    private int matchedAfterDays;
+
+    @Value("${reconciliation.retention.terminal-after-days}")
+    private int terminalAfterDays;
+
+    @Value("${reconciliation.retention.chunk-size}")
+    private int chunkSize;
+
+    @Value("${reconciliation.retention.pause-millis}")
+    private long pauseMillis;
+
+    @Value("${reconciliation.retention.max-chunks-per-run}")
+    private int maxChunksPerRun;
+
+    @Value("${reconciliation.retention.lease-ttl-ms}")
+    private long leaseTtlMillis;
+
+    /**
+     * Scheduled entry point for the retention job, handing the run to the retention thread
+     */
+    @Scheduled(cron = "${reconciliation.retention.cron}")
+    public void runRetention() {
+        if (!retentionEnabled) {
+            return;
+        }
+        if (!running.compareAndSet(false, true)) {
+            log.warn("Previous retention run still in progress, skipping this one");
+            return;
+        }
+
+        try {
+            retentionExecutor.execute(() -> {
+                try {
+                    archiveIfLeaseHolder();
+                } catch (Exception e) {
+                    log.error("Error archiving completed reconciliations, will retry with the next run", e);
+                } finally {
+                    running.set(false);
+                }
+            });
+        } catch (RuntimeException e) {
+            running.set(false);
+            throw e;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        retentionExecutor.shutdownNow();
+    }
+
+    /**
+     * Archive if this instance holds the retention lease
+     */
+    private void archiveIfLeaseHolder() {
+        // Every instance fires on the same cron; only the lease holder archives
+        if (!leaseService.tryAcquire(RETENTION_LEASE, Duration.ofMillis(leaseTtlMillis))) {
+            log.debug("Retention is owned by another instance");
+            return;
+        }
+        archiveCompletedReconciliations();
+    }
+
+    @Override
+    public int archiveCompletedReconciliations() {
+        log.info("Archiving completed reconciliations");
+
+        LocalDateTime now = LocalDateTime.now();
+        int chunkBudget = maxChunksPerRun;
+
+        ChunkedRun matched = archiveStatuses(MATCHED_STATUSES, now.minusDays(matchedAfterDays), chunkBudget);
+        chunkBudget -= matched.chunks;
+        ChunkedRun terminal = archiveStatuses(OTHER_TERMINAL_STATUSES, now.minusDays(terminalAfterDays), chunkBudget);
+
+        int archived = matched.archived + terminal.archived;
+        log.info("Archived {} reconciliations in {} chunks", archived, matched.chunks + terminal.chunks);
+        return archived;
+    }
+
+    /**
+     * Archive reconciliations with the given statuses chunk by chunk until none are left or the budget is used
+     */
+    private ChunkedRun archiveStatuses(List<String> statuses, LocalDateTime cutoff, int chunkBudget) {
+        int archived = 0;
+        int chunks = 0;
+
+        while (chunks < chunkBudget) {
+            Integer moved = transactionTemplate.execute(tx -> archiveChunk(statuses, cutoff));
+            chunks++;
+
+            if (moved == null || moved == 0) {
+                break;
+            }
+            archived += moved;
+
+            if (moved < chunkSize || !pause()) {
+                break;
+            }
+        }
+
+        return new ChunkedRun(archived, chunks);
+    }
+
+    /**
+     * Move one chunk of reconciliations and their legs; runs inside a single short transaction
+     */
+    private int archiveChunk(List<String> statuses, LocalDateTime cutoff) {
+        List<Long> ids = reconciliationRepository.lockArchivableIds(statuses, cutoff, chunkSize);
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        viewRepository.deleteByReconciliationIds(ids);
+        tradeLegHeadRepository.deleteHeadsOfReconciliations(ids);
+        int legs = archivedTradeDataRepository.archiveLegsOfReconciliations(ids);
+        int reconciliations = archivedReconciliationRepository.archiveReconciliations(ids);
+        log.debug("Archived chunk of {} reconciliations and {} trade legs", reconciliations, legs);
+        return reconciliations;
+    }
+
+    /**
+     * Throttle between chunks; returns false if the job was interrupted
+     */
+    private boolean pause() {
+        try {
+            Thread.sleep(pauseMillis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Retention job interrupted");
+            return false;
+        }
+    }
+
+    private record ChunkedRun(int archived, int chunks) {
+    }
+}
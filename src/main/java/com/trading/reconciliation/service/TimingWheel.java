@@ -0,0 +1,170 @@
+package com.trading.reconciliation.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hierarchical timing wheel holding items until their deadline
+ * 
+ * The lowest level has wheelSize slots of tickMillis each; every further level has
+ * slots as wide as the whole level below it, so a few levels cover long timeouts with
+ * constant-time insertion. Items in a higher level slot are cascaded down when the
+ * wheel reaches that slot, and are returned by advance() at the first tick boundary
+ * at or after their deadline. An item is therefore never released early and at most
+ * one tick late.
+ * 
+ * Deadlines beyond the range of the top level are parked in its furthest slot and
+ * re-inserted when it comes round. An item is held at most once: adding an item that
+ * is already waiting replaces its deadline, and the superseded entry is dropped when
+ * its slot comes round, so scheduling the same item repeatedly does not grow the wheel.
+ * Items cannot be cancelled; callers are expected to re-check their state when an
+ * item expires. Deadlines are rounded up to the next
+ * tick boundary, and the wheel only moves forward by whole ticks that have passed.
+ */
+public class TimingWheel<T> {
+    
+    private final long[] tickMillis;
+    private final int wheelSize;
+    private final List<Entry<T>>[][] buckets;
+    private final Map<T, Entry<T>> scheduled = new HashMap<>();
+    
+    private long currentTime;
+    
+    /**
+     * Create a timing wheel
+     * @param tickMillis Resolution of the lowest level
+     * @param wheelSize Number of slots per level
+     * @param levels Number of levels
+     * @param startMillis Current time in epoch milliseconds
+     */
+    @SuppressWarnings("unchecked")
+    public TimingWheel(long tickMillis, int wheelSize, int levels, long startMillis) {
+        this.wheelSize = wheelSize;
+        this.tickMillis = new long[levels];
+        this.buckets = (List<Entry<T>>[][]) new List<?>[levels][wheelSize];
+        
+        long levelTick = tickMillis;
+        for (int level = 0; level < levels; level++) {
+            this.tickMillis[level] = levelTick;
+            for (int slot = 0; slot < wheelSize; slot++) {
+                buckets[level][slot] = new ArrayList<>();
+            }
+            levelTick *= wheelSize;
+        }
+        
+        this.currentTime = startMillis - Math.floorMod(startMillis, tickMillis);
+    }
+    
+    /**
+     * Add an item to expire at the given deadline, replacing its deadline if it is already waiting
+     * @param item The item
+     * @param deadlineMillis Deadline in epoch milliseconds
+     * @return false if the deadline has already passed, in which case the wheel is left unchanged
+     */
+    public synchronized boolean add(T item, long deadlineMillis) {
+        long expiryMillis = Math.floorDiv(deadlineMillis + tickMillis[0] - 1, tickMillis[0]) * tickMillis[0];
+        Entry<T> current = scheduled.get(item);
+        if (current != null && current.expiryMillis() == expiryMillis) {
+            return true;
+        }
+        
+        Entry<T> entry = new Entry<>(item, expiryMillis);
+        if (!insert(entry)) {
+            return false;
+        }
+        scheduled.put(item, entry);
+        return true;
+    }
+    
+    /**
+     * Advance the wheel to the given time
+     * @param nowMillis Current time in epoch milliseconds
+     * @return Items whose deadline has been reached, in deadline order at tick resolution
+     */
+    public synchronized List<T> advance(long nowMillis) {
+        List<T> expired = new ArrayList<>();
+        
+        while (currentTime + tickMillis[0] <= nowMillis) {
+            currentTime += tickMillis[0];
+            
+            // Cascade from the top so items moved down are picked up by the lower levels in the same tick
+            for (int level = tickMillis.length - 1; level >= 0; level--) {
+                if (currentTime % tickMillis[level] != 0) {
+                    continue;
+                }
+                
+                List<Entry<T>> bucket = buckets[level][slot(currentTime, level)];
+                if (bucket.isEmpty()) {
+                    continue;
+                }
+                
+                List<Entry<T>> entries = new ArrayList<>(bucket);
+                bucket.clear();
+                for (Entry<T> entry : entries) {
+                    if (scheduled.get(entry.item()) != entry) {
+                        // Superseded by a later add
+                        continue;
+                    }
+                    if (!insert(entry)) {
+                        expired.add(entry.item());
+                        scheduled.remove(entry.item());
+                    }
+                }
+            }
+        }
+        
+        return expired;
+    }
+    
+    /**
+     * Remove all items from the wheel
+     */
+    public synchronized void clear() {
+        for (List<Entry<T>>[] level : buckets) {
+            for (List<Entry<T>> bucket : level) {
+                bucket.clear();
+            }
+        }
+        scheduled.clear();
+    }
+    
+    /**
+     * Get the number of items waiting in the wheel
+     * @return Number of items
+     */
+    public synchronized int size() {
+        return scheduled.size();
+    }
+    
+    private boolean insert(Entry<T> entry) {
+        long expiry = entry.expiryMillis();
+        if (expiry <= currentTime) {
+            return false;
+        }
+        
+        for (int level = 0; level < tickMillis.length; level++) {
+            long distance = expiry / tickMillis[level] - currentTime / tickMillis[level];
+            if (distance < wheelSize) {
+                buckets[level][slot(expiry, level)].add(entry);
+                return true;
+            }
+        }
+        
+        // Beyond the range of the wheel, wait in the furthest top level slot
+        int top = tickMillis.length - 1;
+        buckets[top][slot(currentTime + (wheelSize - 1) * tickMillis[top], top)].add(entry);
+        return true;
+    }
+    
+    private int slot(long timeMillis, int level) {
+        return (int) Math.floorMod(timeMillis / tickMillis[level], (long) wheelSize);
+    }
+    
+    /**
+     * An item with its deadline rounded up to a tick boundary
+     */
+    private record Entry<T>(T item, long expiryMillis) {
+    }
+}
@@ -4,6 +4,7 @@
 import com.trading.reconciliation.model.TradeData;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -15,6 +16,7 @@ public interface TradeDataService {
      * Save trade data from System A
      * @param tradeDataDto The trade data DTO
      * @return The saved TradeData entity
+     * @throws com.trading.reconciliation.exception.AdmissionRejectedException if the trade's desk lane has no pool share left
      */
     TradeData saveSystemATrade(TradeDataDto tradeDataDto);
     
@@ -22,21 +24,40 @@ public interface TradeDataService {
      * Save trade data from System B
      * @param tradeDataDto The trade data DTO
      * @return The saved TradeData entity
+     * @throws com.trading.reconciliation.exception.AdmissionRejectedException if the trade's desk lane has no pool share left
      */
     TradeData saveSystemBTrade(TradeDataDto tradeDataDto);
     
     /**
-     * Find trade data by trade ID and source system
+     * Save a batch of trade data from one source system in a single transaction
+     * and trigger reconciliation for each trade once the batch is committed
+     * @param sourceSystem The source system (e.g., "System A", "System B")
+     * @param tradeDataDtos The trade data DTOs in submission order
+     * @return The saved TradeData entities
+     */
+    List<TradeData> saveTradeBatch(String sourceSystem, List<TradeDataDto> tradeDataDtos);
+    
+    /**
+     * Save a batch of trade data from several source systems in a single transaction,
+     * so either all of it or none of it is stored, and trigger reconciliation for each
+     * leg once the batch is committed
+     * @param tradesBySource The trade data DTOs of each source system in submission order
+     * @return The saved TradeData entities
+     */
+    List<TradeData> saveTradeBatch(Map<String, List<TradeDataDto>> tradesBySource);
+    
+    /**
+     * Find the latest version of a trade leg
      * @param tradeId The trade identifier
      * @param sourceSystem The source system
-     * @return Optional containing the trade data if found
+     * @return Optional containing the latest version of the leg if found
      */
     Optional<TradeData> findByTradeIdAndSourceSystem(String tradeId, String sourceSystem);
     
     /**
-     * Find all trade data for a given trade ID
+     * Find every stored version of both legs of a trade
      * @param tradeId The trade identifier
-     * @return List of trade data with the specified trade ID
+     * @return List of trade data with the specified trade ID, by source system and version
      */
     List<TradeData> findByTradeId(String tradeId);
 } 
\ No newline at end of file
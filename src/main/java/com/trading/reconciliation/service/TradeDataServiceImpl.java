@@ -2,28 +2,43 @@
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.trading.reconciliation.dto.TradeDataDto;
+import com.trading.reconciliation.messaging.DeskLanes;
+import com.trading.reconciliation.messaging.ReconciliationTaskTransport;
 import com.trading.reconciliation.model.TradeData;
-import com.trading.reconciliation.repository.TradeDataRepository;
+import com.trading.reconciliation.profiling.TradeIngestEvent;
+import com.trading.reconciliation.storage.TradeLegStore;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Implementation of TradeDataService
+ * 
+ * Reconciliation is triggered once the leg is committed, unless the task transport
+ * takes part in the transaction, in which case the task is published within it so the
+ * leg and its task commit together.
  */
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class TradeDataServiceImpl implements TradeDataService {
     
-    private final TradeDataRepository tradeDataRepository;
+    private final TradeLegStore legStore;
     private final ObjectMapper objectMapper;
     private final ReconciliationService reconciliationService;
+    private final TransactionTemplate transactionTemplate;
+    private final DeskLanes deskLanes;
+    private final ReconciliationTaskTransport taskTransport;
     
     private static final String SYSTEM_A = "System A";
     private static final String SYSTEM_B = "System B";
@@ -31,81 +46,138 @@ public class TradeDataServiceImpl implements TradeDataService {
     @Override
     public TradeData saveSystemATrade(TradeDataDto tradeDataDto) {
         log.info("Saving trade data from System A with tradeId: {}", tradeDataDto.getTradeId());
-        TradeData tradeData = saveTradeData(tradeDataDto, SYSTEM_A);
-        
-        // Trigger reconciliation
-        reconciliationService.triggerReconciliation(tradeDataDto.getTradeId());
-        
-        return tradeData;
+        return saveAndTrigger(tradeDataDto, SYSTEM_A);
     }
     
     @Override
     public TradeData saveSystemBTrade(TradeDataDto tradeDataDto) {
         log.info("Saving trade data from System B with tradeId: {}", tradeDataDto.getTradeId());
-        TradeData tradeData = saveTradeData(tradeDataDto, SYSTEM_B);
+        return saveAndTrigger(tradeDataDto, SYSTEM_B);
+    }
+    
+    @Override
+    public List<TradeData> saveTradeBatch(String sourceSystem, List<TradeDataDto> tradeDataDtos) {
+        return saveTradeBatch(Map.of(sourceSystem, tradeDataDtos));
+    }
+    
+    @Override
+    public List<TradeData> saveTradeBatch(Map<String, List<TradeDataDto>> tradesBySource) {
+        tradesBySource.forEach((sourceSystem, tradeDataDtos) ->
+                log.info("Saving batch of {} trades from {}", tradeDataDtos.size(), sourceSystem));
         
-        // Trigger reconciliation
-        reconciliationService.triggerReconciliation(tradeDataDto.getTradeId());
+        // One transaction for the whole batch so it costs a single commit and fails as a whole
+        List<TradeData> savedTrades = transactionTemplate.execute(status -> {
+            List<TradeData> saved = tradesBySource.entrySet().stream()
+                    .flatMap(batch -> batch.getValue().stream()
+                            .map(tradeDataDto -> saveTradeData(tradeDataDto, batch.getKey())))
+                    .toList();
+            if (taskTransport.isTransactional()) {
+                triggerLatestVersions(saved);
+            }
+            return saved;
+        });
         
-        return tradeData;
+        // Otherwise trigger reconciliation only after the batch is committed
+        if (!taskTransport.isTransactional()) {
+            triggerLatestVersions(savedTrades);
+        }
+        
+        return savedTrades;
     }
     
     @Override
     public Optional<TradeData> findByTradeIdAndSourceSystem(String tradeId, String sourceSystem) {
-        return tradeDataRepository.findByTradeIdAndSourceSystem(tradeId, sourceSystem);
+        return legStore.findLatestLeg(tradeId, sourceSystem);
     }
     
     @Override
     public List<TradeData> findByTradeId(String tradeId) {
-        return tradeDataRepository.findByTradeId(tradeId);
+        return legStore.findAllVersions(tradeId);
+    }
+    
+    /**
+     * Save a single leg within its desk lane's pool share and trigger its reconciliation
+     */
+    private TradeData saveAndTrigger(TradeDataDto tradeDataDto, String sourceSystem) {
+        TradeData tradeData = deskLanes.callWithPoolShare(deskLanes.laneOf(tradeDataDto.getDesk()),
+                () -> transactionTemplate.execute(status -> {
+                    TradeData saved = saveTradeData(tradeDataDto, sourceSystem);
+                    if (taskTransport.isTransactional()) {
+                        reconciliationService.triggerReconciliation(saved);
+                    }
+                    return saved;
+                }));
+        
+        // Trigger reconciliation
+        if (!taskTransport.isTransactional()) {
+            reconciliationService.triggerReconciliation(tradeData);
+        }
+        
+        return tradeData;
+    }
+    
+    /**
+     * Trigger reconciliation once per leg of a batch, for its latest version
+     */
+    private void triggerLatestVersions(List<TradeData> savedTrades) {
+        savedTrades.stream()
+                .collect(Collectors.toMap(trade -> List.of(trade.getTradeId(), trade.getSourceSystem()),
+                        Function.identity(), (earlier, later) -> later,
+                        LinkedHashMap::new))
+                .values()
+                .forEach(reconciliationService::triggerReconciliation);
     }
     
     /**
      * Common method to save trade data
+     * 
+     * Every amendment is stored as a new version of the leg; existing rows are never
+     * updated. Must run within a transaction.
      */
     private TradeData saveTradeData(TradeDataDto tradeDataDto, String sourceSystem) {
+        TradeIngestEvent ingestEvent = new TradeIngestEvent();
+        ingestEvent.begin();
+        boolean amended = false;
+        
         try {
             // Convert DTO to JSON string for raw data storage
             String rawData = objectMapper.writeValueAsString(tradeDataDto);
             
-            // Check if trade data already exists for this tradeId and source system
-            Optional<TradeData> existingTradeData = tradeDataRepository.findByTradeIdAndSourceSystem(
+            // A resubmission of the latest version, such as a journal replay after a crash, adds no version
+            Optional<TradeData> latestTradeData = legStore.findLatestLeg(
                     tradeDataDto.getTradeId(), sourceSystem);
+            if (latestTradeData.isPresent() && rawData.equals(latestTradeData.get().getRawData())) {
+                log.info("Trade data for tradeId: {} from {} is unchanged at version {}", 
+                        tradeDataDto.getTradeId(), sourceSystem, latestTradeData.get().getVersion());
+                return latestTradeData.get();
+            }
+            
+            TradeData newTradeData = TradeData.builder()
+                    .tradeId(tradeDataDto.getTradeId())
+                    .instrument(tradeDataDto.getInstrument())
+                    .quantity(tradeDataDto.getQuantity())
+                    .price(tradeDataDto.getPrice())
+                    .tradeDate(tradeDataDto.getTradeDate())
+                    .counterparty(tradeDataDto.getCounterparty())
+                    .sourceSystem(sourceSystem)
+                    .desk(tradeDataDto.getDesk())
+                    .receivedAt(LocalDateTime.now())
+                    .rawData(rawData)
+                    .build();
             
-            if (existingTradeData.isPresent()) {
-                log.info("Updating existing trade data for tradeId: {} from {}", 
-                        tradeDataDto.getTradeId(), sourceSystem);
-                
-                TradeData updatedTradeData = existingTradeData.get();
-                updatedTradeData.setInstrument(tradeDataDto.getInstrument());
-                updatedTradeData.setQuantity(tradeDataDto.getQuantity());
-                updatedTradeData.setPrice(tradeDataDto.getPrice());
-                updatedTradeData.setTradeDate(tradeDataDto.getTradeDate());
-                updatedTradeData.setCounterparty(tradeDataDto.getCounterparty());
-                updatedTradeData.setReceivedAt(LocalDateTime.now());
-                updatedTradeData.setRawData(rawData);
-                
-                return tradeDataRepository.save(updatedTradeData);
-            } else {
-                // Create new trade data
-                TradeData newTradeData = TradeData.builder()
-                        .tradeId(tradeDataDto.getTradeId())
-                        .instrument(tradeDataDto.getInstrument())
-                        .quantity(tradeDataDto.getQuantity())
-                        .price(tradeDataDto.getPrice())
-                        .tradeDate(tradeDataDto.getTradeDate())
-                        .counterparty(tradeDataDto.getCounterparty())
-                        .sourceSystem(sourceSystem)
-                        .receivedAt(LocalDateTime.now())
-                        .rawData(rawData)
-                        .build();
-                
-                return tradeDataRepository.save(newTradeData);
+            TradeData savedTradeData = legStore.appendVersion(newTradeData);
+            if (newTradeData.getVersion() > 1) {
+                log.info("Stored amendment version {} of tradeId: {} from {}", 
+                        newTradeData.getVersion(), tradeDataDto.getTradeId(), sourceSystem);
+                amended = true;
             }
+            return savedTradeData;
         } catch (Exception e) {
             log.error("Error saving trade data for tradeId: {} from {}", 
                     tradeDataDto.getTradeId(), sourceSystem, e);
             throw new RuntimeException("Failed to save trade data", e);
+        } finally {
+            ingestEvent.complete(tradeDataDto.getTradeId(), sourceSystem, amended);
         }
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,479 @@
+package com.trading.reconciliation.storage;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trading.reconciliation.model.ReconciliationStatus;
+import com.trading.reconciliation.model.TradeData;
+import com.trading.reconciliation.model.TradeReconciliation;
+import com.trading.reconciliation.repository.TradeReconciliationRepository.ExpiredReconciliation;
+import com.trading.reconciliation.repository.TradeReconciliationRepository.PendingReconciliation;
+import com.trading.reconciliation.repository.TradeReconciliationRepository.ReconciliationVersion;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Trade leg and reconciliation result storage in memory
+ *
+ * Trades are spread over a fixed number of stripes by the hash of their tradeId, each
+ * holding its trades' legs and reconciliation behind its own read-write lock. All state
+ * of a trade lives in one stripe, so matching a trade takes a single stripe's lock and
+ * trades in other stripes proceed in parallel. Pending reconciliations are also indexed
+ * by id for the timeout schedule and sweep.
+ *
+ * Stored objects are never handed out: reads return copies and writes store copies, so
+ * callers can change what they loaded, as they would a JPA entity, until they save it.
+ * Stored objects are not changed either; a change stores a new copy in their place, so
+ * an object read under a stripe's lock can be used after the lock is released. Writes
+ * take effect immediately and are not undone if the surrounding transaction rolls back.
+ *
+ * If a snapshot directory is configured, the contents are written to a snapshot file
+ * there periodically and on shutdown, and loaded again on startup. Changes made since
+ * the last snapshot are lost if the instance dies.
+ *
+ * Nothing is written to PostgreSQL, so the features that read trade_data and
+ * trade_reconciliation there (the read model, retention, re-runs, position runs and
+ * file loads) are only enabled with the jpa engine.
+ */
+@Component
+@ConditionalOnProperty(name = "reconciliation.storage.engine", havingValue = "memory")
+@Slf4j
+public class InMemoryStorageEngine implements TradeLegStore, ReconciliationStore {
+    
+    static final String SNAPSHOT_FILE = "storage-snapshot.json";
+    
+    private final Stripe[] stripes;
+    private final ConcurrentSkipListMap<Long, String> pendingById = new ConcurrentSkipListMap<>();
+    private final AtomicLong legIds = new AtomicLong();
+    private final AtomicLong reconciliationIds = new AtomicLong();
+    private final AtomicLong modifications = new AtomicLong();
+    private final ObjectMapper objectMapper;
+    private final Path snapshotDirectory;
+    
+    private long snapshottedModifications;
+    
+    public InMemoryStorageEngine(
+            ObjectMapper objectMapper,
+            @Value("${reconciliation.storage.memory.stripes}") int stripeCount,
+            @Value("${reconciliation.storage.memory.snapshot-dir}") String snapshotDirectory) {
+        this.objectMapper = objectMapper;
+        this.snapshotDirectory = snapshotDirectory.isBlank() ? null : Path.of(snapshotDirectory);
+        
+        // A power of two, so a stripe is selected by masking the hash
+        int size = 1;
+        while (size < stripeCount) {
+            size <<= 1;
+        }
+        stripes = new Stripe[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+    
+    @Override
+    public Optional<TradeData> findLatestLeg(String tradeId, String sourceSystem) {
+        Stripe stripe = stripe(tradeId);
+        stripe.readLock.lock();
+        try {
+            TradeEntry entry = stripe.trades.get(tradeId);
+            List<TradeData> versions = entry == null ? null : entry.legs.get(sourceSystem);
+            return versions == null ? Optional.empty() : Optional.of(copy(versions.get(versions.size() - 1)));
+        } finally {
+            stripe.readLock.unlock();
+        }
+    }
+    
+    @Override
+    public List<TradeData> findAllVersions(String tradeId) {
+        Stripe stripe = stripe(tradeId);
+        stripe.readLock.lock();
+        try {
+            TradeEntry entry = stripe.trades.get(tradeId);
+            if (entry == null) {
+                return List.of();
+            }
+            return entry.legs.values().stream().flatMap(List::stream).map(this::copy).toList();
+        } finally {
+            stripe.readLock.unlock();
+        }
+    }
+    
+    @Override
+    public TradeData appendVersion(TradeData leg) {
+        Stripe stripe = stripe(leg.getTradeId());
+        stripe.writeLock.lock();
+        try {
+            List<TradeData> versions = stripe.trades.computeIfAbsent(leg.getTradeId(), tradeId -> new TradeEntry())
+                    .legs.computeIfAbsent(leg.getSourceSystem(), sourceSystem -> new ArrayList<>(1));
+            leg.setId(legIds.incrementAndGet());
+            leg.setVersion(versions.isEmpty() ? 1 : versions.get(versions.size() - 1).getVersion() + 1);
+            versions.add(copy(leg));
+            modifications.incrementAndGet();
+            return leg;
+        } finally {
+            stripe.writeLock.unlock();
+        }
+    }
+    
+    @Override
+    public Optional<TradeReconciliation> findByTradeId(String tradeId) {
+        Stripe stripe = stripe(tradeId);
+        stripe.readLock.lock();
+        try {
+            TradeEntry entry = stripe.trades.get(tradeId);
+            return entry == null || entry.reconciliation == null
+                    ? Optional.empty() : Optional.of(copy(entry.reconciliation));
+        } finally {
+            stripe.readLock.unlock();
+        }
+    }
+    
+    @Override
+    public Optional<TradeReconciliation> findByTradeIdForUpdate(String tradeId) {
+        // Writes are not transactional, so there is no lock to hold until the end of one
+        return findByTradeId(tradeId);
+    }
+    
+    @Override
+    public List<TradeReconciliation> findByTradeIdIn(Collection<String> tradeIds) {
+        List<TradeReconciliation> found = new ArrayList<>();
+        for (String tradeId : tradeIds) {
+            findByTradeId(tradeId).ifPresent(found::add);
+        }
+        return found;
+    }
+    
+    @Override
+    public Optional<ReconciliationVersion> findVersionByTradeId(String tradeId) {
+        Stripe stripe = stripe(tradeId);
+        stripe.readLock.lock();
+        try {
+            TradeEntry entry = stripe.trades.get(tradeId);
+            return entry == null || entry.reconciliation == null ? Optional.empty()
+                    : Optional.of(new Version(entry.reconciliation.getId(), entry.reconciliation.getUpdatedAt()));
+        } finally {
+            stripe.readLock.unlock();
+        }
+    }
+    
+    @Override
+    public TradeReconciliation save(TradeReconciliation reconciliation) {
+        Stripe stripe = stripe(reconciliation.getTradeId());
+        stripe.writeLock.lock();
+        try {
+            TradeEntry entry = stripe.trades.computeIfAbsent(reconciliation.getTradeId(), tradeId -> new TradeEntry());
+            LocalDateTime now = LocalDateTime.now();
+            if (reconciliation.getId() == null) {
+                // Same outcome as the unique constraint on trade_id
+                if (entry.reconciliation != null) {
+                    throw new DataIntegrityViolationException(
+                            "Reconciliation for tradeId " + reconciliation.getTradeId() + " already exists");
+                }
+                reconciliation.setId(reconciliationIds.incrementAndGet());
+                reconciliation.setCreatedAt(now);
+            }
+            reconciliation.setUpdatedAt(now);
+            
+            entry.reconciliation = copy(reconciliation);
+            indexPending(entry.reconciliation);
+            modifications.incrementAndGet();
+            return reconciliation;
+        } finally {
+            stripe.writeLock.unlock();
+        }
+    }
+    
+    @Override
+    public List<PendingReconciliation> findPendingAfter(long afterId, int partition, int partitions, int limit) {
+        List<PendingReconciliation> page = new ArrayList<>(Math.min(limit, 1024));
+        for (Map.Entry<Long, String> pending : pendingById.tailMap(afterId, false).entrySet()) {
+            if (page.size() == limit) {
+                break;
+            }
+            if (TradePartitions.partitionOf(pending.getValue(), partitions) != partition) {
+                continue;
+            }
+            findByTradeId(pending.getValue())
+                    .filter(reconciliation -> reconciliation.getStatus() == ReconciliationStatus.PENDING)
+                    .ifPresent(reconciliation -> page.add(new Pending(reconciliation.getId(),
+                            reconciliation.getTradeId(), reconciliation.getCreatedAt())));
+        }
+        return page;
+    }
+    
+    @Override
+    public List<ExpiredReconciliation> expirePendingByTradeIds(List<String> tradeIds, LocalDateTime timeoutThreshold,
+                                                               String details, LocalDateTime now) {
+        List<ExpiredReconciliation> expired = new ArrayList<>();
+        for (String tradeId : tradeIds) {
+            expireIfTimedOut(tradeId, timeoutThreshold, details, now).ifPresent(expired::add);
+        }
+        return expired;
+    }
+    
+    @Override
+    public List<ExpiredReconciliation> expireTimedOutPending(LocalDateTime timeoutThreshold, String details,
+                                                             LocalDateTime now, int limit) {
+        List<ExpiredReconciliation> expired = new ArrayList<>();
+        for (String tradeId : pendingById.values()) {
+            if (expired.size() == limit) {
+                break;
+            }
+            expireIfTimedOut(tradeId, timeoutThreshold, details, now).ifPresent(expired::add);
+        }
+        return expired;
+    }
+    
+    /**
+     * Load the last snapshot, if snapshots are enabled and one exists
+     */
+    @PostConstruct
+    public void restore() throws IOException {
+        if (snapshotDirectory == null) {
+            log.info("In-memory storage started with {} stripes, snapshots disabled", stripes.length);
+            return;
+        }
+        
+        Path snapshotFile = snapshotDirectory.resolve(SNAPSHOT_FILE);
+        if (!Files.exists(snapshotFile)) {
+            log.info("In-memory storage started with {} stripes, no snapshot in {}", stripes.length, snapshotDirectory);
+            return;
+        }
+        
+        Snapshot snapshot;
+        try (InputStream in = Files.newInputStream(snapshotFile)) {
+            snapshot = objectMapper.readValue(in, Snapshot.class);
+        }
+        for (TradeData leg : snapshot.legs()) {
+            stripe(leg.getTradeId()).trades.computeIfAbsent(leg.getTradeId(), tradeId -> new TradeEntry())
+                    .legs.computeIfAbsent(leg.getSourceSystem(), sourceSystem -> new ArrayList<>(1))
+                    .add(leg);
+            legIds.accumulateAndGet(leg.getId(), Math::max);
+        }
+        for (TradeReconciliation reconciliation : snapshot.reconciliations()) {
+            stripe(reconciliation.getTradeId()).trades
+                    .computeIfAbsent(reconciliation.getTradeId(), tradeId -> new TradeEntry())
+                    .reconciliation = reconciliation;
+            indexPending(reconciliation);
+            reconciliationIds.accumulateAndGet(reconciliation.getId(), Math::max);
+        }
+        
+        log.info("Restored {} trade legs and {} reconciliations from {}",
+                snapshot.legs().size(), snapshot.reconciliations().size(), snapshotFile);
+    }
+    
+    /**
+     * Write a snapshot if snapshots are enabled and anything changed since the last one
+     *
+     * Each stripe's objects are collected under its read lock, so every trade is captured
+     * consistently while writes to other stripes go on. Stored objects are replaced rather
+     * than changed, so they are serialized after the lock is released.
+     */
+    @Scheduled(initialDelayString = "${reconciliation.storage.memory.snapshot-interval-ms}",
+            fixedDelayString = "${reconciliation.storage.memory.snapshot-interval-ms}")
+    @PreDestroy
+    public synchronized void snapshot() {
+        long modified = modifications.get();
+        if (snapshotDirectory == null || modified == snapshottedModifications) {
+            return;
+        }
+        
+        List<TradeData> legs = new ArrayList<>();
+        List<TradeReconciliation> reconciliations = new ArrayList<>();
+        for (Stripe stripe : stripes) {
+            stripe.readLock.lock();
+            try {
+                for (TradeEntry entry : stripe.trades.values()) {
+                    entry.legs.values().forEach(legs::addAll);
+                    if (entry.reconciliation != null) {
+                        reconciliations.add(entry.reconciliation);
+                    }
+                }
+            } finally {
+                stripe.readLock.unlock();
+            }
+        }
+        
+        try {
+            Files.createDirectories(snapshotDirectory);
+            Path temp = snapshotDirectory.resolve(SNAPSHOT_FILE + ".tmp");
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                        .writeValue(Channels.newOutputStream(channel), new Snapshot(legs, reconciliations));
+                channel.force(true);
+            }
+            Files.move(temp, snapshotDirectory.resolve(SNAPSHOT_FILE),
+                    StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            snapshottedModifications = modified;
+            log.info("Wrote snapshot of {} trade legs and {} reconciliations", legs.size(), reconciliations.size());
+        } catch (IOException e) {
+            log.error("Error writing in-memory storage snapshot to {}, will retry", snapshotDirectory, e);
+        }
+    }
+    
+    /**
+     * Mark a trade's reconciliation as timed out if it is still pending and past the threshold
+     */
+    private Optional<ExpiredReconciliation> expireIfTimedOut(String tradeId, LocalDateTime timeoutThreshold,
+                                                             String details, LocalDateTime now) {
+        Stripe stripe = stripe(tradeId);
+        stripe.writeLock.lock();
+        try {
+            TradeEntry entry = stripe.trades.get(tradeId);
+            TradeReconciliation reconciliation = entry == null ? null : entry.reconciliation;
+            if (reconciliation == null || reconciliation.getStatus() != ReconciliationStatus.PENDING
+                    || !reconciliation.getCreatedAt().isBefore(timeoutThreshold)) {
+                return Optional.empty();
+            }
+            
+            TradeReconciliation expired = copy(reconciliation);
+            expired.setStatus(ReconciliationStatus.RECONCILIATION_TIMEOUT);
+            expired.setDetails(details);
+            expired.setLastReconciliationAttempt(now);
+            expired.setUpdatedAt(now);
+            entry.reconciliation = expired;
+            pendingById.remove(expired.getId());
+            modifications.incrementAndGet();
+            return Optional.of(new Expired(tradeId, expired.getBusinessDate(),
+                    expired.getCounterparty(), expired.getInstrument()));
+        } finally {
+            stripe.writeLock.unlock();
+        }
+    }
+    
+    private void indexPending(TradeReconciliation reconciliation) {
+        if (reconciliation.getStatus() == ReconciliationStatus.PENDING) {
+            pendingById.put(reconciliation.getId(), reconciliation.getTradeId());
+        } else {
+            pendingById.remove(reconciliation.getId());
+        }
+    }
+    
+    private Stripe stripe(String tradeId) {
+        int hash = tradeId.hashCode();
+        return stripes[(hash ^ (hash >>> 16)) & (stripes.length - 1)];
+    }
+    
+    private TradeData copy(TradeData leg) {
+        return leg.toBuilder().build();
+    }
+    
+    private TradeReconciliation copy(TradeReconciliation reconciliation) {
+        return reconciliation.toBuilder().build();
+    }
+    
+    /**
+     * Trades of one stripe and the lock guarding them
+     */
+    private static class Stripe {
+    
+        private final Map<String, TradeEntry> trades = new HashMap<>();
+        private final Lock readLock;
+        private final Lock writeLock;
+        
+        Stripe() {
+            ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+            readLock = lock.readLock();
+            writeLock = lock.writeLock();
+        }
+    }
+    
+    /**
+     * Legs and reconciliation of one trade
+     */
+    private static class TradeEntry {
+    
+        // Versions of each leg in version order, by source system
+        private final Map<String, List<TradeData>> legs = new TreeMap<>();
+        private TradeReconciliation reconciliation;
+    }
+    
+    /**
+     * Contents of a snapshot file
+     */
+    record Snapshot(List<TradeData> legs, List<TradeReconciliation> reconciliations) {
+    }
+    
+    private record Version(Long id, LocalDateTime updatedAt) implements ReconciliationVersion {
+    
+        @Override
+        public Long getId() {
+            return id;
+        }
+        
+        @Override
+        public LocalDateTime getUpdatedAt() {
+            return updatedAt;
+        }
+    }
+    
+    private record Pending(Long id, String tradeId, LocalDateTime createdAt) implements PendingReconciliation {
+    
+        @Override
+        public Long getId() {
+            return id;
+        }
+        
+        @Override
+        public String getTradeId() {
+            return tradeId;
+        }
+        
+        @Override
+        public LocalDateTime getCreatedAt() {
+            return createdAt;
+        }
+    }
+    
+    private record Expired(String tradeId, LocalDate businessDate, String counterparty, String instrument)
+            implements ExpiredReconciliation {
+        
+        @Override
+        public String getTradeId() {
+            return tradeId;
+        }
+        
+        @Override
+        public LocalDate getBusinessDate() {
+            return businessDate;
+        }
+        
+        @Override
+        public String getCounterparty() {
+            return counterparty;
+        }
+        
+        @Override
+        public String getInstrument() {
+            return instrument;
+        }
+    }
+}
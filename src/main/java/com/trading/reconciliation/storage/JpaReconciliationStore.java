@@ -0,0 +1,68 @@
+package com.trading.reconciliation.storage;
+
+import com.trading.reconciliation.model.TradeReconciliation;
+import com.trading.reconciliation.repository.TradeReconciliationRepository;
+import com.trading.reconciliation.repository.TradeReconciliationRepository.ExpiredReconciliation;
+import com.trading.reconciliation.repository.TradeReconciliationRepository.PendingReconciliation;
+import com.trading.reconciliation.repository.TradeReconciliationRepository.ReconciliationVersion;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Reconciliation result storage in PostgreSQL
+ */
+@Component
+@ConditionalOnProperty(name = "reconciliation.storage.engine", havingValue = "jpa", matchIfMissing = true)
+@RequiredArgsConstructor
+public class JpaReconciliationStore implements ReconciliationStore {
+    
+    private final TradeReconciliationRepository reconciliationRepository;
+    
+    @Override
+    public Optional<TradeReconciliation> findByTradeId(String tradeId) {
+        return reconciliationRepository.findByTradeId(tradeId);
+    }
+    
+    @Override
+    public Optional<TradeReconciliation> findByTradeIdForUpdate(String tradeId) {
+        return reconciliationRepository.findForUpdateByTradeId(tradeId);
+    }
+    
+    @Override
+    public List<TradeReconciliation> findByTradeIdIn(Collection<String> tradeIds) {
+        return reconciliationRepository.findByTradeIdIn(tradeIds);
+    }
+    
+    @Override
+    public Optional<ReconciliationVersion> findVersionByTradeId(String tradeId) {
+        return reconciliationRepository.findVersionByTradeId(tradeId);
+    }
+    
+    @Override
+    public TradeReconciliation save(TradeReconciliation reconciliation) {
+        return reconciliationRepository.save(reconciliation);
+    }
+    
+    @Override
+    public List<PendingReconciliation> findPendingAfter(long afterId, int partition, int partitions, int limit) {
+        return reconciliationRepository.findPendingInPartitionAfter(afterId, partition, partitions, limit);
+    }
+    
+    @Override
+    public List<ExpiredReconciliation> expirePendingByTradeIds(List<String> tradeIds, LocalDateTime timeoutThreshold,
+                                                               String details, LocalDateTime now) {
+        return reconciliationRepository.expirePendingByTradeIds(tradeIds, timeoutThreshold, details, now);
+    }
+    
+    @Override
+    public List<ExpiredReconciliation> expireTimedOutPending(LocalDateTime timeoutThreshold, String details,
+                                                             LocalDateTime now, int limit) {
+        return reconciliationRepository.expireTimedOutPending(timeoutThreshold, details, now, limit);
+    }
+}
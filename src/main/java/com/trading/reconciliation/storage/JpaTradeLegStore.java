@@ -0,0 +1,44 @@
+package com.trading.reconciliation.storage;
+
+import com.trading.reconciliation.model.TradeData;
+import com.trading.reconciliation.repository.TradeDataRepository;
+import com.trading.reconciliation.repository.TradeLegHeadRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Trade leg storage in PostgreSQL
+ *
+ * Versions are claimed through the leg's trade_leg_head row, which stays locked until
+ * the transaction ends, and the head is pointed at the new row.
+ */
+@Component
+@ConditionalOnProperty(name = "reconciliation.storage.engine", havingValue = "jpa", matchIfMissing = true)
+@RequiredArgsConstructor
+public class JpaTradeLegStore implements TradeLegStore {
+    
+    private final TradeDataRepository tradeDataRepository;
+    private final TradeLegHeadRepository tradeLegHeadRepository;
+    
+    @Override
+    public Optional<TradeData> findLatestLeg(String tradeId, String sourceSystem) {
+        return tradeDataRepository.findLatestLeg(tradeId, sourceSystem);
+    }
+    
+    @Override
+    public List<TradeData> findAllVersions(String tradeId) {
+        return tradeDataRepository.findByTradeIdOrderBySourceSystemAscVersionAsc(tradeId);
+    }
+    
+    @Override
+    public TradeData appendVersion(TradeData leg) {
+        leg.setVersion(tradeLegHeadRepository.claimNextVersion(leg.getTradeId(), leg.getSourceSystem()));
+        TradeData savedLeg = tradeDataRepository.save(leg);
+        tradeLegHeadRepository.pointTo(leg.getTradeId(), leg.getSourceSystem(), savedLeg.getId());
+        return savedLeg;
+    }
+}
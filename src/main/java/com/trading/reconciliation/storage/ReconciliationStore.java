@@ -0,0 +1,96 @@
+package com.trading.reconciliation.storage;
+
+import com.trading.reconciliation.model.TradeReconciliation;
+import com.trading.reconciliation.repository.TradeReconciliationRepository.ExpiredReconciliation;
+import com.trading.reconciliation.repository.TradeReconciliationRepository.PendingReconciliation;
+import com.trading.reconciliation.repository.TradeReconciliationRepository.ReconciliationVersion;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Storage of reconciliation results used by matching and timeouts
+ *
+ * Holds one reconciliation per trade. Implementations are selected by
+ * reconciliation.storage.engine.
+ */
+public interface ReconciliationStore {
+    
+    /**
+     * Find reconciliation by tradeId
+     * @param tradeId The trade identifier
+     * @return An Optional containing the reconciliation if found
+     */
+    Optional<TradeReconciliation> findByTradeId(String tradeId);
+    
+    /**
+     * Find reconciliation by tradeId to update it
+     *
+     * The jpa engine locks the row until the transaction ends, so concurrent outcomes of
+     * the same trade are computed one after the other from the stored versions.
+     *
+     * @param tradeId The trade identifier
+     * @return An Optional containing the reconciliation if found
+     */
+    Optional<TradeReconciliation> findByTradeIdForUpdate(String tradeId);
+    
+    /**
+     * Find reconciliations for a set of trades
+     * @param tradeIds The trade identifiers
+     * @return The reconciliations found
+     */
+    List<TradeReconciliation> findByTradeIdIn(Collection<String> tradeIds);
+    
+    /**
+     * Find the version of a trade's reconciliation without loading it
+     * @param tradeId The trade identifier
+     * @return An Optional containing the id and update time if found
+     */
+    Optional<ReconciliationVersion> findVersionByTradeId(String tradeId);
+    
+    /**
+     * Create or update a reconciliation
+     *
+     * A new reconciliation gets its id and creation time, and every save sets the update
+     * time, on the given instance as well.
+     *
+     * @param reconciliation The reconciliation, with no id if it is new
+     * @return The saved reconciliation
+     * @throws org.springframework.dao.DataIntegrityViolationException if a new reconciliation's trade already has one
+     */
+    TradeReconciliation save(TradeReconciliation reconciliation);
+    
+    /**
+     * Find pending reconciliations in one tradeId hash partition, in id order after the given id
+     * @param afterId Only reconciliations with a larger id are returned
+     * @param partition Index of the partition, see TradePartitions
+     * @param partitions Number of partitions
+     * @param limit Maximum number of reconciliations returned
+     * @return The id, tradeId and creation time of the pending reconciliations
+     */
+    List<PendingReconciliation> findPendingAfter(long afterId, int partition, int partitions, int limit);
+    
+    /**
+     * Mark the given trades' reconciliations as timed out if they are still pending and past the threshold
+     * @param tradeIds The trade identifiers
+     * @param timeoutThreshold Only reconciliations created before this time are expired
+     * @param details The details to store
+     * @param now The update time
+     * @return The reconciliations expired
+     */
+    List<ExpiredReconciliation> expirePendingByTradeIds(List<String> tradeIds, LocalDateTime timeoutThreshold,
+                                                        String details, LocalDateTime now);
+    
+    /**
+     * Mark a chunk of pending reconciliations past the threshold as timed out
+     * @param timeoutThreshold Only reconciliations created before this time are expired
+     * @param details The details to store
+     * @param now The update time
+     * @param limit Maximum number of reconciliations to expire
+     * @return The reconciliations expired
+     */
+    List<ExpiredReconciliation> expireTimedOutPending(LocalDateTime timeoutThreshold, String details,
+                                                      LocalDateTime now, int limit);
+}
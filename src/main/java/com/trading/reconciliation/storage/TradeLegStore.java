@@ -0,0 +1,42 @@
+package com.trading.reconciliation.storage;
+
+import com.trading.reconciliation.model.TradeData;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Storage of trade legs used by ingestion and matching
+ *
+ * Legs are append-only: every amendment is stored as the next version of its leg and
+ * becomes the leg's latest version. Implementations are selected by
+ * reconciliation.storage.engine.
+ */
+public interface TradeLegStore {
+    
+    /**
+     * Find the latest version of a trade leg
+     * @param tradeId The trade identifier
+     * @param sourceSystem The source system (e.g., "System A", "System B")
+     * @return An Optional containing the latest version of the leg if found
+     */
+    Optional<TradeData> findLatestLeg(String tradeId, String sourceSystem);
+    
+    /**
+     * Find every stored version of a trade's legs
+     * @param tradeId The trade identifier
+     * @return All versions of both legs, by source system and version
+     */
+    List<TradeData> findAllVersions(String tradeId);
+    
+    /**
+     * Store a leg as the next version of its trade leg
+     *
+     * Concurrent amendments of the same leg get consecutive versions. Must run within
+     * a transaction.
+     *
+     * @param leg The leg to store, without id and version; its version is set by this call
+     * @return The stored leg, with its id and version set
+     */
+    TradeData appendVersion(TradeData leg);
+}
@@ -0,0 +1,43 @@
+package com.trading.reconciliation.storage;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Splits the tradeId space into hash partitions, one per live service instance
+ *
+ * The hash is the first four bytes of the MD5 digest of the tradeId, read as a signed
+ * big-endian int, which PostgreSQL computes the same way, so a store can select a
+ * partition in SQL instead of returning every row for the caller to filter.
+ */
+public final class TradePartitions {
+    
+    /**
+     * SQL expression for the hash of the trade_id column, matching hash(String)
+     */
+    public static final String SQL_HASH = "CAST(CAST('x' || substr(md5(trade_id), 1, 8) AS bit(32)) AS int)";
+    
+    private TradePartitions() {
+    }
+    
+    /**
+     * Get the partition a trade belongs to
+     * @param tradeId The trade identifier
+     * @param partitions Number of partitions
+     * @return Partition index from 0 to partitions - 1
+     */
+    public static int partitionOf(String tradeId, int partitions) {
+        return Math.floorMod(hash(tradeId), partitions);
+    }
+    
+    static int hash(String tradeId) {
+        byte[] digest;
+        try {
+            digest = MessageDigest.getInstance("MD5").digest(tradeId.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("MD5 is not available", e);
+        }
+        return (digest[0] & 0xff) << 24 | (digest[1] & 0xff) << 16 | (digest[2] & 0xff) << 8 | (digest[3] & 0xff);
+    }
+}
@@ -0,0 +1,149 @@
+package com.trading.reconciliation.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trading.reconciliation.dto.TradeDataDto;
+import com.trading.reconciliation.ingest.IngestJournal;
+import com.trading.reconciliation.service.TradeDataService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.containers.RabbitMQContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Ingest acknowledgement latency benchmark
+ *
+ * Compares the journal's group-commit append against the direct ingest path, which
+ * stores the trade leg in PostgreSQL and publishes its reconciliation task to RabbitMQ
+ * before the request is acknowledged. The direct path runs through the application's
+ * own TradeDataService against real containers, with the listeners reconciling the
+ * published tasks in the background as they would in production. The journal is
+ * measured on its own, which is all a journal-mode request waits for. In production
+ * both paths are also recorded in the reconciliation.ingest.latency timer, tagged by mode.
+ *
+ * Run with: ./mvnw test -Pbenchmark
+ */
+@Tag("benchmark")
+@SpringBootTest
+@Testcontainers(disabledWithoutDocker = true)
+public class IngestLatencyBenchmarkTest {
+
+    private static final int THREADS = 16;
+    private static final int REQUESTS_PER_THREAD = 2000;
+    private static final int WARMUP_REQUESTS = 2000;
+
+    @Container
+    static PostgreSQLContainer<?> postgresContainer = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @Container
+    static RabbitMQContainer rabbitMQContainer = new RabbitMQContainer("rabbitmq:3-management-alpine");
+
+    @TempDir
+    Path directory;
+
+    @Autowired
+    private TradeDataService tradeDataService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @DynamicPropertySource
+    static void registerProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgresContainer::getJdbcUrl);
+        registry.add("spring.datasource.username", postgresContainer::getUsername);
+        registry.add("spring.datasource.password", postgresContainer::getPassword);
+        registry.add("spring.rabbitmq.host", rabbitMQContainer::getHost);
+        registry.add("spring.rabbitmq.port", rabbitMQContainer::getAmqpPort);
+        registry.add("spring.jpa.show-sql", () -> "false");
+        registry.add("reconciliation.ingest.mode", () -> "direct");
+    }
+
+    @Test
+    void benchmarkIngestAcknowledgementLatency() throws Exception {
+        for (int i = 0; i < WARMUP_REQUESTS; i++) {
+            tradeDataService.saveSystemATrade(trade("W" + i));
+        }
+        long[] directLatencies = measure("D", tradeId -> tradeDataService.saveSystemATrade(trade(tradeId)));
+        report("direct (postgres + rabbitmq)", directLatencies);
+
+        IngestJournal journal = new IngestJournal(directory.resolve("journal"), 256 * 1024 * 1024, 10, objectMapper);
+        journal.open();
+        try {
+            long[] journalLatencies = measure("J", tradeId -> journal.append("System A", trade(tradeId)));
+            report("journal (group commit)", journalLatencies);
+        } finally {
+            journal.close();
+        }
+    }
+
+    private long[] measure(String prefix, Submission submission) throws Exception {
+        long[] latencies = new long[THREADS * REQUESTS_PER_THREAD];
+        AtomicInteger index = new AtomicInteger();
+        List<Future<?>> workers = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+
+        try {
+            for (int t = 0; t < THREADS; t++) {
+                workers.add(executor.submit(() -> {
+                    for (int i = 0; i < REQUESTS_PER_THREAD; i++) {
+                        int slot = index.getAndIncrement();
+                        long start = System.nanoTime();
+                        submission.submit(prefix + slot);
+                        latencies[slot] = System.nanoTime() - start;
+                    }
+                    return null;
+                }));
+            }
+
+            // Fails the benchmark with the first submission error instead of reporting unset latencies
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return latencies;
+    }
+
+    private void report(String mode, long[] latencies) {
+        long[] sorted = latencies.clone();
+        Arrays.sort(sorted);
+        System.out.printf("%-30s p50=%8.3f ms  p99=%8.3f ms  max=%8.3f ms%n", mode,
+                sorted[sorted.length / 2] / 1e6,
+                sorted[(int) (sorted.length * 0.99)] / 1e6,
+                sorted[sorted.length - 1] / 1e6);
+    }
+
+    private TradeDataDto trade(String tradeId) {
+        return TradeDataDto.builder()
+                .tradeId(tradeId)
+                .instrument("AAPL")
+                .quantity(new BigDecimal("100"))
+                .price(new BigDecimal("150.75"))
+                .tradeDate(LocalDateTime.of(2023, 6, 15, 10, 30))
+                .counterparty("BROKER_A")
+                .build();
+    }
+
+    @FunctionalInterface
+    private interface Submission {
+        void submit(String tradeId) throws Exception;
+    }
+}
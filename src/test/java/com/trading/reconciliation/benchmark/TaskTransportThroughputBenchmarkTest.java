@@ -0,0 +1,200 @@
+package com.trading.reconciliation.benchmark;
+
+import com.trading.reconciliation.repository.ReconciliationTaskRepository;
+import com.trading.reconciliation.repository.ReconciliationTaskRepository.ClaimedTask;
+import com.trading.reconciliation.repository.ReconciliationTaskRepository.NewTask;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.rabbit.connection.CachingConnectionFactory;
+import org.springframework.amqp.rabbit.core.RabbitAdmin;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.containers.RabbitMQContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reconciliation task transport throughput benchmark
+ *
+ * Compares the two task transports on the work the service does per trade: ingest,
+ * where the trade is inserted and its task published, and drain, where competing
+ * workers consume the tasks. On RabbitMQ the task is published after the trade's
+ * commit; on the Postgres transport it is inserted in the same transaction, and the
+ * workers claim batches with FOR UPDATE SKIP LOCKED and delete them once processed.
+ * Reconciliation itself is left out so only the transport is measured.
+ *
+ * Run with: ./mvnw test -Pbenchmark
+ */
+@Tag("benchmark")
+@Testcontainers(disabledWithoutDocker = true)
+public class TaskTransportThroughputBenchmarkTest {
+
+    private static final String QUEUE = "reconciliation-tasks-queue";
+    private static final int INGEST_THREADS = 16;
+    private static final int TRADES_PER_THREAD = 2000;
+    private static final int WORKERS = 4;
+    private static final int CLAIM_BATCH_SIZE = 20;
+
+    @Container
+    static PostgreSQLContainer<?> postgresContainer = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @Container
+    static RabbitMQContainer rabbitMQContainer = new RabbitMQContainer("rabbitmq:3-management-alpine");
+
+    private static HikariDataSource dataSource;
+    private static CachingConnectionFactory connectionFactory;
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private ReconciliationTaskRepository taskRepository;
+
+    @BeforeAll
+    static void connect() {
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl(postgresContainer.getJdbcUrl());
+        dataSource.setUsername(postgresContainer.getUsername());
+        dataSource.setPassword(postgresContainer.getPassword());
+        dataSource.setMaximumPoolSize(INGEST_THREADS + WORKERS);
+
+        connectionFactory = new CachingConnectionFactory(rabbitMQContainer.getHost(), rabbitMQContainer.getAmqpPort());
+        connectionFactory.setUsername(rabbitMQContainer.getAdminUsername());
+        connectionFactory.setPassword(rabbitMQContainer.getAdminPassword());
+    }
+
+    @AfterAll
+    static void disconnect() {
+        connectionFactory.destroy();
+        dataSource.close();
+    }
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        taskRepository = new ReconciliationTaskRepository(jdbcTemplate);
+
+        jdbcTemplate.execute("DROP TABLE IF EXISTS benchmark_trade, reconciliation_task");
+        jdbcTemplate.execute("CREATE TABLE benchmark_trade (id BIGSERIAL PRIMARY KEY, trade_id VARCHAR(255) NOT NULL)");
+        jdbcTemplate.execute("CREATE TABLE reconciliation_task (id BIGSERIAL PRIMARY KEY, " +
+                "queue VARCHAR(255) NOT NULL, trade_id VARCHAR(255) NOT NULL, payload TEXT, " +
+                "enqueued_at TIMESTAMP NOT NULL, available_at TIMESTAMP NOT NULL, attempts INT NOT NULL, " +
+                "lease_owner VARCHAR(255), lease_expires_at TIMESTAMP, last_error VARCHAR(1000), " +
+                "dead BOOLEAN NOT NULL)");
+        jdbcTemplate.execute("CREATE INDEX idx_reconciliation_task_queue_available_at " +
+                "ON reconciliation_task (queue, available_at)");
+    }
+
+    @Test
+    void benchmarkRabbitMqTransport() throws Exception {
+        RabbitAdmin rabbitAdmin = new RabbitAdmin(connectionFactory);
+        rabbitAdmin.declareQueue(new Queue(QUEUE, true));
+        rabbitAdmin.purgeQueue(QUEUE, false);
+        RabbitTemplate rabbitTemplate = new RabbitTemplate(connectionFactory);
+
+        long ingestNanos = ingest(tradeId -> {
+            transactionTemplate.executeWithoutResult(status -> insertTrade(tradeId));
+            rabbitTemplate.convertAndSend("", QUEUE, tradeId);
+        });
+
+        int total = INGEST_THREADS * TRADES_PER_THREAD;
+        CountDownLatch drained = new CountDownLatch(total);
+        SimpleMessageListenerContainer container = new SimpleMessageListenerContainer(connectionFactory);
+        container.setQueueNames(QUEUE);
+        container.setConcurrentConsumers(WORKERS);
+        container.setMessageListener(message -> drained.countDown());
+        long start = System.nanoTime();
+        container.start();
+        try {
+            drained.await(5, TimeUnit.MINUTES);
+        } finally {
+            container.stop();
+        }
+
+        report("rabbitmq", ingestNanos, System.nanoTime() - start);
+    }
+
+    @Test
+    void benchmarkPostgresTransport() throws Exception {
+        long ingestNanos = ingest(tradeId -> transactionTemplate.executeWithoutResult(status -> {
+            insertTrade(tradeId);
+            taskRepository.enqueueAll(List.of(new NewTask(QUEUE, tradeId, null)));
+        }));
+
+        int total = INGEST_THREADS * TRADES_PER_THREAD;
+        AtomicInteger processed = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(WORKERS);
+        long start = System.nanoTime();
+        for (int w = 0; w < WORKERS; w++) {
+            String owner = "worker-" + w;
+            executor.submit(() -> {
+                while (processed.get() < total) {
+                    List<ClaimedTask> tasks = taskRepository.claim(QUEUE, owner, CLAIM_BATCH_SIZE, 60_000);
+                    if (!tasks.isEmpty()) {
+                        taskRepository.complete(tasks.stream().map(ClaimedTask::id).toList(), owner);
+                        processed.addAndGet(tasks.size());
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(5, TimeUnit.MINUTES);
+
+        report("postgres (skip locked)", ingestNanos, System.nanoTime() - start);
+    }
+
+    private long ingest(Submission submission) throws Exception {
+        CountDownLatch done = new CountDownLatch(INGEST_THREADS);
+        ExecutorService executor = Executors.newFixedThreadPool(INGEST_THREADS);
+        AtomicInteger sequence = new AtomicInteger();
+        long start = System.nanoTime();
+
+        for (int t = 0; t < INGEST_THREADS; t++) {
+            executor.submit(() -> {
+                try {
+                    for (int i = 0; i < TRADES_PER_THREAD; i++) {
+                        submission.submit("T" + sequence.getAndIncrement());
+                    }
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+
+        done.await();
+        executor.shutdown();
+        return System.nanoTime() - start;
+    }
+
+    private void insertTrade(String tradeId) {
+        jdbcTemplate.update("INSERT INTO benchmark_trade (trade_id) VALUES (?)", tradeId);
+    }
+
+    private void report(String transport, long ingestNanos, long drainNanos) {
+        int total = INGEST_THREADS * TRADES_PER_THREAD;
+        System.out.printf("%-24s ingest=%10.0f trades/s  drain=%10.0f tasks/s%n", transport,
+                total / (ingestNanos / 1e9), total / (drainNanos / 1e9));
+    }
+
+    @FunctionalInterface
+    private interface Submission {
+        void submit(String tradeId) throws Exception;
+    }
+}
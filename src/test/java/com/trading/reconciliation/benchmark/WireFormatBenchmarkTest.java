@@ -0,0 +1,82 @@
+package com.trading.reconciliation.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trading.reconciliation.config.WireFormatConfig;
+import com.trading.reconciliation.dto.TradeDataDto;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Wire format benchmark for trade payloads
+ *
+ * Compares payload size and encode/decode cost of TradeDataDto in JSON, Smile and
+ * CBOR, using the same mapper configuration as the ingest endpoints and broker.
+ *
+ * Run with: ./mvnw test -Pbenchmark
+ */
+@Tag("benchmark")
+public class WireFormatBenchmarkTest {
+
+    private static final int WARMUP_ITERATIONS = 200_000;
+    private static final int MEASURED_ITERATIONS = 500_000;
+
+    @Test
+    void benchmarkWireFormats() throws Exception {
+        Map<String, ObjectMapper> mappers = new LinkedHashMap<>();
+        mappers.put("json", Jackson2ObjectMapperBuilder.json().build());
+        mappers.put("smile", WireFormatConfig.smileObjectMapper(Jackson2ObjectMapperBuilder.json()));
+        mappers.put("cbor", WireFormatConfig.cborObjectMapper(Jackson2ObjectMapperBuilder.json()));
+
+        TradeDataDto trade = TradeDataDto.builder()
+                .tradeId("T20230615000123456")
+                .instrument("US0378331005")
+                .quantity(new BigDecimal("125000.000000"))
+                .price(new BigDecimal("150.7512345"))
+                .tradeDate(LocalDateTime.of(2023, 6, 15, 10, 30, 15))
+                .counterparty("BROKER_A_LONDON")
+                .build();
+
+        for (Map.Entry<String, ObjectMapper> entry : mappers.entrySet()) {
+            ObjectMapper mapper = entry.getValue();
+            byte[] payload = mapper.writeValueAsBytes(trade);
+            assertEquals(trade, mapper.readValue(payload, TradeDataDto.class));
+
+            run(mapper, trade, payload, WARMUP_ITERATIONS);
+            long[] nanos = run(mapper, trade, payload, MEASURED_ITERATIONS);
+
+            System.out.printf("%-6s size=%4d bytes  encode=%6.0f ns/op  decode=%6.0f ns/op%n",
+                    entry.getKey(), payload.length,
+                    (double) nanos[0] / MEASURED_ITERATIONS,
+                    (double) nanos[1] / MEASURED_ITERATIONS);
+        }
+    }
+
+    private long[] run(ObjectMapper mapper, TradeDataDto trade, byte[] payload, int iterations) throws Exception {
+        long sink = 0;
+
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink += mapper.writeValueAsBytes(trade).length;
+        }
+        long encode = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink += mapper.readValue(payload, TradeDataDto.class).getTradeId().length();
+        }
+        long decode = System.nanoTime() - start;
+
+        if (sink == 42) {
+            System.out.println();
+        }
+        return new long[] {encode, decode};
+    }
+}
@@ -0,0 +1,115 @@
+package com.trading.reconciliation.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ReplicaFallbackDataSourceTest {
+
+    @Mock
+    private DataSource replicaDataSource;
+
+    @Mock
+    private DataSource primaryDataSource;
+
+    @Mock
+    private ReplicaHealthMonitor healthMonitor;
+
+    @Mock
+    private Connection replicaConnection;
+
+    @Mock
+    private Connection primaryConnection;
+
+    private MeterRegistry meterRegistry;
+    private ReplicaFallbackDataSource dataSource;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        dataSource = new ReplicaFallbackDataSource(replicaDataSource, primaryDataSource, healthMonitor, meterRegistry);
+    }
+
+    @Test
+    void testReadsFromReplicaWhileAvailable() throws SQLException {
+        // Arrange
+        when(healthMonitor.isAvailable()).thenReturn(true);
+        when(replicaDataSource.getConnection()).thenReturn(replicaConnection);
+
+        // Act
+        Connection connection = dataSource.getConnection();
+
+        // Assert
+        assertSame(replicaConnection, connection);
+        verify(primaryDataSource, never()).getConnection();
+        assertEquals(1.0, reads("replica"));
+        assertEquals(0.0, reads("primary"));
+    }
+
+    @Test
+    void testFallsBackToPrimaryWhileReplicaLags() throws SQLException {
+        // Arrange
+        when(healthMonitor.isAvailable()).thenReturn(false);
+        when(primaryDataSource.getConnection()).thenReturn(primaryConnection);
+
+        // Act
+        Connection connection = dataSource.getConnection();
+
+        // Assert
+        assertSame(primaryConnection, connection);
+        verify(replicaDataSource, never()).getConnection();
+        assertEquals(0.0, reads("replica"));
+        assertEquals(1.0, reads("primary"));
+    }
+
+    @Test
+    void testFallsBackToPrimaryAndMarksReplicaUnavailableWhenConnectionFails() throws SQLException {
+        // Arrange
+        SQLException failure = new SQLException("Connection refused");
+        when(healthMonitor.isAvailable()).thenReturn(true);
+        when(replicaDataSource.getConnection()).thenThrow(failure);
+        when(primaryDataSource.getConnection()).thenReturn(primaryConnection);
+
+        // Act
+        Connection connection = dataSource.getConnection();
+
+        // Assert
+        assertSame(primaryConnection, connection);
+        verify(healthMonitor).markUnavailable(failure);
+        assertEquals(0.0, reads("replica"));
+        assertEquals(1.0, reads("primary"));
+    }
+
+    @Test
+    void testExplicitCredentialsUsePrimary() throws SQLException {
+        // Arrange
+        when(primaryDataSource.getConnection("reporting", "secret")).thenReturn(primaryConnection);
+
+        // Act
+        Connection connection = dataSource.getConnection("reporting", "secret");
+
+        // Assert
+        assertSame(primaryConnection, connection);
+        verify(replicaDataSource, never()).getConnection("reporting", "secret");
+        assertEquals(1.0, reads("primary"));
+    }
+
+    private double reads(String pool) {
+        return meterRegistry.get("reconciliation.datasource.reads").tag("pool", pool).counter().count();
+    }
+}
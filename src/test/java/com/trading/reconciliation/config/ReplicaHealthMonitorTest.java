@@ -0,0 +1,103 @@
+package com.trading.reconciliation.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ReplicaHealthMonitorTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private MeterRegistry meterRegistry;
+    private ReplicaHealthMonitor healthMonitor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        healthMonitor = new ReplicaHealthMonitor(jdbcTemplate, 5, meterRegistry);
+    }
+
+    @Test
+    void testUnavailableUntilFirstCheck() {
+        // Assert
+        assertFalse(healthMonitor.isAvailable());
+        assertEquals(-1.0, meterRegistry.get("reconciliation.datasource.replica.lag").gauge().value());
+    }
+
+    @Test
+    void testAvailableWhileLagWithinThreshold() {
+        // Arrange
+        when(jdbcTemplate.queryForObject(anyString(), eq(Double.class))).thenReturn(5.0);
+
+        // Act
+        healthMonitor.checkReplica();
+
+        // Assert
+        assertTrue(healthMonitor.isAvailable());
+        assertEquals(5.0, meterRegistry.get("reconciliation.datasource.replica.lag").gauge().value());
+        assertEquals(1.0, meterRegistry.get("reconciliation.datasource.replica.available").gauge().value());
+    }
+
+    @Test
+    void testUnavailableWhenLagExceedsThreshold() {
+        // Arrange
+        when(jdbcTemplate.queryForObject(anyString(), eq(Double.class))).thenReturn(0.0, 5.5);
+
+        // Act
+        healthMonitor.checkReplica();
+        healthMonitor.checkReplica();
+
+        // Assert
+        assertFalse(healthMonitor.isAvailable());
+        assertEquals(5.5, meterRegistry.get("reconciliation.datasource.replica.lag").gauge().value());
+        assertEquals(0.0, meterRegistry.get("reconciliation.datasource.replica.available").gauge().value());
+    }
+
+    @Test
+    void testUnavailableWhenReplicaCannotBeQueried() {
+        // Arrange
+        when(jdbcTemplate.queryForObject(anyString(), eq(Double.class)))
+                .thenReturn(0.0)
+                .thenThrow(new DataAccessResourceFailureException("Connection refused"));
+
+        // Act
+        healthMonitor.checkReplica();
+        healthMonitor.checkReplica();
+
+        // Assert
+        assertFalse(healthMonitor.isAvailable());
+        assertEquals(-1.0, meterRegistry.get("reconciliation.datasource.replica.lag").gauge().value());
+    }
+
+    @Test
+    void testMarkedUnavailableUntilNextSuccessfulCheck() {
+        // Arrange
+        when(jdbcTemplate.queryForObject(anyString(), eq(Double.class))).thenReturn(0.0);
+        healthMonitor.checkReplica();
+
+        // Act
+        healthMonitor.markUnavailable(new SQLException("Connection reset"));
+
+        // Assert
+        assertFalse(healthMonitor.isAvailable());
+        healthMonitor.checkReplica();
+        assertTrue(healthMonitor.isAvailable());
+    }
+}
@@ -0,0 +1,80 @@
+package com.trading.reconciliation.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.YamlPropertiesFactoryBean;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.task.TaskSchedulingAutoConfiguration;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.PropertiesPropertySource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The scheduler settings of application.yml keep short jobs on time while a long one runs
+ */
+public class SchedulingPoolTest {
+
+    private static final long HEARTBEAT_MS = 20;
+
+    @Test
+    void testHeartbeatKeepsItsTimingWhileAnotherJobRuns() {
+        YamlPropertiesFactoryBean yaml = new YamlPropertiesFactoryBean();
+        yaml.setResources(new ClassPathResource("application.yml"));
+        Properties application = yaml.getObject();
+
+        new ApplicationContextRunner()
+                .withInitializer(context -> context.getEnvironment().getPropertySources()
+                        .addFirst(new PropertiesPropertySource("application", application)))
+                .withConfiguration(AutoConfigurations.of(TaskSchedulingAutoConfiguration.class))
+                .withUserConfiguration(Jobs.class)
+                .run(context -> {
+                    Jobs jobs = context.getBean(Jobs.class);
+                    try {
+                        // Arrange
+                        assertTrue(jobs.longJobStarted.await(5, TimeUnit.SECONDS));
+                        int beatsBefore = jobs.beats.get();
+
+                        // Act
+                        Thread.sleep(HEARTBEAT_MS * 25);
+
+                        // Assert
+                        int beats = jobs.beats.get() - beatsBefore;
+                        assertTrue(beats >= 10, "only " + beats + " heartbeats while the long job ran");
+                        assertTrue(jobs.threadName.startsWith("scheduling-"), jobs.threadName);
+                    } finally {
+                        jobs.releaseLongJob.countDown();
+                    }
+                });
+    }
+
+    @Configuration
+    @EnableScheduling
+    static class Jobs {
+
+        final CountDownLatch longJobStarted = new CountDownLatch(1);
+        final CountDownLatch releaseLongJob = new CountDownLatch(1);
+        final AtomicInteger beats = new AtomicInteger();
+        volatile String threadName = "";
+
+        @Scheduled(fixedDelay = 60_000)
+        public void longJob() throws InterruptedException {
+            longJobStarted.countDown();
+            releaseLongJob.await(30, TimeUnit.SECONDS);
+        }
+
+        @Scheduled(fixedDelay = HEARTBEAT_MS)
+        public void heartbeat() {
+            threadName = Thread.currentThread().getName();
+            beats.incrementAndGet();
+        }
+    }
+}
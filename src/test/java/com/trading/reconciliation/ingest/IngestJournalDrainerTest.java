@@ -0,0 +1,138 @@
+package com.trading.reconciliation.ingest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trading.reconciliation.dto.TradeDataDto;
+import com.trading.reconciliation.service.TradeDataService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class IngestJournalDrainerTest {
+
+    @TempDir
+    Path journalDirectory;
+
+    @Mock
+    private TradeDataService tradeDataService;
+
+    private SimpleMeterRegistry meterRegistry;
+    private IngestJournal journal;
+    private IngestJournalDrainer drainer;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        journal = new IngestJournal(journalDirectory, 64 * 1024, 1, new ObjectMapper().findAndRegisterModules());
+        journal.open();
+        meterRegistry = new SimpleMeterRegistry();
+        drainer = new IngestJournalDrainer(journal, tradeDataService, meterRegistry);
+        ReflectionTestUtils.setField(drainer, "drainBatchSize", 100);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        journal.close();
+    }
+
+    @Test
+    void testDrainPersistsAllSourcesOfABatchTogether() throws Exception {
+        // Arrange
+        journal.append("System A", trade("T1"));
+        journal.append("System B", trade("T1"));
+        journal.append("System A", trade("T2"));
+
+        // Act
+        drainer.drain();
+
+        // Assert
+        verify(tradeDataService, times(1)).saveTradeBatch(Map.of(
+                "System A", List.of(trade("T1"), trade("T2")),
+                "System B", List.of(trade("T1"))));
+        assertTrue(journal.read(journal.readCheckpoint(), 10).isEmpty());
+        assertEquals(3.0, meterRegistry.counter("reconciliation.ingest.journal.drained").count());
+    }
+
+    @Test
+    void testDrainMovesAnEntryThatCannotBePersistedToTheRejectedFile() throws Exception {
+        // Arrange
+        for (int i = 1; i <= 5; i++) {
+            journal.append("System A", trade("T" + i));
+        }
+        List<String> persisted = new ArrayList<>();
+        when(tradeDataService.saveTradeBatch(anyMap())).thenAnswer(invocation -> {
+            Map<String, List<TradeDataDto>> tradesBySource = invocation.getArgument(0);
+            List<String> tradeIds = tradesBySource.get("System A").stream().map(TradeDataDto::getTradeId).toList();
+            if (tradeIds.contains("T3")) {
+                throw new DataIntegrityViolationException("value too long for type character varying(50)");
+            }
+            persisted.addAll(tradeIds);
+            return List.of();
+        });
+
+        // Act
+        drainer.drain();
+
+        // Assert
+        assertEquals(List.of("T1", "T2", "T4", "T5"), persisted);
+        assertTrue(journal.read(journal.readCheckpoint(), 10).isEmpty());
+        List<String> rejected = Files.readAllLines(journalDirectory.resolve("rejected.jsonl"));
+        assertEquals(1, rejected.size());
+        assertTrue(rejected.get(0).contains("\"tradeId\":\"T3\""));
+        assertTrue(rejected.get(0).contains("value too long"));
+        assertEquals(1.0, meterRegistry.counter("reconciliation.ingest.journal.rejected").count());
+        assertEquals(4.0, meterRegistry.counter("reconciliation.ingest.journal.drained").count());
+    }
+
+    @Test
+    void testDrainKeepsTheCheckpointWhenTheDatabaseIsUnavailable() throws Exception {
+        // Arrange
+        journal.append("System A", trade("T1"));
+        journal.append("System A", trade("T2"));
+        long checkpoint = journal.readCheckpoint();
+        when(tradeDataService.saveTradeBatch(anyMap())).thenThrow(new QueryTimeoutException("statement timeout"));
+
+        // Act
+        drainer.drain();
+
+        // Assert
+        verify(tradeDataService, times(1)).saveTradeBatch(anyMap());
+        assertEquals(checkpoint, journal.readCheckpoint());
+        assertFalse(Files.exists(journalDirectory.resolve("rejected.jsonl")));
+        assertEquals(0.0, meterRegistry.counter("reconciliation.ingest.journal.rejected").count());
+    }
+
+    private TradeDataDto trade(String tradeId) {
+        return TradeDataDto.builder()
+                .tradeId(tradeId)
+                .instrument("AAPL")
+                .quantity(new BigDecimal("100"))
+                .price(new BigDecimal("150.75"))
+                .tradeDate(LocalDateTime.of(2023, 6, 15, 10, 30))
+                .counterparty("BROKER_A")
+                .build();
+    }
+}
@@ -0,0 +1,140 @@
+package com.trading.reconciliation.ingest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trading.reconciliation.dto.TradeDataDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.RandomAccessFile;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class IngestJournalTest {
+    
+    @TempDir
+    Path journalDirectory;
+    
+    private ObjectMapper objectMapper;
+    private IngestJournal journal;
+    
+    @BeforeEach
+    void setUp() throws Exception {
+        objectMapper = new ObjectMapper().findAndRegisterModules();
+        journal = openJournal(64 * 1024);
+    }
+    
+    @AfterEach
+    void tearDown() throws Exception {
+        journal.close();
+    }
+    
+    @Test
+    void testAppendAndRead() throws Exception {
+        // Arrange
+        journal.append("System A", trade("T1"));
+        journal.append("System B", trade("T2"));
+        
+        // Act
+        JournalBatch batch = journal.read(journal.readCheckpoint(), 10);
+        
+        // Assert
+        assertEquals(2, batch.entries().size());
+        assertEquals("System A", batch.entries().get(0).sourceSystem());
+        assertEquals("T1", batch.entries().get(0).trade().getTradeId());
+        assertEquals("System B", batch.entries().get(1).sourceSystem());
+        assertEquals(0, new BigDecimal("150.75").compareTo(batch.entries().get(1).trade().getPrice()));
+        assertTrue(journal.read(batch.nextPosition(), 10).isEmpty());
+    }
+    
+    @Test
+    void testReplayAfterRestartResumesFromCheckpoint() throws Exception {
+        // Arrange
+        journal.append("System A", trade("T1"));
+        journal.append("System A", trade("T2"));
+        JournalBatch first = journal.read(journal.readCheckpoint(), 1);
+        journal.commitCheckpoint(first.nextPosition());
+        journal.append("System A", trade("T3"));
+        
+        // Act
+        journal.close();
+        journal = openJournal(64 * 1024);
+        JournalBatch replayed = journal.read(journal.readCheckpoint(), 10);
+        
+        // Assert
+        assertEquals(2, replayed.entries().size());
+        assertEquals("T2", replayed.entries().get(0).trade().getTradeId());
+        assertEquals("T3", replayed.entries().get(1).trade().getTradeId());
+    }
+    
+    @Test
+    void testTornRecordAtTailIsDiscarded() throws Exception {
+        // Arrange
+        journal.append("System A", trade("T1"));
+        long afterFirst = journal.read(journal.readCheckpoint(), 1).nextPosition();
+        journal.append("System A", trade("T2"));
+        journal.close();
+        
+        // Corrupt the payload of the second record
+        try (RandomAccessFile file = new RandomAccessFile(
+                journalDirectory.resolve("journal-0000000000.log").toFile(), "rw")) {
+            file.seek(IngestJournal.offsetOf(afterFirst) + 12);
+            file.write(new byte[] {'X', 'X', 'X'});
+        }
+        
+        // Act
+        journal = openJournal(64 * 1024);
+        journal.append("System B", trade("T3"));
+        JournalBatch batch = journal.read(journal.readCheckpoint(), 10);
+        
+        // Assert
+        assertEquals(2, batch.entries().size());
+        assertEquals("T1", batch.entries().get(0).trade().getTradeId());
+        assertEquals("T3", batch.entries().get(1).trade().getTradeId());
+    }
+    
+    @Test
+    void testSegmentsRollAndDrainedSegmentsAreDeleted() throws Exception {
+        // Arrange
+        journal.close();
+        journal = openJournal(1024);
+        for (int i = 0; i < 20; i++) {
+            journal.append("System A", trade("T" + i));
+        }
+        
+        // Act
+        JournalBatch batch = journal.read(journal.readCheckpoint(), 100);
+        journal.commitCheckpoint(batch.nextPosition());
+        
+        // Assert
+        assertEquals(20, batch.entries().size());
+        assertEquals("T19", batch.entries().get(19).trade().getTradeId());
+        try (Stream<Path> files = Files.list(journalDirectory)) {
+            assertEquals(1, files.filter(path -> path.toString().endsWith(".log")).count());
+        }
+    }
+    
+    private IngestJournal openJournal(int segmentSizeBytes) throws Exception {
+        IngestJournal ingestJournal = new IngestJournal(journalDirectory, segmentSizeBytes, 1, objectMapper);
+        ingestJournal.open();
+        return ingestJournal;
+    }
+    
+    private TradeDataDto trade(String tradeId) {
+        return TradeDataDto.builder()
+                .tradeId(tradeId)
+                .instrument("AAPL")
+                .quantity(new BigDecimal("100"))
+                .price(new BigDecimal("150.75"))
+                .tradeDate(LocalDateTime.of(2023, 6, 15, 10, 30))
+                .counterparty("BROKER_A")
+                .build();
+    }
+}
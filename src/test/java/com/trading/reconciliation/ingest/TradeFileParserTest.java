@@ -0,0 +1,107 @@
+package com.trading.reconciliation.ingest;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TradeFileParserTest {
+    
+    @TempDir
+    Path directory;
+    
+    @Test
+    void testEveryLineIsParsedOnceAcrossRanges() throws Exception {
+        // Arrange
+        StringBuilder content = new StringBuilder("tradeId,instrument,quantity,price,tradeDate,counterparty\r\n");
+        for (int i = 0; i < 10_000; i++) {
+            if (i % 1000 == 999) {
+                content.append("T").append(i).append(",AAPL,not-a-number,150.75,2023-06-15T10:30:00,BROKER_A\r\n");
+            } else {
+                content.append("T").append(i).append(",\"AAPL, Inc.\",100,150.75,2023-06-15 10:30:00,BROKER_A\r\n");
+            }
+        }
+        Path file = directory.resolve("eod.csv");
+        Files.writeString(file, content);
+        
+        // Act
+        List<ParsedTradeRow> rows = new ArrayList<>();
+        List<RejectedTradeRow> rejects = new ArrayList<>();
+        List<TradeFileParser.FileRange> ranges;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ranges = TradeFileParser.split(channel.size(), 100_000, 1);
+            TradeFileParser parser = new TradeFileParser(TradeFileFormat.CSV, new int[0]);
+            for (TradeFileParser.FileRange range : ranges) {
+                parser.parse(channel, channel.size(), range, collector(rows, rejects));
+            }
+        }
+        
+        // Assert
+        assertTrue(ranges.size() > 1);
+        assertEquals(9990, rows.size());
+        assertEquals(10, rejects.size());
+        
+        Set<String> tradeIds = new HashSet<>();
+        rows.forEach(row -> tradeIds.add(row.trade().getTradeId()));
+        assertEquals(9990, tradeIds.size());
+        
+        ParsedTradeRow first = rows.get(0);
+        assertEquals("T0", first.trade().getTradeId());
+        assertEquals("AAPL, Inc.", first.trade().getInstrument());
+        assertEquals(0, new BigDecimal("150.75").compareTo(first.trade().getPrice()));
+        assertEquals(LocalDateTime.of(2023, 6, 15, 10, 30), first.trade().getTradeDate());
+        assertEquals("Invalid quantity or price", rejects.get(0).reason());
+    }
+    
+    @Test
+    void testFixedWidthLayout() throws Exception {
+        // Arrange
+        Path file = directory.resolve("eod.dat");
+        Files.writeString(file, 
+                "T1        AAPL      100       150.75    2023-06-15T10:30:00BROKER_A\n" +
+                "T2        MSFT      50\n");
+        
+        // Act
+        List<ParsedTradeRow> rows = new ArrayList<>();
+        List<RejectedTradeRow> rejects = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            TradeFileParser parser = new TradeFileParser(TradeFileFormat.FIXED_WIDTH, new int[] {10, 10, 10, 10, 19, 10});
+            for (TradeFileParser.FileRange range : TradeFileParser.split(channel.size(), 1 << 20, 1)) {
+                parser.parse(channel, channel.size(), range, collector(rows, rejects));
+            }
+        }
+        
+        // Assert
+        assertEquals(1, rows.size());
+        assertEquals("BROKER_A", rows.get(0).trade().getCounterparty());
+        assertEquals(0, new BigDecimal("100").compareTo(rows.get(0).trade().getQuantity()));
+        assertEquals(1, rejects.size());
+        assertEquals("Expected 6 columns but found 3", rejects.get(0).reason());
+    }
+    
+    private TradeFileParser.RowHandler collector(List<ParsedTradeRow> rows, List<RejectedTradeRow> rejects) {
+        return new TradeFileParser.RowHandler() {
+            @Override
+            public void onRow(ParsedTradeRow row) {
+                rows.add(row);
+            }
+            
+            @Override
+            public void onReject(RejectedTradeRow reject) {
+                rejects.add(reject);
+            }
+        };
+    }
+}
@@ -0,0 +1,59 @@
+package com.trading.reconciliation.integration;
+
+import com.trading.reconciliation.repository.TradeDataRepository;
+import com.trading.reconciliation.repository.TradeLegHeadRepository;
+import com.trading.reconciliation.repository.TradeReconciliationRepository;
+import com.trading.reconciliation.storage.JpaReconciliationStore;
+import com.trading.reconciliation.storage.JpaTradeLegStore;
+import com.trading.reconciliation.storage.ReconciliationStore;
+import com.trading.reconciliation.storage.StorageContractTest;
+import com.trading.reconciliation.storage.TradeLegStore;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/**
+ * The storage contract against the JPA engine and a real PostgreSQL database; no broker needed
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+public class JpaStorageIntegrationTest extends StorageContractTest {
+    
+    @Container
+    static PostgreSQLContainer<?> postgresContainer = new PostgreSQLContainer<>("postgres:15-alpine")
+            .withDatabaseName("trade_reconciliation_test")
+            .withUsername("test")
+            .withPassword("test");
+    
+    @Autowired
+    private TradeDataRepository tradeDataRepository;
+    
+    @Autowired
+    private TradeLegHeadRepository tradeLegHeadRepository;
+    
+    @Autowired
+    private TradeReconciliationRepository reconciliationRepository;
+    
+    @DynamicPropertySource
+    static void registerProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgresContainer::getJdbcUrl);
+        registry.add("spring.datasource.username", postgresContainer::getUsername);
+        registry.add("spring.datasource.password", postgresContainer::getPassword);
+    }
+    
+    @Override
+    protected TradeLegStore legStore() {
+        return new JpaTradeLegStore(tradeDataRepository, tradeLegHeadRepository);
+    }
+    
+    @Override
+    protected ReconciliationStore reconciliationStore() {
+        return new JpaReconciliationStore(reconciliationRepository);
+    }
+}
@@ -0,0 +1,155 @@
+package com.trading.reconciliation.integration;
+
+import com.trading.reconciliation.repository.ArchivedTradeDataRepository;
+import com.trading.reconciliation.repository.ArchivedTradeReconciliationRepository;
+import com.trading.reconciliation.repository.ReconciliationViewRepository;
+import com.trading.reconciliation.repository.TradeLegHeadRepository;
+import com.trading.reconciliation.repository.TradeReconciliationRepository;
+import com.trading.reconciliation.service.LeaseService;
+import com.trading.reconciliation.service.RetentionServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Archival queries of the retention job against a real PostgreSQL database; no broker needed
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Testcontainers(disabledWithoutDocker = true)
+public class RetentionIntegrationTest {
+    
+    @Container
+    static PostgreSQLContainer<?> postgresContainer = new PostgreSQLContainer<>("postgres:15-alpine")
+            .withDatabaseName("trade_reconciliation_test")
+            .withUsername("test")
+            .withPassword("test");
+    
+    @Autowired
+    private TradeReconciliationRepository reconciliationRepository;
+    
+    @Autowired
+    private ArchivedTradeReconciliationRepository archivedReconciliationRepository;
+    
+    @Autowired
+    private ArchivedTradeDataRepository archivedTradeDataRepository;
+    
+    @Autowired
+    private ReconciliationViewRepository viewRepository;
+    
+    @Autowired
+    private TradeLegHeadRepository tradeLegHeadRepository;
+    
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Autowired
+    private DataSource dataSource;
+    
+    private RetentionServiceImpl retentionService;
+    
+    @DynamicPropertySource
+    static void registerProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgresContainer::getJdbcUrl);
+        registry.add("spring.datasource.username", postgresContainer::getUsername);
+        registry.add("spring.datasource.password", postgresContainer::getPassword);
+    }
+    
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM trade_data");
+        jdbcTemplate.update("DELETE FROM trade_reconciliation");
+        jdbcTemplate.update("DELETE FROM trade_data_archive");
+        jdbcTemplate.update("DELETE FROM trade_reconciliation_archive");
+        
+        retentionService = new RetentionServiceImpl(reconciliationRepository, archivedReconciliationRepository,
+                archivedTradeDataRepository, viewRepository, tradeLegHeadRepository, transactionTemplate,
+                mock(LeaseService.class));
+        ReflectionTestUtils.setField(retentionService, "matchedAfterDays", 90);
+        ReflectionTestUtils.setField(retentionService, "terminalAfterDays", 180);
+        ReflectionTestUtils.setField(retentionService, "chunkSize", 2);
+        ReflectionTestUtils.setField(retentionService, "pauseMillis", 0L);
+        ReflectionTestUtils.setField(retentionService, "maxChunksPerRun", 10);
+    }
+    
+    @Test
+    void testArchivesByStatusCutoffAndSkipsLockedRows() throws Exception {
+        LocalDateTime now = LocalDateTime.now();
+        insertReconciliation("M1", "MATCHED", now.minusDays(100));
+        insertReconciliation("M2", "MATCHED", now.minusDays(100));
+        insertReconciliation("M3", "MATCHED", now.minusDays(100));
+        insertReconciliation("M4", "MATCHED", now.minusDays(30));
+        insertReconciliation("X1", "MISMATCHED", now.minusDays(100));
+        insertReconciliation("X2", "MISMATCHED", now.minusDays(200));
+        insertReconciliation("P1", "PENDING", now.minusDays(300));
+        insertLeg("M1", "System A");
+        insertLeg("M1", "System B");
+        insertLeg("M4", "System A");
+        
+        int archived;
+        // A reconciliation being worked on holds its row lock; archival skips it instead of waiting
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SELECT id FROM trade_reconciliation WHERE trade_id = 'M2' FOR UPDATE");
+            }
+            archived = retentionService.archiveCompletedReconciliations();
+            connection.rollback();
+        }
+        
+        assertEquals(3, archived);
+        assertEquals(List.of("M2", "M4", "P1", "X1"), jdbcTemplate.queryForList(
+                "SELECT trade_id FROM trade_reconciliation ORDER BY trade_id", String.class));
+        assertEquals(List.of("M1", "M3", "X2"), jdbcTemplate.queryForList(
+                "SELECT trade_id FROM trade_reconciliation_archive ORDER BY trade_id", String.class));
+        assertEquals(List.of("M1", "M1"), jdbcTemplate.queryForList(
+                "SELECT trade_id FROM trade_data_archive ORDER BY trade_id", String.class));
+        assertEquals(List.of("M4"), jdbcTemplate.queryForList("SELECT trade_id FROM trade_data", String.class));
+        
+        // Lookups fall back to the archive once a trade has left the hot table
+        assertTrue(reconciliationRepository.findByTradeId("M1").isEmpty());
+        assertEquals("MATCHED", archivedReconciliationRepository.findFirstByTradeIdOrderByArchivedAtDesc("M1")
+                .orElseThrow().getStatus().name());
+        
+        // The skipped row is archived by the next run
+        assertEquals(1, retentionService.archiveCompletedReconciliations());
+    }
+    
+    private void insertReconciliation(String tradeId, String status, LocalDateTime updatedAt) {
+        jdbcTemplate.update("INSERT INTO trade_reconciliation (trade_id, status, created_at, updated_at) " +
+                "VALUES (?, ?, ?, ?)", tradeId, status, Timestamp.valueOf(updatedAt), Timestamp.valueOf(updatedAt));
+    }
+    
+    private void insertLeg(String tradeId, String sourceSystem) {
+        jdbcTemplate.update("INSERT INTO trade_data (trade_id, instrument, quantity, price, trade_date, counterparty, " +
+                "source_system, received_at, version) VALUES (?, 'AAPL', 100, 150.75, now(), 'BROKER_A', ?, now(), 1)",
+                tradeId, sourceSystem);
+    }
+}
@@ -0,0 +1,72 @@
+package com.trading.reconciliation.integration;
+
+import com.trading.reconciliation.repository.SchedulerInstanceRepository;
+import com.trading.reconciliation.repository.SchedulerLeaseRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Lease and heartbeat queries against a real PostgreSQL database; no broker needed
+ */
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Testcontainers(disabledWithoutDocker = true)
+public class SchedulerLeaseIntegrationTest {
+    
+    @Container
+    static PostgreSQLContainer<?> postgresContainer = new PostgreSQLContainer<>("postgres:15-alpine")
+            .withDatabaseName("trade_reconciliation_test")
+            .withUsername("test")
+            .withPassword("test");
+    
+    @Autowired
+    private SchedulerLeaseRepository leaseRepository;
+    
+    @Autowired
+    private SchedulerInstanceRepository instanceRepository;
+    
+    @DynamicPropertySource
+    static void registerProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgresContainer::getJdbcUrl);
+        registry.add("spring.datasource.username", postgresContainer::getUsername);
+        registry.add("spring.datasource.password", postgresContainer::getPassword);
+    }
+    
+    @Test
+    void testLeaseIsExclusiveUntilExpiredOrReleased() throws Exception {
+        assertEquals(1, leaseRepository.tryAcquire("sweep", "instance-a", 60_000));
+        assertEquals(0, leaseRepository.tryAcquire("sweep", "instance-b", 60_000));
+        assertEquals(1, leaseRepository.tryAcquire("sweep", "instance-a", 60_000));
+        
+        assertEquals(1, leaseRepository.release("sweep", "instance-a"));
+        assertEquals(1, leaseRepository.tryAcquire("sweep", "instance-b", 1));
+        
+        Thread.sleep(50);
+        assertEquals(1, leaseRepository.tryAcquire("sweep", "instance-a", 60_000));
+        assertEquals("instance-a", leaseRepository.findById("sweep").orElseThrow().getOwner());
+    }
+    
+    @Test
+    void testLiveInstancesAreOrderedAndExpire() throws Exception {
+        instanceRepository.heartbeat("instance-b");
+        instanceRepository.heartbeat("instance-a");
+        
+        assertEquals(List.of("instance-a", "instance-b"), instanceRepository.findLiveInstanceIds(60_000));
+        
+        Thread.sleep(50);
+        instanceRepository.heartbeat("instance-b");
+        assertEquals(List.of("instance-b"), instanceRepository.findLiveInstanceIds(40));
+        assertEquals(1, instanceRepository.deleteExpired(40));
+    }
+}
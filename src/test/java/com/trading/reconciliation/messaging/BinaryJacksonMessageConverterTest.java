@@ -0,0 +1,36 @@
+package com.trading.reconciliation.messaging;
+
+import com.trading.reconciliation.config.WireFormatConfig;
+import com.trading.reconciliation.dto.ReconciliationTaskMessage;
+import org.junit.jupiter.api.Test;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.MimeType;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class BinaryJacksonMessageConverterTest {
+    
+    private final BinaryJacksonMessageConverter converter = new BinaryJacksonMessageConverter(
+            WireFormatConfig.smileObjectMapper(new Jackson2ObjectMapperBuilder()),
+            MimeType.valueOf(WireFormatConfig.SMILE_CONTENT_TYPE), "com.trading.reconciliation.dto");
+    
+    @Test
+    void testResolvesTypesInTheTrustedPackage() {
+        Message message = converter.toMessage(ReconciliationTaskMessage.builder().tradeId("T1").build(),
+                new MessageProperties());
+        
+        assertEquals("T1", ((ReconciliationTaskMessage) converter.fromMessage(message)).getTradeId());
+    }
+    
+    @Test
+    void testRejectsTypesOutsideTheTrustedPackages() {
+        Message message = converter.toMessage(ReconciliationTaskMessage.builder().tradeId("T1").build(),
+                new MessageProperties());
+        message.getMessageProperties().setHeader("__TypeId__", "com.trading.reconciliation.model.TradeData");
+        
+        assertThrows(IllegalArgumentException.class, () -> converter.fromMessage(message));
+    }
+}
@@ -0,0 +1,76 @@
+package com.trading.reconciliation.messaging;
+
+import com.trading.reconciliation.config.DeskLaneProperties;
+import com.trading.reconciliation.exception.AdmissionRejectedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class DeskLanesTest {
+    
+    private SimpleMeterRegistry meterRegistry;
+    private DeskLanes deskLanes;
+    
+    @BeforeEach
+    void setUp() {
+        DeskLaneProperties.Lane fxLane = new DeskLaneProperties.Lane();
+        fxLane.setDesks(List.of("FX", "fx-algo"));
+        fxLane.setPoolShare(1);
+        DeskLaneProperties properties = new DeskLaneProperties();
+        properties.setPoolShareAcquireTimeoutMs(10);
+        properties.getLanes().put("fx", fxLane);
+        
+        meterRegistry = new SimpleMeterRegistry();
+        deskLanes = new DeskLanes(properties, meterRegistry, "tasks", 5);
+    }
+    
+    @Test
+    void testLaneOf_RoutesConfiguredDesksToTheirLaneQueue() {
+        assertEquals("fx", deskLanes.laneOf("FX-ALGO"));
+        assertEquals("fx", deskLanes.laneOf(" fx "));
+        assertEquals(DeskLanes.SHARED_LANE, deskLanes.laneOf("RATES"));
+        assertEquals(DeskLanes.SHARED_LANE, deskLanes.laneOf(null));
+        
+        assertEquals("tasks.desk.fx", deskLanes.tasksQueue("fx"));
+        assertEquals("tasks", deskLanes.tasksQueue(DeskLanes.SHARED_LANE));
+    }
+    
+    @Test
+    void testCallWithPoolShare_RejectsWhenTheLaneShareIsInUse() throws Exception {
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            executor.submit(() -> deskLanes.runWithPoolShare("fx", () -> {
+                holding.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+            holding.await();
+            
+            AdmissionRejectedException ex = assertThrows(AdmissionRejectedException.class,
+                    () -> deskLanes.callWithPoolShare("fx", () -> "saved"));
+            assertEquals(5, ex.getRetryAfterSeconds());
+            assertEquals("saved", deskLanes.callWithPoolShare(DeskLanes.SHARED_LANE, () -> "saved"));
+            assertEquals(1.0, meterRegistry.get("reconciliation.desk.pool.rejected").tag("lane", "fx")
+                    .counter().count());
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+        
+        assertEquals(0.0, meterRegistry.get("reconciliation.desk.pool.in.use").tag("lane", "fx")
+                .gauge().value(), 1.0);
+    }
+}
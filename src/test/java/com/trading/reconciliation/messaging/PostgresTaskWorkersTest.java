@@ -0,0 +1,122 @@
+package com.trading.reconciliation.messaging;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trading.reconciliation.config.DeskLaneProperties;
+import com.trading.reconciliation.dto.ReconciliationTaskMessage;
+import com.trading.reconciliation.repository.ReconciliationTaskRepository;
+import com.trading.reconciliation.repository.ReconciliationTaskRepository.ClaimedTask;
+import com.trading.reconciliation.service.LeaseService;
+import com.trading.reconciliation.service.ReconciliationService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class PostgresTaskWorkersTest {
+    
+    private static final String QUEUE = "tasks";
+    private static final String OWNER = "instance-1";
+    
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    
+    private ReconciliationTaskRepository taskRepository;
+    private ReconciliationService reconciliationService;
+    private SimpleMeterRegistry meterRegistry;
+    private TaskLagTracker taskLagTracker;
+    private PostgresTaskWorkers workers;
+    
+    @BeforeEach
+    void setUp() {
+        taskRepository = mock(ReconciliationTaskRepository.class);
+        reconciliationService = mock(ReconciliationService.class);
+        meterRegistry = new SimpleMeterRegistry();
+        taskLagTracker = new TaskLagTracker(meterRegistry);
+        LeaseService leaseService = mock(LeaseService.class);
+        when(leaseService.getInstanceId()).thenReturn(OWNER);
+        
+        ReconciliationTaskRetrier retrier = new ReconciliationTaskRetrier(mock(RabbitTemplate.class), meterRegistry);
+        ReflectionTestUtils.setField(retrier, "initialDelayMillis", 1000L);
+        ReflectionTestUtils.setField(retrier, "maxDelayMillis", 3000L);
+        ReflectionTestUtils.setField(retrier, "jitter", 0.25);
+        
+        workers = new PostgresTaskWorkers(taskRepository, reconciliationService,
+                new DeskLanes(new DeskLaneProperties(), meterRegistry, QUEUE, 5),
+                taskLagTracker, retrier, objectMapper, leaseService, meterRegistry);
+        ReflectionTestUtils.setField(workers, "claimBatchSize", 10);
+        ReflectionTestUtils.setField(workers, "leaseMillis", 60000L);
+        ReflectionTestUtils.setField(workers, "maxAttempts", 3);
+    }
+    
+    @Test
+    void testPollOnce_CompletesProcessedTasksAndReleasesFailedOnes() throws Exception {
+        ReconciliationTaskMessage snapshot = ReconciliationTaskMessage.builder()
+                .tradeId("T2")
+                .sourceSystem("System B")
+                .version(2L)
+                .build();
+        LocalDateTime enqueuedAt = LocalDateTime.now().minusSeconds(2);
+        when(taskRepository.claim(QUEUE, OWNER, 10, 60000L)).thenReturn(List.of(
+                new ClaimedTask(1, "T1", null, enqueuedAt, 1),
+                new ClaimedTask(2, "T2", objectMapper.writeValueAsString(snapshot), enqueuedAt, 1),
+                new ClaimedTask(3, "T3", null, enqueuedAt, 1),
+                new ClaimedTask(4, "T4", null, enqueuedAt, 3)));
+        doThrow(new IllegalStateException("database failover")).when(reconciliationService).executeReconciliation("T3");
+        doThrow(new IllegalStateException("still failing")).when(reconciliationService).executeReconciliation("T4");
+        
+        assertEquals(4, workers.pollOnce(QUEUE, TaskLagTracker.BULK_LANE));
+        
+        verify(reconciliationService).executeReconciliation("T1");
+        verify(reconciliationService).executeReconciliation(snapshot);
+        verify(taskRepository).complete(List.of(1L, 2L), OWNER);
+        
+        ArgumentCaptor<Long> delay = ArgumentCaptor.forClass(Long.class);
+        verify(taskRepository).retryLater(eq(3L), eq(OWNER), delay.capture(), eq("database failover"));
+        assertTrue(delay.getValue() >= 750 && delay.getValue() <= 1250);
+        verify(taskRepository).deadLetter(4L, OWNER, "still failing");
+        verify(taskRepository, never()).retryLater(eq(4L), anyString(), anyLong(), anyString());
+        
+        assertEquals(1.0, meterRegistry.get("reconciliation.task.retried").counter().count());
+        assertEquals(1.0, meterRegistry.get("reconciliation.task.dead.lettered").counter().count());
+        assertEquals(3, meterRegistry.get("reconciliation.task.queue.wait").tag("lane", TaskLagTracker.BULK_LANE)
+                .timer().count());
+        assertTrue(taskLagTracker.getListenerLagMillis(60000, false) > 0);
+    }
+    
+    @Test
+    void testPollOnce_MarksTasksThatNeverFinishedDeadWithoutRunningThem() {
+        LocalDateTime enqueuedAt = LocalDateTime.now().minusMinutes(10);
+        when(taskRepository.claim(QUEUE, OWNER, 10, 60000L)).thenReturn(List.of(
+                new ClaimedTask(1, "T1", null, enqueuedAt, 3),
+                new ClaimedTask(2, "T2", null, enqueuedAt, 4)));
+        
+        assertEquals(2, workers.pollOnce(QUEUE, TaskLagTracker.BULK_LANE));
+        
+        verify(reconciliationService).executeReconciliation("T1");
+        verify(reconciliationService, never()).executeReconciliation("T2");
+        verify(taskRepository).complete(List.of(1L), OWNER);
+        verify(taskRepository).deadLetter(eq(2L), eq(OWNER), anyString());
+        assertEquals(1.0, meterRegistry.get("reconciliation.task.dead.lettered").counter().count());
+    }
+    
+    @Test
+    void testPollOnce_EmptyQueueCompletesNothing() {
+        when(taskRepository.claim(QUEUE, OWNER, 10, 60000L)).thenReturn(List.of());
+        
+        assertEquals(0, workers.pollOnce(QUEUE, TaskLagTracker.BULK_LANE));
+        
+        verify(taskRepository, never()).complete(anyList(), anyString());
+        verifyNoInteractions(reconciliationService);
+    }
+}
@@ -0,0 +1,77 @@
+package com.trading.reconciliation.messaging;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageBuilder;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+public class ReconciliationTaskRetrierTest {
+    
+    private RabbitTemplate rabbitTemplate;
+    private ReconciliationTaskRetrier retrier;
+    
+    @BeforeEach
+    void setUp() {
+        rabbitTemplate = mock(RabbitTemplate.class);
+        retrier = new ReconciliationTaskRetrier(rabbitTemplate, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(retrier, "reconciliationTasksQueue", "tasks");
+        ReflectionTestUtils.setField(retrier, "deadLetterQueue", "tasks.dlq");
+        ReflectionTestUtils.setField(retrier, "maxAttempts", 4);
+        ReflectionTestUtils.setField(retrier, "initialDelayMillis", 1000L);
+        ReflectionTestUtils.setField(retrier, "maxDelayMillis", 3000L);
+        ReflectionTestUtils.setField(retrier, "jitter", 0.25);
+    }
+    
+    @Test
+    void testRetryOrDeadLetter_SchedulesNextAttemptWithJitteredBackoff() {
+        Message message = MessageBuilder.withBody("\"T1\"".getBytes())
+                .setHeader(ReconciliationTaskRetrier.RETRY_ATTEMPT_HEADER, 1)
+                .build();
+        
+        retrier.retryOrDeadLetter(message, new IllegalStateException("connection refused"));
+        
+        ArgumentCaptor<Message> captor = ArgumentCaptor.forClass(Message.class);
+        verify(rabbitTemplate).send(eq(""), eq("tasks.retry.2"), captor.capture());
+        Message retried = captor.getValue();
+        assertEquals(2, ReconciliationTaskRetrier.attemptOf(retried));
+        long expiration = Long.parseLong(retried.getMessageProperties().getExpiration());
+        assertTrue(expiration >= 1500 && expiration <= 2500, "expiration " + expiration);
+    }
+    
+    @Test
+    void testRetryOrDeadLetter_MovesToDeadLetterQueueAfterLastAttempt() {
+        Message message = MessageBuilder.withBody("\"T1\"".getBytes())
+                .setHeader(ReconciliationTaskRetrier.RETRY_ATTEMPT_HEADER, 3)
+                .build();
+        message.getMessageProperties().setConsumerQueue("tasks.desk.fx");
+        
+        retrier.retryOrDeadLetter(message, new IllegalStateException("connection refused"));
+        
+        ArgumentCaptor<Message> captor = ArgumentCaptor.forClass(Message.class);
+        verify(rabbitTemplate).send(eq(""), eq("tasks.dlq"), captor.capture());
+        assertNull(captor.getValue().getMessageProperties().getExpiration());
+        assertEquals("connection refused", 
+                captor.getValue().getMessageProperties().getHeader(ReconciliationTaskRetrier.LAST_ERROR_HEADER));
+        assertEquals("tasks.desk.fx", 
+                captor.getValue().getMessageProperties().getHeader(ReconciliationTaskRetrier.ORIGIN_QUEUE_HEADER));
+    }
+    
+    @Test
+    void testBackoffDelay_IsCappedAtMaxDelay() {
+        for (int i = 0; i < 100; i++) {
+            long delay = retrier.backoffDelayMillis(10);
+            assertTrue(delay >= 2250 && delay <= 3750, "delay " + delay);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.trading.reconciliation.messaging;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TaskLagTrackerTest {
+    
+    private TaskLagTracker taskLagTracker;
+    
+    @BeforeEach
+    void setUp() {
+        taskLagTracker = new TaskLagTracker(new SimpleMeterRegistry());
+    }
+    
+    @Test
+    void testRecentObservationsReportTheSmoothedLag() {
+        taskLagTracker.recordConsumed(new Date(System.currentTimeMillis() - 1000));
+        
+        long lag = taskLagTracker.getListenerLagMillis(60000, true);
+        
+        // First observation weighted by the smoothing factor
+        assertTrue(lag >= 200 && lag < 300, "Lag " + lag);
+    }
+    
+    @Test
+    void testIdleLaneWithEmptyQueueHasNoLag() throws InterruptedException {
+        taskLagTracker.recordConsumed(new Date(System.currentTimeMillis() - 1000));
+        Thread.sleep(30);
+        
+        assertEquals(0, taskLagTracker.getListenerLagMillis(10, true));
+    }
+    
+    @Test
+    void testStalledLaneReportsTimeSinceLastConsumedTask() throws InterruptedException {
+        taskLagTracker.recordConsumed(TaskLagTracker.PRIORITY_LANE, new Date(System.currentTimeMillis() - 5));
+        Thread.sleep(300);
+        
+        // Tasks are waiting but none were consumed since
+        long lag = taskLagTracker.getListenerLagMillis(TaskLagTracker.PRIORITY_LANE, 100, false);
+        assertTrue(lag >= 300, "Lag " + lag);
+        assertEquals(0, taskLagTracker.getListenerLagMillis(TaskLagTracker.BULK_LANE, 60000, false));
+    }
+    
+    @Test
+    void testLaneThatNeverConsumedIsStalledOnceTasksWait() throws InterruptedException {
+        assertEquals(0, taskLagTracker.getListenerLagMillis("fx", 60000, false));
+        Thread.sleep(50);
+        
+        assertTrue(taskLagTracker.getListenerLagMillis("fx", 10, false) >= 50);
+        assertEquals(0, taskLagTracker.getListenerLagMillis("fx", 10, true));
+    }
+}
@@ -0,0 +1,79 @@
+package com.trading.reconciliation.profiling;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.actuate.endpoint.web.WebEndpointResponse;
+import org.springframework.core.io.Resource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class FlightRecordingEndpointTest {
+    
+    @TempDir
+    Path directory;
+    
+    private FlightRecordingEndpoint endpoint;
+    
+    @BeforeEach
+    void setUp() {
+        endpoint = new FlightRecordingEndpoint();
+        ReflectionTestUtils.setField(endpoint, "settings", "default");
+        ReflectionTestUtils.setField(endpoint, "defaultDurationSeconds", 60L);
+        ReflectionTestUtils.setField(endpoint, "maxDurationSeconds", 120L);
+        ReflectionTestUtils.setField(endpoint, "maxSizeMb", 10L);
+    }
+    
+    @AfterEach
+    void tearDown() throws Exception {
+        endpoint.stop();
+    }
+    
+    @Test
+    void testRecordingContainsPipelineEvents() throws Exception {
+        WebEndpointResponse<FlightRecordingEndpoint.RecordingStatus> started = endpoint.start(600L);
+        assertEquals(200, started.getStatus());
+        assertEquals(120, started.getBody().durationSeconds());
+        assertEquals(429, endpoint.start(null).getStatus());
+        
+        CompareEvent compareEvent = new CompareEvent();
+        compareEvent.begin();
+        compareEvent.complete("T123456", 2);
+        
+        WebEndpointResponse<Resource> stopped = endpoint.stop();
+        Path file = directory.resolve("recording.jfr");
+        Files.write(file, stopped.getBody().getContentAsByteArray());
+        
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file).stream()
+                .filter(event -> event.getEventType().getName().equals("com.trading.reconciliation.Compare"))
+                .toList();
+        assertEquals(1, events.size());
+        assertEquals("T123456", events.get(0).getString("tradeId"));
+        assertEquals(2, events.get(0).getInt("mismatches"));
+        assertTrue(events.get(0).getEventType().getCategoryNames().contains(FlightRecordingEndpoint.EVENT_CATEGORY));
+        
+        assertEquals(404, endpoint.status().getStatus());
+    }
+    
+    @Test
+    void testRecordingLeavesOutEnvironmentAndSystemProperties() throws Exception {
+        ReflectionTestUtils.setField(endpoint, "settings", "profile");
+        endpoint.start(null);
+        
+        WebEndpointResponse<Resource> stopped = endpoint.stop();
+        Path file = directory.resolve("recording.jfr");
+        Files.write(file, stopped.getBody().getContentAsByteArray());
+        
+        assertTrue(RecordingFile.readAllEvents(file).stream()
+                .noneMatch(event -> FlightRecordingEndpoint.DISABLED_EVENTS.contains(event.getEventType().getName())));
+    }
+}
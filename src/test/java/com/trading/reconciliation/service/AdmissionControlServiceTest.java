@@ -0,0 +1,123 @@
+package com.trading.reconciliation.service;
+
+import com.trading.reconciliation.config.DeskLaneProperties;
+import com.trading.reconciliation.exception.AdmissionRejectedException;
+import com.trading.reconciliation.messaging.DeskLanes;
+import com.trading.reconciliation.messaging.ReconciliationTaskTransport;
+import com.trading.reconciliation.messaging.TaskLagTracker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class AdmissionControlServiceTest {
+
+    private static final String QUEUE = "reconciliation-tasks-queue";
+    private static final String FX_QUEUE = "reconciliation-tasks-queue.desk.fx";
+
+    @Mock
+    private ReconciliationTaskTransport taskTransport;
+
+    private MeterRegistry meterRegistry;
+    private TaskLagTracker taskLagTracker;
+    private AdmissionControlServiceImpl admissionControlService;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        taskLagTracker = new TaskLagTracker(meterRegistry);
+
+        DeskLaneProperties.Lane fxLane = new DeskLaneProperties.Lane();
+        fxLane.setMaxQueueDepth(1000);
+        DeskLaneProperties deskLaneProperties = new DeskLaneProperties();
+        deskLaneProperties.getLanes().put("fx", fxLane);
+        DeskLanes deskLanes = new DeskLanes(deskLaneProperties, meterRegistry, QUEUE, 7);
+        lenient().when(taskTransport.queueDepth(FX_QUEUE)).thenReturn(0L);
+
+        admissionControlService = new AdmissionControlServiceImpl(
+                taskTransport, taskLagTracker, deskLanes, meterRegistry, QUEUE,
+                true, 7, 1000,
+                1000, 500, 60000,
+                100, 500, 60000);
+    }
+
+    @Test
+    void testAdmitsWhenBelowThresholds() {
+        // Arrange
+        when(taskTransport.queueDepth(QUEUE)).thenReturn(50L);
+
+        // Act
+        admissionControlService.sampleLoad();
+
+        // Assert
+        assertDoesNotThrow(() -> admissionControlService.checkAdmission("System A", null));
+        assertDoesNotThrow(() -> admissionControlService.checkAdmission("System B", null));
+    }
+
+    @Test
+    void testQueueDepthLimitsArePerSourceSystem() {
+        // Arrange
+        when(taskTransport.queueDepth(QUEUE)).thenReturn(500L);
+
+        // Act
+        admissionControlService.sampleLoad();
+
+        // Assert
+        assertDoesNotThrow(() -> admissionControlService.checkAdmission("System A", null));
+        AdmissionRejectedException ex = assertThrows(AdmissionRejectedException.class,
+                () -> admissionControlService.checkAdmission("System B", null));
+        assertEquals(7, ex.getRetryAfterSeconds());
+        assertEquals(1.0, meterRegistry.get("reconciliation.admission.rejected")
+                .tag("source", "System B")
+                .tag("reason", "queue-depth")
+                .counter()
+                .count());
+    }
+
+    @Test
+    void testRejectsWhenListenerLagExceedsThreshold() {
+        // Arrange
+        when(taskTransport.queueDepth(QUEUE)).thenReturn(0L);
+        for (int i = 0; i < 50; i++) {
+            taskLagTracker.recordConsumed(new Date(System.currentTimeMillis() - 120000));
+        }
+
+        // Act
+        admissionControlService.sampleLoad();
+
+        // Assert
+        assertThrows(AdmissionRejectedException.class, () -> admissionControlService.checkAdmission("System A", null));
+    }
+
+    @Test
+    void testDeskLaneIsAdmittedAgainstItsOwnQueue() {
+        // Arrange
+        when(taskTransport.queueDepth(QUEUE)).thenReturn(50L);
+        when(taskTransport.queueDepth(FX_QUEUE)).thenReturn(5000L);
+
+        // Act
+        admissionControlService.sampleLoad();
+
+        // Assert
+        assertThrows(AdmissionRejectedException.class, () -> admissionControlService.checkAdmission("System A", "FX"));
+        assertDoesNotThrow(() -> admissionControlService.checkAdmission("System A", "RATES"));
+        assertDoesNotThrow(() -> admissionControlService.checkAdmission("System A", null));
+        assertEquals(1.0, meterRegistry.get("reconciliation.admission.rejected")
+                .tag("lane", "fx")
+                .tag("reason", "queue-depth")
+                .counter()
+                .count());
+    }
+}
@@ -0,0 +1,107 @@
+package com.trading.reconciliation.service;
+
+import com.trading.reconciliation.model.BreakFieldRollup;
+import com.trading.reconciliation.model.BreakRollup;
+import com.trading.reconciliation.model.BreakRollupKey;
+import com.trading.reconciliation.model.MatchLagRollup;
+import com.trading.reconciliation.model.ReconciliationStatus;
+import com.trading.reconciliation.repository.BreakAnalyticsRepository;
+import com.trading.reconciliation.service.ReconciliationOutcomeEvent.Outcome;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+public class BreakAnalyticsServiceTest {
+    
+    private static final BreakRollupKey KEY = new BreakRollupKey(LocalDate.of(2023, 6, 15), "BROKER_A", "AAPL");
+    
+    private BreakAnalyticsRepository analyticsRepository;
+    private BreakAnalyticsServiceImpl analyticsService;
+    
+    @BeforeEach
+    void setUp() {
+        analyticsRepository = mock(BreakAnalyticsRepository.class);
+        analyticsService = new BreakAnalyticsServiceImpl(analyticsRepository,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)));
+    }
+    
+    @Test
+    @SuppressWarnings("unchecked")
+    void testAmendedTradeMovesFromMismatchedToMatched() {
+        Outcome mismatched = new Outcome(ReconciliationStatus.MISMATCHED, KEY, List.of("price", "quantity"));
+        Outcome matched = new Outcome(ReconciliationStatus.MATCHED, KEY, List.of());
+        
+        analyticsService.onReconciliationOutcome(new ReconciliationOutcomeEvent("T1", null, mismatched, null));
+        analyticsService.onReconciliationOutcome(new ReconciliationOutcomeEvent("T2", null, mismatched, null));
+        analyticsService.onReconciliationOutcome(new ReconciliationOutcomeEvent("T1", mismatched, matched, 1000L));
+        analyticsService.flush();
+        
+        ArgumentCaptor<Collection<BreakRollup>> breakCounts = ArgumentCaptor.forClass(Collection.class);
+        ArgumentCaptor<Collection<BreakFieldRollup>> fieldCounts = ArgumentCaptor.forClass(Collection.class);
+        ArgumentCaptor<Collection<MatchLagRollup>> matchLags = ArgumentCaptor.forClass(Collection.class);
+        verify(analyticsRepository).addBreakCounts(breakCounts.capture());
+        verify(analyticsRepository).addFieldCounts(fieldCounts.capture());
+        verify(analyticsRepository).addMatchLags(matchLags.capture());
+        
+        BreakRollup counts = breakCounts.getValue().iterator().next();
+        assertEquals(1, counts.getMatchedCount());
+        assertEquals(1, counts.getMismatchedCount());
+        assertEquals(0, counts.getErrorCount());
+        
+        Map<String, Long> mismatchesByField = fieldCounts.getValue().stream()
+                .collect(Collectors.toMap(BreakFieldRollup::getField, BreakFieldRollup::getMismatchCount));
+        assertEquals(Map.of("price", 1L, "quantity", 1L), mismatchesByField);
+        
+        MatchLagRollup lag = matchLags.getValue().iterator().next();
+        assertEquals(BreakAnalyticsServiceImpl.lagBucket(1000), lag.getBucket());
+        assertEquals(1, lag.getMatchCount());
+        
+        // Nothing left to write
+        assertEquals(0, analyticsService.flush());
+    }
+    
+    @Test
+    void testFailedFlushIsRetried() {
+        Outcome matched = new Outcome(ReconciliationStatus.MATCHED, KEY, List.of());
+        doThrow(new IllegalStateException("Connection refused")).doNothing()
+                .when(analyticsRepository).addBreakCounts(anyCollection());
+        
+        analyticsService.onReconciliationOutcome(new ReconciliationOutcomeEvent("T1", null, matched, 5L));
+        
+        assertEquals(0, analyticsService.flush());
+        assertEquals(2, analyticsService.flush());
+        verify(analyticsRepository, times(2)).addBreakCounts(anyCollection());
+    }
+    
+    @Test
+    void testLagBucketsAndPercentiles() {
+        for (long lagMillis = 1; lagMillis < 1_000_000; lagMillis += 7) {
+            long upperBound = BreakAnalyticsServiceImpl.bucketUpperBoundMillis(BreakAnalyticsServiceImpl.lagBucket(lagMillis));
+            assertTrue(upperBound >= lagMillis && upperBound <= lagMillis * 1.19 + 1,
+                    "Bucket bound " + upperBound + " for lag " + lagMillis);
+        }
+        
+        TreeMap<Integer, Long> histogram = new TreeMap<>();
+        histogram.put(BreakAnalyticsServiceImpl.lagBucket(100), 90L);
+        histogram.put(BreakAnalyticsServiceImpl.lagBucket(10_000), 10L);
+        
+        assertEquals(BreakAnalyticsServiceImpl.bucketUpperBoundMillis(BreakAnalyticsServiceImpl.lagBucket(100)),
+                BreakAnalyticsServiceImpl.percentile(histogram, 0.90));
+        assertEquals(BreakAnalyticsServiceImpl.bucketUpperBoundMillis(BreakAnalyticsServiceImpl.lagBucket(10_000)),
+                BreakAnalyticsServiceImpl.percentile(histogram, 0.99));
+    }
+}
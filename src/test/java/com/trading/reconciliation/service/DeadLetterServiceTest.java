@@ -0,0 +1,170 @@
+package com.trading.reconciliation.service;
+
+import com.rabbitmq.client.AMQP;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.Envelope;
+import com.rabbitmq.client.GetResponse;
+import com.trading.reconciliation.dto.DeadLetterReplayResponseDto;
+import com.trading.reconciliation.exception.ReplayInProgressException;
+import com.trading.reconciliation.messaging.ReconciliationTaskRetrier;
+import com.trading.reconciliation.repository.ReconciliationTaskRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.ArgumentMatchers;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.rabbit.core.ChannelCallback;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class DeadLetterServiceTest {
+    
+    private RabbitTemplate rabbitTemplate;
+    private ReconciliationTaskRepository taskRepository;
+    private LeaseService leaseService;
+    private DeadLetterServiceImpl deadLetterService;
+    
+    @BeforeEach
+    void setUp() {
+        rabbitTemplate = mock(RabbitTemplate.class);
+        taskRepository = mock(ReconciliationTaskRepository.class);
+        leaseService = mock(LeaseService.class);
+        when(leaseService.tryAcquire(anyString(), any(Duration.class))).thenReturn(true);
+        
+        deadLetterService = new DeadLetterServiceImpl(rabbitTemplate, mock(AmqpAdmin.class),
+                leaseService, taskRepository);
+        ReflectionTestUtils.setField(deadLetterService, "replayRatePerSecond", 1000);
+        ReflectionTestUtils.setField(deadLetterService, "replayMaxBatch", 5);
+        ReflectionTestUtils.setField(deadLetterService, "taskTransport", "postgres");
+    }
+    
+    @AfterEach
+    void tearDown() {
+        deadLetterService.shutdown();
+    }
+    
+    @Test
+    void testReplayRunsInTheBackgroundUpToTheMaxBatch() throws Exception {
+        when(taskRepository.replayDead(1)).thenReturn(1);
+        when(taskRepository.countDead()).thenReturn(7L);
+        
+        DeadLetterReplayResponseDto started = deadLetterService.startReplay(100);
+        
+        assertEquals("RUNNING", started.getState());
+        assertEquals(5, started.getRequested());
+        DeadLetterReplayResponseDto finished = awaitFinished(started.getJobId());
+        assertEquals("COMPLETED", finished.getState());
+        assertEquals(5, finished.getReplayed());
+        assertEquals(7, finished.getRemaining());
+        verify(taskRepository, times(5)).replayDead(1);
+        verify(leaseService).release(anyString());
+    }
+    
+    @Test
+    void testReplayStopsWhenTheDeadLettersRunOut() throws Exception {
+        when(taskRepository.replayDead(1)).thenReturn(1, 1, 0);
+        
+        DeadLetterReplayResponseDto finished = awaitFinished(deadLetterService.startReplay(100).getJobId());
+        
+        assertEquals(2, finished.getReplayed(), finished.toString());
+        assertEquals(0, finished.getRemaining());
+    }
+    
+    @Test
+    void testOnlyOneReplayRunsAtATime() throws Exception {
+        CountDownLatch replaying = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(taskRepository.replayDead(1)).thenAnswer(invocation -> {
+            replaying.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return 0;
+        });
+        
+        String jobId = deadLetterService.startReplay(10).getJobId();
+        assertTrue(replaying.await(5, TimeUnit.SECONDS));
+        
+        assertThrows(ReplayInProgressException.class, () -> deadLetterService.startReplay(10));
+        release.countDown();
+        awaitFinished(jobId);
+        assertEquals("RUNNING", deadLetterService.startReplay(10).getState());
+    }
+    
+    @Test
+    void testReplayHeldByAnotherInstanceIsRejected() {
+        when(leaseService.tryAcquire(anyString(), any(Duration.class))).thenReturn(false);
+        
+        assertThrows(ReplayInProgressException.class, () -> deadLetterService.startReplay(10));
+        
+        // The local guard is freed again
+        when(leaseService.tryAcquire(anyString(), any(Duration.class))).thenReturn(true);
+        assertEquals("RUNNING", deadLetterService.startReplay(10).getState());
+    }
+    
+    @Test
+    void testFailedReplayIsReported() throws Exception {
+        when(taskRepository.replayDead(1)).thenReturn(1).thenThrow(new IllegalStateException("Connection refused"));
+        
+        DeadLetterReplayResponseDto finished = awaitFinished(deadLetterService.startReplay(10).getJobId());
+        
+        assertEquals("FAILED", finished.getState());
+        assertEquals(1, finished.getReplayed());
+        assertEquals("Connection refused", finished.getError());
+        assertTrue(deadLetterService.getReplay("unknown").isEmpty());
+    }
+    
+    @Test
+    void testRabbitReplayReturnsDeadLettersToTheQueueTheyFailedOn() throws Exception {
+        ReflectionTestUtils.setField(deadLetterService, "taskTransport", "rabbitmq");
+        ReflectionTestUtils.setField(deadLetterService, "reconciliationTasksQueue", "tasks");
+        ReflectionTestUtils.setField(deadLetterService, "deadLetterQueue", "tasks.dlq");
+        Channel channel = mock(Channel.class);
+        when(rabbitTemplate.execute(ArgumentMatchers.<ChannelCallback<Boolean>>any()))
+                .thenAnswer(invocation -> invocation.<ChannelCallback<Boolean>>getArgument(0).doInRabbit(channel));
+        GetResponse laneTask = deadLetter(1, Map.of(
+                ReconciliationTaskRetrier.ORIGIN_QUEUE_HEADER, "tasks.desk.fx",
+                ReconciliationTaskRetrier.RETRY_ATTEMPT_HEADER, 8));
+        GetResponse taskWithoutOrigin = deadLetter(2, Map.of(ReconciliationTaskRetrier.RETRY_ATTEMPT_HEADER, 8));
+        when(channel.basicGet("tasks.dlq", false)).thenReturn(laneTask, taskWithoutOrigin, null);
+        
+        DeadLetterReplayResponseDto finished = awaitFinished(deadLetterService.startReplay(10).getJobId());
+        
+        assertEquals(2, finished.getReplayed(), finished.toString());
+        ArgumentCaptor<AMQP.BasicProperties> replayed = ArgumentCaptor.forClass(AMQP.BasicProperties.class);
+        verify(channel).basicPublish(eq(""), eq("tasks.desk.fx"), replayed.capture(), any());
+        assertFalse(replayed.getValue().getHeaders().containsKey(ReconciliationTaskRetrier.ORIGIN_QUEUE_HEADER));
+        assertFalse(replayed.getValue().getHeaders().containsKey(ReconciliationTaskRetrier.RETRY_ATTEMPT_HEADER));
+        verify(channel).basicPublish(eq(""), eq("tasks"), any(), any());
+        verify(channel).basicAck(1, false);
+        verify(channel).basicAck(2, false);
+    }
+    
+    private GetResponse deadLetter(long deliveryTag, Map<String, Object> headers) {
+        return new GetResponse(new Envelope(deliveryTag, false, "", "tasks.dlq"),
+                new AMQP.BasicProperties.Builder().headers(headers).build(), "\"T1\"".getBytes(), 0);
+    }
+    
+    private DeadLetterReplayResponseDto awaitFinished(String jobId) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 30000;
+        DeadLetterReplayResponseDto job = deadLetterService.getReplay(jobId).orElseThrow();
+        while (job.getFinishedAt() == null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            job = deadLetterService.getReplay(jobId).orElseThrow();
+        }
+        return job;
+    }
+}
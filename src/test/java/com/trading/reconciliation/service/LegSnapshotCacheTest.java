@@ -0,0 +1,56 @@
+package com.trading.reconciliation.service;
+
+import com.trading.reconciliation.dto.ReconciliationTaskMessage;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class LegSnapshotCacheTest {
+    
+    @Test
+    void testOffer_RejectsOlderVersionOfSameLeg() {
+        LegSnapshotCache cache = new LegSnapshotCache(10);
+        
+        assertTrue(cache.offer(snapshot("T1", "System A", 2L)));
+        assertFalse(cache.offer(snapshot("T1", "System A", 1L)));
+        assertTrue(cache.offer(snapshot("T1", "System A", 2L)));
+        assertTrue(cache.offer(snapshot("T1", "System B", 1L)));
+        
+        assertEquals(2L, cache.get("T1", "System A").orElseThrow().getVersion());
+    }
+    
+    @Test
+    void testOffer_EvictsLeastRecentlyUsedLeg() {
+        LegSnapshotCache cache = new LegSnapshotCache(2);
+        
+        cache.offer(snapshot("T1", "System A", 1L));
+        cache.offer(snapshot("T2", "System A", 1L));
+        cache.get("T1", "System A");
+        cache.offer(snapshot("T3", "System A", 1L));
+        
+        assertTrue(cache.get("T1", "System A").isPresent());
+        assertFalse(cache.get("T2", "System A").isPresent());
+        assertTrue(cache.get("T3", "System A").isPresent());
+    }
+    
+    @Test
+    void testEvict_AcceptsAnOlderVersionAgain() {
+        LegSnapshotCache cache = new LegSnapshotCache(10);
+        cache.offer(snapshot("T1", "System A", 2L));
+        
+        cache.evict("T1", "System A");
+        
+        assertFalse(cache.get("T1", "System A").isPresent());
+        assertTrue(cache.offer(snapshot("T1", "System A", 1L)));
+    }
+    
+    private ReconciliationTaskMessage snapshot(String tradeId, String sourceSystem, Long version) {
+        return ReconciliationTaskMessage.builder()
+                .tradeId(tradeId)
+                .sourceSystem(sourceSystem)
+                .version(version)
+                .build();
+    }
+}
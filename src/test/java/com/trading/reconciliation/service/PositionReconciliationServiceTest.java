@@ -0,0 +1,173 @@
+package com.trading.reconciliation.service;
+
+import com.trading.reconciliation.dto.PositionReconciliationRunDto;
+import com.trading.reconciliation.exception.PositionRunInProgressException;
+import com.trading.reconciliation.model.PositionBreak;
+import com.trading.reconciliation.repository.PositionRepository;
+import com.trading.reconciliation.repository.PositionRepository.LegConsumer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.stubbing.Answer;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class PositionReconciliationServiceTest {
+    
+    private static final LocalDate TRADE_DATE = LocalDate.of(2023, 6, 15);
+    private static final int EPOCH_DAY = (int) TRADE_DATE.toEpochDay();
+    
+    private PositionRepository positionRepository;
+    private LeaseService leaseService;
+    private PositionReconciliationServiceImpl positionService;
+    
+    @BeforeEach
+    void setUp() {
+        positionRepository = mock(PositionRepository.class);
+        leaseService = mock(LeaseService.class);
+        when(leaseService.tryAcquire(anyString(), any(Duration.class))).thenReturn(true);
+        
+        positionService = new PositionReconciliationServiceImpl(positionRepository,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), leaseService);
+        ReflectionTestUtils.setField(positionService, "quantityTolerance", new BigDecimal("0.5"));
+        ReflectionTestUtils.setField(positionService, "notionalTolerance", 0.01);
+        ReflectionTestUtils.setField(positionService, "leaseTtlMillis", 60000L);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        positionService.shutdown();
+    }
+    
+    @Test
+    @SuppressWarnings("unchecked")
+    void testPositionsOutsideToleranceAreBreaks() {
+        doAnswer(invocation -> {
+            LegConsumer consumer = invocation.getArgument(4);
+            // AAPL/BROKER_A nets to 150 on both sides, split differently
+            consumer.accept(true, EPOCH_DAY, "AAPL", "BROKER_A", 100_000_000L, 15075.0);
+            consumer.accept(true, EPOCH_DAY, "AAPL", "BROKER_A", 50_000_000L, 7537.5);
+            consumer.accept(false, EPOCH_DAY, "AAPL", "BROKER_A", 150_000_000L, 22612.5);
+            // MSFT/BROKER_A differs by 0.4 shares, within tolerance, but by 100 in notional
+            consumer.accept(true, EPOCH_DAY, "MSFT", "BROKER_A", 10_000_000L, 3000.0);
+            consumer.accept(false, EPOCH_DAY, "MSFT", "BROKER_A", 9_600_000L, 2900.0);
+            // GOOG/BROKER_B is only booked in System B, as a sale
+            consumer.accept(false, EPOCH_DAY, "GOOG", "BROKER_B", -20_000_000L, -2400.0);
+            return null;
+        }).when(positionRepository).scanLatestLegs(eq(TRADE_DATE), eq(TRADE_DATE), eq("System A"), eq("System B"),
+                any(LegConsumer.class));
+        
+        PositionReconciliationRunDto run = positionService.reconcilePositions(TRADE_DATE, TRADE_DATE);
+        
+        assertEquals(6, run.getLegsScanned());
+        assertEquals(3, run.getPositions());
+        assertEquals(2, run.getBreaks());
+        
+        ArgumentCaptor<Collection<PositionBreak>> breaks = ArgumentCaptor.forClass(Collection.class);
+        verify(positionRepository).replaceBreaks(eq(TRADE_DATE), eq(TRADE_DATE), breaks.capture());
+        List<PositionBreak> sorted = breaks.getValue().stream()
+                .sorted(Comparator.comparing(PositionBreak::getInstrument))
+                .toList();
+        
+        PositionBreak goog = sorted.get(0);
+        assertEquals("GOOG", goog.getInstrument());
+        assertEquals(0, new BigDecimal("20").compareTo(goog.getQuantityDifference()));
+        assertEquals(0, goog.getSystemATradeCount());
+        assertEquals(1, goog.getSystemBTradeCount());
+        
+        PositionBreak msft = sorted.get(1);
+        assertEquals("MSFT", msft.getInstrument());
+        assertEquals(TRADE_DATE, msft.getBusinessDate());
+        assertEquals(0, new BigDecimal("0.4").compareTo(msft.getQuantityDifference()));
+        assertEquals(0, new BigDecimal("100").compareTo(msft.getNotionalDifference()));
+        verify(leaseService).release("position-reconciliation");
+    }
+    
+    @Test
+    void testRunIsRejectedWhileAnotherInstanceHoldsTheLease() {
+        when(leaseService.tryAcquire(anyString(), any(Duration.class))).thenReturn(false);
+        
+        assertThrows(PositionRunInProgressException.class,
+                () -> positionService.reconcilePositions(TRADE_DATE, TRADE_DATE));
+        
+        verify(positionRepository, never()).scanLatestLegs(any(), any(), anyString(), anyString(), any());
+        verify(positionRepository, never()).replaceBreaks(any(), any(), anyCollection());
+    }
+    
+    @Test
+    void testScheduledRunIsHandedToThePositionThread() {
+        ReflectionTestUtils.setField(positionService, "positionsEnabled", true);
+        ReflectionTestUtils.setField(positionService, "lookbackDays", 1);
+        AtomicReference<String> scanThread = new AtomicReference<>();
+        doAnswer(invocation -> {
+            scanThread.set(Thread.currentThread().getName());
+            return null;
+        }).when(positionRepository).scanLatestLegs(any(), any(), anyString(), anyString(), any());
+        
+        positionService.runPositionReconciliation();
+        
+        LocalDate yesterday = LocalDate.now().minusDays(1);
+        verify(positionRepository, timeout(5000)).replaceBreaks(eq(yesterday), eq(yesterday), anyCollection());
+        assertTrue(scanThread.get().startsWith("position-reconciliation-"), scanThread.get());
+    }
+    
+    @Test
+    void testLeaseIsRenewedWhileTheScanRuns() {
+        ReflectionTestUtils.setField(positionService, "leaseTtlMillis", 3L);
+        doAnswer(slowScan(3)).when(positionRepository).scanLatestLegs(any(), any(), anyString(), anyString(), any());
+        
+        positionService.reconcilePositions(TRADE_DATE, TRADE_DATE);
+        
+        // Taken once, then renewed at each leg check once a third of the TTL has passed
+        verify(leaseService, atLeast(4)).tryAcquire(eq("position-reconciliation"), eq(Duration.ofMillis(3)));
+        verify(positionRepository).replaceBreaks(eq(TRADE_DATE), eq(TRADE_DATE), anyCollection());
+    }
+    
+    @Test
+    void testRunIsAbandonedWhenTheLeaseIsLost() {
+        ReflectionTestUtils.setField(positionService, "leaseTtlMillis", 3L);
+        when(leaseService.tryAcquire(anyString(), any(Duration.class))).thenReturn(true, false);
+        doAnswer(slowScan(3)).when(positionRepository).scanLatestLegs(any(), any(), anyString(), anyString(), any());
+        
+        assertThrows(PositionRunInProgressException.class,
+                () -> positionService.reconcilePositions(TRADE_DATE, TRADE_DATE));
+        
+        verify(positionRepository, never()).replaceBreaks(any(), any(), anyCollection());
+        verify(leaseService).release("position-reconciliation");
+    }
+    
+    /**
+     * A scan feeding the given number of batches of 4096 legs, pausing before each batch ends
+     */
+    private Answer<Void> slowScan(int batches) {
+        return invocation -> {
+            LegConsumer consumer = invocation.getArgument(4);
+            for (int leg = 1; leg <= batches * 4096; leg++) {
+                if (leg % 4096 == 0) {
+                    Thread.sleep(5);
+                }
+                consumer.accept(true, EPOCH_DAY, "AAPL", "BROKER_A", 1_000_000L, 150.0);
+            }
+            return null;
+        };
+    }
+}
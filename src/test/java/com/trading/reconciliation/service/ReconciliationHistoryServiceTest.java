@@ -0,0 +1,163 @@
+package com.trading.reconciliation.service;
+
+import com.trading.reconciliation.model.BreakRollupKey;
+import com.trading.reconciliation.model.ReconciliationStatus;
+import com.trading.reconciliation.model.ReconciliationStatusHistory;
+import com.trading.reconciliation.repository.ReconciliationStatusHistoryRepository;
+import com.trading.reconciliation.service.ReconciliationOutcomeEvent.Outcome;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+public class ReconciliationHistoryServiceTest {
+    
+    private static final BreakRollupKey KEY = new BreakRollupKey(LocalDate.of(2023, 6, 15), "BROKER_A", "AAPL");
+    
+    private ReconciliationStatusHistoryRepository historyRepository;
+    private SimpleMeterRegistry meterRegistry;
+    
+    @BeforeEach
+    void setUp() {
+        historyRepository = mock(ReconciliationStatusHistoryRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+    
+    @Test
+    void testBufferedTransitionsAreWrittenInBatchesAndRetriedAfterAFailure() {
+        List<List<String>> written = new ArrayList<>();
+        doThrow(new IllegalStateException("database unavailable"))
+                .doAnswer(invocation -> {
+                    Collection<ReconciliationStatusHistory> batch = invocation.getArgument(0);
+                    written.add(batch.stream().map(ReconciliationStatusHistory::getTradeId).toList());
+                    return null;
+                })
+                .when(historyRepository).insertAll(anyCollection());
+        ReconciliationHistoryServiceImpl historyService = historyService("best-effort", 3, 2);
+        
+        historyService.onReconciliationOutcome(event("T1", null, ReconciliationStatus.PENDING));
+        historyService.onReconciliationOutcome(event("T1", ReconciliationStatus.PENDING, ReconciliationStatus.MISMATCHED));
+        historyService.onReconciliationOutcome(event("T1", ReconciliationStatus.MISMATCHED, ReconciliationStatus.MISMATCHED));
+        historyService.onReconciliationOutcome(event("T2", ReconciliationStatus.PENDING, ReconciliationStatus.MATCHED));
+        historyService.onReconciliationOutcome(event("T3", ReconciliationStatus.PENDING, ReconciliationStatus.MATCHED));
+        
+        // The unchanged status is not a transition and T3 found the buffer full
+        assertEquals(1.0, meterRegistry.get("reconciliation.history.dropped").counter().count());
+        assertEquals(0, historyService.flush());
+        assertEquals(1.0, meterRegistry.get("reconciliation.history.buffered").gauge().value());
+        
+        assertEquals(3, historyService.flush());
+        assertEquals(List.of(List.of("T1", "T1"), List.of("T2")), written);
+        assertEquals(3.0, meterRegistry.get("reconciliation.history.written").counter().count());
+    }
+    
+    @Test
+    void testTransactionalTransitionsAreInsertedBeforeCommit() {
+        ReconciliationHistoryServiceImpl historyService = historyService("transactional", 10, 10);
+        
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            historyService.onReconciliationOutcomeInTransaction(
+                    event("T1", ReconciliationStatus.PENDING, ReconciliationStatus.MISMATCHED));
+            historyService.onReconciliationOutcomeInTransaction(
+                    event("T2", ReconciliationStatus.PENDING, ReconciliationStatus.RECONCILIATION_TIMEOUT));
+            historyService.onReconciliationOutcome(
+                    event("T3", ReconciliationStatus.PENDING, ReconciliationStatus.MATCHED));
+            verify(historyRepository, never()).insertAll(anyCollection());
+            
+            List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+            assertEquals(1, synchronizations.size());
+            synchronizations.forEach(synchronization -> synchronization.beforeCommit(false));
+            synchronizations.forEach(synchronization ->
+                    synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<ReconciliationStatusHistory>> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(historyRepository).insertAll(captor.capture());
+        List<ReconciliationStatusHistory> transitions = new ArrayList<>(captor.getValue());
+        assertEquals(2, transitions.size());
+        assertEquals(ReconciliationStatus.MISMATCHED, transitions.get(0).getStatus());
+        assertEquals("price", transitions.get(0).getMismatchedFields());
+        assertNull(transitions.get(1).getMismatchedFields());
+        assertNull(TransactionSynchronizationManager.getResource(historyService));
+        assertEquals(0, historyService.flush());
+    }
+    
+    @Test
+    void testWriterThreadDrainsTheBufferWhileBlockingProducersWait() {
+        List<String> writerThreads = new CopyOnWriteArrayList<>();
+        doAnswer(invocation -> {
+            writerThreads.add(Thread.currentThread().getName());
+            return null;
+        }).when(historyRepository).insertAll(anyCollection());
+        ReconciliationHistoryServiceImpl historyService = historyService("blocking", 1, 10, 5000);
+        historyService.start();
+        try {
+            // Each transition after the first waits for the writer to make room
+            for (int i = 0; i < 5; i++) {
+                historyService.onReconciliationOutcome(event("T" + i, ReconciliationStatus.PENDING,
+                        ReconciliationStatus.MATCHED));
+            }
+            
+            verify(historyRepository, timeout(5000).atLeast(4)).insertAll(anyCollection());
+            assertEquals(0.0, meterRegistry.get("reconciliation.history.dropped").counter().count());
+            assertTrue(writerThreads.stream().allMatch(name -> name.startsWith("history-writer-")),
+                    writerThreads.toString());
+        } finally {
+            historyService.flushOnShutdown();
+        }
+    }
+    
+    @Test
+    void testBlockingProducerGivesUpAfterTheOfferTimeout() {
+        ReconciliationHistoryServiceImpl historyService = historyService("blocking", 1, 10, 50);
+        
+        historyService.onReconciliationOutcome(event("T1", ReconciliationStatus.PENDING, ReconciliationStatus.MATCHED));
+        long start = System.nanoTime();
+        historyService.onReconciliationOutcome(event("T2", ReconciliationStatus.PENDING, ReconciliationStatus.MATCHED));
+        long waitedMillis = (System.nanoTime() - start) / 1_000_000;
+        
+        // No writer is running, so the second transition is dropped once the timeout has passed
+        assertTrue(waitedMillis >= 50, "waited " + waitedMillis + " ms");
+        assertEquals(1.0, meterRegistry.get("reconciliation.history.dropped").counter().count());
+        assertEquals(1, historyService.flush());
+    }
+    
+    private ReconciliationHistoryServiceImpl historyService(String durability, int bufferSize, int batchSize) {
+        return historyService(durability, bufferSize, batchSize, 0);
+    }
+    
+    private ReconciliationHistoryServiceImpl historyService(String durability, int bufferSize, int batchSize,
+                                                            long offerTimeoutMillis) {
+        return new ReconciliationHistoryServiceImpl(historyRepository,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), meterRegistry,
+                durability, bufferSize, batchSize, 10, offerTimeoutMillis);
+    }
+    
+    private static ReconciliationOutcomeEvent event(String tradeId, ReconciliationStatus previous,
+                                                    ReconciliationStatus current) {
+        List<String> mismatchedFields = current == ReconciliationStatus.MISMATCHED ? List.of("price") : List.of();
+        return new ReconciliationOutcomeEvent(tradeId,
+                previous == null ? null : new Outcome(previous, KEY, List.of()),
+                new Outcome(current, KEY, mismatchedFields), null);
+    }
+}
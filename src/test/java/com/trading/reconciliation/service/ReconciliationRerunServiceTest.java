@@ -0,0 +1,177 @@
+package com.trading.reconciliation.service;
+
+import com.trading.reconciliation.model.ReconciliationRerunFailure;
+import com.trading.reconciliation.model.ReconciliationRerunJob;
+import com.trading.reconciliation.model.RerunJobState;
+import com.trading.reconciliation.repository.ReconciliationRerunFailureRepository;
+import com.trading.reconciliation.repository.ReconciliationRerunJobRepository;
+import com.trading.reconciliation.repository.TradeReconciliationRepository;
+import com.trading.reconciliation.repository.TradeReconciliationRepository.ReconciliationKey;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+public class ReconciliationRerunServiceTest {
+    
+    private static final LocalDate FROM = LocalDate.of(2023, 5, 1);
+    private static final LocalDate TO = LocalDate.of(2023, 6, 15);
+    
+    private ReconciliationRerunJobRepository jobRepository;
+    private ReconciliationRerunFailureRepository failureRepository;
+    private TradeReconciliationRepository reconciliationRepository;
+    private ReconciliationService reconciliationService;
+    private LeaseService leaseService;
+    private ReconciliationRerunServiceImpl rerunService;
+    
+    @BeforeEach
+    void setUp() {
+        jobRepository = mock(ReconciliationRerunJobRepository.class);
+        failureRepository = mock(ReconciliationRerunFailureRepository.class);
+        reconciliationRepository = mock(TradeReconciliationRepository.class);
+        reconciliationService = mock(ReconciliationService.class);
+        leaseService = mock(LeaseService.class);
+        when(leaseService.tryAcquire(anyString(), any(Duration.class))).thenReturn(true);
+        when(leaseService.getInstanceId()).thenReturn("instance-1");
+        
+        rerunService = new ReconciliationRerunServiceImpl(jobRepository, failureRepository, reconciliationRepository,
+                reconciliationService, leaseService, new TransactionTemplate(mock(PlatformTransactionManager.class)), 2);
+        ReflectionTestUtils.setField(rerunService, "chunkSize", 2);
+        ReflectionTestUtils.setField(rerunService, "leaseTtlMillis", 60000L);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        rerunService.shutdown();
+    }
+    
+    @Test
+    void testJobResumesFromCheckpointAndCompletes() {
+        // Resumed after a crash: reconciliations up to id 10 were already processed
+        when(jobRepository.findById(7L))
+                .thenReturn(Optional.of(job(RerunJobState.RUNNING, 10)))
+                .thenReturn(Optional.of(job(RerunJobState.RUNNING, 12)))
+                .thenReturn(Optional.of(job(RerunJobState.RUNNING, 13)));
+        when(reconciliationRepository.findKeysAfter(eq(10L), eq(FROM), eq(TO), eq(List.of("MISMATCHED")), eq(2)))
+                .thenReturn(List.of(key(11, "T11"), key(12, "T12")));
+        when(reconciliationRepository.findKeysAfter(eq(12L), eq(FROM), eq(TO), anyCollection(), anyInt()))
+                .thenReturn(List.of(key(13, "T13")));
+        when(reconciliationRepository.findKeysAfter(eq(13L), eq(FROM), eq(TO), anyCollection(), anyInt()))
+                .thenReturn(List.of());
+        doThrow(new QueryTimeoutException("timeout")).when(reconciliationService).executeReconciliation("T13");
+        
+        rerunService.run(7L);
+        
+        verify(reconciliationService, never()).executeReconciliation("T10");
+        verify(reconciliationService).executeReconciliation("T11");
+        verify(reconciliationService).executeReconciliation("T12");
+        verify(jobRepository).recordProgress(eq(7L), eq(12L), eq(2L), eq(0L), anyLong(), eq("instance-1"), isNull());
+        verify(jobRepository).recordProgress(eq(7L), eq(13L), eq(0L), eq(1L), anyLong(), eq("instance-1"),
+                eq("T13: timeout"));
+        verify(failureRepository).recordFailure(7L, "T13", 1, "timeout");
+        verify(jobRepository).transition(eq(7L), anyCollection(), eq(RerunJobState.COMPLETED), any());
+        verify(leaseService).release("reconciliation-rerun-7");
+    }
+    
+    @Test
+    void testFailedTradesAreRetriedBeforeTheJobCompletes() {
+        when(jobRepository.findById(7L)).thenReturn(Optional.of(job(RerunJobState.RUNNING, 13)));
+        when(reconciliationRepository.findKeysAfter(eq(13L), eq(FROM), eq(TO), anyCollection(), anyInt()))
+                .thenReturn(List.of());
+        when(failureRepository.findByJobIdAndAttemptsLessThanOrderByIdAsc(eq(7L), eq(2), any()))
+                .thenReturn(List.of(failure("T13", 1), failure("T14", 1)))
+                .thenReturn(List.of());
+        AtomicReference<String> workerThread = new AtomicReference<>();
+        doAnswer(invocation -> {
+            workerThread.set(Thread.currentThread().getName());
+            throw new QueryTimeoutException("timeout again");
+        }).when(reconciliationService).executeReconciliation("T14");
+        
+        rerunService.run(7L);
+        
+        // T13 recovers and moves from failed to processed, T14 stays recorded
+        verify(reconciliationService).executeReconciliation("T13");
+        verify(failureRepository).deleteByJobIdAndTradeIds(7L, List.of("T13"));
+        verify(failureRepository).recordFailure(7L, "T14", 2, "timeout again");
+        verify(jobRepository).recordProgress(eq(7L), eq(13L), eq(1L), eq(-1L), anyLong(), eq("instance-1"),
+                eq("T14: timeout again"));
+        verify(jobRepository).transition(eq(7L), anyCollection(), eq(RerunJobState.COMPLETED), any());
+        assertTrue(workerThread.get().startsWith("rerun-worker-"), workerThread.get());
+    }
+    
+    @Test
+    void testFailedTradesOfAJobAreListed() {
+        when(jobRepository.existsById(7L)).thenReturn(true);
+        when(failureRepository.findByJobIdOrderByIdAsc(7L)).thenReturn(List.of(failure("T14", 2)));
+        
+        assertEquals(Optional.of(List.of("T14")), rerunService.getFailedTrades(7L));
+        assertTrue(rerunService.getFailedTrades(8L).isEmpty());
+    }
+    
+    @Test
+    void testPausedJobIsNotProcessed() {
+        when(jobRepository.findById(7L)).thenReturn(Optional.of(job(RerunJobState.PAUSED, 10)));
+        
+        rerunService.run(7L);
+        
+        verify(reconciliationRepository, never()).findKeysAfter(anyLong(), any(), any(), anyCollection(), anyInt());
+        verify(reconciliationService, never()).executeReconciliation(anyString());
+        verify(leaseService).release("reconciliation-rerun-7");
+    }
+    
+    private ReconciliationRerunJob job(RerunJobState state, long checkpointId) {
+        return ReconciliationRerunJob.builder()
+                .id(7L)
+                .fromDate(FROM)
+                .toDate(TO)
+                .statuses("MISMATCHED")
+                .state(state)
+                .ratePerSecond(1000)
+                .checkpointId(checkpointId)
+                .total(3)
+                .build();
+    }
+    
+    private ReconciliationRerunFailure failure(String tradeId, int attempts) {
+        return ReconciliationRerunFailure.builder()
+                .jobId(7L)
+                .tradeId(tradeId)
+                .attempts(attempts)
+                .error("timeout")
+                .build();
+    }
+    
+    private ReconciliationKey key(long id, String tradeId) {
+        return new ReconciliationKey() {
+            @Override
+            public Long getId() {
+                return id;
+            }
+            
+            @Override
+            public String getTradeId() {
+                return tradeId;
+            }
+        };
+    }
+}
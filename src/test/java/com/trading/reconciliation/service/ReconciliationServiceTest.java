@@ -0,0 +1,210 @@
+package com.trading.reconciliation.service;
+
+import com.trading.reconciliation.dto.ReconciliationLookupResponseDto;
+import com.trading.reconciliation.exception.StorageEngineUnsupportedException;
+import com.trading.reconciliation.model.ArchivedTradeReconciliation;
+import com.trading.reconciliation.model.ReconciliationStatus;
+import com.trading.reconciliation.model.TradeReconciliation;
+import com.trading.reconciliation.repository.ArchivedTradeReconciliationRepository;
+import com.trading.reconciliation.repository.ReconciliationViewRepository;
+import com.trading.reconciliation.repository.ReconciliationViewRepository.CollectionVersion;
+import com.trading.reconciliation.repository.ReconciliationViewRepository.ReconciliationViewRow;
+import com.trading.reconciliation.repository.TradeReconciliationRepository.ReconciliationVersion;
+import com.trading.reconciliation.storage.ReconciliationStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class ReconciliationServiceTest {
+    
+    private static final LocalDateTime NOW = LocalDateTime.of(2023, 6, 15, 10, 35);
+    
+    @Mock
+    private ReconciliationStore reconciliationStore;
+    
+    @Mock
+    private ArchivedTradeReconciliationRepository archivedReconciliationRepository;
+    
+    @Mock
+    private ReconciliationViewRepository viewRepository;
+    
+    @InjectMocks
+    private ReconciliationServiceImpl reconciliationService;
+    
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(reconciliationService, "lookupChunkSize", 2);
+        ReflectionTestUtils.setField(reconciliationService, "storageEngine", "jpa");
+    }
+    
+    @Test
+    void testLookupQueriesInChunksAndReportsNotFound() {
+        when(viewRepository.findByTradeIdIn(List.of("T1", "T2")))
+                .thenReturn(List.of(viewRow("T2", ReconciliationStatus.MATCHED)));
+        when(viewRepository.findByTradeIdIn(List.of("T3"))).thenReturn(List.of());
+        // Not yet copied into the read model
+        when(reconciliationStore.findByTradeIdIn(List.of("T1", "T3")))
+                .thenReturn(List.of(reconciliation("T3", ReconciliationStatus.PENDING)));
+        when(archivedReconciliationRepository.findByTradeIdIn(List.of("T1"))).thenReturn(List.of());
+        
+        ReconciliationLookupResponseDto response = reconciliationService.lookupReconciliations(
+                List.of("T1", "T2", "T3", "T2"));
+        
+        assertEquals(List.of("T2", "T3"), List.copyOf(response.getResults().keySet()));
+        assertEquals(new BigDecimal("150.75"), response.getResults().get("T2").getSystemBPrice());
+        assertEquals(ReconciliationStatus.PENDING, response.getResults().get("T3").getStatus());
+        assertEquals(List.of("T1"), response.getNotFound());
+        verify(viewRepository, times(2)).findByTradeIdIn(anyCollection());
+    }
+    
+    @Test
+    void testLookupFallsBackToLatestArchivedReconciliation() {
+        when(viewRepository.findByTradeIdIn(List.of("T1"))).thenReturn(List.of());
+        when(reconciliationStore.findByTradeIdIn(List.of("T1"))).thenReturn(List.of());
+        when(archivedReconciliationRepository.findByTradeIdIn(List.of("T1"))).thenReturn(List.of(
+                archived("T1", ReconciliationStatus.RECONCILIATION_TIMEOUT, NOW.minusDays(30)),
+                archived("T1", ReconciliationStatus.MATCHED, NOW)));
+        
+        ReconciliationLookupResponseDto response = reconciliationService.lookupReconciliations(List.of("T1"));
+        
+        assertEquals(ReconciliationStatus.MATCHED, response.getResults().get("T1").getStatus());
+        assertTrue(response.getResults().get("T1").isArchived());
+        assertTrue(response.getNotFound().isEmpty());
+    }
+    
+    @Test
+    void testStatusFallsBackToArchiveOnlyWhenNotInHotTables() {
+        when(viewRepository.findByTradeId(anyString())).thenReturn(Optional.empty());
+        when(reconciliationStore.findByTradeId("T1")).thenReturn(Optional.empty());
+        when(reconciliationStore.findByTradeId("T2"))
+                .thenReturn(Optional.of(reconciliation("T2", ReconciliationStatus.PENDING)));
+        when(archivedReconciliationRepository.findFirstByTradeIdOrderByArchivedAtDesc("T1"))
+                .thenReturn(Optional.of(archived("T1", ReconciliationStatus.MATCHED, NOW)));
+        
+        assertTrue(reconciliationService.getReconciliationStatus("T1").orElseThrow().isArchived());
+        assertEquals(ReconciliationStatus.MATCHED, reconciliationService.getReconciliationStatus("T1").orElseThrow().getStatus());
+        assertFalse(reconciliationService.getReconciliationStatus("T2").orElseThrow().isArchived());
+        verify(archivedReconciliationRepository, never()).findFirstByTradeIdOrderByArchivedAtDesc("T2");
+    }
+    
+    @Test
+    void testStatusVersionChangesWithUpdateTimeAndSource() {
+        when(viewRepository.findVersionByTradeId("T1")).thenReturn(Optional.empty());
+        when(reconciliationStore.findVersionByTradeId("T1")).thenReturn(Optional.of(version(7L, NOW)));
+        when(archivedReconciliationRepository.findFirstVersionByTradeIdOrderByArchivedAtDesc("T2"))
+                .thenReturn(Optional.of(version(7L, NOW)));
+        
+        String hotVersion = reconciliationService.getReconciliationStatusVersion("T1").orElseThrow();
+        String archivedVersion = reconciliationService.getReconciliationStatusVersion("T2").orElseThrow();
+        
+        // The same row served from the archive maps to a different response
+        assertNotEquals(hotVersion, archivedVersion);
+        
+        when(viewRepository.findVersionByTradeId("T1")).thenReturn(Optional.of(version(7L, NOW.plusNanos(1_000))));
+        assertNotEquals(hotVersion, reconciliationService.getReconciliationStatusVersion("T1").orElseThrow());
+        assertTrue(reconciliationService.getReconciliationStatusVersion("T3").isEmpty());
+        verify(viewRepository, never()).findByTradeId(anyString());
+    }
+    
+    @Test
+    void testCollectionVersionUsesTheFilteredAggregate() {
+        when(viewRepository.findCollectionVersionByStatus(ReconciliationStatus.MISMATCHED))
+                .thenReturn(collectionVersion(10, NOW), collectionVersion(9, NOW));
+        
+        String before = reconciliationService.getReconciliationsVersion("mismatched", null);
+        String afterRowLeft = reconciliationService.getReconciliationsVersion("mismatched", null);
+        
+        assertNotEquals(before, afterRowLeft);
+        verify(viewRepository, never()).findCollectionVersion();
+    }
+    
+    @Test
+    void testMemoryEngineReadsTheStoreInsteadOfTheReadModel() {
+        ReflectionTestUtils.setField(reconciliationService, "storageEngine", "memory");
+        when(reconciliationStore.findByTradeId("T1"))
+                .thenReturn(Optional.of(reconciliation("T1", ReconciliationStatus.MATCHED)));
+        when(reconciliationStore.findByTradeIdIn(List.of("T1")))
+                .thenReturn(List.of(reconciliation("T1", ReconciliationStatus.MATCHED)));
+        
+        assertEquals(ReconciliationStatus.MATCHED,
+                reconciliationService.getReconciliationStatus("T1").orElseThrow().getStatus());
+        assertEquals(List.of("T1"),
+                List.copyOf(reconciliationService.lookupReconciliations(List.of("T1")).getResults().keySet()));
+        
+        // Rows left in the view by an earlier jpa deployment are never served
+        verifyNoInteractions(viewRepository);
+    }
+    
+    @Test
+    void testMemoryEngineRejectsListingReconciliations() {
+        ReflectionTestUtils.setField(reconciliationService, "storageEngine", "memory");
+        
+        assertThrows(StorageEngineUnsupportedException.class,
+                () -> reconciliationService.getReconciliationsVersion(null, null));
+        assertThrows(StorageEngineUnsupportedException.class,
+                () -> reconciliationService.getReconciliations(null, null, PageRequest.of(0, 20)));
+        verifyNoInteractions(viewRepository);
+    }
+    
+    private ReconciliationVersion version(Long id, LocalDateTime updatedAt) {
+        return new SpelAwareProxyProjectionFactory().createProjection(ReconciliationVersion.class, Map.of(
+                "id", id,
+                "updatedAt", updatedAt));
+    }
+    
+    private CollectionVersion collectionVersion(long total, LocalDateTime lastUpdatedAt) {
+        return new SpelAwareProxyProjectionFactory().createProjection(CollectionVersion.class, Map.of(
+                "total", total,
+                "lastUpdatedAt", lastUpdatedAt));
+    }
+    
+    private ReconciliationViewRow viewRow(String tradeId, ReconciliationStatus status) {
+        return new SpelAwareProxyProjectionFactory().createProjection(ReconciliationViewRow.class, Map.of(
+                "tradeId", tradeId,
+                "status", status,
+                "counterparty", "BROKER_A",
+                "systemAPrice", new BigDecimal("150.75"),
+                "systemBPrice", new BigDecimal("150.75"),
+                "createdAt", NOW,
+                "updatedAt", NOW));
+    }
+    
+    private TradeReconciliation reconciliation(String tradeId, ReconciliationStatus status) {
+        return TradeReconciliation.builder()
+                .tradeId(tradeId)
+                .status(status)
+                .createdAt(NOW)
+                .updatedAt(NOW)
+                .build();
+    }
+    
+    private ArchivedTradeReconciliation archived(String tradeId, ReconciliationStatus status, LocalDateTime archivedAt) {
+        return ArchivedTradeReconciliation.builder()
+                .tradeId(tradeId)
+                .status(status)
+                .createdAt(NOW.minusDays(40))
+                .updatedAt(archivedAt)
+                .archivedAt(archivedAt)
+                .build();
+    }
+}
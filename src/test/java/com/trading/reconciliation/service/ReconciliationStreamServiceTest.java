@@ -0,0 +1,82 @@
+package com.trading.reconciliation.service;
+
+import com.trading.reconciliation.dto.ReconciliationStatusEventDto;
+import com.trading.reconciliation.model.ReconciliationStatus;
+import com.trading.reconciliation.service.ReconciliationStreamServiceImpl.StreamEvent;
+import com.trading.reconciliation.service.ReconciliationStreamServiceImpl.Subscriber;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ReconciliationStreamServiceTest {
+    
+    private SimpleMeterRegistry meterRegistry;
+    private ReconciliationStreamServiceImpl streamService;
+    
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        // Senders never run, so subscribers behave like clients that stopped reading
+        streamService = new ReconciliationStreamServiceImpl(meterRegistry, 4, 2, 60000, task -> { });
+    }
+    
+    @Test
+    void testSlowSubscriberIsDroppedWithoutAffectingOthers() {
+        Subscriber slow = streamService.register(new SseEmitter(), Set.of(), null, null);
+        Subscriber filtered = streamService.register(new SseEmitter(), Set.of(ReconciliationStatus.MISMATCHED), null, null);
+        
+        streamService.publish(event("T1", ReconciliationStatus.MATCHED));
+        streamService.publish(event("T2", ReconciliationStatus.MATCHED));
+        streamService.publish(event("T3", ReconciliationStatus.MISMATCHED));
+        
+        assertEquals(1, streamService.subscriberCount());
+        assertEquals(0, slow.buffered().size());
+        assertEquals(List.of("T3"), tradeIds(filtered.buffered()));
+        assertEquals(1.0, meterRegistry.get("reconciliation.stream.subscribers.dropped").counter().count());
+    }
+    
+    @Test
+    void testResumeReplaysMissedMatchingEvents() {
+        streamService.publish(event("T1", ReconciliationStatus.MATCHED));
+        streamService.publish(event("T2", ReconciliationStatus.MISMATCHED));
+        streamService.publish(event("T3", ReconciliationStatus.MATCHED));
+        
+        Subscriber resumed = streamService.register(new SseEmitter(), Set.of(ReconciliationStatus.MATCHED), null,
+                streamService.eventId(0));
+        
+        assertEquals(List.of("T3"), tradeIds(resumed.buffered()));
+        assertEquals(streamService.eventId(2), streamService.eventId(resumed.buffered().get(0).offset()));
+    }
+    
+    @Test
+    void testResetWhenResumePointIsUnknownOrEvicted() {
+        for (int i = 0; i < 6; i++) {
+            streamService.publish(event("T" + i, ReconciliationStatus.MATCHED));
+        }
+        
+        Subscriber evicted = streamService.register(new SseEmitter(), Set.of(), null, streamService.eventId(0));
+        Subscriber foreign = streamService.register(new SseEmitter(), Set.of(), null, "otherepoch-3");
+        
+        assertEquals(List.of(StreamEvent.RESET), evicted.buffered());
+        assertEquals(List.of(StreamEvent.RESET), foreign.buffered());
+    }
+    
+    private ReconciliationStatusEventDto event(String tradeId, ReconciliationStatus status) {
+        return ReconciliationStatusEventDto.builder()
+                .tradeId(tradeId)
+                .status(status)
+                .previousStatus(ReconciliationStatus.PENDING)
+                .counterparty("BROKER_A")
+                .build();
+    }
+    
+    private List<String> tradeIds(List<StreamEvent> events) {
+        return events.stream().map(event -> event.statusEvent().getTradeId()).toList();
+    }
+}
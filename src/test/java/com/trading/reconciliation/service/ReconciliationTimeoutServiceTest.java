@@ -0,0 +1,93 @@
+package com.trading.reconciliation.service;
+
+import com.trading.reconciliation.repository.TradeReconciliationRepository.PendingReconciliation;
+import com.trading.reconciliation.storage.ReconciliationStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+public class ReconciliationTimeoutServiceTest {
+    
+    private ReconciliationStore reconciliationStore;
+    private SimpleMeterRegistry meterRegistry;
+    private ReconciliationTimeoutServiceImpl timeoutService;
+    
+    @BeforeEach
+    void setUp() {
+        reconciliationStore = mock(ReconciliationStore.class);
+        meterRegistry = new SimpleMeterRegistry();
+        timeoutService = new ReconciliationTimeoutServiceImpl(reconciliationStore,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)),
+                mock(ApplicationEventPublisher.class), meterRegistry, 1000, 64, 4);
+        ReflectionTestUtils.setField(timeoutService, "reconciliationTimeoutMinutes", 30);
+        ReflectionTestUtils.setField(timeoutService, "chunkSize", 2);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        timeoutService.shutdown();
+    }
+    
+    @Test
+    void testRebuildSchedule_PagesThroughThePartitionAndKeepsScheduledTimeouts() {
+        timeoutService.scheduleTimeout("OLD", LocalDateTime.now());
+        timeoutService.scheduleTimeout("T1", LocalDateTime.now());
+        List<PendingReconciliation> firstPage = List.of(pending(4, "T1"), pending(7, "T2"));
+        List<PendingReconciliation> lastPage = List.of(pending(9, "T3"));
+        when(reconciliationStore.findPendingAfter(0, 1, 3, 2)).thenReturn(firstPage);
+        when(reconciliationStore.findPendingAfter(7, 1, 3, 2)).thenReturn(lastPage);
+        
+        assertEquals(3, timeoutService.rebuildSchedule(1, 3));
+        
+        // OLD is kept, T1 is held once
+        assertEquals(4.0, meterRegistry.get("reconciliation.timeout.scheduled").gauge().value());
+        verify(reconciliationStore, times(2)).findPendingAfter(anyLong(), eq(1), eq(3), eq(2));
+    }
+    
+    @Test
+    void testMembershipChange_RebuildsOffTheCallingThreadForTheLatestPartition() throws Exception {
+        CountDownLatch rebuilding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(reconciliationStore.findPendingAfter(anyLong(), anyInt(), anyInt(), anyInt())).thenAnswer(invocation -> {
+            rebuilding.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return List.of();
+        });
+        
+        timeoutService.onClusterMembershipChanged(new ClusterMembershipChangedEvent(0, 1));
+        assertTrue(rebuilding.await(5, TimeUnit.SECONDS));
+        
+        // Changes arriving during a rebuild are coalesced into one more rebuild for the latest membership
+        timeoutService.onClusterMembershipChanged(new ClusterMembershipChangedEvent(0, 2));
+        timeoutService.onClusterMembershipChanged(new ClusterMembershipChangedEvent(2, 3));
+        release.countDown();
+        
+        verify(reconciliationStore, timeout(5000)).findPendingAfter(0, 2, 3, 2);
+        verify(reconciliationStore, never()).findPendingAfter(0, 0, 2, 2);
+        verify(reconciliationStore, times(2)).findPendingAfter(anyLong(), anyInt(), anyInt(), anyInt());
+    }
+    
+    private PendingReconciliation pending(long id, String tradeId) {
+        PendingReconciliation pending = mock(PendingReconciliation.class);
+        when(pending.getId()).thenReturn(id);
+        when(pending.getTradeId()).thenReturn(tradeId);
+        when(pending.getCreatedAt()).thenReturn(LocalDateTime.now());
+        return pending;
+    }
+}
@@ -0,0 +1,186 @@
+package com.trading.reconciliation.service;
+
+import com.trading.reconciliation.repository.ArchivedTradeDataRepository;
+import com.trading.reconciliation.repository.ArchivedTradeReconciliationRepository;
+import com.trading.reconciliation.repository.ReconciliationViewRepository;
+import com.trading.reconciliation.repository.TradeLegHeadRepository;
+import com.trading.reconciliation.repository.TradeReconciliationRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+public class RetentionServiceTest {
+    
+    private static final List<String> MATCHED = List.of("MATCHED");
+    private static final List<String> OTHER_TERMINAL = List.of("MISMATCHED", "RECONCILIATION_TIMEOUT", "ERROR");
+    
+    private TradeReconciliationRepository reconciliationRepository;
+    private ArchivedTradeReconciliationRepository archivedReconciliationRepository;
+    private ArchivedTradeDataRepository archivedTradeDataRepository;
+    private ReconciliationViewRepository viewRepository;
+    private TradeLegHeadRepository tradeLegHeadRepository;
+    private LeaseService leaseService;
+    private RetentionServiceImpl retentionService;
+    
+    @BeforeEach
+    void setUp() {
+        reconciliationRepository = mock(TradeReconciliationRepository.class);
+        archivedReconciliationRepository = mock(ArchivedTradeReconciliationRepository.class);
+        archivedTradeDataRepository = mock(ArchivedTradeDataRepository.class);
+        viewRepository = mock(ReconciliationViewRepository.class);
+        tradeLegHeadRepository = mock(TradeLegHeadRepository.class);
+        leaseService = mock(LeaseService.class);
+        when(leaseService.tryAcquire(anyString(), any(Duration.class))).thenReturn(true);
+        when(reconciliationRepository.lockArchivableIds(anyList(), any(LocalDateTime.class), anyInt()))
+                .thenReturn(List.of());
+        when(archivedReconciliationRepository.archiveReconciliations(anyList()))
+                .thenAnswer(invocation -> invocation.<List<Long>>getArgument(0).size());
+        
+        retentionService = new RetentionServiceImpl(reconciliationRepository, archivedReconciliationRepository,
+                archivedTradeDataRepository, viewRepository, tradeLegHeadRepository,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), leaseService);
+        ReflectionTestUtils.setField(retentionService, "retentionEnabled", true);
+        ReflectionTestUtils.setField(retentionService, "matchedAfterDays", 90);
+        ReflectionTestUtils.setField(retentionService, "terminalAfterDays", 180);
+        ReflectionTestUtils.setField(retentionService, "chunkSize", 2);
+        ReflectionTestUtils.setField(retentionService, "pauseMillis", 0L);
+        ReflectionTestUtils.setField(retentionService, "maxChunksPerRun", 10);
+        ReflectionTestUtils.setField(retentionService, "leaseTtlMillis", 600000L);
+    }
+    
+    @AfterEach
+    void tearDown() {
+        retentionService.shutdown();
+    }
+    
+    @Test
+    void testArchivesInChunksUntilAPartialChunk() {
+        when(reconciliationRepository.lockArchivableIds(eq(MATCHED), any(LocalDateTime.class), eq(2)))
+                .thenReturn(List.of(1L, 2L))
+                .thenReturn(List.of(3L, 4L))
+                .thenReturn(List.of(5L));
+        when(reconciliationRepository.lockArchivableIds(eq(OTHER_TERMINAL), any(LocalDateTime.class), eq(2)))
+                .thenReturn(List.of(6L, 7L))
+                .thenReturn(List.of());
+        
+        int archived = retentionService.archiveCompletedReconciliations();
+        
+        assertEquals(7, archived);
+        verify(reconciliationRepository, times(3)).lockArchivableIds(eq(MATCHED), any(LocalDateTime.class), eq(2));
+        verify(reconciliationRepository, times(2)).lockArchivableIds(eq(OTHER_TERMINAL), any(LocalDateTime.class), eq(2));
+        
+        // Dependent rows go first, then the legs, then the reconciliations of the same locked chunk
+        InOrder inOrder = inOrder(viewRepository, tradeLegHeadRepository, archivedTradeDataRepository,
+                archivedReconciliationRepository);
+        inOrder.verify(viewRepository).deleteByReconciliationIds(List.of(1L, 2L));
+        inOrder.verify(tradeLegHeadRepository).deleteHeadsOfReconciliations(List.of(1L, 2L));
+        inOrder.verify(archivedTradeDataRepository).archiveLegsOfReconciliations(List.of(1L, 2L));
+        inOrder.verify(archivedReconciliationRepository).archiveReconciliations(List.of(1L, 2L));
+        verify(archivedReconciliationRepository).archiveReconciliations(List.of(5L));
+    }
+    
+    @Test
+    void testMatchedAndOtherTerminalStatusesUseTheirOwnCutoff() {
+        LocalDateTime before = LocalDateTime.now();
+        
+        retentionService.archiveCompletedReconciliations();
+        
+        LocalDateTime after = LocalDateTime.now();
+        ArgumentCaptor<LocalDateTime> matchedCutoff = ArgumentCaptor.forClass(LocalDateTime.class);
+        ArgumentCaptor<LocalDateTime> terminalCutoff = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(reconciliationRepository).lockArchivableIds(eq(MATCHED), matchedCutoff.capture(), eq(2));
+        verify(reconciliationRepository).lockArchivableIds(eq(OTHER_TERMINAL), terminalCutoff.capture(), eq(2));
+        assertBetween(before.minusDays(90), after.minusDays(90), matchedCutoff.getValue());
+        assertBetween(before.minusDays(180), after.minusDays(180), terminalCutoff.getValue());
+    }
+    
+    @Test
+    void testChunkBudgetIsSharedByBothPasses() {
+        ReflectionTestUtils.setField(retentionService, "maxChunksPerRun", 3);
+        when(reconciliationRepository.lockArchivableIds(eq(MATCHED), any(LocalDateTime.class), eq(2)))
+                .thenReturn(List.of(1L, 2L))
+                .thenReturn(List.of(3L, 4L))
+                .thenReturn(List.of());
+        when(reconciliationRepository.lockArchivableIds(eq(OTHER_TERMINAL), any(LocalDateTime.class), eq(2)))
+                .thenReturn(List.of(5L, 6L))
+                .thenReturn(List.of(7L, 8L));
+        
+        int archived = retentionService.archiveCompletedReconciliations();
+        
+        // Three chunks in total, the empty MATCHED chunk included
+        assertEquals(4, archived);
+        verify(reconciliationRepository, never()).lockArchivableIds(eq(OTHER_TERMINAL), any(LocalDateTime.class), anyInt());
+    }
+    
+    @Test
+    void testNothingIsMovedWhenAllCandidatesAreLocked() {
+        // SKIP LOCKED returns no ids while every candidate row is held by reconciliation work
+        int archived = retentionService.archiveCompletedReconciliations();
+        
+        assertEquals(0, archived);
+        verifyNoInteractions(viewRepository, tradeLegHeadRepository, archivedTradeDataRepository,
+                archivedReconciliationRepository);
+    }
+    
+    @Test
+    void testScheduledRunArchivesOffTheSchedulerThread() throws Exception {
+        CountDownLatch released = new CountDownLatch(1);
+        CountDownLatch locked = new CountDownLatch(1);
+        Thread scheduler = Thread.currentThread();
+        Thread[] archiver = new Thread[1];
+        when(reconciliationRepository.lockArchivableIds(eq(MATCHED), any(LocalDateTime.class), eq(2)))
+                .thenAnswer(invocation -> {
+                    archiver[0] = Thread.currentThread();
+                    locked.countDown();
+                    released.await(5, TimeUnit.SECONDS);
+                    return List.of();
+                });
+        
+        // Returns while the run is still in progress, and a run due meanwhile is skipped
+        retentionService.runRetention();
+        assertTrue(locked.await(5, TimeUnit.SECONDS));
+        retentionService.runRetention();
+        released.countDown();
+        
+        verify(reconciliationRepository, timeout(5000)).lockArchivableIds(eq(OTHER_TERMINAL), any(LocalDateTime.class), eq(2));
+        assertNotEquals(scheduler, archiver[0]);
+        assertTrue(archiver[0].getName().startsWith("retention-"));
+        verify(leaseService, times(1)).tryAcquire(anyString(), any(Duration.class));
+    }
+    
+    @Test
+    void testOnlyTheLeaseHolderArchives() {
+        when(leaseService.tryAcquire(anyString(), any(Duration.class))).thenReturn(false);
+        
+        retentionService.runRetention();
+        
+        verify(leaseService, timeout(5000)).tryAcquire(anyString(), any(Duration.class));
+        retentionService.shutdown();
+        verify(reconciliationRepository, never()).lockArchivableIds(anyList(), any(LocalDateTime.class), anyInt());
+    }
+    
+    private static void assertBetween(LocalDateTime from, LocalDateTime to, LocalDateTime actual) {
+        assertTrue(!actual.isBefore(from) && !actual.isAfter(to), actual + " not between " + from + " and " + to);
+    }
+}
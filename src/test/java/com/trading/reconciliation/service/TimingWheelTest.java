@@ -0,0 +1,95 @@
+package com.trading.reconciliation.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class TimingWheelTest {
+    
+    private static final long TICK = 1000;
+    
+    @Test
+    void testAdd_RejectsPassedDeadline() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, 8, 3, 10_000);
+        
+        assertFalse(wheel.add("T1", 9_500));
+        assertFalse(wheel.add("T2", 10_000));
+        assertTrue(wheel.add("T3", 10_001));
+        assertEquals(1, wheel.size());
+        assertEquals(List.of(), wheel.advance(10_999));
+        assertEquals(List.of("T3"), wheel.advance(11_000));
+    }
+    
+    @Test
+    void testAdvance_ExpiresItemsAcrossLevelsWithinOneTick() {
+        long start = 1_000_000;
+        TimingWheel<Long> wheel = new TimingWheel<>(TICK, 8, 3, start);
+        Random random = new Random(42);
+        
+        // Deadlines spread over the lowest level, the upper levels and beyond the wheel's range
+        Set<Long> deadlines = new HashSet<>();
+        for (int i = 0; i < 2000; i++) {
+            long deadline = start + TICK + random.nextInt(1_000_000);
+            deadlines.add(deadline);
+            assertTrue(wheel.add(deadline, deadline));
+        }
+        
+        int expired = 0;
+        for (long now = start; now <= start + 1_002_000; now += 700) {
+            for (long deadline : wheel.advance(now)) {
+                assertTrue(deadline <= now, "expired early: " + deadline + " at " + now);
+                assertTrue(now - deadline < TICK + 700, "expired late: " + deadline + " at " + now);
+                expired++;
+            }
+        }
+        
+        assertEquals(deadlines.size(), expired);
+        assertEquals(0, wheel.size());
+    }
+    
+    @Test
+    void testAdvance_CatchesUpAfterLongPause() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, 4, 2, 0);
+        wheel.add("T1", 5_000);
+        wheel.add("T2", 60_000);
+        
+        assertEquals(List.of("T1"), wheel.advance(30_000));
+        assertEquals(List.of("T2"), wheel.advance(90_000));
+    }
+    
+    @Test
+    void testAdd_SameItemIsHeldOnce() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, 8, 3, 0);
+        
+        assertTrue(wheel.add("T1", 5_000));
+        assertTrue(wheel.add("T1", 5_000));
+        assertTrue(wheel.add("T2", 3_000));
+        assertTrue(wheel.add("T2", 100_000));
+        assertTrue(wheel.add("T2", 20_000));
+        assertFalse(wheel.add("T2", 0));
+        
+        assertEquals(2, wheel.size());
+        assertEquals(List.of("T1"), wheel.advance(10_000));
+        assertEquals(List.of("T2"), wheel.advance(20_000));
+        assertEquals(List.of(), wheel.advance(200_000));
+        assertEquals(0, wheel.size());
+    }
+    
+    @Test
+    void testAdd_ItemCanBeScheduledAgainAfterExpiring() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, 8, 3, 0);
+        wheel.add("T1", 2_000);
+        
+        assertEquals(List.of("T1"), wheel.advance(2_000));
+        assertTrue(wheel.add("T1", 4_000));
+        assertEquals(1, wheel.size());
+        assertEquals(List.of("T1"), wheel.advance(4_000));
+    }
+}
@@ -1,15 +1,25 @@
 package com.trading.reconciliation.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trading.reconciliation.config.DeskLaneProperties;
 import com.trading.reconciliation.dto.TradeDataDto;
+import com.trading.reconciliation.messaging.DeskLanes;
+import com.trading.reconciliation.messaging.ReconciliationTaskTransport;
 import com.trading.reconciliation.model.TradeData;
 import com.trading.reconciliation.repository.TradeDataRepository;
+import com.trading.reconciliation.repository.TradeLegHeadRepository;
+import com.trading.reconciliation.storage.JpaTradeLegStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -17,7 +27,9 @@
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -29,10 +41,24 @@ public class TradeDataServiceTest {
     @Mock
     private ObjectMapper objectMapper;
     
+    @Mock
+    private TradeLegHeadRepository tradeLegHeadRepository;
+    
     @Mock
     private ReconciliationService reconciliationService;
     
-    @InjectMocks
+    @Mock
+    private ReconciliationTaskTransport taskTransport;
+    
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    
+    @Spy
+    private TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+    
+    @Spy
+    private DeskLanes deskLanes = new DeskLanes(new DeskLaneProperties(), new SimpleMeterRegistry(),
+            "reconciliation-tasks-queue", 5);
+    
     private TradeDataServiceImpl tradeDataService;
     
     private TradeDataDto tradeDataDto;
@@ -40,6 +66,9 @@ public class TradeDataServiceTest {
     
     @BeforeEach
     void setUp() {
+        tradeDataService = new TradeDataServiceImpl(new JpaTradeLegStore(tradeDataRepository, tradeLegHeadRepository),
+                objectMapper, reconciliationService, transactionTemplate, deskLanes, taskTransport);
+        
         // Setup test data
         LocalDateTime tradeDate = LocalDateTime.now();
         
@@ -70,9 +99,10 @@ void setUp() {
     void testSaveSystemATrade_NewTrade() throws Exception {
         // Arrange
         when(objectMapper.writeValueAsString(any(TradeDataDto.class))).thenReturn("{}");
-        when(tradeDataRepository.findByTradeIdAndSourceSystem(anyString(), anyString())).thenReturn(Optional.empty());
+        when(tradeDataRepository.findLatestLeg(anyString(), anyString())).thenReturn(Optional.empty());
+        when(tradeLegHeadRepository.claimNextVersion("T123456", "System A")).thenReturn(1L);
         when(tradeDataRepository.save(any(TradeData.class))).thenReturn(tradeData);
-        doNothing().when(reconciliationService).triggerReconciliation(anyString());
+        doNothing().when(reconciliationService).triggerReconciliation(any(TradeData.class));
         
         // Act
         TradeData result = tradeDataService.saveSystemATrade(tradeDataDto);
@@ -86,38 +116,84 @@ void testSaveSystemATrade_NewTrade() throws Exception {
         assertEquals("BROKER_A", result.getCounterparty());
         assertEquals("System A", result.getSourceSystem());
         
-        verify(tradeDataRepository).findByTradeIdAndSourceSystem("T123456", "System A");
+        verify(tradeDataRepository).findLatestLeg("T123456", "System A");
         verify(tradeDataRepository).save(any(TradeData.class));
-        verify(reconciliationService).triggerReconciliation("T123456");
+        verify(tradeLegHeadRepository).pointTo("T123456", "System A", 1L);
+        verify(reconciliationService).triggerReconciliation(tradeData);
     }
     
     @Test
-    void testSaveSystemATrade_ExistingTrade() throws Exception {
+    void testSaveSystemATrade_AmendmentAppendsVersion() throws Exception {
         // Arrange
-        when(objectMapper.writeValueAsString(any(TradeDataDto.class))).thenReturn("{}");
-        when(tradeDataRepository.findByTradeIdAndSourceSystem(anyString(), anyString())).thenReturn(Optional.of(tradeData));
-        when(tradeDataRepository.save(any(TradeData.class))).thenReturn(tradeData);
-        doNothing().when(reconciliationService).triggerReconciliation(anyString());
+        tradeData.setVersion(1L);
+        when(objectMapper.writeValueAsString(any(TradeDataDto.class))).thenReturn("{\"price\":151.00}");
+        when(tradeDataRepository.findLatestLeg(anyString(), anyString())).thenReturn(Optional.of(tradeData));
+        when(tradeLegHeadRepository.claimNextVersion("T123456", "System A")).thenReturn(2L);
+        when(tradeDataRepository.save(any(TradeData.class))).thenAnswer(invocation -> {
+            TradeData saved = invocation.getArgument(0);
+            saved.setId(2L);
+            return saved;
+        });
         
         // Act
         TradeData result = tradeDataService.saveSystemATrade(tradeDataDto);
         
         // Assert
-        assertNotNull(result);
-        assertEquals("T123456", result.getTradeId());
+        ArgumentCaptor<TradeData> savedCaptor = ArgumentCaptor.forClass(TradeData.class);
+        verify(tradeDataRepository).save(savedCaptor.capture());
+        assertNotSame(tradeData, savedCaptor.getValue());
+        assertEquals(2L, result.getVersion());
+        assertEquals(1L, tradeData.getVersion());
         
-        verify(tradeDataRepository).findByTradeIdAndSourceSystem("T123456", "System A");
-        verify(tradeDataRepository).save(any(TradeData.class));
-        verify(reconciliationService).triggerReconciliation("T123456");
+        verify(tradeLegHeadRepository).pointTo("T123456", "System A", 2L);
+        verify(reconciliationService).triggerReconciliation(result);
+    }
+    
+    @Test
+    void testSaveSystemATrade_ResubmissionAddsNoVersion() throws Exception {
+        // Arrange
+        tradeData.setVersion(3L);
+        when(objectMapper.writeValueAsString(any(TradeDataDto.class))).thenReturn(tradeData.getRawData());
+        when(tradeDataRepository.findLatestLeg(anyString(), anyString())).thenReturn(Optional.of(tradeData));
+        
+        // Act
+        TradeData result = tradeDataService.saveSystemATrade(tradeDataDto);
+        
+        // Assert
+        assertEquals(3L, result.getVersion());
+        verify(tradeLegHeadRepository, never()).claimNextVersion(anyString(), anyString());
+        verify(tradeDataRepository, never()).save(any(TradeData.class));
+        verify(reconciliationService).triggerReconciliation(tradeData);
+    }
+    
+    @Test
+    void testSaveSystemATrade_TransactionalTransportTriggersBeforeCommit() throws Exception {
+        // Arrange
+        when(taskTransport.isTransactional()).thenReturn(true);
+        when(objectMapper.writeValueAsString(any(TradeDataDto.class))).thenReturn("{}");
+        when(tradeDataRepository.findLatestLeg(anyString(), anyString())).thenReturn(Optional.empty());
+        when(tradeLegHeadRepository.claimNextVersion("T123456", "System A")).thenReturn(1L);
+        when(tradeDataRepository.save(any(TradeData.class))).thenReturn(tradeData);
+        
+        // Act
+        tradeDataService.saveSystemATrade(tradeDataDto);
+        
+        // Assert - the task is enqueued in the same transaction as the trade
+        InOrder inOrder = inOrder(tradeDataRepository, reconciliationService, transactionManager);
+        inOrder.verify(tradeDataRepository).save(any(TradeData.class));
+        inOrder.verify(reconciliationService).triggerReconciliation(tradeData);
+        inOrder.verify(transactionManager).commit(any());
+        verify(reconciliationService, times(1)).triggerReconciliation(any(TradeData.class));
     }
     
     @Test
     void testSaveSystemBTrade() throws Exception {
         // Arrange
         when(objectMapper.writeValueAsString(any(TradeDataDto.class))).thenReturn("{}");
-        when(tradeDataRepository.findByTradeIdAndSourceSystem(anyString(), anyString())).thenReturn(Optional.empty());
+        when(tradeDataRepository.findLatestLeg(anyString(), anyString())).thenReturn(Optional.empty());
+        when(tradeLegHeadRepository.claimNextVersion("T123456", "System B")).thenReturn(1L);
         when(tradeDataRepository.save(any(TradeData.class))).thenReturn(tradeData);
-        doNothing().when(reconciliationService).triggerReconciliation(anyString());
+        doNothing().when(reconciliationService).triggerReconciliation(any(TradeData.class));
         
         // Act
         TradeData result = tradeDataService.saveSystemBTrade(tradeDataDto);
@@ -126,15 +202,15 @@ void testSaveSystemBTrade() throws Exception {
         assertNotNull(result);
         assertEquals("T123456", result.getTradeId());
         
-        verify(tradeDataRepository).findByTradeIdAndSourceSystem("T123456", "System B");
+        verify(tradeDataRepository).findLatestLeg("T123456", "System B");
         verify(tradeDataRepository).save(any(TradeData.class));
-        verify(reconciliationService).triggerReconciliation("T123456");
+        verify(reconciliationService).triggerReconciliation(tradeData);
     }
     
     @Test
     void testFindByTradeIdAndSourceSystem() {
         // Arrange
-        when(tradeDataRepository.findByTradeIdAndSourceSystem(anyString(), anyString())).thenReturn(Optional.of(tradeData));
+        when(tradeDataRepository.findLatestLeg(anyString(), anyString())).thenReturn(Optional.of(tradeData));
         
         // Act
         Optional<TradeData> result = tradeDataService.findByTradeIdAndSourceSystem("T123456", "System A");
@@ -144,6 +220,6 @@ void testFindByTradeIdAndSourceSystem() {
         assertEquals(true, result.isPresent());
         assertEquals("T123456", result.get().getTradeId());
         
-        verify(tradeDataRepository).findByTradeIdAndSourceSystem("T123456", "System A");
+        verify(tradeDataRepository).findLatestLeg("T123456", "System A");
     }
-} 
\ No newline at end of file
+}
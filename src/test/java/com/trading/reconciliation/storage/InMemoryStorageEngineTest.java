@@ -0,0 +1,158 @@
+package com.trading.reconciliation.storage;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.trading.reconciliation.model.ReconciliationStatus;
+import com.trading.reconciliation.model.TradeData;
+import com.trading.reconciliation.model.TradeReconciliation;
+import com.trading.reconciliation.repository.TradeReconciliationRepository.PendingReconciliation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.spy;
+
+public class InMemoryStorageEngineTest extends StorageContractTest {
+    
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    
+    @TempDir
+    Path directory;
+    
+    private InMemoryStorageEngine engine;
+    
+    @BeforeEach
+    void setUp() throws Exception {
+        engine = new InMemoryStorageEngine(objectMapper, 4, directory.toString());
+        engine.restore();
+    }
+    
+    @Override
+    protected TradeLegStore legStore() {
+        return engine;
+    }
+    
+    @Override
+    protected ReconciliationStore reconciliationStore() {
+        return engine;
+    }
+    
+    @Test
+    void testAppendVersion_ConcurrentAmendmentsGetConsecutiveVersions() throws Exception {
+        int amendments = 200;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < amendments; i++) {
+            executor.submit(() -> {
+                start.await();
+                return engine.appendVersion(leg("M1"));
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        
+        List<TradeData> versions = engine.findAllVersions("M1");
+        assertEquals(amendments, versions.size());
+        for (int i = 0; i < amendments; i++) {
+            assertEquals(i + 1L, versions.get(i).getVersion());
+        }
+    }
+    
+    @Test
+    void testReadsAndWritesCopy_AndSaveRejectsSecondReconciliationOfATrade() {
+        TradeReconciliation saved = engine.save(TradeReconciliation.builder()
+                .tradeId("M2")
+                .status(ReconciliationStatus.PENDING)
+                .build());
+        saved.setStatus(ReconciliationStatus.ERROR);
+        engine.findByTradeId("M2").orElseThrow().setStatus(ReconciliationStatus.MATCHED);
+        
+        assertEquals(ReconciliationStatus.PENDING, engine.findByTradeId("M2").orElseThrow().getStatus());
+        assertThrows(DataIntegrityViolationException.class, () -> engine.save(TradeReconciliation.builder()
+                .tradeId("M2")
+                .status(ReconciliationStatus.MATCHED)
+                .build()));
+    }
+    
+    @Test
+    void testSnapshot_IsRestoredByANewEngine() throws Exception {
+        engine.appendVersion(leg("M3"));
+        TradeData amendment = engine.appendVersion(leg("M3"));
+        TradeReconciliation pending = engine.save(TradeReconciliation.builder()
+                .tradeId("M3")
+                .status(ReconciliationStatus.PENDING)
+                .build());
+        engine.snapshot();
+        assertTrue(Files.exists(directory.resolve(InMemoryStorageEngine.SNAPSHOT_FILE)));
+        
+        InMemoryStorageEngine restored = new InMemoryStorageEngine(objectMapper, 16, directory.toString());
+        restored.restore();
+        
+        TradeData latest = restored.findLatestLeg("M3", "System A").orElseThrow();
+        assertEquals(amendment.getId(), latest.getId());
+        assertEquals(2L, latest.getVersion());
+        assertEquals(pending.getCreatedAt(), restored.findByTradeId("M3").orElseThrow().getCreatedAt());
+        assertEquals(List.of("M3"), restored.findPendingAfter(0, 0, 1, 10).stream()
+                .map(PendingReconciliation::getTradeId)
+                .toList());
+        
+        // Ids continue after the restored ones
+        assertTrue(restored.appendVersion(leg("M4")).getId() > amendment.getId());
+        assertFalse(restored.findByTradeId("M4").isPresent());
+    }
+    
+    @Test
+    void testSnapshot_IsNotChangedByAnExpiryAfterTheStripesWereRead() throws Exception {
+        ObjectMapper snapshotMapper = spy(objectMapper);
+        InMemoryStorageEngine snapshotEngine = new InMemoryStorageEngine(snapshotMapper, 4, directory.toString());
+        snapshotEngine.save(TradeReconciliation.builder()
+                .tradeId("M5")
+                .status(ReconciliationStatus.PENDING)
+                .build());
+        LocalDateTime now = LocalDateTime.now();
+        
+        // The trade times out once the stripes were read, before the snapshot is serialized
+        doAnswer(invocation -> {
+            snapshotEngine.expirePendingByTradeIds(List.of("M5"), now.plusMinutes(1), "Timed out", now);
+            return invocation.callRealMethod();
+        }).when(snapshotMapper).writer();
+        snapshotEngine.snapshot();
+        
+        InMemoryStorageEngine restored = new InMemoryStorageEngine(objectMapper, 4, directory.toString());
+        restored.restore();
+        TradeReconciliation captured = restored.findByTradeId("M5").orElseThrow();
+        assertEquals(ReconciliationStatus.PENDING, captured.getStatus());
+        assertNull(captured.getDetails());
+        assertEquals(ReconciliationStatus.RECONCILIATION_TIMEOUT, snapshotEngine.findByTradeId("M5").orElseThrow().getStatus());
+    }
+    
+    private TradeData leg(String tradeId) {
+        return TradeData.builder()
+                .tradeId(tradeId)
+                .instrument("AAPL")
+                .quantity(new BigDecimal("100"))
+                .price(new BigDecimal("150.75"))
+                .tradeDate(LocalDateTime.of(2023, 6, 15, 10, 30))
+                .counterparty("BROKER_A")
+                .sourceSystem("System A")
+                .receivedAt(LocalDateTime.now())
+                .build();
+    }
+}
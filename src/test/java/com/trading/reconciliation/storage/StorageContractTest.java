@@ -0,0 +1,210 @@
+package com.trading.reconciliation.storage;
+
+import com.trading.reconciliation.dto.ReconciliationTaskMessage;
+import com.trading.reconciliation.messaging.DeskLanes;
+import com.trading.reconciliation.messaging.ReconciliationTaskTransport;
+import com.trading.reconciliation.model.ReconciliationStatus;
+import com.trading.reconciliation.model.TradeData;
+import com.trading.reconciliation.model.TradeReconciliation;
+import com.trading.reconciliation.repository.ArchivedTradeReconciliationRepository;
+import com.trading.reconciliation.repository.ReconciliationViewRepository;
+import com.trading.reconciliation.repository.TradeReconciliationRepository.ExpiredReconciliation;
+import com.trading.reconciliation.repository.TradeReconciliationRepository.PendingReconciliation;
+import com.trading.reconciliation.service.LeaseService;
+import com.trading.reconciliation.service.LegSnapshotCache;
+import com.trading.reconciliation.service.ReconciliationOutcomeEvent;
+import com.trading.reconciliation.service.ReconciliationServiceImpl;
+import com.trading.reconciliation.service.ReconciliationTimeoutService;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Behaviour every storage engine must have, run against each engine by a subclass
+ */
+public abstract class StorageContractTest {
+
+    private static final String SYSTEM_A = "System A";
+    private static final String SYSTEM_B = "System B";
+
+    protected abstract TradeLegStore legStore();
+
+    protected abstract ReconciliationStore reconciliationStore();
+
+    @Test
+    void testAppendVersion_NumbersTheVersionsOfEachLeg() {
+        TradeData first = legStore().appendVersion(leg("C1", SYSTEM_A, "100"));
+        TradeData amendment = legStore().appendVersion(leg("C1", SYSTEM_A, "110"));
+        legStore().appendVersion(leg("C1", SYSTEM_B, "100"));
+
+        assertNotNull(first.getId());
+        assertEquals(1L, first.getVersion());
+        assertEquals(2L, amendment.getVersion());
+
+        TradeData latest = legStore().findLatestLeg("C1", SYSTEM_A).orElseThrow();
+        assertEquals(amendment.getId(), latest.getId());
+        assertEquals(0, new BigDecimal("110").compareTo(latest.getQuantity()));
+        assertEquals(1L, legStore().findLatestLeg("C1", SYSTEM_B).orElseThrow().getVersion());
+        assertTrue(legStore().findLatestLeg("C2", SYSTEM_A).isEmpty());
+
+        assertEquals(List.of("System A:1", "System A:2", "System B:1"), legStore().findAllVersions("C1").stream()
+                .map(leg -> leg.getSourceSystem() + ":" + leg.getVersion())
+                .toList());
+    }
+
+    @Test
+    void testSave_AssignsIdAndTimesAndUpdatesInPlace() {
+        TradeReconciliation reconciliation = reconciliationStore().save(reconciliation("C3", ReconciliationStatus.PENDING));
+
+        assertNotNull(reconciliation.getId());
+        assertNotNull(reconciliation.getCreatedAt());
+        assertNotNull(reconciliation.getUpdatedAt());
+
+        TradeReconciliation loaded = reconciliationStore().findByTradeId("C3").orElseThrow();
+        loaded.setStatus(ReconciliationStatus.MATCHED);
+        reconciliationStore().save(loaded);
+
+        assertEquals(ReconciliationStatus.MATCHED, reconciliationStore().findByTradeId("C3").orElseThrow().getStatus());
+        assertEquals(reconciliation.getId(), reconciliationStore().findVersionByTradeId("C3").orElseThrow().getId());
+        assertEquals(List.of("C3"), reconciliationStore().findByTradeIdIn(List.of("C3", "C4")).stream()
+                .map(TradeReconciliation::getTradeId)
+                .toList());
+        assertTrue(reconciliationStore().findVersionByTradeId("C4").isEmpty());
+    }
+
+    @Test
+    void testExpire_TimesOutOnlyPendingReconciliationsPastTheThreshold() {
+        TradeReconciliation first = reconciliationStore().save(reconciliation("C5", ReconciliationStatus.PENDING));
+        reconciliationStore().save(reconciliation("C6", ReconciliationStatus.MATCHED));
+        TradeReconciliation second = reconciliationStore().save(reconciliation("C7", ReconciliationStatus.PENDING));
+        reconciliationStore().save(reconciliation("C8", ReconciliationStatus.PENDING));
+
+        List<PendingReconciliation> page = reconciliationStore().findPendingAfter(0, 0, 1, 2);
+        assertEquals(List.of("C5", "C7"), page.stream().map(PendingReconciliation::getTradeId).toList());
+        assertEquals(List.of("C8"), reconciliationStore().findPendingAfter(second.getId(), 0, 1, 2).stream()
+                .map(PendingReconciliation::getTradeId)
+                .toList());
+
+        // C5 and C7 hash to partition 0 of 2, C8 to partition 1
+        assertEquals(List.of("C5", "C7"), reconciliationStore().findPendingAfter(0, 0, 2, 5).stream()
+                .map(PendingReconciliation::getTradeId)
+                .toList());
+        assertEquals(List.of("C8"), reconciliationStore().findPendingAfter(0, 1, 2, 5).stream()
+                .map(PendingReconciliation::getTradeId)
+                .toList());
+
+        LocalDateTime now = LocalDateTime.now();
+        assertTrue(reconciliationStore().expirePendingByTradeIds(List.of("C5", "C6"),
+                first.getCreatedAt().minusSeconds(1), "Timed out", now).isEmpty());
+
+        List<ExpiredReconciliation> expired = reconciliationStore().expirePendingByTradeIds(List.of("C5", "C6"),
+                now.plusMinutes(1), "Timed out", now);
+        assertEquals(List.of("C5"), expired.stream().map(ExpiredReconciliation::getTradeId).toList());
+        assertEquals("BROKER_A", expired.get(0).getCounterparty());
+
+        assertEquals(2, reconciliationStore().expireTimedOutPending(now.plusMinutes(1), "Timed out", now, 5).size());
+        assertTrue(reconciliationStore().expireTimedOutPending(now.plusMinutes(1), "Timed out", now, 5).isEmpty());
+    }
+
+    @Test
+    void testReconciliationService_MatchesTheLatestVersionsOfBothLegs() {
+        ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+        ReconciliationTimeoutService timeoutService = mock(ReconciliationTimeoutService.class);
+        ReconciliationServiceImpl reconciliationService = new ReconciliationServiceImpl(legStore(),
+                reconciliationStore(), mock(ArchivedTradeReconciliationRepository.class),
+                mock(ReconciliationViewRepository.class), mock(ReconciliationTaskTransport.class),
+                mock(DeskLanes.class), mock(LegSnapshotCache.class), timeoutService, mock(LeaseService.class),
+                eventPublisher);
+
+        legStore().appendVersion(leg("C9", SYSTEM_A, "100"));
+        reconciliationService.executeReconciliation("C9");
+        TradeReconciliation pending = reconciliationStore().findByTradeId("C9").orElseThrow();
+        assertEquals(ReconciliationStatus.PENDING, pending.getStatus());
+        verify(timeoutService).scheduleTimeout(eq("C9"), any(LocalDateTime.class));
+
+        legStore().appendVersion(leg("C9", SYSTEM_B, "100"));
+        reconciliationService.executeReconciliation("C9");
+        assertEquals(ReconciliationStatus.MATCHED, reconciliationStore().findByTradeId("C9").orElseThrow().getStatus());
+
+        legStore().appendVersion(leg("C9", SYSTEM_B, "90"));
+        reconciliationService.executeReconciliation("C9");
+        TradeReconciliation mismatched = reconciliationStore().findByTradeId("C9").orElseThrow();
+        assertEquals(ReconciliationStatus.MISMATCHED, mismatched.getStatus());
+        assertEquals("quantity", mismatched.getMismatchedFields());
+        assertEquals(1L, mismatched.getSystemAVersion());
+        assertEquals(2L, mismatched.getSystemBVersion());
+        assertEquals(pending.getId(), mismatched.getId());
+        verify(eventPublisher, times(3)).publishEvent(any(ReconciliationOutcomeEvent.class));
+    }
+
+    @Test
+    void testReconciliationService_SkipsASnapshotOlderThanTheStoredOutcome() {
+        ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+        LegSnapshotCache legSnapshotCache = new LegSnapshotCache(100);
+        ReconciliationServiceImpl reconciliationService = new ReconciliationServiceImpl(legStore(),
+                reconciliationStore(), mock(ArchivedTradeReconciliationRepository.class),
+                mock(ReconciliationViewRepository.class), mock(ReconciliationTaskTransport.class),
+                mock(DeskLanes.class), legSnapshotCache, mock(ReconciliationTimeoutService.class),
+                mock(LeaseService.class), eventPublisher);
+
+        TradeData first = legStore().appendVersion(leg("C10", SYSTEM_A, "100"));
+        legStore().appendVersion(leg("C10", SYSTEM_A, "90"));
+        legStore().appendVersion(leg("C10", SYSTEM_B, "100"));
+        reconciliationService.executeReconciliation("C10");
+
+        // The task of the first version arrives last, on a cache that has never seen the second
+        reconciliationService.executeReconciliation(ReconciliationTaskMessage.builder()
+                .tradeId("C10")
+                .sourceSystem(SYSTEM_A)
+                .legId(first.getId())
+                .version(first.getVersion())
+                .instrument(first.getInstrument())
+                .quantity(first.getQuantity())
+                .price(first.getPrice())
+                .tradeDate(first.getTradeDate())
+                .counterparty(first.getCounterparty())
+                .build());
+
+        TradeReconciliation reconciliation = reconciliationStore().findByTradeId("C10").orElseThrow();
+        assertEquals(ReconciliationStatus.MISMATCHED, reconciliation.getStatus());
+        assertEquals(2L, reconciliation.getSystemAVersion());
+        assertTrue(legSnapshotCache.get("C10", SYSTEM_A).isEmpty());
+        verify(eventPublisher, times(1)).publishEvent(any(ReconciliationOutcomeEvent.class));
+    }
+
+    private TradeData leg(String tradeId, String sourceSystem, String quantity) {
+        return TradeData.builder()
+                .tradeId(tradeId)
+                .instrument("AAPL")
+                .quantity(new BigDecimal(quantity))
+                .price(new BigDecimal("150.75"))
+                .tradeDate(LocalDateTime.of(2023, 6, 15, 10, 30))
+                .counterparty("BROKER_A")
+                .sourceSystem(sourceSystem)
+                .receivedAt(LocalDateTime.now())
+                .rawData("{}")
+                .build();
+    }
+
+    private TradeReconciliation reconciliation(String tradeId, ReconciliationStatus status) {
+        return TradeReconciliation.builder()
+                .tradeId(tradeId)
+                .status(status)
+                .details("Waiting for data from System B")
+                .counterparty("BROKER_A")
+                .instrument("AAPL")
+                .build();
+    }
+}
@@ -0,0 +1,24 @@
+package com.trading.reconciliation.storage;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class TradePartitionsTest {
+    
+    @Test
+    void testHash_MatchesTheLeadingMd5BytesAsPostgresReadsThem() {
+        // SELECT CAST(CAST('x' || substr(md5('C5'), 1, 8) AS bit(32)) AS int) = -22539308
+        assertEquals(-22539308, TradePartitions.hash("C5"));
+        assertEquals(1367163632, TradePartitions.hash("C7"));
+        assertEquals(-2117325901, TradePartitions.hash("TRADE-1"));
+    }
+    
+    @Test
+    void testPartitionOf_IsNeverNegative() {
+        assertEquals(0, TradePartitions.partitionOf("C5", 2));
+        assertEquals(1, TradePartitions.partitionOf("C5", 3));
+        assertEquals(3, TradePartitions.partitionOf("TRADE-1", 4));
+        assertEquals(0, TradePartitions.partitionOf("TRADE-1", 1));
+    }
+}